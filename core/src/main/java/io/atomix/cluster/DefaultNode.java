@@ -0,0 +1,187 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.cluster;
+
+import java.net.InetAddress;
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Default cluster node.
+ * <p>
+ * Nodes are identified by their {@link NodeId}. The {@link #zone() zone} and {@link #rack() rack} of a node are
+ * optional, but topology-aware protocols can only distinguish nearby nodes from distant nodes if they're set.
+ */
+public final class DefaultNode implements Node {
+
+  /**
+   * Returns a new node builder.
+   *
+   * @return a new node builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private final NodeId nodeId;
+  private final InetAddress address;
+  private final int port;
+  private final String zone;
+  private final String rack;
+
+  public DefaultNode(NodeId nodeId, InetAddress address, int port, String zone, String rack) {
+    this.nodeId = checkNotNull(nodeId, "nodeId cannot be null");
+    this.address = checkNotNull(address, "address cannot be null");
+    this.port = port;
+    this.zone = zone;
+    this.rack = rack;
+  }
+
+  @Override
+  public NodeId nodeId() {
+    return nodeId;
+  }
+
+  @Override
+  public InetAddress getAddress() {
+    return address;
+  }
+
+  @Override
+  public int getPort() {
+    return port;
+  }
+
+  @Override
+  public String zone() {
+    return zone;
+  }
+
+  @Override
+  public String rack() {
+    return rack;
+  }
+
+  @Override
+  public int hashCode() {
+    return nodeId.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (object instanceof DefaultNode) {
+      DefaultNode that = (DefaultNode) object;
+      return this.nodeId.equals(that.nodeId)
+          && this.address.equals(that.address)
+          && this.port == that.port
+          && Objects.equals(this.zone, that.zone)
+          && Objects.equals(this.rack, that.rack);
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("nodeId", nodeId)
+        .add("address", address)
+        .add("port", port)
+        .add("zone", zone)
+        .add("rack", rack)
+        .toString();
+  }
+
+  /**
+   * Node builder.
+   */
+  public static class Builder implements io.atomix.utils.Builder<DefaultNode> {
+    protected NodeId nodeId;
+    protected InetAddress address = InetAddress.getLoopbackAddress();
+    protected int port;
+    protected String zone;
+    protected String rack;
+
+    /**
+     * Sets the node identifier.
+     *
+     * @param nodeId the node identifier
+     * @return the node builder
+     * @throws NullPointerException if the node identifier is null
+     */
+    public Builder withNodeId(NodeId nodeId) {
+      this.nodeId = checkNotNull(nodeId, "nodeId cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the node address.
+     *
+     * @param address the node address
+     * @return the node builder
+     * @throws NullPointerException if the address is null
+     */
+    public Builder withAddress(InetAddress address) {
+      this.address = checkNotNull(address, "address cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the TCP port on which the node listens for connections.
+     *
+     * @param port the node port
+     * @return the node builder
+     * @throws IllegalArgumentException if the port is not a valid port number
+     */
+    public Builder withPort(int port) {
+      checkArgument(port >= 0 && port <= 65535, "invalid port: %s", port);
+      this.port = port;
+      return this;
+    }
+
+    /**
+     * Sets the zone in which the node is located.
+     *
+     * @param zone the node zone
+     * @return the node builder
+     */
+    public Builder withZone(String zone) {
+      this.zone = zone;
+      return this;
+    }
+
+    /**
+     * Sets the rack in which the node is located within its zone.
+     *
+     * @param rack the node rack
+     * @return the node builder
+     */
+    public Builder withRack(String rack) {
+      this.rack = rack;
+      return this;
+    }
+
+    /**
+     * @throws NullPointerException if the node identifier is not set
+     */
+    @Override
+    public DefaultNode build() {
+      return new DefaultNode(nodeId, address, port, zone, rack);
+    }
+  }
+}
@@ -84,4 +84,27 @@ public interface Node {
    */
   int getPort();
 
+  /**
+   * Returns the zone in which the node is located.
+   * <p>
+   * Zones group nodes that share a failure domain and inexpensive network links, e.g. a data center or an
+   * availability zone. The zone of a {@link DefaultNode} is set by {@link DefaultNode.Builder#withZone(String)}.
+   *
+   * @return the node zone or {@code null} if the zone is unknown
+   */
+  default String zone() {
+    return null;
+  }
+
+  /**
+   * Returns the rack in which the node is located within its zone.
+   * <p>
+   * The rack of a {@link DefaultNode} is set by {@link DefaultNode.Builder#withRack(String)}.
+   *
+   * @return the node rack or {@code null} if the rack is unknown
+   */
+  default String rack() {
+    return null;
+  }
+
 }
@@ -15,10 +15,12 @@
  */
 package io.atomix.messaging;
 
+import java.nio.ByteBuffer;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * Interface for low level messaging primitives.
@@ -57,6 +59,26 @@ public interface MessagingService {
    */
   CompletableFuture<byte[]> sendAndReceive(Endpoint ep, String type, byte[] payload, Executor executor);
 
+  /**
+   * Sends a message asynchronously and decodes the response in place.
+   * <p>
+   * The response buffer passed to the decoder may be a view of the transport's pooled memory and is only valid
+   * for the duration of the decoder call. Implementations may invoke the decoder on an I/O thread, so decoders
+   * should not block.
+   *
+   * @param ep       end point to send the message to.
+   * @param type     type of message.
+   * @param payload  message payload.
+   * @param decoder  function with which to decode the response buffer.
+   * @param executor executor over which any follow up actions after completion will be executed.
+   * @param <T>      the decoded response type
+   * @return a future to be completed with the decoded response
+   */
+  default <T> CompletableFuture<T> sendAndReceive(
+      Endpoint ep, String type, byte[] payload, Function<ByteBuffer, T> decoder, Executor executor) {
+    return sendAndReceive(ep, type, payload, executor).thenApply(bytes -> decoder.apply(ByteBuffer.wrap(bytes)));
+  }
+
   /**
    * Registers a new message handler for message type.
    *
@@ -83,6 +105,35 @@ public interface MessagingService {
    */
   void registerHandler(String type, BiFunction<Endpoint, byte[], CompletableFuture<byte[]>> handler);
 
+  /**
+   * Registers a new message handler for message type that reads the message payload in place.
+   * <p>
+   * The payload buffer may be a view of the transport's pooled memory and is only valid until the handler returns.
+   *
+   * @param type     message type.
+   * @param handler  message handler
+   * @param executor executor to use for running message handler logic.
+   */
+  default void registerBufferHandler(String type, BiFunction<Endpoint, ByteBuffer, byte[]> handler, Executor executor) {
+    registerHandler(type, (BiFunction<Endpoint, byte[], byte[]>) (endpoint, payload) ->
+        handler.apply(endpoint, ByteBuffer.wrap(payload)), executor);
+  }
+
+  /**
+   * Registers a new message handler for message type that reads the message payload in place.
+   * <p>
+   * The payload buffer may be a view of the transport's pooled memory and is only valid until the handler returns,
+   * so the payload must be decoded before the handler returns rather than when the returned future is completed.
+   * Implementations may invoke the handler on an I/O thread, so handlers should not block.
+   *
+   * @param type    message type.
+   * @param handler message handler
+   */
+  default void registerBufferHandler(String type, BiFunction<Endpoint, ByteBuffer, CompletableFuture<byte[]>> handler) {
+    registerHandler(type, (BiFunction<Endpoint, byte[], CompletableFuture<byte[]>>) (endpoint, payload) ->
+        handler.apply(endpoint, ByteBuffer.wrap(payload)));
+  }
+
   /**
    * Unregister current handler, if one exists for message type.
    *
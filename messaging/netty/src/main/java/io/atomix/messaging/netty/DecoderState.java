@@ -17,15 +17,16 @@ package io.atomix.messaging.netty;
 
 /**
  * State transitions a decoder goes through as it is decoding an incoming message.
+ * <p>
+ * The preamble and sender states are only passed through once per connection, while reading the handshake.
  */
 public enum DecoderState {
   READ_MESSAGE_PREAMBLE,
-  READ_MESSAGE_ID,
   READ_SENDER_IP,
   READ_SENDER_PORT,
-  READ_MESSAGE_TYPE_LENGTH,
-  READ_MESSAGE_TYPE,
+  READ_MESSAGE_ID,
   READ_MESSAGE_STATUS,
+  READ_MESSAGE_TYPE,
   READ_CONTENT_LENGTH,
   READ_CONTENT
 }
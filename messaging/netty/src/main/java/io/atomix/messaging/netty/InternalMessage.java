@@ -17,12 +17,20 @@ package io.atomix.messaging.netty;
 
 import io.atomix.messaging.Endpoint;
 import io.atomix.utils.ArraySizeHashPrinter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+import java.nio.ByteBuffer;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 
 /**
  * Internal message representation with additional attributes
  * for supporting, synchronous request/reply behavior.
+ * <p>
+ * Inbound messages may hold their payload as a retained slice of the transport's pooled buffer rather than as a
+ * byte array. Such messages must be {@link #release() released} once they have been dispatched, and the payload
+ * must be read with {@link #payload()} or {@link #payloadBuffer()} before the message is released.
  */
 public final class InternalMessage {
 
@@ -94,7 +102,8 @@ public final class InternalMessage {
   private final long id;
   private final Endpoint sender;
   private final String type;
-  private final byte[] payload;
+  private byte[] payload;
+  private final ByteBuf buffer;
   private final Status status;
 
   public InternalMessage(int preamble,
@@ -124,6 +133,22 @@ public final class InternalMessage {
     this.sender = sender;
     this.type = type;
     this.payload = payload;
+    this.buffer = null;
+    this.status = status;
+  }
+
+  InternalMessage(int preamble,
+                  long id,
+                  Endpoint sender,
+                  String type,
+                  ByteBuf buffer,
+                  Status status) {
+    this.preamble = preamble;
+    this.id = id;
+    this.sender = sender;
+    this.type = type;
+    this.payload = null;
+    this.buffer = buffer;
     this.status = status;
   }
 
@@ -151,10 +176,47 @@ public final class InternalMessage {
     return sender;
   }
 
+  /**
+   * Returns the message payload, copying the payload out of the message buffer if necessary.
+   *
+   * @return the message payload
+   */
   public byte[] payload() {
+    if (payload == null) {
+      payload = ByteBufUtil.getBytes(buffer);
+    }
     return payload;
   }
 
+  /**
+   * Returns a view of the message payload.
+   * <p>
+   * If the payload is held in a pooled buffer, the returned view is only valid until the message is released.
+   *
+   * @return a view of the message payload
+   */
+  public ByteBuffer payloadBuffer() {
+    return payload != null ? ByteBuffer.wrap(payload) : buffer.nioBuffer();
+  }
+
+  /**
+   * Retains the message payload buffer, if any.
+   */
+  void retain() {
+    if (buffer != null) {
+      buffer.retain();
+    }
+  }
+
+  /**
+   * Releases the message payload buffer, if any.
+   */
+  void release() {
+    if (buffer != null) {
+      buffer.release();
+    }
+  }
+
   public Status status() {
     return status;
   }
@@ -166,7 +228,7 @@ public final class InternalMessage {
         .add("type", type)
         .add("sender", sender)
         .add("status", status)
-        .add("payload", ArraySizeHashPrinter.of(payload))
+        .add("payload", payload != null ? ArraySizeHashPrinter.of(payload) : buffer)
         .toString();
   }
 }
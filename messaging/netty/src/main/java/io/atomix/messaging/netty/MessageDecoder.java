@@ -24,22 +24,30 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ReplayingDecoder;
 
 import java.net.InetAddress;
+import java.util.ArrayList;
 import java.util.List;
 
 import static com.google.common.base.Preconditions.checkState;
 
 /**
  * Decoder for inbound messages.
+ * <p>
+ * The decoder reads the connection handshake written by the {@link MessageEncoder} once and reuses the sender's
+ * {@link Endpoint} for all subsequent messages. Message types are resolved from the types interned on the connection,
+ * so decoding message headers does not allocate once each type has been seen. Payloads are not copied out of the
+ * inbound buffer; decoded messages hold a retained slice of the buffer until they're released.
  */
 public class MessageDecoder extends ReplayingDecoder<DecoderState> {
 
+  private static final byte[] EMPTY_PAYLOAD = new byte[0];
+
   private final Logger log = LoggerFactory.getLogger(getClass());
 
-  private long messageId;
+  private final List<String> messageTypes = new ArrayList<>();
   private int preamble;
   private InetAddress senderIp;
-  private int senderPort;
-  private int messageTypeLength;
+  private Endpoint sender;
+  private long messageId;
   private String messageType;
   private InternalMessage.Status status;
   private int contentLength;
@@ -58,9 +66,6 @@ public class MessageDecoder extends ReplayingDecoder<DecoderState> {
     switch (state()) {
       case READ_MESSAGE_PREAMBLE:
         preamble = buffer.readInt();
-        checkpoint(DecoderState.READ_MESSAGE_ID);
-      case READ_MESSAGE_ID:
-        messageId = buffer.readLong();
         checkpoint(DecoderState.READ_SENDER_IP);
       case READ_SENDER_IP:
         byte[] octets = new byte[buffer.readByte()];
@@ -68,15 +73,10 @@ public class MessageDecoder extends ReplayingDecoder<DecoderState> {
         senderIp = InetAddress.getByAddress(octets);
         checkpoint(DecoderState.READ_SENDER_PORT);
       case READ_SENDER_PORT:
-        senderPort = buffer.readInt();
-        checkpoint(DecoderState.READ_MESSAGE_TYPE_LENGTH);
-      case READ_MESSAGE_TYPE_LENGTH:
-        messageTypeLength = buffer.readShort();
-        checkpoint(DecoderState.READ_MESSAGE_TYPE);
-      case READ_MESSAGE_TYPE:
-        byte[] messageTypeBytes = new byte[messageTypeLength];
-        buffer.readBytes(messageTypeBytes);
-        messageType = new String(messageTypeBytes, Charsets.UTF_8);
+        sender = new Endpoint(senderIp, buffer.readInt());
+        checkpoint(DecoderState.READ_MESSAGE_ID);
+      case READ_MESSAGE_ID:
+        messageId = buffer.readLong();
         checkpoint(DecoderState.READ_MESSAGE_STATUS);
       case READ_MESSAGE_STATUS:
         int statusId = buffer.readByte();
@@ -85,33 +85,64 @@ public class MessageDecoder extends ReplayingDecoder<DecoderState> {
         } else {
           status = InternalMessage.Status.forId(statusId);
         }
+        checkpoint(DecoderState.READ_MESSAGE_TYPE);
+      case READ_MESSAGE_TYPE:
+        // only requests carry a message type
+        if (status == null) {
+          messageType = readMessageType(buffer);
+        } else {
+          messageType = "";
+        }
         checkpoint(DecoderState.READ_CONTENT_LENGTH);
       case READ_CONTENT_LENGTH:
         contentLength = buffer.readInt();
         checkpoint(DecoderState.READ_CONTENT);
       case READ_CONTENT:
-        byte[] payload;
+        InternalMessage message;
         if (contentLength > 0) {
-          //TODO Perform a sanity check on the size before allocating
-          payload = new byte[contentLength];
-          buffer.readBytes(payload);
+          // The payload is retained as a slice of the inbound buffer and must be released once dispatched.
+          message = new InternalMessage(preamble,
+              messageId,
+              sender,
+              messageType,
+              buffer.readRetainedSlice(contentLength),
+              status);
         } else {
-          payload = new byte[0];
+          message = new InternalMessage(preamble,
+              messageId,
+              sender,
+              messageType,
+              EMPTY_PAYLOAD,
+              status);
         }
-        InternalMessage message = new InternalMessage(preamble,
-            messageId,
-            new Endpoint(senderIp, senderPort),
-            messageType,
-            payload,
-            status);
         out.add(message);
-        checkpoint(DecoderState.READ_MESSAGE_PREAMBLE);
+        checkpoint(DecoderState.READ_MESSAGE_ID);
         break;
       default:
         checkState(false, "Must not be here");
     }
   }
 
+  /**
+   * Reads a message type, interning newly defined types.
+   */
+  private String readMessageType(ByteBuf buffer) {
+    int typeId = buffer.readInt();
+    if (typeId >= 0) {
+      checkState(typeId < messageTypes.size(), "Unknown message type ID %s", typeId);
+      return messageTypes.get(typeId);
+    }
+
+    byte[] messageTypeBytes = new byte[buffer.readShort()];
+    buffer.readBytes(messageTypeBytes);
+    String messageType = new String(messageTypeBytes, Charsets.UTF_8);
+    if (typeId != MessageEncoder.LITERAL_TYPE_ID) {
+      checkState(MessageEncoder.definitionId(messageTypes.size()) == typeId, "Unexpected message type ID %s", typeId);
+      messageTypes.add(messageType);
+    }
+    return messageType;
+  }
+
   @Override
   public void exceptionCaught(ChannelHandlerContext context, Throwable cause) {
     log.error("Exception inside channel handling pipeline.", cause);
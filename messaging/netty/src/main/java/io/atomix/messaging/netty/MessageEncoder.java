@@ -20,30 +20,53 @@ import io.atomix.logging.Logger;
 import io.atomix.logging.LoggerFactory;
 import io.atomix.messaging.Endpoint;
 import io.netty.buffer.ByteBuf;
-import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Encode InternalMessage out into a byte buffer.
+ * <p>
+ * The encoder writes a handshake containing the preamble and the sender's endpoint once per connection, before the
+ * first message sent on the connection. Message types are interned per connection: the first message of each type
+ * carries the type string along with a compact type ID, and subsequent messages of that type carry only the ID.
+ * Because the encoder tracks per-connection state, a new encoder must be created for each channel.
  */
-@ChannelHandler.Sharable
 public class MessageEncoder extends MessageToByteEncoder<Object> {
 // Effectively MessageToByteEncoder<InternalMessage>,
 // had to specify <Object> to avoid Class Loader not being able to find some classes.
 
+  /**
+   * Type ID indicating that the message type is written in full and not interned.
+   */
+  static final int LITERAL_TYPE_ID = -1;
+
+  /**
+   * Maximum number of message types to intern per connection.
+   */
+  static final int MAX_INTERNED_TYPES = 4096;
+
   private final Logger log = LoggerFactory.getLogger(getClass());
 
   private final int preamble;
+  private final Map<String, Integer> typeIds = new HashMap<>();
+  private boolean handshakeSent;
 
   public MessageEncoder(int preamble) {
     super();
     this.preamble = preamble;
   }
 
+  /**
+   * Encodes a type definition ID for the given interned type ID.
+   */
+  static int definitionId(int typeId) {
+    return -typeId - 2;
+  }
 
   @Override
   protected void encode(
@@ -53,33 +76,21 @@ public class MessageEncoder extends MessageToByteEncoder<Object> {
 
     InternalMessage message = (InternalMessage) rawMessage;
 
-    out.writeInt(this.preamble);
+    if (!handshakeSent) {
+      writeHandshake(message.sender(), out);
+      handshakeSent = true;
+    }
 
     // write message id
     out.writeLong(message.id());
 
-    Endpoint sender = message.sender();
-
-    InetAddress senderIp = sender.host();
-    byte[] senderIpBytes = senderIp.getAddress();
-    out.writeByte(senderIpBytes.length);
-    out.writeBytes(senderIpBytes);
-
-    // write sender port
-    out.writeInt(sender.port());
-
-    byte[] messageTypeBytes = message.type().getBytes(Charsets.UTF_8);
-
-    // write length of message type
-    out.writeShort(messageTypeBytes.length);
-
-    // write message type bytes
-    out.writeBytes(messageTypeBytes);
-
     // write message status value
     InternalMessage.Status status = message.status();
     if (status == null) {
       out.writeByte(-1);
+
+      // only requests carry a message type
+      writeMessageType(message.type(), out);
     } else {
       out.writeByte(status.id());
     }
@@ -93,6 +104,48 @@ public class MessageEncoder extends MessageToByteEncoder<Object> {
     out.writeBytes(payload);
   }
 
+  /**
+   * Writes the connection handshake.
+   */
+  private void writeHandshake(Endpoint sender, ByteBuf out) {
+    out.writeInt(this.preamble);
+
+    InetAddress senderIp = sender.host();
+    byte[] senderIpBytes = senderIp.getAddress();
+    out.writeByte(senderIpBytes.length);
+    out.writeBytes(senderIpBytes);
+
+    // write sender port
+    out.writeInt(sender.port());
+  }
+
+  /**
+   * Writes the message type, interning the type if it has not yet been sent on this connection.
+   */
+  private void writeMessageType(String messageType, ByteBuf out) {
+    Integer typeId = typeIds.get(messageType);
+    if (typeId != null) {
+      out.writeInt(typeId);
+      return;
+    }
+
+    if (typeIds.size() < MAX_INTERNED_TYPES) {
+      typeId = typeIds.size();
+      typeIds.put(messageType, typeId);
+      out.writeInt(definitionId(typeId));
+    } else {
+      out.writeInt(LITERAL_TYPE_ID);
+    }
+
+    byte[] messageTypeBytes = messageType.getBytes(Charsets.UTF_8);
+
+    // write length of message type
+    out.writeShort(messageTypeBytes.length);
+
+    // write message type bytes
+    out.writeBytes(messageTypeBytes);
+  }
+
   @Override
   public void exceptionCaught(ChannelHandlerContext context, Throwable cause) {
     if (cause instanceof IOException) {
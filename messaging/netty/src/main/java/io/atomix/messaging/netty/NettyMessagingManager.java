@@ -15,6 +15,7 @@
  */
 package io.atomix.messaging.netty;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
@@ -30,6 +31,7 @@ import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
@@ -41,15 +43,11 @@ import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.pool.AbstractChannelPoolHandler;
-import io.netty.channel.pool.AbstractChannelPoolMap;
-import io.netty.channel.pool.ChannelPool;
-import io.netty.channel.pool.ChannelPoolMap;
-import io.netty.channel.pool.SimpleChannelPool;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
-import io.netty.util.concurrent.FutureListener;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.apache.commons.math3.stat.descriptive.SynchronizedDescriptiveStatistics;
 
@@ -59,9 +57,12 @@ import javax.net.ssl.SSLEngine;
 import javax.net.ssl.TrustManagerFactory;
 import java.io.FileInputStream;
 import java.net.ConnectException;
+import java.nio.ByteBuffer;
 import java.security.KeyStore;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -93,16 +94,26 @@ public class NettyMessagingManager implements MessagingService {
   private static final long MIN_TIMEOUT_MILLIS = 100;
   private static final long MAX_TIMEOUT_MILLIS = 5000;
   private static final long TIMEOUT_INTERVAL = 50;
+  private static final long TIMER_TICK_MILLIS = 10;
   private static final int WINDOW_SIZE = 100;
   private static final double TIMEOUT_MULTIPLIER = 2.5;
   private static final short MIN_KS_LENGTH = 6;
+  private static final int CHANNEL_POOL_SIZE = 8;
+  private static final int MAX_PENDING_WRITE_BYTES = 64 * 1024;
 
   private static final byte[] EMPTY_PAYLOAD = new byte[0];
 
+  /**
+   * Messaging services running in this JVM with the in-JVM transport enabled, to which messages are delivered
+   * directly rather than over the network.
+   */
+  private static final Map<Endpoint, NettyMessagingManager> IN_JVM_MANAGERS = new ConcurrentHashMap<>();
+
   private final Logger log = LoggerFactory.getLogger(getClass());
 
   private final ClientConnection localClientConnection = new LocalClientConnection();
   private final ServerConnection localServerConnection = new LocalServerConnection(null);
+  private final Map<NettyMessagingManager, ClientConnection> inJvmConnections = Maps.newConcurrentMap();
 
   private final Endpoint localEndpoint;
   private final int preamble;
@@ -111,19 +122,16 @@ public class NettyMessagingManager implements MessagingService {
   private final Map<Channel, RemoteClientConnection> clientConnections = Maps.newConcurrentMap();
   private final Map<Channel, RemoteServerConnection> serverConnections = Maps.newConcurrentMap();
   private final AtomicLong messageIdGenerator = new AtomicLong(0);
+  private final AtomicLong messageCount = new AtomicLong();
+  private final AtomicLong flushCount = new AtomicLong();
 
   private final Cache<String, TimeoutHistory> timeoutHistories = CacheBuilder.newBuilder()
       .expireAfterAccess(HISTORY_EXPIRE_MILLIS, TimeUnit.MILLISECONDS)
       .build();
   private ScheduledFuture<?> timeoutFuture;
+  private HashedWheelTimer timeoutTimer;
 
-  private final ChannelPoolMap<Endpoint, SimpleChannelPool> channels =
-      new AbstractChannelPoolMap<Endpoint, SimpleChannelPool>() {
-        @Override
-        protected SimpleChannelPool newPool(Endpoint endpoint) {
-          return new SimpleChannelPool(bootstrapClient(endpoint), new ClientChannelPoolHandler());
-        }
-      };
+  private final Map<Endpoint, List<CompletableFuture<Channel>>> channels = Maps.newConcurrentMap();
 
   private EventLoopGroup serverGroup;
   private EventLoopGroup clientGroup;
@@ -134,6 +142,12 @@ public class NettyMessagingManager implements MessagingService {
   protected static final boolean TLS_DISABLED = false;
   protected boolean enableNettyTls = TLS_DISABLED;
 
+  protected static final boolean WRITE_BATCHING_ENABLED = true;
+  protected boolean enableWriteBatching = WRITE_BATCHING_ENABLED;
+
+  protected static final boolean IN_JVM_TRANSPORT_ENABLED = false;
+  protected boolean enableInJvmTransport = IN_JVM_TRANSPORT_ENABLED;
+
   protected String ksLocation;
   protected String tsLocation;
   protected char[] ksPwd;
@@ -159,16 +173,27 @@ public class NettyMessagingManager implements MessagingService {
    */
   private void activate() throws Exception {
     getTlsParameters();
+    String writeBatching = System.getProperty("enableNettyWriteBatching");
+    enableWriteBatching = Strings.isNullOrEmpty(writeBatching)
+        ? WRITE_BATCHING_ENABLED : Boolean.parseBoolean(writeBatching);
+    String inJvmTransport = System.getProperty("enableNettyInJvmTransport");
+    enableInJvmTransport = Strings.isNullOrEmpty(inJvmTransport)
+        ? IN_JVM_TRANSPORT_ENABLED : Boolean.parseBoolean(inJvmTransport);
     if (started.get()) {
       log.warn("Already running at local endpoint: {}", localEndpoint);
       return;
     }
     initEventLoopGroup();
     startAcceptingConnections();
+    timeoutTimer = new HashedWheelTimer(
+        namedThreads("atomix-messaging-timeout-%d", log), TIMER_TICK_MILLIS, TimeUnit.MILLISECONDS);
     timeoutExecutor = Executors.newSingleThreadScheduledExecutor(
-        namedThreads("atomix-messaging-timeout-%d", log));
+        namedThreads("atomix-messaging-timeout-history-%d", log));
     timeoutFuture = timeoutExecutor.scheduleAtFixedRate(
-        this::timeoutAllCallbacks, TIMEOUT_INTERVAL, TIMEOUT_INTERVAL, TimeUnit.MILLISECONDS);
+        this::recomputeTimeouts, TIMEOUT_INTERVAL, TIMEOUT_INTERVAL, TimeUnit.MILLISECONDS);
+    if (enableInJvmTransport) {
+      IN_JVM_MANAGERS.put(localEndpoint, this);
+    }
     started.set(true);
     log.info("Started");
   }
@@ -178,15 +203,73 @@ public class NettyMessagingManager implements MessagingService {
    */
   public void close() {
     if (started.get()) {
+      IN_JVM_MANAGERS.remove(localEndpoint, this);
+      inJvmConnections.clear();
+      for (List<CompletableFuture<Channel>> channelPool : channels.values()) {
+        synchronized (channelPool) {
+          for (CompletableFuture<Channel> channelFuture : channelPool) {
+            if (channelFuture != null) {
+              channelFuture.thenAccept(Channel::close);
+            }
+          }
+        }
+      }
+      channels.clear();
       serverGroup.shutdownGracefully();
       clientGroup.shutdownGracefully();
       timeoutFuture.cancel(false);
       timeoutExecutor.shutdown();
+      timeoutTimer.stop();
       started.set(false);
     }
     log.info("Stopped");
   }
 
+  /**
+   * Returns the total number of messages written to remote channels.
+   *
+   * @return the total number of messages written to remote channels
+   */
+  public long getMessageCount() {
+    return messageCount.get();
+  }
+
+  /**
+   * Returns the total number of flushes of pending writes to remote channels.
+   * <p>
+   * Each flush of pending writes results in at least one write to the underlying socket.
+   *
+   * @return the total number of flushes of pending writes to remote channels
+   */
+  public long getFlushCount() {
+    return flushCount.get();
+  }
+
+  /**
+   * Returns the number of requests sent to remote channels that are awaiting a reply.
+   *
+   * @return the number of requests sent to remote channels that are awaiting a reply
+   */
+  @VisibleForTesting
+  int getPendingReplyCount() {
+    return clientConnections.values().stream().mapToInt(connection -> connection.futures.size()).sum();
+  }
+
+  /**
+   * Returns a new handler to consolidate flushes for a channel.
+   */
+  private ChannelHandler newWriteBatchingHandler() {
+    return new WriteBatchingHandler(enableWriteBatching, MAX_PENDING_WRITE_BYTES, messageCount, flushCount);
+  }
+
+  /**
+   * Returns a new handler to dispatch inbound messages to registered handlers and response callbacks.
+   */
+  @VisibleForTesting
+  ChannelHandler newInboundMessageDispatcher() {
+    return new InboundMessageDispatcher();
+  }
+
   private void getTlsParameters() {
     String tempString = System.getProperty("enableNettyTLS");
     enableNettyTls = Strings.isNullOrEmpty(tempString) ? TLS_DISABLED : Boolean.parseBoolean(tempString);
@@ -234,20 +317,28 @@ public class NettyMessagingManager implements MessagingService {
   }
 
   /**
-   * Times out response callbacks.
+   * Recomputes the adaptive timeout for each message type.
+   * <p>
+   * Response callbacks are timed out individually by the timing wheel using the timeout for their message type at
+   * the time the request was sent.
    */
-  private void timeoutAllCallbacks() {
-    // Iterate through all connections and time out callbacks.
-    for (RemoteClientConnection connection : clientConnections.values()) {
-      connection.timeoutCallbacks();
-    }
-
-    // Iterate through all timeout histories and recompute the timeout.
+  private void recomputeTimeouts() {
     for (TimeoutHistory timeoutHistory : timeoutHistories.asMap().values()) {
       timeoutHistory.recomputeTimeoutMillis();
     }
   }
 
+  /**
+   * Returns the timeout history for the given message type.
+   */
+  private TimeoutHistory getTimeoutHistory(String type) {
+    try {
+      return timeoutHistories.get(type, TimeoutHistory::new);
+    } catch (ExecutionException e) {
+      throw new AssertionError();
+    }
+  }
+
   @Override
   public CompletableFuture<Void> sendAsync(Endpoint ep, String type, byte[] payload) {
     InternalMessage message = new InternalMessage(preamble,
@@ -255,7 +346,7 @@ public class NettyMessagingManager implements MessagingService {
         localEndpoint,
         type,
         payload);
-    return executeOnPooledConnection(ep, c -> c.sendAsync(message), MoreExecutors.directExecutor());
+    return executeOnPooledConnection(ep, type, c -> c.sendAsync(message), MoreExecutors.directExecutor());
   }
 
   @Override
@@ -271,19 +362,128 @@ public class NettyMessagingManager implements MessagingService {
         localEndpoint,
         type,
         payload);
-    return executeOnPooledConnection(ep, c -> c.sendAndReceive(message), executor);
+    return executeOnPooledConnection(ep, type, c -> c.sendAndReceive(message), executor);
+  }
+
+  @Override
+  public <T> CompletableFuture<T> sendAndReceive(
+      Endpoint ep, String type, byte[] payload, Function<ByteBuffer, T> decoder, Executor executor) {
+    Long messageId = messageIdGenerator.incrementAndGet();
+    InternalMessage message = new InternalMessage(preamble,
+        messageId,
+        localEndpoint,
+        type,
+        payload);
+    return executeOnPooledConnection(ep, type, c -> c.sendAndReceive(message, decoder), executor);
+  }
+
+  /**
+   * Returns the channel pool for the given endpoint.
+   *
+   * @param endpoint the endpoint for which to return the channel pool
+   * @return the channel pool for the given endpoint
+   */
+  private List<CompletableFuture<Channel>> getChannelPool(Endpoint endpoint) {
+    List<CompletableFuture<Channel>> channelPool = channels.get(endpoint);
+    if (channelPool != null) {
+      return channelPool;
+    }
+    return channels.computeIfAbsent(endpoint, e -> {
+      List<CompletableFuture<Channel>> defaultList = new ArrayList<>(CHANNEL_POOL_SIZE);
+      for (int i = 0; i < CHANNEL_POOL_SIZE; i++) {
+        defaultList.add(null);
+      }
+      return defaultList;
+    });
+  }
+
+  /**
+   * Returns the channel pool offset for the given message type.
+   * <p>
+   * Messages of the same type are always sent on the same channel to preserve their ordering.
+   *
+   * @param messageType the message type for which to return the offset
+   * @return the channel pool offset for the given message type
+   */
+  @VisibleForTesting
+  int getChannelOffset(String messageType) {
+    return Math.abs(messageType.hashCode() % CHANNEL_POOL_SIZE);
+  }
+
+  /**
+   * Returns a multiplexed channel to the given endpoint for the given message type.
+   * <p>
+   * Channels are long-lived and shared by all concurrent requests of a type, with responses correlated by message ID.
+   * If the channel for the message type has failed or been closed, a new channel is opened in its place.
+   *
+   * @param endpoint    the endpoint to which to return a channel
+   * @param messageType the type of the message to be sent on the channel
+   * @return a future to be completed with the channel
+   */
+  @VisibleForTesting
+  CompletableFuture<Channel> getChannel(Endpoint endpoint, String messageType) {
+    List<CompletableFuture<Channel>> channelPool = getChannelPool(endpoint);
+    int offset = getChannelOffset(messageType);
+
+    CompletableFuture<Channel> channelFuture;
+    synchronized (channelPool) {
+      channelFuture = channelPool.get(offset);
+      if (channelFuture == null || channelFuture.isCompletedExceptionally()
+          || (channelFuture.isDone() && !channelFuture.join().isActive())) {
+        channelFuture = openChannel(endpoint);
+        channelPool.set(offset, channelFuture);
+      }
+    }
+    return channelFuture;
+  }
+
+  /**
+   * Opens a new channel to the given endpoint.
+   *
+   * @param endpoint the endpoint to which to open a channel
+   * @return a future to be completed once the channel has been connected
+   */
+  private CompletableFuture<Channel> openChannel(Endpoint endpoint) {
+    CompletableFuture<Channel> future = new CompletableFuture<>();
+    bootstrapClient(endpoint).connect().addListener((ChannelFutureListener) channelFuture -> {
+      if (channelFuture.isSuccess()) {
+        future.complete(channelFuture.channel());
+      } else {
+        future.completeExceptionally(channelFuture.cause());
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Returns a connection to a messaging service running at the given endpoint in this JVM.
+   *
+   * @param endpoint the endpoint to which to return a connection
+   * @return a connection to the messaging service in this JVM, or {@code null} if the endpoint is not in this JVM
+   */
+  private ClientConnection getInJvmConnection(Endpoint endpoint) {
+    if (!enableInJvmTransport) {
+      return null;
+    }
+    NettyMessagingManager manager = IN_JVM_MANAGERS.get(endpoint);
+    if (manager == null || manager.preamble != preamble) {
+      return null;
+    }
+    return inJvmConnections.computeIfAbsent(manager, InJvmClientConnection::new);
   }
 
   /**
    * Executes the given callback on a pooled connection.
    *
-   * @param endpoint the endpoint to which to send a message
-   * @param callback the callback to execute to send the message
-   * @param <T>      the send result type
+   * @param endpoint    the endpoint to which to send a message
+   * @param messageType the type of the message to send
+   * @param callback    the callback to execute to send the message
+   * @param <T>         the send result type
    * @return a completable future to be completed with the result of the supplied function
    */
   private <T> CompletableFuture<T> executeOnPooledConnection(
       Endpoint endpoint,
+      String messageType,
       Function<ClientConnection, CompletableFuture<T>> callback,
       Executor executor) {
     if (endpoint.equals(localEndpoint)) {
@@ -298,20 +498,24 @@ public class NettyMessagingManager implements MessagingService {
       return future;
     }
 
+    ClientConnection inJvmConnection = getInJvmConnection(endpoint);
+    if (inJvmConnection != null) {
+      CompletableFuture<T> future = new CompletableFuture<>();
+      callback.apply(inJvmConnection).whenComplete((result, error) -> {
+        if (error == null) {
+          executor.execute(() -> future.complete(result));
+        } else {
+          executor.execute(() -> future.completeExceptionally(error));
+        }
+      });
+      return future;
+    }
+
     CompletableFuture<T> future = new CompletableFuture<>();
-    ChannelPool pool = channels.get(endpoint);
-    pool.acquire().addListener((FutureListener<Channel>) channelResult -> {
-      if (channelResult.isSuccess()) {
-        Channel channel = channelResult.getNow();
+    getChannel(endpoint, messageType).whenComplete((channel, channelError) -> {
+      if (channelError == null) {
         ClientConnection connection = clientConnections.computeIfAbsent(channel, RemoteClientConnection::new);
         callback.apply(connection).whenComplete((result, error) -> {
-          pool.release(channel).addListener(releaseResult -> {
-            if (!releaseResult.isSuccess()) {
-              clientConnections.remove(channel);
-              connection.close();
-            }
-          });
-
           if (error == null) {
             executor.execute(() -> future.complete(result));
           } else {
@@ -319,7 +523,7 @@ public class NettyMessagingManager implements MessagingService {
           }
         });
       } else {
-        executor.execute(() -> future.completeExceptionally(channelResult.cause()));
+        executor.execute(() -> future.completeExceptionally(channelError));
       }
     });
     return future;
@@ -327,22 +531,71 @@ public class NettyMessagingManager implements MessagingService {
 
   @Override
   public void registerHandler(String type, BiConsumer<Endpoint, byte[]> handler, Executor executor) {
-    handlers.put(type, (message, connection) -> executor.execute(() ->
-        handler.accept(message.sender(), message.payload())));
+    handlers.put(type, (message, connection) -> {
+      // The payload must be read before the message is released.
+      byte[] payload = message.payload();
+      executor.execute(() -> handler.accept(message.sender(), payload));
+    });
   }
 
   @Override
   public void registerHandler(String type, BiFunction<Endpoint, byte[], byte[]> handler, Executor executor) {
-    handlers.put(type, (message, connection) -> executor.execute(() -> {
-      byte[] responsePayload = null;
-      InternalMessage.Status status = InternalMessage.Status.OK;
+    handlers.put(type, (message, connection) -> {
+      // The payload must be read before the message is released.
+      byte[] payload = message.payload();
+      executor.execute(() -> {
+        byte[] responsePayload = null;
+        InternalMessage.Status status = InternalMessage.Status.OK;
+        try {
+          responsePayload = handler.apply(message.sender(), payload);
+        } catch (Exception e) {
+          status = InternalMessage.Status.ERROR_HANDLER_EXCEPTION;
+        }
+        connection.reply(message, status, Optional.ofNullable(responsePayload));
+      });
+    });
+  }
+
+  @Override
+  public void registerBufferHandler(String type, BiFunction<Endpoint, ByteBuffer, byte[]> handler, Executor executor) {
+    handlers.put(type, (message, connection) -> {
+      // Retain the payload buffer until the handler has been run.
+      message.retain();
+      try {
+        executor.execute(() -> {
+          byte[] responsePayload = null;
+          InternalMessage.Status status = InternalMessage.Status.OK;
+          try {
+            responsePayload = handler.apply(message.sender(), message.payloadBuffer());
+          } catch (Exception e) {
+            status = InternalMessage.Status.ERROR_HANDLER_EXCEPTION;
+          } finally {
+            message.release();
+          }
+          connection.reply(message, status, Optional.ofNullable(responsePayload));
+        });
+      } catch (RejectedExecutionException e) {
+        message.release();
+        throw e;
+      }
+    });
+  }
+
+  @Override
+  public void registerBufferHandler(String type, BiFunction<Endpoint, ByteBuffer, CompletableFuture<byte[]>> handler) {
+    handlers.put(type, (message, connection) -> {
+      CompletableFuture<byte[]> future;
       try {
-        responsePayload = handler.apply(message.sender(), message.payload());
+        future = handler.apply(message.sender(), message.payloadBuffer());
       } catch (Exception e) {
-        status = InternalMessage.Status.ERROR_HANDLER_EXCEPTION;
+        connection.reply(message, InternalMessage.Status.ERROR_HANDLER_EXCEPTION, Optional.empty());
+        return;
       }
-      connection.reply(message, status, Optional.ofNullable(responsePayload));
-    }));
+      future.whenComplete((result, error) -> {
+        InternalMessage.Status status = error == null ? InternalMessage.Status.OK : InternalMessage.Status.ERROR_HANDLER_EXCEPTION;
+        connection.reply(message, status, Optional.ofNullable(result));
+      });
+    });
   }
 
   @Override
@@ -372,7 +625,13 @@ public class NettyMessagingManager implements MessagingService {
     // http://normanmaurer.me/presentations/2014-facebook-eng-netty/slides.html#37.0
     bootstrap.channel(clientChannelClass);
     bootstrap.option(ChannelOption.SO_KEEPALIVE, true);
+    bootstrap.option(ChannelOption.TCP_NODELAY, true);
     bootstrap.remoteAddress(endpoint.host(), endpoint.port());
+    if (enableNettyTls) {
+      bootstrap.handler(new SslClientCommunicationChannelInitializer());
+    } else {
+      bootstrap.handler(new BasicChannelInitializer());
+    }
     return bootstrap;
   }
 
@@ -405,26 +664,11 @@ public class NettyMessagingManager implements MessagingService {
     });
   }
 
-  /**
-   * Channel pool handler.
-   */
-  private class ClientChannelPoolHandler extends AbstractChannelPoolHandler {
-    @Override
-    public void channelCreated(Channel channel) throws Exception {
-      if (enableNettyTls) {
-        new SslClientCommunicationChannelInitializer().initChannel((SocketChannel) channel);
-      } else {
-        new BasicChannelInitializer().initChannel((SocketChannel) channel);
-      }
-    }
-  }
-
   /**
    * Channel initializer for TLS servers.
    */
   private class SslServerCommunicationChannelInitializer extends ChannelInitializer<SocketChannel> {
-    private final ChannelHandler dispatcher = new InboundMessageDispatcher();
-    private final ChannelHandler encoder = new MessageEncoder(preamble);
+    private final ChannelHandler dispatcher = newInboundMessageDispatcher();
 
     @Override
     protected void initChannel(SocketChannel channel) throws Exception {
@@ -450,7 +694,8 @@ public class NettyMessagingManager implements MessagingService {
       serverSslEngine.setEnableSessionCreation(true);
 
       channel.pipeline().addLast("ssl", new io.netty.handler.ssl.SslHandler(serverSslEngine))
-          .addLast("encoder", encoder)
+          .addLast("batch", newWriteBatchingHandler())
+          .addLast("encoder", new MessageEncoder(preamble))
           .addLast("decoder", new MessageDecoder())
           .addLast("handler", dispatcher);
     }
@@ -460,8 +705,7 @@ public class NettyMessagingManager implements MessagingService {
    * Channel initializer for TLS clients.
    */
   private class SslClientCommunicationChannelInitializer extends ChannelInitializer<SocketChannel> {
-    private final ChannelHandler dispatcher = new InboundMessageDispatcher();
-    private final ChannelHandler encoder = new MessageEncoder(preamble);
+    private final ChannelHandler dispatcher = newInboundMessageDispatcher();
 
     @Override
     protected void initChannel(SocketChannel channel) throws Exception {
@@ -486,7 +730,8 @@ public class NettyMessagingManager implements MessagingService {
       clientSslEngine.setEnableSessionCreation(true);
 
       channel.pipeline().addLast("ssl", new io.netty.handler.ssl.SslHandler(clientSslEngine))
-          .addLast("encoder", encoder)
+          .addLast("batch", newWriteBatchingHandler())
+          .addLast("encoder", new MessageEncoder(preamble))
           .addLast("decoder", new MessageDecoder())
           .addLast("handler", dispatcher);
     }
@@ -496,13 +741,13 @@ public class NettyMessagingManager implements MessagingService {
    * Channel initializer for basic connections.
    */
   private class BasicChannelInitializer extends ChannelInitializer<SocketChannel> {
-    private final ChannelHandler dispatcher = new InboundMessageDispatcher();
-    private final ChannelHandler encoder = new MessageEncoder(preamble);
+    private final ChannelHandler dispatcher = newInboundMessageDispatcher();
 
     @Override
     protected void initChannel(SocketChannel channel) throws Exception {
       channel.pipeline()
-          .addLast("encoder", encoder)
+          .addLast("batch", newWriteBatchingHandler())
+          .addLast("encoder", new MessageEncoder(preamble))
           .addLast("decoder", new MessageDecoder())
           .addLast("handler", dispatcher);
     }
@@ -531,7 +776,23 @@ public class NettyMessagingManager implements MessagingService {
         }
       } catch (RejectedExecutionException e) {
         log.warn("Unable to dispatch message due to {}", e.getMessage());
+      } finally {
+        message.release();
+      }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext context) throws Exception {
+      RemoteClientConnection clientConnection = clientConnections.remove(context.channel());
+      if (clientConnection != null) {
+        clientConnection.close();
+      }
+
+      RemoteServerConnection serverConnection = serverConnections.remove(context.channel());
+      if (serverConnection != null) {
+        serverConnection.close();
       }
+      context.fireChannelInactive();
     }
 
     @Override
@@ -565,24 +826,49 @@ public class NettyMessagingManager implements MessagingService {
 
   /**
    * Wraps a {@link CompletableFuture} and tracks its type and creation time.
+   * <p>
+   * If the callback has a decoder, the response is decoded from the response payload buffer in place. Otherwise,
+   * the future is completed with a copy of the response payload.
    */
   private final class Callback {
     private final String type;
-    private final CompletableFuture<byte[]> future;
+    private final CompletableFuture<Object> future;
+    private final Function<ByteBuffer, ?> decoder;
     private final long time = System.currentTimeMillis();
+    private volatile Timeout timeout;
 
-    Callback(String type, CompletableFuture<byte[]> future) {
+    @SuppressWarnings("unchecked")
+    <T> Callback(String type, CompletableFuture<T> future, Function<ByteBuffer, T> decoder) {
       this.type = type;
-      this.future = future;
+      this.future = (CompletableFuture<Object>) future;
+      this.decoder = decoder;
     }
 
-    public void complete(byte[] value) {
-      future.complete(value);
+    public void complete(InternalMessage message) {
+      if (decoder == null) {
+        future.complete(message.payload());
+      } else {
+        try {
+          future.complete(decoder.apply(message.payloadBuffer()));
+        } catch (Exception e) {
+          future.completeExceptionally(e);
+        }
+      }
     }
 
     public void completeExceptionally(Throwable error) {
       future.completeExceptionally(error);
     }
+
+    /**
+     * Cancels the callback's timeout.
+     */
+    void cancelTimeout() {
+      Timeout timeout = this.timeout;
+      if (timeout != null) {
+        timeout.cancel();
+      }
+    }
   }
 
   /**
@@ -606,6 +892,18 @@ public class NettyMessagingManager implements MessagingService {
      */
     CompletableFuture<byte[]> sendAndReceive(InternalMessage message);
 
+    /**
+     * Sends a message to the other side of the connection, decoding the reply in place.
+     *
+     * @param message the message to send
+     * @param decoder the function with which to decode the reply payload
+     * @param <T>     the decoded reply type
+     * @return a completable future to be completed once a reply is received or the request times out
+     */
+    default <T> CompletableFuture<T> sendAndReceive(InternalMessage message, Function<ByteBuffer, T> decoder) {
+      return sendAndReceive(message).thenApply(bytes -> decoder.apply(ByteBuffer.wrap(bytes)));
+    }
+
     /**
      * Closes the connection.
      */
@@ -663,6 +961,70 @@ public class NettyMessagingManager implements MessagingService {
     }
   }
 
+  /**
+   * Connection to another messaging service in the same JVM.
+   * <p>
+   * Messages are handed to the other service's handlers without being encoded. Handlers are run on one of the
+   * other service's server event loops, as they would be for a message received over the network, so the sender's
+   * thread is never blocked by a handler and messages sent over the connection are handled in order. Requests are
+   * timed out in the same manner as remote requests, since the other service may be stopped while a request is
+   * outstanding.
+   */
+  private final class InJvmClientConnection implements ClientConnection {
+    private final NettyMessagingManager manager;
+    private final Executor executor;
+
+    InJvmClientConnection(NettyMessagingManager manager) {
+      this.manager = manager;
+      this.executor = manager.serverGroup.next();
+    }
+
+    @Override
+    public CompletableFuture<Void> sendAsync(InternalMessage message) {
+      CompletableFuture<Void> future = new CompletableFuture<>();
+      try {
+        executor.execute(() -> manager.localClientConnection.sendAsync(message));
+        future.complete(null);
+      } catch (RejectedExecutionException e) {
+        future.completeExceptionally(e);
+      }
+      return future;
+    }
+
+    @Override
+    public CompletableFuture<byte[]> sendAndReceive(InternalMessage message) {
+      TimeoutHistory timeoutHistory = getTimeoutHistory(message.type());
+      long time = System.currentTimeMillis();
+      CompletableFuture<byte[]> future = new CompletableFuture<>();
+      try {
+        executor.execute(() -> manager.localClientConnection.sendAndReceive(message).whenComplete((result, error) -> {
+          if (error == null) {
+            future.complete(result);
+          } else {
+            future.completeExceptionally(error);
+          }
+        }));
+      } catch (RejectedExecutionException e) {
+        future.completeExceptionally(e);
+        return future;
+      }
+      Timeout timeout = timeoutTimer.newTimeout(t -> {
+        long elapsedTime = System.currentTimeMillis() - time;
+        if (future.completeExceptionally(
+            new TimeoutException("Request timed out in " + elapsedTime + " milliseconds"))) {
+          timeoutHistory.addReplyTime(elapsedTime);
+        }
+      }, timeoutHistory.currentTimeout, TimeUnit.MILLISECONDS);
+      future.whenComplete((result, error) -> {
+        timeout.cancel();
+        if (error == null) {
+          timeoutHistory.addReplyTime(System.currentTimeMillis() - time);
+        }
+      });
+      return future;
+    }
+  }
+
   /**
    * Local server connection.
    */
@@ -702,30 +1064,14 @@ public class NettyMessagingManager implements MessagingService {
     }
 
     /**
-     * Times out callbacks for this connection.
+     * Times out the given callback if it has not yet been completed.
      */
-    private void timeoutCallbacks() {
-      // Store the current time.
-      long currentTime = System.currentTimeMillis();
-
-      // Iterate through future callbacks and time out callbacks that have been alive
-      // longer than the current timeout according to the message type.
-      Iterator<Map.Entry<Long, Callback>> iterator = futures.entrySet().iterator();
-      while (iterator.hasNext()) {
-        Callback callback = iterator.next().getValue();
-        try {
-          TimeoutHistory timeoutHistory = timeoutHistories.get(callback.type, TimeoutHistory::new);
-          long currentTimeout = timeoutHistory.currentTimeout;
-          if (currentTime - callback.time > currentTimeout) {
-            iterator.remove();
-            long elapsedTime = currentTime - callback.time;
-            timeoutHistory.addReplyTime(elapsedTime);
-            callback.completeExceptionally(
-                new TimeoutException("Request timed out in " + elapsedTime + " milliseconds"));
-          }
-        } catch (ExecutionException e) {
-          throw new AssertionError();
-        }
+    private void timeoutCallback(long id, Callback callback) {
+      if (futures.remove(id, callback)) {
+        long elapsedTime = System.currentTimeMillis() - callback.time;
+        getTimeoutHistory(callback.type).addReplyTime(elapsedTime);
+        callback.completeExceptionally(
+            new TimeoutException("Request timed out in " + elapsedTime + " milliseconds"));
       }
     }
 
@@ -744,12 +1090,28 @@ public class NettyMessagingManager implements MessagingService {
 
     @Override
     public CompletableFuture<byte[]> sendAndReceive(InternalMessage message) {
-      CompletableFuture<byte[]> future = new CompletableFuture<>();
-      Callback callback = new Callback(message.type(), future);
+      return sendAndReceive(message, new CompletableFuture<>(), null);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> sendAndReceive(InternalMessage message, Function<ByteBuffer, T> decoder) {
+      return sendAndReceive(message, new CompletableFuture<>(), decoder);
+    }
+
+    /**
+     * Sends a message, registering a callback to complete the given future with the reply.
+     */
+    private <T> CompletableFuture<T> sendAndReceive(
+        InternalMessage message, CompletableFuture<T> future, Function<ByteBuffer, T> decoder) {
+      Callback callback = new Callback(message.type(), future, decoder);
       futures.put(message.id(), callback);
+      callback.timeout = timeoutTimer.newTimeout(
+          t -> timeoutCallback(message.id(), callback),
+          getTimeoutHistory(message.type()).currentTimeout,
+          TimeUnit.MILLISECONDS);
       channel.writeAndFlush(message).addListener(channelFuture -> {
-        if (!channelFuture.isSuccess()) {
-          futures.remove(message.id());
+        if (!channelFuture.isSuccess() && futures.remove(message.id(), callback)) {
+          callback.cancelTimeout();
           callback.completeExceptionally(channelFuture.cause());
         }
       });
@@ -769,8 +1131,9 @@ public class NettyMessagingManager implements MessagingService {
 
       Callback callback = futures.remove(message.id());
       if (callback != null) {
+        callback.cancelTimeout();
         if (message.status() == InternalMessage.Status.OK) {
-          callback.complete(message.payload());
+          callback.complete(message);
         } else if (message.status() == InternalMessage.Status.ERROR_NO_HANDLER) {
           callback.completeExceptionally(new MessagingException.NoRemoteHandler());
         } else if (message.status() == InternalMessage.Status.ERROR_HANDLER_EXCEPTION) {
@@ -779,12 +1142,7 @@ public class NettyMessagingManager implements MessagingService {
           callback.completeExceptionally(new MessagingException.ProtocolException());
         }
 
-        try {
-          TimeoutHistory timeoutHistory = timeoutHistories.get(callback.type, TimeoutHistory::new);
-          timeoutHistory.addReplyTime(System.currentTimeMillis() - callback.time);
-        } catch (ExecutionException e) {
-          throw new AssertionError();
-        }
+        getTimeoutHistory(callback.type).addReplyTime(System.currentTimeMillis() - callback.time);
       } else {
         log.debug("Received a reply for message id:[{}]. "
             + " from {}. But was unable to locate the"
@@ -795,8 +1153,11 @@ public class NettyMessagingManager implements MessagingService {
     @Override
     public void close() {
       if (closed.compareAndSet(false, true)) {
-        timeoutFuture.cancel(false);
-        for (Callback callback : futures.values()) {
+        Iterator<Map.Entry<Long, Callback>> iterator = futures.entrySet().iterator();
+        while (iterator.hasNext()) {
+          Callback callback = iterator.next().getValue();
+          iterator.remove();
+          callback.cancelTimeout();
           callback.completeExceptionally(new ConnectException());
         }
       }
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.messaging.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outbound handler that consolidates flushes of encoded messages.
+ * <p>
+ * Rather than flushing each message to the socket as it's written, flushes are deferred until the end of the current
+ * read or until the event loop has processed all pending writes, so that many small messages are written to the
+ * socket in a single system call. Pending writes are flushed immediately once the number of unflushed bytes reaches
+ * the configured threshold or the channel becomes unwritable. This handler must be placed between the message
+ * encoder and the socket, and a new instance must be created for each channel.
+ */
+final class WriteBatchingHandler extends ChannelDuplexHandler {
+  private final boolean enabled;
+  private final int maxPendingBytes;
+  private final AtomicLong messageCount;
+  private final AtomicLong flushCount;
+  private final Runnable flushTask = this::flushPending;
+  private ChannelHandlerContext context;
+  private int pendingBytes;
+  private boolean pendingFlush;
+  private boolean flushScheduled;
+  private boolean readInProgress;
+
+  WriteBatchingHandler(boolean enabled, int maxPendingBytes, AtomicLong messageCount, AtomicLong flushCount) {
+    this.enabled = enabled;
+    this.maxPendingBytes = maxPendingBytes;
+    this.messageCount = messageCount;
+    this.flushCount = flushCount;
+  }
+
+  @Override
+  public void handlerAdded(ChannelHandlerContext context) throws Exception {
+    this.context = context;
+  }
+
+  @Override
+  public void write(ChannelHandlerContext context, Object message, ChannelPromise promise) throws Exception {
+    messageCount.incrementAndGet();
+    if (message instanceof ByteBuf) {
+      pendingBytes += ((ByteBuf) message).readableBytes();
+    }
+    context.write(message, promise);
+  }
+
+  @Override
+  public void flush(ChannelHandlerContext context) throws Exception {
+    if (!enabled || pendingBytes >= maxPendingBytes) {
+      flushNow(context);
+    } else if (readInProgress) {
+      // The flush will be performed once the read is complete.
+      pendingFlush = true;
+    } else if (!flushScheduled) {
+      // Flush once the event loop has processed the writes already queued behind this one.
+      pendingFlush = true;
+      flushScheduled = true;
+      context.channel().eventLoop().execute(flushTask);
+    } else {
+      pendingFlush = true;
+    }
+  }
+
+  @Override
+  public void channelRead(ChannelHandlerContext context, Object message) throws Exception {
+    readInProgress = true;
+    context.fireChannelRead(message);
+  }
+
+  @Override
+  public void channelReadComplete(ChannelHandlerContext context) throws Exception {
+    readInProgress = false;
+    if (pendingFlush) {
+      flushNow(context);
+    }
+    context.fireChannelReadComplete();
+  }
+
+  @Override
+  public void channelWritabilityChanged(ChannelHandlerContext context) throws Exception {
+    if (!context.channel().isWritable()) {
+      flushNow(context);
+    }
+    context.fireChannelWritabilityChanged();
+  }
+
+  @Override
+  public void exceptionCaught(ChannelHandlerContext context, Throwable cause) throws Exception {
+    flushNow(context);
+    context.fireExceptionCaught(cause);
+  }
+
+  @Override
+  public void disconnect(ChannelHandlerContext context, ChannelPromise promise) throws Exception {
+    flushNow(context);
+    context.disconnect(promise);
+  }
+
+  @Override
+  public void close(ChannelHandlerContext context, ChannelPromise promise) throws Exception {
+    flushNow(context);
+    context.close(promise);
+  }
+
+  @Override
+  public void handlerRemoved(ChannelHandlerContext context) throws Exception {
+    flushNow(context);
+  }
+
+  /**
+   * Flushes pending writes once scheduled by the event loop.
+   */
+  private void flushPending() {
+    flushScheduled = false;
+    if (pendingFlush) {
+      flushNow(context);
+    }
+  }
+
+  /**
+   * Flushes pending writes to the socket.
+   */
+  private void flushNow(ChannelHandlerContext context) {
+    if (pendingBytes > 0) {
+      flushCount.incrementAndGet();
+    }
+    pendingFlush = false;
+    pendingBytes = 0;
+    context.flush();
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.messaging.netty;
+
+import com.google.common.base.Charsets;
+import io.atomix.messaging.Endpoint;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.InetAddress;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Message encoder and decoder test.
+ */
+@Test
+public class MessageCodecTest {
+  private static final int PREAMBLE = 12345;
+
+  // preamble + IPv4 address length + IPv4 address + port
+  private static final int HANDSHAKE_LENGTH = 4 + 1 + 4 + 4;
+
+  // message ID + status
+  private static final int TYPE_OFFSET = 8 + 1;
+
+  private Endpoint sender;
+  private EmbeddedChannel encoder;
+  private EmbeddedChannel decoder;
+
+  @BeforeMethod
+  protected void setup() throws Exception {
+    sender = new Endpoint(InetAddress.getByName("127.0.0.1"), 5678);
+    connect();
+  }
+
+  @AfterMethod
+  protected void teardown() {
+    encoder.finishAndReleaseAll();
+    decoder.finishAndReleaseAll();
+  }
+
+  /**
+   * Opens a new connection with a new encoder and decoder.
+   */
+  private void connect() {
+    encoder = new EmbeddedChannel(new MessageEncoder(PREAMBLE));
+    decoder = new EmbeddedChannel(new MessageDecoder());
+  }
+
+  private InternalMessage request(long id, String type, String payload) {
+    return new InternalMessage(PREAMBLE, id, sender, type, payload.getBytes(Charsets.UTF_8));
+  }
+
+  /**
+   * Encodes the given message.
+   */
+  private ByteBuf encode(InternalMessage message) {
+    assertTrue(encoder.writeOutbound(message));
+    ByteBuf buffer = encoder.readOutbound();
+    assertNull(encoder.readOutbound());
+    return buffer;
+  }
+
+  /**
+   * Decodes the given buffer, which must hold exactly one message.
+   */
+  private InternalMessage decode(ByteBuf buffer) {
+    assertTrue(decoder.writeInbound(buffer));
+    InternalMessage message = decoder.readInbound();
+    assertNull(decoder.readInbound());
+    return message;
+  }
+
+  /**
+   * Encodes and decodes the given message, asserting that the decoded message matches and releasing it.
+   */
+  private void roundTrip(InternalMessage message) {
+    InternalMessage decoded = decode(encode(message));
+    try {
+      assertEquals(decoded.id(), message.id());
+      assertEquals(decoded.type(), message.type());
+      assertEquals(decoded.status(), message.status());
+      assertEquals(decoded.sender(), sender);
+      assertEquals(decoded.preamble(), PREAMBLE);
+      assertEquals(decoded.payload(), message.payload());
+    } finally {
+      decoded.release();
+    }
+  }
+
+  /**
+   * Tests that the handshake is written only before the first message on a connection.
+   */
+  public void testHandshake() throws Exception {
+    ByteBuf first = encode(request(1, "foo", "bar"));
+    assertEquals(first.getInt(0), PREAMBLE);
+    assertEquals(first.getByte(4), 4);
+    assertEquals(first.getInt(HANDSHAKE_LENGTH - 4), sender.port());
+    assertEquals(first.getLong(HANDSHAKE_LENGTH), 1);
+
+    ByteBuf second = encode(request(2, "foo", "bar"));
+    assertEquals(second.getLong(0), 2);
+
+    InternalMessage message1 = decode(first);
+    InternalMessage message2 = decode(second);
+    assertEquals(message1.sender(), sender);
+    assertEquals(message1.preamble(), PREAMBLE);
+
+    // The sender is read once per connection.
+    assertTrue(message2.sender() == message1.sender());
+
+    // Decoded payloads hold the inbound buffer until they're released.
+    assertEquals(first.refCnt(), 1);
+    message1.release();
+    message2.release();
+    assertEquals(first.refCnt(), 0);
+    assertEquals(second.refCnt(), 0);
+  }
+
+  /**
+   * Tests that a message type is sent in full only with the first message of that type.
+   */
+  public void testTypeInterning() throws Exception {
+    roundTrip(request(1, "foo", "a"));
+
+    ByteBuf definition = encode(request(2, "bar", "b"));
+    assertEquals(definition.getInt(TYPE_OFFSET), MessageEncoder.definitionId(1));
+    assertEquals(definition.getShort(TYPE_OFFSET + 4), "bar".length());
+    int definitionLength = definition.readableBytes();
+    decode(definition).release();
+
+    ByteBuf reference = encode(request(3, "bar", "b"));
+    assertEquals(reference.getInt(TYPE_OFFSET), 1);
+    assertEquals(reference.readableBytes(), definitionLength - 2 - "bar".length());
+    InternalMessage message = decode(reference);
+    assertEquals(message.type(), "bar");
+    message.release();
+
+    roundTrip(request(4, "foo", "c"));
+
+    // Replies don't carry a type.
+    InternalMessage reply = new InternalMessage(PREAMBLE, 5, sender, "d".getBytes(Charsets.UTF_8),
+        InternalMessage.Status.OK);
+    ByteBuf buffer = encode(reply);
+    assertEquals(buffer.getInt(TYPE_OFFSET), "d".length());
+    message = decode(buffer);
+    assertTrue(message.isReply());
+    assertEquals(message.status(), InternalMessage.Status.OK);
+    assertEquals(message.payload(), reply.payload());
+    message.release();
+  }
+
+  /**
+   * Tests that types beyond the interning limit are sent in full with every message.
+   */
+  public void testLiteralTypes() throws Exception {
+    for (int i = 0; i < MessageEncoder.MAX_INTERNED_TYPES; i++) {
+      ByteBuf buffer = encode(request(i, "type" + i, "a"));
+      assertEquals(buffer.getInt(TYPE_OFFSET + (i == 0 ? HANDSHAKE_LENGTH : 0)), MessageEncoder.definitionId(i));
+      decode(buffer).release();
+    }
+
+    for (int i = 0; i < 2; i++) {
+      ByteBuf buffer = encode(request(i, "literal", "b"));
+      assertEquals(buffer.getInt(TYPE_OFFSET), MessageEncoder.LITERAL_TYPE_ID);
+      InternalMessage message = decode(buffer);
+      assertEquals(message.type(), "literal");
+      message.release();
+    }
+
+    // Interned types still resolve once the limit is reached.
+    int last = MessageEncoder.MAX_INTERNED_TYPES - 1;
+    ByteBuf buffer = encode(request(0, "type" + last, "c"));
+    assertEquals(buffer.getInt(TYPE_OFFSET), last);
+    InternalMessage message = decode(buffer);
+    assertEquals(message.type(), "type" + last);
+    message.release();
+    roundTrip(request(1, "type0", "d"));
+  }
+
+  /**
+   * Tests that a new connection repeats the handshake and type definitions.
+   */
+  public void testReconnect() throws Exception {
+    roundTrip(request(1, "foo", "a"));
+    roundTrip(request(2, "bar", "b"));
+    roundTrip(request(3, "foo", "c"));
+
+    encoder.finishAndReleaseAll();
+    decoder.finishAndReleaseAll();
+    connect();
+
+    ByteBuf buffer = encode(request(4, "bar", "d"));
+    assertEquals(buffer.getInt(0), PREAMBLE);
+    assertEquals(buffer.getInt(HANDSHAKE_LENGTH + TYPE_OFFSET), MessageEncoder.definitionId(0));
+    InternalMessage message = decode(buffer);
+    assertEquals(message.sender(), sender);
+    assertEquals(message.type(), "bar");
+    message.release();
+
+    roundTrip(request(5, "foo", "e"));
+    roundTrip(request(6, "bar", "f"));
+  }
+
+  /**
+   * Tests decoding messages split across and batched within inbound buffers.
+   */
+  public void testFragmentation() throws Exception {
+    ByteBuf buffer = encoder.alloc().buffer();
+    for (int i = 0; i < 3; i++) {
+      ByteBuf encoded = encode(request(i, "foo", "payload" + i));
+      buffer.writeBytes(encoded);
+      encoded.release();
+    }
+
+    while (buffer.isReadable()) {
+      decoder.writeInbound(buffer.readRetainedSlice(Math.min(5, buffer.readableBytes())));
+    }
+    buffer.release();
+
+    for (int i = 0; i < 3; i++) {
+      InternalMessage message = decoder.readInbound();
+      assertNotNull(message);
+      assertEquals(message.id(), i);
+      assertEquals(message.type(), "foo");
+      assertEquals(new String(message.payload(), Charsets.UTF_8), "payload" + i);
+      message.release();
+    }
+    assertNull(decoder.readInbound());
+    assertFalse(decoder.finish());
+  }
+}
@@ -0,0 +1,473 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.messaging.netty;
+
+import com.google.common.base.Charsets;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.atomix.messaging.Endpoint;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Netty messaging manager test.
+ */
+@Test
+public class NettyMessagingManagerTest {
+  private static final String NAME = "test";
+  private static final int PREAMBLE = NAME.hashCode();
+  private static final long TIMEOUT_MILLIS = 10000;
+
+  // The initial request timeout, before any reply times have been recorded.
+  private static final long DEFAULT_TIMEOUT_MILLIS = 500;
+
+  private static final int CHANNEL_POOL_SIZE = 8;
+
+  private final List<NettyMessagingManager> managers = new ArrayList<>();
+  private Endpoint sender;
+  private Endpoint endpoint;
+  private NettyMessagingManager manager;
+  private EmbeddedChannel channel;
+
+  @BeforeMethod
+  protected void setup() throws Exception {
+    sender = endpoint();
+    endpoint = endpoint();
+    manager = createManager(endpoint);
+    channel = new EmbeddedChannel(manager.newInboundMessageDispatcher());
+  }
+
+  @AfterMethod
+  protected void teardown() {
+    channel.finishAndReleaseAll();
+    managers.forEach(NettyMessagingManager::close);
+    managers.clear();
+  }
+
+  /**
+   * Returns an endpoint on an available local port.
+   */
+  private static Endpoint endpoint() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return new Endpoint(InetAddress.getByName("127.0.0.1"), socket.getLocalPort());
+    }
+  }
+
+  private NettyMessagingManager createManager(Endpoint endpoint) {
+    NettyMessagingManager manager = new NettyMessagingManager(NAME, endpoint);
+    managers.add(manager);
+    return manager;
+  }
+
+  private static void waitFor(BooleanSupplier condition) throws Exception {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > deadline) {
+        fail("timed out waiting for condition");
+      }
+      Thread.sleep(10);
+    }
+  }
+
+  /**
+   * Asserts that the given request fails with a timeout.
+   */
+  private static void assertTimedOut(CompletableFuture<byte[]> future) throws Exception {
+    try {
+      future.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      fail("request did not time out");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof TimeoutException, e.getCause().toString());
+    }
+  }
+
+  /**
+   * Registers a handler that replies to "late" requests only once the returned futures are completed, and echoes
+   * other requests immediately.
+   */
+  private List<CompletableFuture<byte[]>> registerLateHandler(String type) {
+    List<CompletableFuture<byte[]>> replies = new CopyOnWriteArrayList<>();
+    manager.registerHandler(type, (endpoint, payload) -> {
+      if (new String(payload, Charsets.UTF_8).equals("late")) {
+        CompletableFuture<byte[]> reply = new CompletableFuture<>();
+        replies.add(reply);
+        return reply;
+      }
+      return CompletableFuture.completedFuture(payload);
+    });
+    return replies;
+  }
+
+  /**
+   * Registers a handler that echoes requests.
+   */
+  private static void registerEchoHandler(NettyMessagingManager manager, String type) {
+    manager.registerHandler(type, (endpoint, payload) -> payload, MoreExecutors.directExecutor());
+  }
+
+  private static String sendAndReceive(NettyMessagingManager manager, Endpoint endpoint, String type, String payload)
+      throws Exception {
+    byte[] reply = manager.sendAndReceive(endpoint, type, payload.getBytes(Charsets.UTF_8))
+        .get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    return new String(reply, Charsets.UTF_8);
+  }
+
+  /**
+   * Returns two message types for each channel pool offset, indexed by offset.
+   */
+  private static Map<Integer, List<String>> typesByOffset(NettyMessagingManager manager) {
+    Map<Integer, List<String>> types = new HashMap<>();
+    for (int i = 0; types.size() < CHANNEL_POOL_SIZE || types.values().stream().anyMatch(t -> t.size() < 2); i++) {
+      List<String> offsetTypes = types.computeIfAbsent(manager.getChannelOffset("type" + i), o -> new ArrayList<>());
+      if (offsetTypes.size() < 2) {
+        offsetTypes.add("type" + i);
+      }
+    }
+    return types;
+  }
+
+  /**
+   * Returns a pooled buffer containing the given payload.
+   */
+  private static ByteBuf buffer(String payload) {
+    ByteBuf buffer = PooledByteBufAllocator.DEFAULT.buffer();
+    buffer.writeBytes(payload.getBytes(Charsets.UTF_8));
+    return buffer;
+  }
+
+  private static String toString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return new String(bytes, Charsets.UTF_8);
+  }
+
+  /**
+   * Dispatches a request holding the given payload buffer, as if it had been decoded from the channel.
+   */
+  private void dispatch(long id, String type, ByteBuf payload) {
+    channel.writeInbound(new InternalMessage(PREAMBLE, id, sender, type, payload, null));
+  }
+
+  /**
+   * Reads the reply to a dispatched request.
+   */
+  private InternalMessage reply(long id, InternalMessage.Status status) {
+    InternalMessage reply = channel.readOutbound();
+    assertEquals(reply.id(), id);
+    assertEquals(reply.status(), status);
+    return reply;
+  }
+
+  /**
+   * Tests that a buffer handler reads the payload in place and that the payload is released once it returns.
+   */
+  public void testBufferHandler() throws Exception {
+    manager.registerBufferHandler("foo", (endpoint, payload) -> {
+      assertEquals(endpoint, sender);
+      return (toString(payload) + "bar").getBytes(Charsets.UTF_8);
+    }, MoreExecutors.directExecutor());
+    manager.registerBufferHandler("baz", (endpoint, payload) ->
+        CompletableFuture.completedFuture((toString(payload) + "qux").getBytes(Charsets.UTF_8)));
+
+    ByteBuf buffer1 = buffer("foo");
+    dispatch(1, "foo", buffer1);
+    assertEquals(new String(reply(1, InternalMessage.Status.OK).payload(), Charsets.UTF_8), "foobar");
+    assertEquals(buffer1.refCnt(), 0);
+
+    ByteBuf buffer2 = buffer("baz");
+    dispatch(2, "baz", buffer2);
+    assertEquals(new String(reply(2, InternalMessage.Status.OK).payload(), Charsets.UTF_8), "bazqux");
+    assertEquals(buffer2.refCnt(), 0);
+  }
+
+  /**
+   * Tests that the payload is retained until a buffer handler run on another executor has returned.
+   */
+  public void testBufferHandlerExecutor() throws Exception {
+    List<Runnable> tasks = new ArrayList<>();
+    manager.registerBufferHandler("foo", (endpoint, payload) -> toString(payload).getBytes(Charsets.UTF_8), tasks::add);
+
+    ByteBuf buffer = buffer("foo");
+    dispatch(1, "foo", buffer);
+    assertEquals(tasks.size(), 1);
+    assertEquals(buffer.refCnt(), 1);
+    assertNull(channel.readOutbound());
+
+    tasks.get(0).run();
+    assertEquals(buffer.refCnt(), 0);
+    assertEquals(new String(reply(1, InternalMessage.Status.OK).payload(), Charsets.UTF_8), "foo");
+  }
+
+  /**
+   * Tests that the payload is released and an error returned when a buffer handler throws an exception.
+   */
+  public void testBufferHandlerException() throws Exception {
+    manager.registerBufferHandler("foo", (endpoint, payload) -> {
+      throw new IllegalStateException();
+    }, MoreExecutors.directExecutor());
+    manager.registerBufferHandler("bar", (endpoint, payload) -> {
+      throw new IllegalStateException();
+    });
+    manager.registerBufferHandler("baz", (endpoint, payload) -> {
+      CompletableFuture<byte[]> future = new CompletableFuture<>();
+      future.completeExceptionally(new IllegalStateException());
+      return future;
+    });
+
+    ByteBuf buffer1 = buffer("foo");
+    dispatch(1, "foo", buffer1);
+    reply(1, InternalMessage.Status.ERROR_HANDLER_EXCEPTION);
+    assertEquals(buffer1.refCnt(), 0);
+
+    ByteBuf buffer2 = buffer("bar");
+    dispatch(2, "bar", buffer2);
+    reply(2, InternalMessage.Status.ERROR_HANDLER_EXCEPTION);
+    assertEquals(buffer2.refCnt(), 0);
+
+    ByteBuf buffer3 = buffer("baz");
+    dispatch(3, "baz", buffer3);
+    reply(3, InternalMessage.Status.ERROR_HANDLER_EXCEPTION);
+    assertEquals(buffer3.refCnt(), 0);
+  }
+
+  /**
+   * Tests that the payload is released when a buffer handler's executor rejects the handler.
+   */
+  public void testBufferHandlerRejected() throws Exception {
+    manager.registerBufferHandler("foo", (endpoint, payload) -> new byte[0], task -> {
+      throw new RejectedExecutionException();
+    });
+
+    ByteBuf buffer = buffer("foo");
+    dispatch(1, "foo", buffer);
+    assertNull(channel.readOutbound());
+    assertEquals(buffer.refCnt(), 0);
+    assertTrue(channel.isActive());
+  }
+
+  /**
+   * Tests that the payload of a message of an unknown type is released and an error returned.
+   */
+  public void testUnknownType() throws Exception {
+    manager.registerBufferHandler("foo", (endpoint, payload) -> new byte[0], MoreExecutors.directExecutor());
+
+    ByteBuf buffer = buffer("bar");
+    dispatch(1, "bar", buffer);
+    reply(1, InternalMessage.Status.ERROR_NO_HANDLER);
+    assertEquals(buffer.refCnt(), 0);
+
+    // Unregistered types are unknown.
+    manager.unregisterHandler("foo");
+    buffer = buffer("foo");
+    dispatch(2, "foo", buffer);
+    reply(2, InternalMessage.Status.ERROR_NO_HANDLER);
+    assertEquals(buffer.refCnt(), 0);
+  }
+
+  /**
+   * Tests that the payload of a message with the wrong preamble is released and an error returned.
+   */
+  public void testInvalidPreamble() throws Exception {
+    manager.registerBufferHandler("foo", (endpoint, payload) -> new byte[0], MoreExecutors.directExecutor());
+
+    ByteBuf buffer = buffer("foo");
+    channel.writeInbound(new InternalMessage(PREAMBLE + 1, 1, sender, "foo", buffer, null));
+    reply(1, InternalMessage.Status.PROTOCOL_EXCEPTION);
+    assertEquals(buffer.refCnt(), 0);
+  }
+
+  /**
+   * Tests that requests awaiting replies are timed out and their callbacks removed.
+   */
+  public void testRequestTimeout() throws Exception {
+    NettyMessagingManager client = createManager(endpoint());
+    List<CompletableFuture<byte[]>> replies = registerLateHandler("foo");
+
+    long startTime = System.currentTimeMillis();
+    List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      futures.add(client.sendAndReceive(endpoint, "foo", "late".getBytes(Charsets.UTF_8)));
+    }
+    waitFor(() -> replies.size() == 10);
+    assertEquals(client.getPendingReplyCount(), 10);
+
+    for (CompletableFuture<byte[]> future : futures) {
+      assertTimedOut(future);
+    }
+    // Allow for the clock's granularity.
+    assertTrue(System.currentTimeMillis() - startTime >= DEFAULT_TIMEOUT_MILLIS - 10);
+    assertEquals(client.getPendingReplyCount(), 0);
+  }
+
+  /**
+   * Tests that a reply received after its request has timed out is dropped.
+   */
+  public void testLateReply() throws Exception {
+    NettyMessagingManager client = createManager(endpoint());
+    List<CompletableFuture<byte[]>> replies = registerLateHandler("foo");
+
+    CompletableFuture<byte[]> future = client.sendAndReceive(endpoint, "foo", "late".getBytes(Charsets.UTF_8));
+    waitFor(() -> replies.size() == 1);
+    assertTimedOut(future);
+    assertEquals(client.getPendingReplyCount(), 0);
+
+    replies.get(0).complete("reply".getBytes(Charsets.UTF_8));
+
+    // Requests of the same type share a channel, so the late reply is received before the next reply.
+    byte[] reply = client.sendAndReceive(endpoint, "foo", "next".getBytes(Charsets.UTF_8))
+        .get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    assertEquals(new String(reply, Charsets.UTF_8), "next");
+    assertTimedOut(future);
+    assertEquals(client.getPendingReplyCount(), 0);
+  }
+
+  /**
+   * Tests that a reply cancels its request's timeout.
+   */
+  public void testReplyBeforeTimeout() throws Exception {
+    NettyMessagingManager client = createManager(endpoint());
+    List<CompletableFuture<byte[]>> replies = registerLateHandler("foo");
+
+    CompletableFuture<byte[]> future = client.sendAndReceive(endpoint, "foo", "late".getBytes(Charsets.UTF_8));
+    waitFor(() -> replies.size() == 1);
+    replies.get(0).complete("reply".getBytes(Charsets.UTF_8));
+    assertEquals(new String(future.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS), Charsets.UTF_8), "reply");
+    assertEquals(client.getPendingReplyCount(), 0);
+  }
+
+  /**
+   * Tests that each message type is pinned to a single channel in the pool.
+   */
+  public void testChannelPinning() throws Exception {
+    NettyMessagingManager client = createManager(endpoint());
+    Map<Integer, List<String>> types = typesByOffset(client);
+    assertEquals(types.size(), CHANNEL_POOL_SIZE);
+
+    Map<Channel, Integer> offsets = new IdentityHashMap<>();
+    for (Map.Entry<Integer, List<String>> entry : types.entrySet()) {
+      Channel channel = client.getChannel(endpoint, entry.getValue().get(0)).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      assertTrue(channel.isActive());
+      assertSame(client.getChannel(endpoint, entry.getValue().get(0)).join(), channel);
+      assertSame(client.getChannel(endpoint, entry.getValue().get(1)).join(), channel);
+      offsets.put(channel, entry.getKey());
+    }
+    assertEquals(offsets.size(), CHANNEL_POOL_SIZE);
+
+    // Messages of a type are received in the order in which they were sent.
+    String type = types.get(0).get(0);
+    List<Integer> received = new CopyOnWriteArrayList<>();
+    manager.registerHandler(type, (endpoint, payload) -> {
+      received.add(Integer.parseInt(new String(payload, Charsets.UTF_8)));
+    }, MoreExecutors.directExecutor());
+    List<Integer> sent = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      client.sendAsync(endpoint, type, String.valueOf(i).getBytes(Charsets.UTF_8));
+      sent.add(i);
+    }
+    waitFor(() -> received.size() == sent.size());
+    assertEquals(received, sent);
+  }
+
+  /**
+   * Tests that a closed channel is replaced in the pool without affecting the channels for other offsets.
+   */
+  public void testReplaceInactiveChannel() throws Exception {
+    NettyMessagingManager client = createManager(endpoint());
+    Map<Integer, List<String>> types = typesByOffset(client);
+    String type = types.get(0).get(0);
+    String otherType = types.get(1).get(0);
+    registerEchoHandler(manager, type);
+    registerEchoHandler(manager, otherType);
+
+    assertEquals(sendAndReceive(client, endpoint, type, "foo"), "foo");
+    assertEquals(sendAndReceive(client, endpoint, otherType, "bar"), "bar");
+    Channel channel = client.getChannel(endpoint, type).join();
+    Channel otherChannel = client.getChannel(endpoint, otherType).join();
+
+    channel.close().sync();
+    assertFalse(channel.isActive());
+
+    Channel newChannel = client.getChannel(endpoint, type).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    assertNotSame(newChannel, channel);
+    assertTrue(newChannel.isActive());
+    assertSame(client.getChannel(endpoint, types.get(0).get(1)).join(), newChannel);
+    assertSame(client.getChannel(endpoint, otherType).join(), otherChannel);
+
+    assertEquals(sendAndReceive(client, endpoint, type, "baz"), "baz");
+    assertEquals(sendAndReceive(client, endpoint, otherType, "qux"), "qux");
+  }
+
+  /**
+   * Tests that a channel that failed to connect is replaced once the remote endpoint becomes available.
+   */
+  public void testReplaceFailedChannel() throws Exception {
+    NettyMessagingManager client = createManager(endpoint());
+    Endpoint serverEndpoint = endpoint();
+
+    CompletableFuture<Channel> failed = client.getChannel(serverEndpoint, "foo");
+    try {
+      failed.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      fail("connected to an endpoint with no server");
+    } catch (ExecutionException e) {
+      assertTrue(failed.isCompletedExceptionally());
+    }
+    try {
+      sendAndReceive(client, serverEndpoint, "foo", "foo");
+      fail("sent a request to an endpoint with no server");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof ConnectException, e.getCause().toString());
+    }
+
+    NettyMessagingManager server = createManager(serverEndpoint);
+    registerEchoHandler(server, "foo");
+
+    CompletableFuture<Channel> future = client.getChannel(serverEndpoint, "foo");
+    assertNotSame(future, failed);
+    assertTrue(future.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).isActive());
+    assertSame(client.getChannel(serverEndpoint, "foo"), future);
+    assertEquals(sendAndReceive(client, serverEndpoint, "foo", "bar"), "bar");
+  }
+}
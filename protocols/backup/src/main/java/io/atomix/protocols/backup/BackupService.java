@@ -17,11 +17,24 @@ package io.atomix.protocols.backup;
 
 import io.atomix.event.ListenerService;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Primary backup service.
  */
 public interface BackupService<T> extends ListenerService<BackupEvent<T>, BackupEventListener<T>> {
 
+  /**
+   * Executes an operation.
+   * <p>
+   * The operation is applied by the primary and replicated to backups, and a {@link BackupEvent} is posted for
+   * the operation on each node in the order in which operations are executed by the primary.
+   *
+   * @param operation the operation to execute
+   * @return a future to be completed with the operation's index once it has been replicated
+   */
+  CompletableFuture<Long> execute(T operation);
+
   /**
    * Closes the service.
    */
@@ -0,0 +1,612 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import io.atomix.cluster.NodeId;
+import io.atomix.event.AbstractListenerManager;
+import io.atomix.leadership.Leader;
+import io.atomix.leadership.Leadership;
+import io.atomix.leadership.LeadershipEvent;
+import io.atomix.leadership.LeadershipEventListener;
+import io.atomix.leadership.LeadershipService;
+import io.atomix.logging.Logger;
+import io.atomix.logging.LoggerFactory;
+import io.atomix.primitives.PrimitiveException;
+import io.atomix.protocols.backup.protocol.BackupRequest;
+import io.atomix.protocols.backup.protocol.BackupResponse;
+import io.atomix.protocols.backup.protocol.ExecuteRequest;
+import io.atomix.protocols.backup.protocol.ExecuteResponse;
+import io.atomix.protocols.backup.protocol.PrimaryBackupProtocol;
+import io.atomix.utils.concurrent.Futures;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Primary-backup replication service.
+ * <p>
+ * The primary is the leader of the service's topic in the {@link LeadershipService}, and the backups are the next
+ * candidates for the topic. Operations are executed by the primary, which assigns each operation a sequence
+ * number, applies it locally and streams it to each backup. Each backup has at most one batch in flight, so
+ * operations that are executed while a batch is in flight are sent together in the next batch. Operations are
+ * held only in memory, so with {@link Replication#SYNCHRONOUS synchronous} replication an operation completes
+ * after a single round trip to the backups.
+ * <p>
+ * Backups detect gaps in the sequence and respond with the last index they applied, from which the primary
+ * resends the operations it retains. The primary does not overwrite operations that a backup has not received,
+ * so operations fail with {@link PrimitiveException.Unavailable} while a backup is as far behind as the number of
+ * retained operations. Operations are opaque to the service, so a backup that was already further behind when it
+ * became a backup, such as a new or restarted node, cannot be caught up. It is dropped from the replica set and
+ * operations complete without it until the leadership replaces it. When a new primary
+ * is elected, backups resume from the new primary's sequence; operations applied by a backup but not received by
+ * the new primary are not rolled back. A primary that learns of a newer primary from a backup steps down.
+ */
+public class PrimaryBackupService<T> extends AbstractListenerManager<BackupEvent<T>, BackupEventListener<T>> implements BackupService<T> {
+
+  /**
+   * Returns a new primary-backup service builder.
+   *
+   * @param <T> the operation type
+   * @return a new primary-backup service builder
+   */
+  public static <T> Builder<T> builder() {
+    return new Builder<>();
+  }
+
+  private static final long RETRY_DELAY_MILLIS = 100;
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+  private final String topic;
+  private final NodeId localNode;
+  private final LeadershipService leadershipService;
+  private final PrimaryBackupProtocol<T> protocol;
+  private final ScheduledExecutorService executor;
+  private final Replication replication;
+  private final int numBackups;
+  private final int maxBatchSize;
+  private final LeadershipEventListener leadershipListener = this::handleLeadershipEvent;
+
+  private final Object[] operations;
+  private final Map<NodeId, Replicator> replicators = Maps.newHashMap();
+  private final NavigableMap<Long, CompletableFuture<Long>> commitFutures = new TreeMap<>();
+  private NodeId primary;
+  private long term;
+  private long index;
+  private long commitIndex;
+
+  public PrimaryBackupService(
+      String topic,
+      NodeId localNode,
+      LeadershipService leadershipService,
+      PrimaryBackupProtocol<T> protocol,
+      ScheduledExecutorService executor,
+      Replication replication,
+      int numBackups,
+      int maxBatchSize,
+      int maxLogSize) {
+    this.topic = checkNotNull(topic, "topic cannot be null");
+    this.localNode = checkNotNull(localNode, "localNode cannot be null");
+    this.leadershipService = checkNotNull(leadershipService, "leadershipService cannot be null");
+    this.protocol = checkNotNull(protocol, "protocol cannot be null");
+    this.executor = checkNotNull(executor, "executor cannot be null");
+    this.replication = checkNotNull(replication, "replication cannot be null");
+    this.numBackups = numBackups;
+    this.maxBatchSize = maxBatchSize;
+    this.operations = new Object[maxLogSize];
+    protocol.registerBackupHandler(this::handleBackup);
+    protocol.registerExecuteHandler(this::handleExecute);
+    leadershipService.addListener(leadershipListener);
+    updateLeadership(leadershipService.runForLeadership(topic));
+  }
+
+  @Override
+  public CompletableFuture<Long> execute(T operation) {
+    NodeId primary;
+    synchronized (this) {
+      if (localNode.equals(this.primary)) {
+        return apply(operation);
+      }
+      primary = this.primary;
+    }
+
+    if (primary == null) {
+      return Futures.exceptionalFuture(new PrimitiveException.Unavailable());
+    }
+    return protocol.execute(primary, new ExecuteRequest<>(operation)).thenApply(response -> {
+      if (response.status() == ExecuteResponse.Status.OK) {
+        return response.index();
+      }
+      throw new PrimitiveException.Unavailable();
+    });
+  }
+
+  /**
+   * Handles an operation forwarded to the primary.
+   */
+  private CompletableFuture<ExecuteResponse> handleExecute(ExecuteRequest<T> request) {
+    CompletableFuture<Long> future;
+    synchronized (this) {
+      if (!localNode.equals(primary)) {
+        return CompletableFuture.completedFuture(new ExecuteResponse(ExecuteResponse.Status.ERROR, 0));
+      }
+      future = apply(request.operation());
+    }
+    return future.thenApply(index -> new ExecuteResponse(ExecuteResponse.Status.OK, index));
+  }
+
+  /**
+   * Applies an operation on the primary and replicates it to the backups.
+   *
+   * @param operation the operation to apply
+   * @return a future to be completed once the operation has been replicated
+   */
+  private CompletableFuture<Long> apply(T operation) {
+    for (Replicator replicator : replicators.values()) {
+      if (!replicator.canAppend()) {
+        return Futures.exceptionalFuture(new PrimitiveException.Unavailable());
+      }
+    }
+
+    long index = append(operation);
+    CompletableFuture<Long> future;
+    if (replication == Replication.ASYNCHRONOUS || replicators.isEmpty()) {
+      future = CompletableFuture.completedFuture(index);
+    } else {
+      future = new CompletableFuture<>();
+      commitFutures.put(index, future);
+    }
+    replicators.values().forEach(Replicator::replicate);
+
+    // If every backup is lagging, the operation is committed once it's applied.
+    updateCommitIndex();
+    return future;
+  }
+
+  /**
+   * Appends an operation to the sequence and posts it to listeners.
+   *
+   * @param operation the operation to append
+   * @return the index of the operation
+   */
+  private long append(T operation) {
+    long index = ++this.index;
+    operations[slot(index)] = operation;
+    post(new BackupEvent<>(BackupEvent.Type.BACKUP, operation));
+    return index;
+  }
+
+  /**
+   * Returns the slot in which the operation at the given index is retained.
+   */
+  private int slot(long index) {
+    return (int) (index % operations.length);
+  }
+
+  /**
+   * Returns the index of the first operation that is still retained.
+   */
+  private long firstIndex() {
+    return Math.max(1, index - operations.length + 1);
+  }
+
+  /**
+   * Returns the retained operation at the given index.
+   */
+  @SuppressWarnings("unchecked")
+  private T operation(long index) {
+    return (T) operations[slot(index)];
+  }
+
+  /**
+   * Handles a batch of operations from the primary.
+   */
+  private synchronized CompletableFuture<BackupResponse> handleBackup(BackupRequest<T> request) {
+    if (request.term() < term) {
+      return CompletableFuture.completedFuture(new BackupResponse(BackupResponse.Status.ERROR, term, index));
+    }
+
+    // If this is the first request from a new primary, resume from the new primary's sequence.
+    if (request.term() > term || !request.primary().equals(primary)) {
+      term = request.term();
+      primary = request.primary();
+      if (index > request.index()) {
+        index = request.index();
+      }
+    }
+
+    // If operations preceding the batch are missing, respond with the last applied index to request them.
+    if (request.index() > index) {
+      return CompletableFuture.completedFuture(new BackupResponse(BackupResponse.Status.ERROR, term, index));
+    }
+
+    // Apply the operations that have not already been applied.
+    long next = request.index() + 1;
+    for (T operation : request.operations()) {
+      if (next > index) {
+        append(operation);
+      }
+      next++;
+    }
+    return CompletableFuture.completedFuture(new BackupResponse(BackupResponse.Status.OK, term, index));
+  }
+
+  /**
+   * Completes operations that have been replicated to all backups that are not lagging.
+   */
+  private void updateCommitIndex() {
+    long commitIndex = index;
+    for (Replicator replicator : replicators.values()) {
+      if (!replicator.lagging) {
+        commitIndex = Math.min(commitIndex, replicator.matchIndex);
+      }
+    }
+
+    if (commitIndex > this.commitIndex) {
+      this.commitIndex = commitIndex;
+      NavigableMap<Long, CompletableFuture<Long>> committed = commitFutures.headMap(commitIndex, true);
+      committed.forEach((index, future) -> future.complete(index));
+      committed.clear();
+    }
+  }
+
+  /**
+   * Handles a leadership event.
+   */
+  private void handleLeadershipEvent(LeadershipEvent event) {
+    if (event.subject() != null && topic.equals(event.subject().topic())) {
+      updateLeadership(event.subject());
+    }
+  }
+
+  /**
+   * Updates the primary and backups from the given leadership.
+   */
+  private synchronized void updateLeadership(Leadership leadership) {
+    if (leadership == null) {
+      return;
+    }
+
+    Leader leader = leadership.leader();
+    NodeId newPrimary = leader != null ? leader.nodeId() : null;
+    boolean wasPrimary = localNode.equals(primary);
+    primary = newPrimary;
+
+    if (localNode.equals(newPrimary)) {
+      term = Math.max(term, leader.term());
+      if (!wasPrimary) {
+        commitIndex = index;
+      }
+
+      List<NodeId> backups = Lists.newArrayList();
+      for (NodeId candidate : leadership.candidates()) {
+        if (backups.size() == numBackups) {
+          break;
+        }
+        if (!candidate.equals(newPrimary)) {
+          backups.add(candidate);
+        }
+      }
+
+      replicators.keySet().retainAll(backups);
+      for (NodeId backup : backups) {
+        replicators.computeIfAbsent(backup, Replicator::new).replicate();
+      }
+      updateCommitIndex();
+    } else {
+      replicators.clear();
+      if (wasPrimary) {
+        failCommitFutures();
+      }
+    }
+  }
+
+  /**
+   * Steps down after learning of a newer primary from a backup.
+   * <p>
+   * The term is left unchanged so that the first request from the new primary truncates any operations this node
+   * appended after the new primary was elected.
+   *
+   * @param newTerm the newer primary's term
+   */
+  private void stepDown(long newTerm) {
+    log.info("Stepping down as primary for {} after learning of term {}", topic, newTerm);
+    primary = null;
+    replicators.clear();
+    failCommitFutures();
+  }
+
+  /**
+   * Fails operations that have not been replicated.
+   */
+  private void failCommitFutures() {
+    commitFutures.values().forEach(future -> future.completeExceptionally(new PrimitiveException.Unavailable()));
+    commitFutures.clear();
+  }
+
+  @Override
+  public void close() {
+    leadershipService.removeListener(leadershipListener);
+    leadershipService.withdraw(topic);
+    protocol.unregisterBackupHandler();
+    protocol.unregisterExecuteHandler();
+    synchronized (this) {
+      replicators.clear();
+      failCommitFutures();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("topic", topic)
+        .add("primary", primary)
+        .add("term", term)
+        .add("index", index)
+        .toString();
+  }
+
+  /**
+   * Replicates operations from the primary to a single backup.
+   */
+  private final class Replicator {
+    private final NodeId backup;
+    private long nextIndex;
+    private long matchIndex;
+    private boolean inFlight;
+    private boolean lagging;
+
+    private Replicator(NodeId backup) {
+      this.backup = backup;
+      this.nextIndex = index + 1;
+    }
+
+    /**
+     * Returns whether an operation can be appended without overwriting an operation the backup has not received.
+     * <p>
+     * Lagging backups are no longer replicated to, so they never prevent operations from being appended.
+     */
+    private boolean canAppend() {
+      return lagging || index + 1 - nextIndex < operations.length;
+    }
+
+    /**
+     * Sends the next batch of operations to the backup if no batch is in flight.
+     */
+    private void replicate() {
+      if (inFlight || lagging || nextIndex > index) {
+        return;
+      }
+
+      // The backup can only fall behind the retained operations if it was already behind when it became a backup.
+      // Drop it from the replica set so that operations it can no longer receive are committed without it.
+      if (nextIndex < firstIndex()) {
+        log.warn("Backup {} is too far behind to catch up from index {}", backup, nextIndex);
+        lagging = true;
+        updateCommitIndex();
+        return;
+      }
+
+      long previousIndex = nextIndex - 1;
+      int count = (int) Math.min(maxBatchSize, index - previousIndex);
+      List<T> batch = Lists.newArrayListWithCapacity(count);
+      for (int i = 0; i < count; i++) {
+        batch.add(operation(nextIndex + i));
+      }
+
+      inFlight = true;
+      protocol.backup(backup, new BackupRequest<>(localNode, term, previousIndex, batch))
+          .whenCompleteAsync(this::handleResponse, executor);
+    }
+
+    /**
+     * Handles a backup response.
+     */
+    private void handleResponse(BackupResponse response, Throwable error) {
+      synchronized (PrimaryBackupService.this) {
+        inFlight = false;
+        if (replicators.get(backup) != this) {
+          return;
+        }
+
+        if (error != null) {
+          log.debug("Failed to replicate to {}", backup, error);
+          executor.schedule(this::retry, RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        } else if (response.status() == BackupResponse.Status.OK) {
+          matchIndex = Math.max(matchIndex, response.index());
+          nextIndex = matchIndex + 1;
+          updateCommitIndex();
+          replicate();
+        } else if (response.term() <= term) {
+          nextIndex = Math.min(response.index(), index) + 1;
+          replicate();
+        } else {
+          stepDown(response.term());
+        }
+      }
+    }
+
+    /**
+     * Retries replication after a failure.
+     */
+    private void retry() {
+      synchronized (PrimaryBackupService.this) {
+        if (replicators.get(backup) == this) {
+          replicate();
+        }
+      }
+    }
+  }
+
+  /**
+   * Primary-backup service builder.
+   *
+   * @param <T> the operation type
+   */
+  public static class Builder<T> implements BackupService.Builder<T> {
+    private static final int DEFAULT_NUM_BACKUPS = 1;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 1024;
+    private static final int DEFAULT_MAX_LOG_SIZE = 1024 * 64;
+
+    private String topic;
+    private NodeId localNode;
+    private LeadershipService leadershipService;
+    private PrimaryBackupProtocol<T> protocol;
+    private ScheduledExecutorService executor;
+    private Replication replication = Replication.SYNCHRONOUS;
+    private int numBackups = DEFAULT_NUM_BACKUPS;
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private int maxLogSize = DEFAULT_MAX_LOG_SIZE;
+
+    /**
+     * Sets the leadership topic through which the primary is elected.
+     *
+     * @param topic the leadership topic
+     * @return the primary-backup service builder
+     * @throws NullPointerException if the topic is null
+     */
+    public Builder<T> withTopic(String topic) {
+      this.topic = checkNotNull(topic, "topic cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the local node identifier.
+     *
+     * @param localNode the local node identifier
+     * @return the primary-backup service builder
+     * @throws NullPointerException if the local node identifier is null
+     */
+    public Builder<T> withLocalNode(NodeId localNode) {
+      this.localNode = checkNotNull(localNode, "localNode cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the leadership service through which the primary is elected.
+     *
+     * @param leadershipService the leadership service
+     * @return the primary-backup service builder
+     * @throws NullPointerException if the leadership service is null
+     */
+    public Builder<T> withLeadershipService(LeadershipService leadershipService) {
+      this.leadershipService = checkNotNull(leadershipService, "leadershipService cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the primary-backup protocol.
+     *
+     * @param protocol the primary-backup protocol
+     * @return the primary-backup service builder
+     * @throws NullPointerException if the protocol is null
+     */
+    public Builder<T> withProtocol(PrimaryBackupProtocol<T> protocol) {
+      this.protocol = checkNotNull(protocol, "protocol cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the executor on which to handle backup responses and retry replication.
+     *
+     * @param executor the replication executor
+     * @return the primary-backup service builder
+     * @throws NullPointerException if the executor is null
+     */
+    public Builder<T> withExecutor(ScheduledExecutorService executor) {
+      this.executor = checkNotNull(executor, "executor cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the replication strategy.
+     *
+     * @param replication the replication strategy
+     * @return the primary-backup service builder
+     * @throws NullPointerException if the replication strategy is null
+     */
+    public Builder<T> withReplication(Replication replication) {
+      this.replication = checkNotNull(replication, "replication cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the number of backups.
+     *
+     * @param numBackups the number of backups
+     * @return the primary-backup service builder
+     * @throws IllegalArgumentException if the number of backups is negative
+     */
+    public Builder<T> withNumBackups(int numBackups) {
+      checkArgument(numBackups >= 0, "numBackups cannot be negative");
+      this.numBackups = numBackups;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of operations to send to a backup in a single batch.
+     *
+     * @param maxBatchSize the maximum batch size
+     * @return the primary-backup service builder
+     * @throws IllegalArgumentException if the maximum batch size is not positive
+     */
+    public Builder<T> withMaxBatchSize(int maxBatchSize) {
+      checkArgument(maxBatchSize > 0, "maxBatchSize must be positive");
+      this.maxBatchSize = maxBatchSize;
+      return this;
+    }
+
+    /**
+     * Sets the number of recent operations to retain for backups to catch up from.
+     * <p>
+     * Operations fail while a backup has not received this many operations, and a backup that starts further behind
+     * is dropped from the replica set.
+     *
+     * @param maxLogSize the number of operations to retain
+     * @return the primary-backup service builder
+     * @throws IllegalArgumentException if the number of operations is not positive
+     */
+    public Builder<T> withMaxLogSize(int maxLogSize) {
+      checkArgument(maxLogSize > 0, "maxLogSize must be positive");
+      this.maxLogSize = maxLogSize;
+      return this;
+    }
+
+    @Override
+    public BackupService<T> build() {
+      return new PrimaryBackupService<>(
+          topic,
+          localNode,
+          leadershipService,
+          protocol,
+          executor,
+          replication,
+          numBackups,
+          maxBatchSize,
+          maxLogSize);
+    }
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup;
+
+/**
+ * Primary-backup replication strategy.
+ */
+public enum Replication {
+
+  /**
+   * Operations complete once they have been applied by the primary and all backups.
+   */
+  SYNCHRONOUS,
+
+  /**
+   * Operations complete once they have been applied by the primary and are replicated to backups in the
+   * background.
+   */
+  ASYNCHRONOUS,
+
+}
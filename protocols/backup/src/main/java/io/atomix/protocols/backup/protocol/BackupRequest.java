@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup.protocol;
+
+import io.atomix.cluster.NodeId;
+
+import java.util.List;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Request to replicate a batch of operations from the primary to a backup.
+ * <p>
+ * Operations are sequence numbered, and the batch contains the operations immediately following the given
+ * index, allowing the backup to detect gaps and duplicates.
+ */
+public class BackupRequest<T> {
+  private final NodeId primary;
+  private final long term;
+  private final long index;
+  private final List<T> operations;
+
+  public BackupRequest(NodeId primary, long term, long index, List<T> operations) {
+    this.primary = primary;
+    this.term = term;
+    this.index = index;
+    this.operations = operations;
+  }
+
+  /**
+   * Returns the primary that sent the request.
+   *
+   * @return the primary that sent the request
+   */
+  public NodeId primary() {
+    return primary;
+  }
+
+  /**
+   * Returns the primary's term.
+   *
+   * @return the primary's term
+   */
+  public long term() {
+    return term;
+  }
+
+  /**
+   * Returns the index of the operation preceding the first operation in the batch.
+   *
+   * @return the index of the operation preceding the batch
+   */
+  public long index() {
+    return index;
+  }
+
+  /**
+   * Returns the operations to replicate.
+   *
+   * @return the operations to replicate
+   */
+  public List<T> operations() {
+    return operations;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("primary", primary)
+        .add("term", term)
+        .add("index", index)
+        .add("operations", operations.size())
+        .toString();
+  }
+}
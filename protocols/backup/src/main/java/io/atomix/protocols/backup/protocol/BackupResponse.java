@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup.protocol;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Backup response.
+ */
+public class BackupResponse {
+
+  /**
+   * Backup response status.
+   */
+  public enum Status {
+    /**
+     * Signifies that the operations were applied by the backup.
+     */
+    OK,
+
+    /**
+     * Signifies that the request was rejected, either because it is from a stale term or because the backup
+     * is missing operations preceding the batch.
+     */
+    ERROR,
+  }
+
+  private final Status status;
+  private final long term;
+  private final long index;
+
+  public BackupResponse(Status status, long term, long index) {
+    this.status = status;
+    this.term = term;
+    this.index = index;
+  }
+
+  /**
+   * Returns the response status.
+   *
+   * @return the response status
+   */
+  public Status status() {
+    return status;
+  }
+
+  /**
+   * Returns the backup's term.
+   *
+   * @return the backup's term
+   */
+  public long term() {
+    return term;
+  }
+
+  /**
+   * Returns the index of the last operation applied by the backup.
+   *
+   * @return the index of the last operation applied by the backup
+   */
+  public long index() {
+    return index;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("status", status)
+        .add("term", term)
+        .add("index", index)
+        .toString();
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup.protocol;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Execute response.
+ */
+public class ExecuteResponse {
+
+  /**
+   * Execute response status.
+   */
+  public enum Status {
+    /**
+     * Signifies that the operation was executed and replicated.
+     */
+    OK,
+
+    /**
+     * Signifies that the operation could not be executed, usually because the receiver is not the primary.
+     */
+    ERROR,
+  }
+
+  private final Status status;
+  private final long index;
+
+  public ExecuteResponse(Status status, long index) {
+    this.status = status;
+    this.index = index;
+  }
+
+  /**
+   * Returns the response status.
+   *
+   * @return the response status
+   */
+  public Status status() {
+    return status;
+  }
+
+  /**
+   * Returns the index assigned to the operation.
+   *
+   * @return the index assigned to the operation
+   */
+  public long index() {
+    return index;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("status", status)
+        .add("index", index)
+        .toString();
+  }
+}
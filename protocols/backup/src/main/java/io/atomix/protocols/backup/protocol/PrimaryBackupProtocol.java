@@ -0,0 +1,70 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup.protocol;
+
+import io.atomix.cluster.NodeId;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Primary-backup protocol.
+ */
+public interface PrimaryBackupProtocol<T> {
+
+  /**
+   * Sends a batch of operations to a backup.
+   *
+   * @param backup the backup to which to send the operations
+   * @param request the backup request
+   * @return a future to be completed with the backup response
+   */
+  CompletableFuture<BackupResponse> backup(NodeId backup, BackupRequest<T> request);
+
+  /**
+   * Registers a backup request handler.
+   *
+   * @param handler the backup request handler
+   */
+  void registerBackupHandler(Function<BackupRequest<T>, CompletableFuture<BackupResponse>> handler);
+
+  /**
+   * Unregisters the backup request handler.
+   */
+  void unregisterBackupHandler();
+
+  /**
+   * Forwards an operation to the primary.
+   *
+   * @param primary the primary to which to forward the operation
+   * @param request the execute request
+   * @return a future to be completed with the execute response
+   */
+  CompletableFuture<ExecuteResponse> execute(NodeId primary, ExecuteRequest<T> request);
+
+  /**
+   * Registers an execute request handler.
+   *
+   * @param handler the execute request handler
+   */
+  void registerExecuteHandler(Function<ExecuteRequest<T>, CompletableFuture<ExecuteResponse>> handler);
+
+  /**
+   * Unregisters the execute request handler.
+   */
+  void unregisterExecuteHandler();
+
+}
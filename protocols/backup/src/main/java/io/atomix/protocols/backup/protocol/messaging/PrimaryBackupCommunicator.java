@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup.protocol.messaging;
+
+import io.atomix.cluster.NodeId;
+import io.atomix.cluster.messaging.ClusterCommunicationService;
+import io.atomix.cluster.messaging.MessageSubject;
+import io.atomix.protocols.backup.protocol.BackupRequest;
+import io.atomix.protocols.backup.protocol.BackupResponse;
+import io.atomix.protocols.backup.protocol.ExecuteRequest;
+import io.atomix.protocols.backup.protocol.ExecuteResponse;
+import io.atomix.protocols.backup.protocol.PrimaryBackupProtocol;
+import io.atomix.serializer.Serializer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Primary-backup protocol that uses a {@link ClusterCommunicationService}.
+ */
+public class PrimaryBackupCommunicator<T> implements PrimaryBackupProtocol<T> {
+  private final MessageSubject backupSubject;
+  private final MessageSubject executeSubject;
+  private final Serializer serializer;
+  private final ClusterCommunicationService clusterCommunicator;
+
+  public PrimaryBackupCommunicator(String prefix, Serializer serializer, ClusterCommunicationService clusterCommunicator) {
+    this.backupSubject = new MessageSubject(String.format("%s-backup", checkNotNull(prefix, "prefix cannot be null")));
+    this.executeSubject = new MessageSubject(String.format("%s-execute", prefix));
+    this.serializer = checkNotNull(serializer, "serializer cannot be null");
+    this.clusterCommunicator = checkNotNull(clusterCommunicator, "clusterCommunicator cannot be null");
+  }
+
+  @Override
+  public CompletableFuture<BackupResponse> backup(NodeId backup, BackupRequest<T> request) {
+    return clusterCommunicator.sendAndReceive(request, backupSubject, serializer::encode, serializer::decode, backup);
+  }
+
+  @Override
+  public void registerBackupHandler(Function<BackupRequest<T>, CompletableFuture<BackupResponse>> handler) {
+    clusterCommunicator.addSubscriber(backupSubject, serializer::decode, handler, serializer::encode);
+  }
+
+  @Override
+  public void unregisterBackupHandler() {
+    clusterCommunicator.removeSubscriber(backupSubject);
+  }
+
+  @Override
+  public CompletableFuture<ExecuteResponse> execute(NodeId primary, ExecuteRequest<T> request) {
+    return clusterCommunicator.sendAndReceive(request, executeSubject, serializer::encode, serializer::decode, primary);
+  }
+
+  @Override
+  public void registerExecuteHandler(Function<ExecuteRequest<T>, CompletableFuture<ExecuteResponse>> handler) {
+    clusterCommunicator.addSubscriber(executeSubject, serializer::decode, handler, serializer::encode);
+  }
+
+  @Override
+  public void unregisterExecuteHandler() {
+    clusterCommunicator.removeSubscriber(executeSubject);
+  }
+}
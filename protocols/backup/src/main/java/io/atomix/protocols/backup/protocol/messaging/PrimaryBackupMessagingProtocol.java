@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup.protocol.messaging;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import io.atomix.cluster.NodeId;
+import io.atomix.messaging.Endpoint;
+import io.atomix.messaging.MessagingService;
+import io.atomix.protocols.backup.protocol.BackupRequest;
+import io.atomix.protocols.backup.protocol.BackupResponse;
+import io.atomix.protocols.backup.protocol.ExecuteRequest;
+import io.atomix.protocols.backup.protocol.ExecuteResponse;
+import io.atomix.protocols.backup.protocol.PrimaryBackupProtocol;
+import io.atomix.serializer.Serializer;
+import io.atomix.utils.concurrent.Futures;
+
+import java.net.ConnectException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Primary-backup protocol that uses a {@link MessagingService}.
+ */
+public class PrimaryBackupMessagingProtocol<T> implements PrimaryBackupProtocol<T> {
+  private final String backupType;
+  private final String executeType;
+  private final MessagingService messagingService;
+  private final Serializer serializer;
+  private final Function<NodeId, Endpoint> endpointProvider;
+
+  public PrimaryBackupMessagingProtocol(String prefix, MessagingService messagingService, Serializer serializer, Function<NodeId, Endpoint> endpointProvider) {
+    this.backupType = String.format("%s-backup", checkNotNull(prefix, "prefix cannot be null"));
+    this.executeType = String.format("%s-execute", prefix);
+    this.messagingService = checkNotNull(messagingService, "messagingService cannot be null");
+    this.serializer = checkNotNull(serializer, "serializer cannot be null");
+    this.endpointProvider = checkNotNull(endpointProvider, "endpointProvider cannot be null");
+  }
+
+  private <U, V> CompletableFuture<V> sendAndReceive(NodeId nodeId, String type, U request) {
+    Endpoint endpoint = endpointProvider.apply(nodeId);
+    if (endpoint == null) {
+      return Futures.exceptionalFuture(new ConnectException());
+    }
+    return messagingService.sendAndReceive(endpoint, type, serializer.encode(request),
+        buffer -> serializer.<V>decode(buffer), MoreExecutors.directExecutor());
+  }
+
+  private <U, V> void registerHandler(String type, Function<U, CompletableFuture<V>> handler) {
+    messagingService.registerBufferHandler(type, (e, p) -> {
+      CompletableFuture<byte[]> future = new CompletableFuture<>();
+      handler.apply(serializer.<U>decode(p)).whenComplete((result, error) -> {
+        if (error == null) {
+          future.complete(serializer.encode(result));
+        } else {
+          future.completeExceptionally(error);
+        }
+      });
+      return future;
+    });
+  }
+
+  @Override
+  public CompletableFuture<BackupResponse> backup(NodeId backup, BackupRequest<T> request) {
+    return sendAndReceive(backup, backupType, request);
+  }
+
+  @Override
+  public void registerBackupHandler(Function<BackupRequest<T>, CompletableFuture<BackupResponse>> handler) {
+    registerHandler(backupType, handler);
+  }
+
+  @Override
+  public void unregisterBackupHandler() {
+    messagingService.unregisterHandler(backupType);
+  }
+
+  @Override
+  public CompletableFuture<ExecuteResponse> execute(NodeId primary, ExecuteRequest<T> request) {
+    return sendAndReceive(primary, executeType, request);
+  }
+
+  @Override
+  public void registerExecuteHandler(Function<ExecuteRequest<T>, CompletableFuture<ExecuteResponse>> handler) {
+    registerHandler(executeType, handler);
+  }
+
+  @Override
+  public void unregisterExecuteHandler() {
+    messagingService.unregisterHandler(executeType);
+  }
+}
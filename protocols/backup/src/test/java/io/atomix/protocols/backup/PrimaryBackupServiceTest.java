@@ -0,0 +1,438 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import io.atomix.cluster.NodeId;
+import io.atomix.event.AbstractListenerManager;
+import io.atomix.leadership.Leader;
+import io.atomix.leadership.Leadership;
+import io.atomix.leadership.LeadershipEvent;
+import io.atomix.leadership.LeadershipEventListener;
+import io.atomix.leadership.LeadershipService;
+import io.atomix.primitives.PrimitiveException;
+import io.atomix.protocols.backup.protocol.BackupRequest;
+import io.atomix.protocols.backup.protocol.BackupResponse;
+import io.atomix.protocols.backup.protocol.ExecuteRequest;
+import io.atomix.protocols.backup.protocol.ExecuteResponse;
+import io.atomix.protocols.backup.protocol.PrimaryBackupProtocol;
+import io.atomix.utils.concurrent.Futures;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Primary-backup service test.
+ */
+@Test
+public class PrimaryBackupServiceTest {
+  private static final String TOPIC = "test";
+  private static final long TIMEOUT_SECONDS = 10;
+
+  private TestCluster cluster;
+  private List<TestNode> nodes;
+
+  @BeforeMethod
+  protected void setup() {
+    cluster = new TestCluster();
+    nodes = new ArrayList<>();
+  }
+
+  @AfterMethod
+  protected void teardown() {
+    nodes.forEach(node -> node.service.close());
+    nodes.forEach(node -> node.executor.shutdownNow());
+    cluster.network.shutdownNow();
+  }
+
+  /**
+   * Creates a node that runs for leadership of the test topic.
+   */
+  private TestNode createNode(String id, int numBackups, int maxLogSize) {
+    TestNode node = new TestNode(NodeId.from(id), numBackups, maxLogSize);
+    nodes.add(node);
+    return node;
+  }
+
+  /**
+   * Closes the node with the given identifier and creates a new node in its place.
+   */
+  private TestNode restartNode(String id, int numBackups, int maxLogSize) {
+    NodeId nodeId = NodeId.from(id);
+    for (TestNode node : nodes) {
+      if (node.nodeId.equals(nodeId)) {
+        node.service.close();
+      }
+    }
+    return createNode(id, numBackups, maxLogSize);
+  }
+
+  private static long get(CompletableFuture<Long> future) throws Exception {
+    return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+  }
+
+  private static void assertUnavailable(CompletableFuture<Long> future) throws Exception {
+    try {
+      get(future);
+      fail("expected the operation to fail");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof PrimitiveException.Unavailable);
+    }
+  }
+
+  /**
+   * Tests that operations executed on the primary and forwarded from backups are applied by all nodes in the
+   * same order.
+   */
+  public void testReplicate() throws Exception {
+    TestNode a = createNode("a", 2, 1024);
+    TestNode b = createNode("b", 2, 1024);
+    TestNode c = createNode("c", 2, 1024);
+
+    List<CompletableFuture<Long>> futures = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      futures.add(a.service.execute("a" + i));
+      if (i % 10 == 0) {
+        futures.add(b.service.execute("b" + i));
+      }
+    }
+
+    Set<Long> indexes = Sets.newHashSet();
+    for (CompletableFuture<Long> future : futures) {
+      indexes.add(get(future));
+    }
+    assertEquals(indexes.size(), futures.size());
+    assertEquals(a.operations.size(), futures.size());
+    assertEquals(b.operations, a.operations);
+    assertEquals(c.operations, a.operations);
+  }
+
+  /**
+   * Tests that a backup catches up from the operations retained by the primary once it is reachable again.
+   */
+  public void testBackupCatchUp() throws Exception {
+    TestNode a = createNode("a", 1, 16);
+    TestNode b = createNode("b", 1, 16);
+
+    cluster.partition(a.nodeId, b.nodeId);
+    List<CompletableFuture<Long>> futures = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      futures.add(a.service.execute("op" + i));
+    }
+    Thread.sleep(250);
+    futures.forEach(future -> assertFalse(future.isDone()));
+
+    cluster.heal();
+    for (CompletableFuture<Long> future : futures) {
+      get(future);
+    }
+    assertEquals(b.operations, a.operations);
+  }
+
+  /**
+   * Tests that operations fail rather than overwrite operations that a backup has not received.
+   */
+  public void testBackupFallsBehind() throws Exception {
+    TestNode a = createNode("a", 1, 4);
+    TestNode b = createNode("b", 1, 4);
+
+    cluster.partition(a.nodeId, b.nodeId);
+    List<CompletableFuture<Long>> futures = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      futures.add(a.service.execute("op" + i));
+    }
+    CompletableFuture<Long> rejected = a.service.execute("rejected");
+    assertTrue(rejected.isCompletedExceptionally());
+    assertUnavailable(rejected);
+
+    cluster.heal();
+    for (CompletableFuture<Long> future : futures) {
+      get(future);
+    }
+    assertEquals(get(a.service.execute("op4")), 5);
+    assertEquals(b.operations, Arrays.asList("op0", "op1", "op2", "op3", "op4"));
+    assertEquals(a.operations, b.operations);
+  }
+
+  /**
+   * Tests that a backup further behind than the retained operations is dropped from the replica set.
+   */
+  public void testBackupTooFarBehind() throws Exception {
+    TestNode a = createNode("a", 1, 4);
+    for (int i = 0; i < 10; i++) {
+      get(a.service.execute("op" + i));
+    }
+
+    TestNode b = createNode("b", 1, 4);
+    assertEquals(get(a.service.execute("op10")), 11);
+    assertEquals(get(a.service.execute("op11")), 12);
+    assertTrue(b.operations.isEmpty());
+  }
+
+  /**
+   * Tests that operations continue to be replicated to the remaining backups after a backup restarts further behind
+   * than the retained operations.
+   */
+  public void testBackupRestart() throws Exception {
+    TestNode a = createNode("a", 2, 4);
+    createNode("b", 2, 4);
+    TestNode c = createNode("c", 2, 4);
+    for (int i = 0; i < 10; i++) {
+      get(a.service.execute("op" + i));
+    }
+
+    // The restarted backup has none of the operations, which the primary no longer retains.
+    TestNode b = restartNode("b", 2, 4);
+    for (int i = 10; i < 20; i++) {
+      assertEquals(get(a.service.execute("op" + i)), i + 1);
+    }
+    assertEquals(a.operations.size(), 20);
+    assertEquals(c.operations, a.operations);
+    assertTrue(b.operations.isEmpty());
+  }
+
+  /**
+   * Tests that a primary steps down when a backup has accepted operations from a newer primary.
+   */
+  public void testStepDown() throws Exception {
+    TestNode a = createNode("a", 2, 1024);
+    TestNode b = createNode("b", 2, 1024);
+    TestNode c = createNode("c", 2, 1024);
+    get(a.service.execute("op0"));
+
+    // Elect b without notifying a, which is also unreachable from b. The operation cannot complete until a is
+    // reachable, but c learns of b's term.
+    cluster.partition(a.nodeId, b.nodeId);
+    cluster.elect(b.nodeId, b.nodeId, c.nodeId);
+    CompletableFuture<Long> future = b.service.execute("op1");
+
+    assertUnavailable(a.service.execute("stale"));
+    assertUnavailable(a.service.execute("stale"));
+
+    cluster.heal();
+    cluster.elect(b.nodeId, a.nodeId);
+    get(future);
+    get(a.service.execute("op2"));
+    assertEquals(c.operations, Arrays.asList("op0", "op1", "op2"));
+    assertEquals(b.operations, c.operations);
+  }
+
+  /**
+   * Test node.
+   */
+  private final class TestNode {
+    private final NodeId nodeId;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final List<String> operations = Collections.synchronizedList(new ArrayList<>());
+    private final BackupService<String> service;
+
+    private TestNode(NodeId nodeId, int numBackups, int maxLogSize) {
+      this.nodeId = nodeId;
+      this.service = PrimaryBackupService.<String>builder()
+          .withTopic(TOPIC)
+          .withLocalNode(nodeId)
+          .withLeadershipService(new TestLeadershipService(nodeId, cluster))
+          .withProtocol(new TestProtocol(nodeId, cluster))
+          .withExecutor(executor)
+          .withNumBackups(numBackups)
+          .withMaxLogSize(maxLogSize)
+          .build();
+      service.addListener(event -> operations.add(event.subject()));
+    }
+  }
+
+  /**
+   * Test cluster in which the first candidate to run for leadership is the leader until another is elected.
+   */
+  private static final class TestCluster {
+    private final ExecutorService network = Executors.newSingleThreadExecutor();
+    private final Map<NodeId, TestProtocol> protocols = Maps.newConcurrentMap();
+    private final Map<NodeId, TestLeadershipService> leadershipServices = Maps.newConcurrentMap();
+    private final Set<List<NodeId>> partitions = Sets.newConcurrentHashSet();
+    private final List<NodeId> candidates = new ArrayList<>();
+    private Leader leader;
+    private long term;
+
+    private void partition(NodeId a, NodeId b) {
+      partitions.add(Arrays.asList(a, b));
+      partitions.add(Arrays.asList(b, a));
+    }
+
+    private void heal() {
+      partitions.clear();
+    }
+
+    /**
+     * Sends a request to the given node on the network thread.
+     */
+    private <T, U> CompletableFuture<U> send(
+        NodeId from, NodeId to, T request, Function<TestProtocol, Function<T, CompletableFuture<U>>> handler) {
+      if (partitions.contains(Arrays.asList(from, to))) {
+        return Futures.exceptionalFuture(new ConnectException());
+      }
+      return CompletableFuture.supplyAsync(() -> {
+        TestProtocol protocol = protocols.get(to);
+        Function<T, CompletableFuture<U>> function = protocol != null ? handler.apply(protocol) : null;
+        return function != null ? function.apply(request) : Futures.<U>exceptionalFuture(new ConnectException());
+      }, network).thenCompose(future -> future);
+    }
+
+    private synchronized Leadership leadership() {
+      return new Leadership(TOPIC, leader, Lists.newArrayList(candidates));
+    }
+
+    private synchronized Leadership run(TestLeadershipService service) {
+      candidates.add(service.nodeId);
+      leadershipServices.put(service.nodeId, service);
+      if (leader == null) {
+        leader = new Leader(service.nodeId, ++term, 0);
+      }
+      Leadership leadership = leadership();
+      leadershipServices.values().forEach(s -> s.post(new LeadershipEvent(LeadershipEvent.Type.CANDIDATES_CHANGED, leadership)));
+      return leadership;
+    }
+
+    private synchronized void withdraw(TestLeadershipService service) {
+      candidates.remove(service.nodeId);
+      leadershipServices.remove(service.nodeId);
+    }
+
+    /**
+     * Elects the given node, notifying only the given nodes of the new leadership.
+     */
+    private synchronized void elect(NodeId nodeId, NodeId... notify) {
+      if (!nodeId.equals(leader.nodeId())) {
+        candidates.remove(nodeId);
+        candidates.add(0, nodeId);
+        leader = new Leader(nodeId, ++term, 0);
+      }
+      Leadership leadership = leadership();
+      for (NodeId notified : notify) {
+        leadershipServices.get(notified).post(new LeadershipEvent(LeadershipEvent.Type.LEADER_AND_CANDIDATES_CHANGED, leadership));
+      }
+    }
+  }
+
+  /**
+   * Test leadership service.
+   */
+  private static final class TestLeadershipService
+      extends AbstractListenerManager<LeadershipEvent, LeadershipEventListener>
+      implements LeadershipService {
+    private final NodeId nodeId;
+    private final TestCluster cluster;
+
+    private TestLeadershipService(NodeId nodeId, TestCluster cluster) {
+      this.nodeId = nodeId;
+      this.cluster = cluster;
+    }
+
+    @Override
+    protected void post(LeadershipEvent event) {
+      super.post(event);
+    }
+
+    @Override
+    public Leadership getLeadership(String topic) {
+      return cluster.leadership();
+    }
+
+    @Override
+    public Leadership runForLeadership(String topic) {
+      return cluster.run(this);
+    }
+
+    @Override
+    public void withdraw(String topic) {
+      cluster.withdraw(this);
+    }
+
+    @Override
+    @Deprecated
+    public Map<String, Leadership> getLeaderBoard() {
+      return ImmutableMap.of(TOPIC, cluster.leadership());
+    }
+  }
+
+  /**
+   * Test protocol that delivers requests through the test cluster.
+   */
+  private static final class TestProtocol implements PrimaryBackupProtocol<String> {
+    private final NodeId nodeId;
+    private final TestCluster cluster;
+    private volatile Function<BackupRequest<String>, CompletableFuture<BackupResponse>> backupHandler;
+    private volatile Function<ExecuteRequest<String>, CompletableFuture<ExecuteResponse>> executeHandler;
+
+    private TestProtocol(NodeId nodeId, TestCluster cluster) {
+      this.nodeId = nodeId;
+      this.cluster = cluster;
+      cluster.protocols.put(nodeId, this);
+    }
+
+    @Override
+    public CompletableFuture<BackupResponse> backup(NodeId backup, BackupRequest<String> request) {
+      return cluster.send(nodeId, backup, request, protocol -> protocol.backupHandler);
+    }
+
+    @Override
+    public void registerBackupHandler(Function<BackupRequest<String>, CompletableFuture<BackupResponse>> handler) {
+      this.backupHandler = handler;
+    }
+
+    @Override
+    public void unregisterBackupHandler() {
+      this.backupHandler = null;
+    }
+
+    @Override
+    public CompletableFuture<ExecuteResponse> execute(NodeId primary, ExecuteRequest<String> request) {
+      return cluster.send(nodeId, primary, request, protocol -> protocol.executeHandler);
+    }
+
+    @Override
+    public void registerExecuteHandler(Function<ExecuteRequest<String>, CompletableFuture<ExecuteResponse>> handler) {
+      this.executeHandler = handler;
+    }
+
+    @Override
+    public void unregisterExecuteHandler() {
+      this.executeHandler = null;
+    }
+  }
+}
@@ -65,6 +65,12 @@ public class PhiAccrualFailureDetectionService<T extends Identifier>
 
   private final Map<T, FailureDetectionEvent.State> nodeStates = Maps.newConcurrentMap();
 
+  /**
+   * @deprecated phi is computed from a normal distribution, to which the phi factor does not apply. Use
+   * {@link #PhiAccrualFailureDetectionService(FailureDetectionProtocol, Identifier, Supplier,
+   * ScheduledExecutorService, Duration, int, int, double, Duration)} instead.
+   */
+  @Deprecated
   public PhiAccrualFailureDetectionService(
       FailureDetectionProtocol<T> protocol,
       T localNode,
@@ -75,12 +81,26 @@ public class PhiAccrualFailureDetectionService<T extends Identifier>
       int minSamples,
       double phiFactor,
       double bootstrapPhiValue) {
+    this(protocol, localNode, peerProvider, heartbeatExecutor, heartbeatInterval, phiFailureThreshold, minSamples,
+        bootstrapPhiValue, Builder.DEFAULT_MIN_STANDARD_DEVIATION);
+  }
+
+  public PhiAccrualFailureDetectionService(
+      FailureDetectionProtocol<T> protocol,
+      T localNode,
+      Supplier<Collection<T>> peerProvider,
+      ScheduledExecutorService heartbeatExecutor,
+      Duration heartbeatInterval,
+      int phiFailureThreshold,
+      int minSamples,
+      double bootstrapPhiValue,
+      Duration minStandardDeviation) {
     checkArgument(phiFailureThreshold > 0, "phiFailureThreshold must be positive");
     this.localNode = checkNotNull(localNode, "localNode cannot be null");
     this.protocol = checkNotNull(protocol, "protocol cannot be null");
     this.peerProvider = checkNotNull(peerProvider, "peerProvider cannot be null");
     this.phiFailureThreshold = phiFailureThreshold;
-    this.failureDetector = new PhiAccrualFailureDetector<>(minSamples, phiFactor, bootstrapPhiValue);
+    this.failureDetector = new PhiAccrualFailureDetector<>(minSamples, bootstrapPhiValue, minStandardDeviation);
     this.heartbeatFuture = heartbeatExecutor.scheduleAtFixedRate(
         this::heartbeat, heartbeatInterval.toMillis(), heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
     protocol.registerHeartbeatListener(new HeartbeatMessageHandler());
@@ -104,7 +124,7 @@ public class PhiAccrualFailureDetectionService<T extends Identifier>
       HeartbeatMessage<T> heartbeat = new HeartbeatMessage<>(localNode, state);
       peers.forEach((node) -> {
         heartbeatToPeer(heartbeat, node);
-        FailureDetectionEvent.State currentState = nodeStates.get(node.id());
+        FailureDetectionEvent.State currentState = nodeStates.get(node);
         double phi = failureDetector.phi(node);
         if (phi >= phiFailureThreshold) {
           if (currentState == FailureDetectionEvent.State.ACTIVE) {
@@ -152,8 +172,8 @@ public class PhiAccrualFailureDetectionService<T extends Identifier>
     private static final Duration DEFAULT_HEARTBEAT_INTERVAL = Duration.ofMillis(100);
     private static final int DEFAULT_PHI_FAILURE_THRESHOLD = 10;
     private static final int DEFAULT_MIN_SAMPLES = 25;
-    private static final double DEFAULT_PHI_FACTOR = 1.0 / Math.log(10.0);
     private static final double DEFAULT_BOOTSTRAP_PHI_VALUE = 100.0;
+    private static final Duration DEFAULT_MIN_STANDARD_DEVIATION = Duration.ofMillis(100);
 
     private FailureDetectionProtocol<T> protocol;
     private T localNode;
@@ -162,8 +182,8 @@ public class PhiAccrualFailureDetectionService<T extends Identifier>
     private Duration heartbeatInterval = DEFAULT_HEARTBEAT_INTERVAL;
     private int phiFailureThreshold = DEFAULT_PHI_FAILURE_THRESHOLD;
     private int minSamples = DEFAULT_MIN_SAMPLES;
-    private double phiFactor = DEFAULT_PHI_FACTOR;
     private double bootstrapPhiValue = DEFAULT_BOOTSTRAP_PHI_VALUE;
+    private Duration minStandardDeviation = DEFAULT_MIN_STANDARD_DEVIATION;
 
     /**
      * Sets the failure detection protocol.
@@ -257,10 +277,30 @@ public class PhiAccrualFailureDetectionService<T extends Identifier>
      * @param phiFactor the phi factor
      * @return the failure detection service builder
      * @throws IllegalArgumentException if the phi factor is not positive
+     * @deprecated phi is computed from a normal distribution, to which the phi factor does not apply. Use
+     * {@link #withMinStandardDeviation(Duration)} instead.
      */
+    @Deprecated
     public Builder<T> withPhiFactor(double phiFactor) {
       checkArgument(phiFactor > 0, "phiFactor must be positive");
-      this.phiFactor = phiFactor;
+      return this;
+    }
+
+    /**
+     * Sets the minimum standard deviation of heartbeat intervals with which to compute phi.
+     * <p>
+     * The minimum standard deviation prevents heartbeats that arrive at very regular intervals from causing
+     * phi to rise sharply on small delays.
+     *
+     * @param minStandardDeviation the minimum standard deviation
+     * @return the failure detection service builder
+     * @throws NullPointerException if the minimum standard deviation is null
+     * @throws IllegalArgumentException if the minimum standard deviation is not positive
+     */
+    public Builder<T> withMinStandardDeviation(Duration minStandardDeviation) {
+      checkNotNull(minStandardDeviation, "minStandardDeviation cannot be null");
+      checkArgument(!minStandardDeviation.isNegative() && !minStandardDeviation.isZero(), "minStandardDeviation must be positive");
+      this.minStandardDeviation = minStandardDeviation;
       return this;
     }
 
@@ -287,8 +327,8 @@ public class PhiAccrualFailureDetectionService<T extends Identifier>
           heartbeatInterval,
           phiFailureThreshold,
           minSamples,
-          phiFactor,
-          bootstrapPhiValue);
+          bootstrapPhiValue,
+          minStandardDeviation);
     }
   }
 }
@@ -17,9 +17,10 @@ package io.atomix.protocols.phi;
 
 import com.google.common.collect.Maps;
 import io.atomix.utils.Identifier;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -28,6 +29,12 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * Phi Accrual failure detector.
  * <p>
  * Based on a paper titled: "The φ Accrual Failure Detector" by Hayashibara, et al.
+ * <p>
+ * Heartbeat inter-arrival times are modeled as a normal distribution whose mean and variance are maintained
+ * over a sliding window of samples, and phi is {@code -log10(P_later(t))}, where {@code P_later(t)} is the
+ * probability that a heartbeat arrives more than {@code t} after the last heartbeat. The window is a primitive
+ * ring buffer with a running sum and sum of squares, so reporting a heartbeat and computing phi are constant
+ * time and allocation free, and phi is computed without blocking reporters.
  */
 public class PhiAccrualFailureDetector<T extends Identifier> {
   private final Map<T, History> states = Maps.newConcurrentMap();
@@ -35,7 +42,7 @@ public class PhiAccrualFailureDetector<T extends Identifier> {
   // Default value
   private static final int DEFAULT_WINDOW_SIZE = 250;
   private static final int DEFAULT_MIN_SAMPLES = 25;
-  private static final double DEFAULT_PHI_FACTOR = 1.0 / Math.log(10.0);
+  private static final Duration DEFAULT_MIN_STANDARD_DEVIATION = Duration.ofMillis(100);
 
   // If a node does not have any heartbeats, this is the phi
   // value to report. Indicates the node is inactive (from the
@@ -43,14 +50,14 @@ public class PhiAccrualFailureDetector<T extends Identifier> {
   private static final double DEFAULT_BOOTSTRAP_PHI_VALUE = 100.0;
 
   private final int minSamples;
-  private final double phiFactor;
   private final double bootstrapPhiValue;
+  private final double minStandardDeviation;
 
   /**
    * Creates a new failure detector with the default configuration.
    */
   public PhiAccrualFailureDetector() {
-    this(DEFAULT_MIN_SAMPLES, DEFAULT_PHI_FACTOR, DEFAULT_BOOTSTRAP_PHI_VALUE);
+    this(DEFAULT_MIN_SAMPLES, DEFAULT_BOOTSTRAP_PHI_VALUE, DEFAULT_MIN_STANDARD_DEVIATION);
   }
 
   /**
@@ -59,11 +66,26 @@ public class PhiAccrualFailureDetector<T extends Identifier> {
    * @param minSamples the minimum number of samples required to compute phi
    * @param phiFactor the phi factor
    * @param bootstrapPhiValue the phi value with which to bootstrap the detector
+   * @deprecated phi is computed from a normal distribution, to which the phi factor does not apply. Use
+   * {@link #PhiAccrualFailureDetector(int, double, Duration)} instead.
    */
+  @Deprecated
   public PhiAccrualFailureDetector(int minSamples, double phiFactor, double bootstrapPhiValue) {
+    this(minSamples, bootstrapPhiValue, DEFAULT_MIN_STANDARD_DEVIATION);
+  }
+
+  /**
+   * Creates a new failure detector.
+   *
+   * @param minSamples the minimum number of samples required to compute phi
+   * @param bootstrapPhiValue the phi value with which to bootstrap the detector
+   * @param minStandardDeviation the minimum standard deviation of heartbeat intervals with which to compute phi
+   */
+  public PhiAccrualFailureDetector(int minSamples, double bootstrapPhiValue, Duration minStandardDeviation) {
+    checkArgument(minSamples > 0 && minSamples <= DEFAULT_WINDOW_SIZE, "minSamples must be between 1 and " + DEFAULT_WINDOW_SIZE);
     this.minSamples = minSamples;
-    this.phiFactor = phiFactor;
     this.bootstrapPhiValue = bootstrapPhiValue;
+    this.minStandardDeviation = checkNotNull(minStandardDeviation, "minStandardDeviation cannot be null").toMillis();
   }
 
   /**
@@ -85,14 +107,11 @@ public class PhiAccrualFailureDetector<T extends Identifier> {
     checkNotNull(nodeId, "NodeId must not be null");
     checkArgument(arrivalTime >= 0, "arrivalTime must not be negative");
 
-    History nodeState = states.computeIfAbsent(nodeId, key -> new History());
-    synchronized (nodeState) {
-      long latestHeartbeat = nodeState.latestHeartbeatTime();
-      if (latestHeartbeat != -1) {
-        nodeState.samples().addValue(arrivalTime - latestHeartbeat);
-      }
-      nodeState.setLatestHeartbeatTime(arrivalTime);
+    History nodeState = states.get(nodeId);
+    if (nodeState == null) {
+      nodeState = states.computeIfAbsent(nodeId, key -> new History(DEFAULT_WINDOW_SIZE));
     }
+    nodeState.report(arrivalTime);
   }
 
   /**
@@ -102,55 +121,123 @@ public class PhiAccrualFailureDetector<T extends Identifier> {
    * @return phi value
    */
   public double phi(T nodeId) {
-    checkNotNull(nodeId, "NodeId must not be null");
-    if (!states.containsKey(nodeId)) {
-      return bootstrapPhiValue;
-    }
+    return phi(nodeId, System.currentTimeMillis());
+  }
 
+  /**
+   * Compute phi for the specified node id at the given time.
+   *
+   * @param nodeId node id
+   * @param currentTime the time at which to compute phi
+   * @return phi value
+   */
+  public double phi(T nodeId, long currentTime) {
+    checkNotNull(nodeId, "NodeId must not be null");
     History nodeState = states.get(nodeId);
-    synchronized (nodeState) {
-      long latestHeartbeat = nodeState.latestHeartbeatTime();
-      DescriptiveStatistics samples = nodeState.samples();
-      if (latestHeartbeat == -1 || samples.getN() < minSamples) {
-        return 0.0;
-      }
-      return computePhi(samples, latestHeartbeat, System.currentTimeMillis());
+    if (nodeState == null) {
+      return bootstrapPhiValue;
     }
+    return nodeState.phi(currentTime);
   }
 
   /**
-   * Computes the phi value from the given samples.
+   * Computes phi from the normal distribution with the given mean and standard deviation.
    *
-   * @param samples the samples from which to compute phi
-   * @param lastHeartbeat the last heartbeat
-   * @param currentTime the current time
+   * @param timeDiff the time since the last heartbeat
+   * @param mean the mean heartbeat interval
+   * @param standardDeviation the standard deviation of heartbeat intervals
    * @return phi
    */
-  private double computePhi(DescriptiveStatistics samples, long lastHeartbeat, long currentTime) {
-    long size = samples.getN();
-    long t = currentTime - lastHeartbeat;
-    return (size > 0)
-        ? phiFactor * t / samples.getMean()
-        : bootstrapPhiValue;
+  static double computePhi(double timeDiff, double mean, double standardDeviation) {
+    // P_later(t) = 1 - F(t) = erfc((t - mean) / (stddev * sqrt(2))) / 2, computed in log space to avoid
+    // underflow when the heartbeat is long overdue.
+    double y = (timeDiff - mean) / (standardDeviation * Math.sqrt(2.0));
+    return -(logErfc(y) - Math.log(2.0)) / Math.log(10.0);
   }
 
   /**
-   * Stores the history of heartbeats for a node.
+   * Returns the natural logarithm of the complementary error function.
+   * <p>
+   * Uses the Chebyshev approximation from Numerical Recipes, which has a fractional error of less than
+   * 1.2e-7 everywhere, in log space so that the result remains finite for large arguments.
    */
-  private static class History {
-    DescriptiveStatistics samples = new DescriptiveStatistics(DEFAULT_WINDOW_SIZE);
-    long lastHeartbeatTime = -1;
+  static double logErfc(double x) {
+    double z = Math.abs(x);
+    double t = 1.0 / (1.0 + 0.5 * z);
+    double exponent = -z * z - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+        + t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587
+        + t * (-0.82215223 + t * 0.17087277))))))));
+    double logErfc = Math.log(t) + exponent;
+    return x >= 0 ? logErfc : Math.log(2.0 - Math.exp(logErfc));
+  }
 
-    DescriptiveStatistics samples() {
-      return samples;
+  /**
+   * Stores the history of heartbeats for a node.
+   * <p>
+   * The history is written by the thread reporting heartbeats and read optimistically, retrying if a
+   * heartbeat was reported during the read.
+   */
+  private class History {
+    private final StampedLock lock = new StampedLock();
+    private final long[] intervals;
+    private int index;
+    private int count;
+    private double sum;
+    private double sumOfSquares;
+    private long lastHeartbeatTime = -1;
+
+    History(int windowSize) {
+      this.intervals = new long[windowSize];
     }
 
-    long latestHeartbeatTime() {
-      return lastHeartbeatTime;
+    void report(long arrivalTime) {
+      long stamp = lock.writeLock();
+      try {
+        if (lastHeartbeatTime != -1) {
+          long interval = arrivalTime - lastHeartbeatTime;
+          if (count == intervals.length) {
+            long evicted = intervals[index];
+            sum -= evicted;
+            sumOfSquares -= (double) evicted * evicted;
+          } else {
+            count++;
+          }
+          intervals[index] = interval;
+          index = index + 1 == intervals.length ? 0 : index + 1;
+          sum += interval;
+          sumOfSquares += (double) interval * interval;
+        }
+        lastHeartbeatTime = arrivalTime;
+      } finally {
+        lock.unlockWrite(stamp);
+      }
     }
 
-    void setLatestHeartbeatTime(long value) {
-      lastHeartbeatTime = value;
+    double phi(long currentTime) {
+      long stamp = lock.tryOptimisticRead();
+      long lastHeartbeat = lastHeartbeatTime;
+      int samples = count;
+      double sum = this.sum;
+      double sumOfSquares = this.sumOfSquares;
+      if (!lock.validate(stamp)) {
+        stamp = lock.readLock();
+        try {
+          lastHeartbeat = lastHeartbeatTime;
+          samples = count;
+          sum = this.sum;
+          sumOfSquares = this.sumOfSquares;
+        } finally {
+          lock.unlockRead(stamp);
+        }
+      }
+
+      if (lastHeartbeat == -1 || samples < minSamples) {
+        return 0.0;
+      }
+      double mean = sum / samples;
+      double variance = Math.max(0.0, sumOfSquares / samples - mean * mean);
+      double standardDeviation = Math.max(Math.sqrt(variance), minStandardDeviation);
+      return computePhi(currentTime - lastHeartbeat, mean, standardDeviation);
     }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,613 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.swim;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import io.atomix.event.AbstractListenerManager;
+import io.atomix.logging.Logger;
+import io.atomix.logging.LoggerFactory;
+import io.atomix.protocols.phi.FailureDetectionEvent;
+import io.atomix.protocols.phi.FailureDetectionEventListener;
+import io.atomix.protocols.phi.FailureDetectionService;
+import io.atomix.protocols.swim.protocol.MemberUpdate;
+import io.atomix.protocols.swim.protocol.ProbeRequestMessage;
+import io.atomix.protocols.swim.protocol.SwimMessage;
+import io.atomix.protocols.swim.protocol.SwimProtocol;
+import io.atomix.utils.Identifier;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * SWIM failure detection service.
+ * <p>
+ * Based on the paper "SWIM: Scalable Weakly-consistent Infection-style Process Group Membership Protocol"
+ * by Das, et al. Each protocol period the local node probes a single member, chosen by randomized round-robin.
+ * If the member does not acknowledge the probe within the probe timeout, the local node asks a number of other
+ * members to probe it indirectly. A member that is not reached by the end of the period is suspected, and a
+ * suspected member that does not refute the suspicion within the suspicion timeout is declared dead. Membership
+ * updates are piggybacked on probes and acknowledgements, so each node sends a constant number of messages per
+ * period regardless of the size of the cluster.
+ * <p>
+ * Suspected members remain {@link FailureDetectionEvent.State#ACTIVE active}; a state change event is posted
+ * only once a member is declared dead or is found alive again.
+ */
+public class SwimFailureDetectionService<T extends Identifier>
+    extends AbstractListenerManager<FailureDetectionEvent<T>, FailureDetectionEventListener<T>>
+    implements FailureDetectionService<T> {
+
+  /**
+   * Returns a new SWIM failure detection service builder.
+   *
+   * @param <T> the node type
+   * @return a new SWIM failure detection service builder
+   */
+  public static <T extends Identifier> Builder<T> builder() {
+    return new Builder<>();
+  }
+
+  private static final int MAX_PIGGYBACKED_UPDATES = 8;
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+  private final T localNode;
+  private final SwimProtocol<T> protocol;
+  private final Supplier<Collection<T>> peerProvider;
+  private final ScheduledExecutorService probeExecutor;
+  private final Duration probeInterval;
+  private final Duration probeTimeout;
+  private final int indirectProbes;
+  private final int suspicionMultiplier;
+  private final int retransmitMultiplier;
+  private final ScheduledFuture<?> probeFuture;
+
+  private final Map<T, Member> members = Maps.newHashMap();
+  private final Map<T, Broadcast> broadcasts = Maps.newHashMap();
+  private final Map<T, FailureDetectionEvent.State> nodeStates = Maps.newConcurrentMap();
+  private final List<T> probeOrder = Lists.newArrayList();
+  private int probeIndex;
+  private long incarnation;
+
+  public SwimFailureDetectionService(
+      SwimProtocol<T> protocol,
+      T localNode,
+      Supplier<Collection<T>> peerProvider,
+      ScheduledExecutorService probeExecutor,
+      Duration probeInterval,
+      Duration probeTimeout,
+      int indirectProbes,
+      int suspicionMultiplier,
+      int retransmitMultiplier) {
+    checkArgument(probeTimeout.compareTo(probeInterval) < 0, "probeTimeout must be less than probeInterval");
+    this.localNode = checkNotNull(localNode, "localNode cannot be null");
+    this.protocol = checkNotNull(protocol, "protocol cannot be null");
+    this.peerProvider = checkNotNull(peerProvider, "peerProvider cannot be null");
+    this.probeExecutor = checkNotNull(probeExecutor, "probeExecutor cannot be null");
+    this.probeInterval = probeInterval;
+    this.probeTimeout = probeTimeout;
+    this.indirectProbes = indirectProbes;
+    this.suspicionMultiplier = suspicionMultiplier;
+    this.retransmitMultiplier = retransmitMultiplier;
+    protocol.registerProbeHandler(this::handleProbe);
+    protocol.registerProbeRequestHandler(this::handleProbeRequest);
+    this.probeFuture = probeExecutor.scheduleAtFixedRate(
+        this::probe, probeInterval.toMillis(), probeInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  private void updateState(T peer, FailureDetectionEvent.State newState) {
+    FailureDetectionEvent.State currentState = nodeStates.get(peer);
+    if (!Objects.equals(currentState, newState)) {
+      nodeStates.put(peer, newState);
+      post(new FailureDetectionEvent<T>(FailureDetectionEvent.Type.STATE_CHANGE, peer, currentState, newState));
+    }
+  }
+
+  /**
+   * Probes the next member in the probe order.
+   */
+  private void probe() {
+    try {
+      T member = nextMember();
+      if (member != null) {
+        probe(member);
+      }
+    } catch (Exception e) {
+      log.debug("Failed to probe member", e);
+    }
+  }
+
+  /**
+   * Returns the next member to probe.
+   * <p>
+   * Members are probed in a random order that is reshuffled each time all members have been probed, bounding
+   * the time between probes of any given member.
+   *
+   * @return the next member to probe or {@code null} if there are no members
+   */
+  private synchronized T nextMember() {
+    if (probeIndex >= probeOrder.size()) {
+      probeOrder.clear();
+      for (T peer : peerProvider.get()) {
+        if (!peer.equals(localNode)) {
+          probeOrder.add(peer);
+        }
+      }
+      Collections.shuffle(probeOrder);
+      probeIndex = 0;
+    }
+    return probeIndex < probeOrder.size() ? probeOrder.get(probeIndex++) : null;
+  }
+
+  /**
+   * Probes the given member, falling back to indirect probes and finally suspicion if it cannot be reached.
+   *
+   * @param member the member to probe
+   */
+  private void probe(T member) {
+    CompletableFuture<Void> acknowledged = new CompletableFuture<>();
+    protocol.probe(member, newMessage()).whenComplete((ack, error) -> {
+      if (error == null && ack != null) {
+        handleMessage(ack);
+        acknowledged.complete(null);
+      }
+    });
+
+    probeExecutor.schedule(() -> {
+      if (!acknowledged.isDone()) {
+        probeIndirect(member, acknowledged);
+      }
+    }, probeTimeout.toMillis(), TimeUnit.MILLISECONDS);
+
+    probeExecutor.schedule(() -> {
+      if (!acknowledged.isDone()) {
+        suspect(member);
+      }
+    }, probeInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Requests that random members probe the given member on the local node's behalf.
+   *
+   * @param member the member to probe
+   * @param acknowledged the future to complete once the member has acknowledged a probe
+   */
+  private void probeIndirect(T member, CompletableFuture<Void> acknowledged) {
+    List<T> peers;
+    synchronized (this) {
+      peers = Lists.newArrayList(probeOrder);
+    }
+    peers.remove(member);
+    Collections.shuffle(peers);
+
+    int probes = 0;
+    for (T peer : peers) {
+      if (probes == indirectProbes) {
+        break;
+      }
+      if (nodeStates.get(peer) == FailureDetectionEvent.State.INACTIVE) {
+        continue;
+      }
+      ProbeRequestMessage<T> request;
+      synchronized (this) {
+        request = new ProbeRequestMessage<>(localNode, incarnation, nextUpdates(), member);
+      }
+      protocol.probeRequest(peer, request).whenComplete((ack, error) -> {
+        if (error == null && ack != null) {
+          handleMessage(ack);
+          acknowledged.complete(null);
+        }
+      });
+      probes++;
+    }
+  }
+
+  /**
+   * Handles a probe from a member.
+   */
+  private SwimMessage<T> handleProbe(SwimMessage<T> message) {
+    handleMessage(message);
+    return newMessage();
+  }
+
+  /**
+   * Handles an indirect probe request from a member.
+   */
+  private CompletableFuture<SwimMessage<T>> handleProbeRequest(ProbeRequestMessage<T> request) {
+    handleMessage(request);
+    CompletableFuture<SwimMessage<T>> future = new CompletableFuture<>();
+    protocol.probe(request.target(), newMessage()).whenComplete((ack, error) -> {
+      if (error == null && ack != null) {
+        handleMessage(ack);
+        future.complete(newMessage());
+      } else {
+        future.completeExceptionally(error != null ? error : new TimeoutException());
+      }
+    });
+    probeExecutor.schedule(() -> future.completeExceptionally(new TimeoutException()), probeTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    return future;
+  }
+
+  /**
+   * Handles a message from a member.
+   * <p>
+   * The message itself is evidence that its source is alive at the included incarnation. If the local node
+   * believes the source is suspected or dead at that incarnation, the local node's view of the source is
+   * rebroadcast so that the source learns of it and can refute it.
+   */
+  private synchronized void handleMessage(SwimMessage<T> message) {
+    Member source = members.get(message.source());
+    if (source != null && source.state != MemberUpdate.State.ALIVE && source.incarnation >= message.incarnation()) {
+      broadcast(new MemberUpdate<>(message.source(), source.state, source.incarnation));
+    } else {
+      apply(new MemberUpdate<>(message.source(), MemberUpdate.State.ALIVE, message.incarnation()));
+    }
+    for (MemberUpdate<T> update : message.updates()) {
+      apply(update);
+    }
+  }
+
+  /**
+   * Suspects the given member after it failed to acknowledge direct and indirect probes.
+   */
+  private synchronized void suspect(T member) {
+    Member state = members.get(member);
+    apply(new MemberUpdate<>(member, MemberUpdate.State.SUSPECT, state != null ? state.incarnation : 0));
+  }
+
+  /**
+   * Applies a membership update if it overrides the local node's view of the member.
+   */
+  private void apply(MemberUpdate<T> update) {
+    // Refute suspicion of the local node by incrementing the local incarnation number.
+    if (update.member().equals(localNode)) {
+      if (update.state() != MemberUpdate.State.ALIVE && update.incarnation() >= incarnation) {
+        incarnation = update.incarnation() + 1;
+        broadcast(new MemberUpdate<>(localNode, MemberUpdate.State.ALIVE, incarnation));
+      }
+      return;
+    }
+
+    Member member = members.get(update.member());
+    if (member != null && !overrides(update, member)) {
+      return;
+    }
+    if (member == null) {
+      member = new Member();
+      members.put(update.member(), member);
+    }
+
+    member.state = update.state();
+    member.incarnation = update.incarnation();
+    broadcast(update);
+
+    switch (update.state()) {
+      case ALIVE:
+        member.cancelSuspicion();
+        updateState(update.member(), FailureDetectionEvent.State.ACTIVE);
+        break;
+      case SUSPECT:
+        // A suspicion at a new incarnation replaces any earlier suspicion, which can no longer expire.
+        member.cancelSuspicion();
+        member.suspicionFuture = probeExecutor.schedule(
+            () -> expireSuspicion(update.member(), update.incarnation()), suspicionTimeout(), TimeUnit.MILLISECONDS);
+        break;
+      case DEAD:
+        member.cancelSuspicion();
+        updateState(update.member(), FailureDetectionEvent.State.INACTIVE);
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Returns whether the given update overrides the local view of a member.
+   */
+  private boolean overrides(MemberUpdate<T> update, Member member) {
+    switch (update.state()) {
+      case ALIVE:
+        return update.incarnation() > member.incarnation;
+      case SUSPECT:
+        return member.state == MemberUpdate.State.ALIVE
+            ? update.incarnation() >= member.incarnation
+            : update.incarnation() > member.incarnation;
+      case DEAD:
+        return member.state != MemberUpdate.State.DEAD && update.incarnation() >= member.incarnation;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Declares a suspected member dead if it has not refuted the suspicion.
+   * <p>
+   * A timer for an earlier incarnation may run after it has been replaced, in which case the member's current
+   * suspicion timer is left in place.
+   */
+  private synchronized void expireSuspicion(T memberId, long incarnation) {
+    Member member = members.get(memberId);
+    if (member != null && member.incarnation == incarnation) {
+      member.suspicionFuture = null;
+      if (member.state == MemberUpdate.State.SUSPECT) {
+        apply(new MemberUpdate<>(memberId, MemberUpdate.State.DEAD, incarnation));
+      }
+    }
+  }
+
+  /**
+   * Returns the time after which a suspected member is declared dead.
+   * <p>
+   * The timeout scales with the logarithm of the cluster size to allow the suspicion to be disseminated to,
+   * and refuted by, the suspected member.
+   */
+  private long suspicionTimeout() {
+    return suspicionMultiplier * scale() * probeInterval.toMillis();
+  }
+
+  /**
+   * Returns the logarithmic scale factor for the current cluster size.
+   */
+  private int scale() {
+    return Math.max(1, (int) Math.ceil(Math.log10(probeOrder.size() + 2)));
+  }
+
+  /**
+   * Queues a membership update to be piggybacked on outgoing messages.
+   */
+  private void broadcast(MemberUpdate<T> update) {
+    broadcasts.put(update.member(), new Broadcast(update));
+  }
+
+  /**
+   * Returns a new message with the updates to piggyback.
+   */
+  private synchronized SwimMessage<T> newMessage() {
+    return new SwimMessage<>(localNode, incarnation, nextUpdates());
+  }
+
+  /**
+   * Returns the least transmitted updates to piggyback on an outgoing message.
+   * <p>
+   * Each update is piggybacked on a number of messages proportional to the logarithm of the cluster size,
+   * after which it has been disseminated to the cluster with high probability.
+   */
+  private List<MemberUpdate<T>> nextUpdates() {
+    if (broadcasts.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<Broadcast> pending = Lists.newArrayList(broadcasts.values());
+    if (pending.size() > MAX_PIGGYBACKED_UPDATES) {
+      pending.sort(Comparator.comparingInt(broadcast -> broadcast.transmissions));
+      pending = pending.subList(0, MAX_PIGGYBACKED_UPDATES);
+    }
+
+    int retransmitLimit = retransmitMultiplier * scale();
+    List<MemberUpdate<T>> updates = Lists.newArrayListWithCapacity(pending.size());
+    for (Broadcast broadcast : pending) {
+      updates.add(broadcast.update);
+      if (++broadcast.transmissions >= retransmitLimit) {
+        broadcasts.remove(broadcast.update.member(), broadcast);
+      }
+    }
+    return updates;
+  }
+
+  @Override
+  public void close() {
+    protocol.unregisterProbeHandler();
+    protocol.unregisterProbeRequestHandler();
+    probeFuture.cancel(false);
+    synchronized (this) {
+      members.values().forEach(Member::cancelSuspicion);
+    }
+  }
+
+  /**
+   * Local view of a member.
+   */
+  private static class Member {
+    private MemberUpdate.State state;
+    private long incarnation;
+    private ScheduledFuture<?> suspicionFuture;
+
+    private void cancelSuspicion() {
+      if (suspicionFuture != null) {
+        suspicionFuture.cancel(false);
+        suspicionFuture = null;
+      }
+    }
+  }
+
+  /**
+   * Membership update queued for dissemination.
+   */
+  private final class Broadcast {
+    private final MemberUpdate<T> update;
+    private int transmissions;
+
+    private Broadcast(MemberUpdate<T> update) {
+      this.update = update;
+    }
+  }
+
+  /**
+   * SWIM failure detection service builder.
+   *
+   * @param <T> the node type
+   */
+  public static class Builder<T extends Identifier> implements FailureDetectionService.Builder<T> {
+    private static final Duration DEFAULT_PROBE_INTERVAL = Duration.ofMillis(1000);
+    private static final Duration DEFAULT_PROBE_TIMEOUT = Duration.ofMillis(200);
+    private static final int DEFAULT_INDIRECT_PROBES = 3;
+    private static final int DEFAULT_SUSPICION_MULTIPLIER = 5;
+    private static final int DEFAULT_RETRANSMIT_MULTIPLIER = 4;
+
+    private SwimProtocol<T> protocol;
+    private T localNode;
+    private Supplier<Collection<T>> peerProvider;
+    private ScheduledExecutorService probeExecutor;
+    private Duration probeInterval = DEFAULT_PROBE_INTERVAL;
+    private Duration probeTimeout = DEFAULT_PROBE_TIMEOUT;
+    private int indirectProbes = DEFAULT_INDIRECT_PROBES;
+    private int suspicionMultiplier = DEFAULT_SUSPICION_MULTIPLIER;
+    private int retransmitMultiplier = DEFAULT_RETRANSMIT_MULTIPLIER;
+
+    /**
+     * Sets the SWIM protocol.
+     *
+     * @param protocol the SWIM protocol
+     * @return the failure detection service builder
+     * @throws NullPointerException if the protocol is null
+     */
+    public Builder<T> withProtocol(SwimProtocol<T> protocol) {
+      this.protocol = checkNotNull(protocol, "protocol cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the local node identifier.
+     *
+     * @param identifier the local identifier
+     * @return the failure detection service builder
+     * @throws NullPointerException if the identifier is null
+     */
+    public Builder<T> withLocalNode(T identifier) {
+      this.localNode = checkNotNull(identifier, "identifier cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the peer provider function.
+     *
+     * @param peerProvider the peer provider
+     * @return the failure detection service builder
+     * @throws NullPointerException if the peer provider is null
+     */
+    public Builder<T> withPeerProvider(Supplier<Collection<T>> peerProvider) {
+      this.peerProvider = checkNotNull(peerProvider, "peerProvider cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the probe executor.
+     *
+     * @param executor the probe executor
+     * @return the failure detection service builder
+     * @throws NullPointerException if the probe executor is null
+     */
+    public Builder<T> withProbeExecutor(ScheduledExecutorService executor) {
+      this.probeExecutor = checkNotNull(executor, "executor cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the protocol period at which members are probed.
+     *
+     * @param interval the probe interval
+     * @return the failure detection service builder
+     * @throws NullPointerException if the probe interval is null
+     */
+    public Builder<T> withProbeInterval(Duration interval) {
+      this.probeInterval = checkNotNull(interval, "interval cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the time after which an unacknowledged probe is retried through other members.
+     *
+     * @param timeout the probe timeout
+     * @return the failure detection service builder
+     * @throws NullPointerException if the probe timeout is null
+     */
+    public Builder<T> withProbeTimeout(Duration timeout) {
+      this.probeTimeout = checkNotNull(timeout, "timeout cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the number of members through which to indirectly probe an unresponsive member.
+     *
+     * @param indirectProbes the number of indirect probes
+     * @return the failure detection service builder
+     * @throws IllegalArgumentException if the number of indirect probes is negative
+     */
+    public Builder<T> withIndirectProbes(int indirectProbes) {
+      checkArgument(indirectProbes >= 0, "indirectProbes cannot be negative");
+      this.indirectProbes = indirectProbes;
+      return this;
+    }
+
+    /**
+     * Sets the suspicion multiplier.
+     * <p>
+     * A suspected member is declared dead after the multiplier times the probe interval times the logarithm of
+     * the cluster size.
+     *
+     * @param suspicionMultiplier the suspicion multiplier
+     * @return the failure detection service builder
+     * @throws IllegalArgumentException if the suspicion multiplier is not positive
+     */
+    public Builder<T> withSuspicionMultiplier(int suspicionMultiplier) {
+      checkArgument(suspicionMultiplier > 0, "suspicionMultiplier must be positive");
+      this.suspicionMultiplier = suspicionMultiplier;
+      return this;
+    }
+
+    /**
+     * Sets the retransmit multiplier.
+     * <p>
+     * Each membership update is piggybacked on the multiplier times the logarithm of the cluster size messages.
+     *
+     * @param retransmitMultiplier the retransmit multiplier
+     * @return the failure detection service builder
+     * @throws IllegalArgumentException if the retransmit multiplier is not positive
+     */
+    public Builder<T> withRetransmitMultiplier(int retransmitMultiplier) {
+      checkArgument(retransmitMultiplier > 0, "retransmitMultiplier must be positive");
+      this.retransmitMultiplier = retransmitMultiplier;
+      return this;
+    }
+
+    @Override
+    public FailureDetectionService<T> build() {
+      return new SwimFailureDetectionService<>(
+          protocol,
+          localNode,
+          peerProvider,
+          probeExecutor,
+          probeInterval,
+          probeTimeout,
+          indirectProbes,
+          suspicionMultiplier,
+          retransmitMultiplier);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.swim.protocol;
+
+import io.atomix.utils.Identifier;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * SWIM membership update.
+ * <p>
+ * Membership updates are piggybacked on probe messages and acknowledgements to disseminate changes in the
+ * state of members. Each update is qualified by the member's incarnation number, which only the member
+ * itself increments when refuting a suspicion.
+ */
+public class MemberUpdate<T extends Identifier> {
+
+  /**
+   * Member state.
+   */
+  public enum State {
+    ALIVE,
+    SUSPECT,
+    DEAD,
+  }
+
+  private final T member;
+  private final State state;
+  private final long incarnation;
+
+  public MemberUpdate(T member, State state, long incarnation) {
+    this.member = member;
+    this.state = state;
+    this.incarnation = incarnation;
+  }
+
+  /**
+   * Returns the member to which the update applies.
+   *
+   * @return the member to which the update applies
+   */
+  public T member() {
+    return member;
+  }
+
+  /**
+   * Returns the member state.
+   *
+   * @return the member state
+   */
+  public State state() {
+    return state;
+  }
+
+  /**
+   * Returns the member incarnation number.
+   *
+   * @return the member incarnation number
+   */
+  public long incarnation() {
+    return incarnation;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("member", member)
+        .add("state", state)
+        .add("incarnation", incarnation)
+        .toString();
+  }
+}
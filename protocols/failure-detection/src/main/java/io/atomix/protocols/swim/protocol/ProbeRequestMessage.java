@@ -0,0 +1,55 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.swim.protocol;
+
+import io.atomix.utils.Identifier;
+
+import java.util.Collection;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * SWIM indirect probe request.
+ * <p>
+ * Sent to a member to request that it probe the target on the sender's behalf.
+ */
+public class ProbeRequestMessage<T extends Identifier> extends SwimMessage<T> {
+  private final T target;
+
+  public ProbeRequestMessage(T source, long incarnation, Collection<MemberUpdate<T>> updates, T target) {
+    super(source, incarnation, updates);
+    this.target = target;
+  }
+
+  /**
+   * Returns the member to probe.
+   *
+   * @return the member to probe
+   */
+  public T target() {
+    return target;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("source", source())
+        .add("incarnation", incarnation())
+        .add("target", target)
+        .add("updates", updates())
+        .toString();
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.swim.protocol;
+
+import io.atomix.utils.Identifier;
+
+import java.util.Collection;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * SWIM probe message or acknowledgement.
+ */
+public class SwimMessage<T extends Identifier> {
+  private final T source;
+  private final long incarnation;
+  private final Collection<MemberUpdate<T>> updates;
+
+  public SwimMessage(T source, long incarnation, Collection<MemberUpdate<T>> updates) {
+    this.source = source;
+    this.incarnation = incarnation;
+    this.updates = updates;
+  }
+
+  /**
+   * Returns the message source.
+   *
+   * @return the message source
+   */
+  public T source() {
+    return source;
+  }
+
+  /**
+   * Returns the source's incarnation number.
+   *
+   * @return the source's incarnation number
+   */
+  public long incarnation() {
+    return incarnation;
+  }
+
+  /**
+   * Returns the membership updates piggybacked on the message.
+   *
+   * @return the membership updates piggybacked on the message
+   */
+  public Collection<MemberUpdate<T>> updates() {
+    return updates;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("source", source)
+        .add("incarnation", incarnation)
+        .add("updates", updates)
+        .toString();
+  }
+}
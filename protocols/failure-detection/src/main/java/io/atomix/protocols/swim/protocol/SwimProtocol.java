@@ -0,0 +1,70 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.swim.protocol;
+
+import io.atomix.utils.Identifier;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * SWIM failure detection protocol.
+ */
+public interface SwimProtocol<T extends Identifier> {
+
+  /**
+   * Sends a probe to the given member.
+   *
+   * @param member the member to probe
+   * @param message the probe message
+   * @return a future to be completed with the member's acknowledgement
+   */
+  CompletableFuture<SwimMessage<T>> probe(T member, SwimMessage<T> message);
+
+  /**
+   * Requests that the given member probe a target on the sender's behalf.
+   *
+   * @param member the member through which to probe the target
+   * @param message the probe request message
+   * @return a future to be completed with the member's acknowledgement once the target has acknowledged the probe
+   */
+  CompletableFuture<SwimMessage<T>> probeRequest(T member, ProbeRequestMessage<T> message);
+
+  /**
+   * Registers a probe handler.
+   *
+   * @param handler the probe handler
+   */
+  void registerProbeHandler(Function<SwimMessage<T>, SwimMessage<T>> handler);
+
+  /**
+   * Unregisters the probe handler.
+   */
+  void unregisterProbeHandler();
+
+  /**
+   * Registers an indirect probe request handler.
+   *
+   * @param handler the indirect probe request handler
+   */
+  void registerProbeRequestHandler(Function<ProbeRequestMessage<T>, CompletableFuture<SwimMessage<T>>> handler);
+
+  /**
+   * Unregisters the indirect probe request handler.
+   */
+  void unregisterProbeRequestHandler();
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.phi;
+
+import io.atomix.utils.Identifier;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Phi accrual failure detector test.
+ */
+@Test
+public class PhiAccrualFailureDetectorTest {
+  private static final double LOG_ERFC_DELTA = 1e-6;
+
+  /**
+   * Tests the complementary error function against known values.
+   */
+  public void testLogErfc() throws Exception {
+    assertEquals(PhiAccrualFailureDetector.logErfc(0.0), 0.0, LOG_ERFC_DELTA);
+    assertEquals(PhiAccrualFailureDetector.logErfc(1.0), -1.8496055099332482, LOG_ERFC_DELTA);
+    assertEquals(PhiAccrualFailureDetector.logErfc(-1.0), 0.6112323176780705, LOG_ERFC_DELTA);
+    assertEquals(PhiAccrualFailureDetector.logErfc(3.0), -10.720363041981113, LOG_ERFC_DELTA);
+    assertEquals(PhiAccrualFailureDetector.logErfc(-6.0), Math.log(2.0), LOG_ERFC_DELTA);
+  }
+
+  /**
+   * Tests the complementary error function far into the tail, where erfc itself underflows a double.
+   */
+  public void testLogErfcTail() throws Exception {
+    assertEquals(PhiAccrualFailureDetector.logErfc(20.0), -403.56934333410425, LOG_ERFC_DELTA);
+    assertEquals(PhiAccrualFailureDetector.logErfc(30.0), -903.9741171106439, LOG_ERFC_DELTA);
+    assertEquals(PhiAccrualFailureDetector.logErfc(100.0), -10005.177585122665, LOG_ERFC_DELTA);
+  }
+
+  /**
+   * Tests phi against the normal distribution's tail probabilities at known numbers of standard deviations.
+   */
+  public void testComputePhi() throws Exception {
+    double mean = 1000.0;
+    double stddev = 100.0;
+    assertEquals(PhiAccrualFailureDetector.computePhi(mean, mean, stddev), Math.log10(2.0), LOG_ERFC_DELTA);
+    assertEquals(PhiAccrualFailureDetector.computePhi(mean + stddev, mean, stddev), 0.7995455414919704, LOG_ERFC_DELTA);
+    assertEquals(PhiAccrualFailureDetector.computePhi(mean + 3 * stddev, mean, stddev), 2.8696990359293686, LOG_ERFC_DELTA);
+    assertEquals(PhiAccrualFailureDetector.computePhi(mean + 10 * stddev, mean, stddev), 23.118053405486073, LOG_ERFC_DELTA);
+    assertEquals(PhiAccrualFailureDetector.computePhi(0.0, mean, stddev), 0.0, LOG_ERFC_DELTA);
+  }
+
+  /**
+   * Tests that phi remains finite and increasing when a heartbeat is long overdue.
+   */
+  public void testComputePhiTail() throws Exception {
+    double mean = 1000.0;
+    double stddev = 100.0;
+    assertEquals(PhiAccrualFailureDetector.computePhi(mean + 30 * stddev, mean, stddev), 197.3092092616609, LOG_ERFC_DELTA);
+    assertEquals(PhiAccrualFailureDetector.computePhi(mean + 100 * stddev, mean, stddev), 2173.8715428690334, LOG_ERFC_DELTA);
+
+    double previous = 0.0;
+    for (int i = 1; i <= 10000; i *= 10) {
+      double phi = PhiAccrualFailureDetector.computePhi(mean + i * stddev, mean, stddev);
+      assertTrue(!Double.isInfinite(phi) && !Double.isNaN(phi));
+      assertTrue(phi > previous);
+      previous = phi;
+    }
+  }
+
+  /**
+   * Tests phi computed from reported heartbeats.
+   */
+  public void testPhi() throws Exception {
+    PhiAccrualFailureDetector<NodeId> detector = new PhiAccrualFailureDetector<>(3, 100.0, Duration.ofMillis(10));
+    NodeId node = new NodeId("node");
+    assertEquals(detector.phi(node, 0), 100.0);
+
+    detector.report(node, 0);
+    detector.report(node, 100);
+    detector.report(node, 200);
+    assertEquals(detector.phi(node, 250), 0.0);
+
+    // Regular heartbeats are modeled with the minimum standard deviation.
+    detector.report(node, 300);
+    assertEquals(detector.phi(node, 400), Math.log10(2.0), LOG_ERFC_DELTA);
+    assertEquals(detector.phi(node, 410), 0.7995455414919704, LOG_ERFC_DELTA);
+    assertEquals(detector.phi(node, 600), PhiAccrualFailureDetector.computePhi(300, 100, 10), LOG_ERFC_DELTA);
+  }
+
+  /**
+   * Tests that the deprecated constructor ignores the phi factor.
+   */
+  @SuppressWarnings("deprecation")
+  public void testDeprecatedConstructor() throws Exception {
+    PhiAccrualFailureDetector<NodeId> detector = new PhiAccrualFailureDetector<>(1, 1.0 / Math.log(10.0), 50.0);
+    NodeId node = new NodeId("node");
+    assertEquals(detector.phi(node, 0), 50.0);
+    detector.report(node, 0);
+    detector.report(node, 1000);
+    assertEquals(detector.phi(node, 1100), PhiAccrualFailureDetector.computePhi(100, 1000, 100), LOG_ERFC_DELTA);
+  }
+
+  /**
+   * Test node identifier.
+   */
+  private static class NodeId extends Identifier<String> {
+    NodeId(String id) {
+      super(id);
+    }
+  }
+}
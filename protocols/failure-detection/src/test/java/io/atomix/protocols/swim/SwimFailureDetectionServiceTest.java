@@ -0,0 +1,360 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.swim;
+
+import io.atomix.protocols.phi.FailureDetectionEvent;
+import io.atomix.protocols.swim.protocol.MemberUpdate;
+import io.atomix.protocols.swim.protocol.ProbeRequestMessage;
+import io.atomix.protocols.swim.protocol.SwimMessage;
+import io.atomix.protocols.swim.protocol.SwimProtocol;
+import io.atomix.utils.Identifier;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * SWIM failure detection service test.
+ */
+@Test
+public class SwimFailureDetectionServiceTest {
+  private static final long PROBE_INTERVAL = 100;
+  private static final int SUSPICION_MULTIPLIER = 2;
+
+  // With no peers to probe, the suspicion timeout is not scaled by the cluster size.
+  private static final long SUSPICION_TIMEOUT = SUSPICION_MULTIPLIER * PROBE_INTERVAL;
+
+  private static final NodeId LOCAL = new NodeId("local");
+  private static final NodeId SOURCE = new NodeId("source");
+  private static final NodeId MEMBER = new NodeId("member");
+
+  private TestScheduler scheduler;
+  private TestProtocol protocol;
+  private List<FailureDetectionEvent.State> events;
+
+  @BeforeMethod
+  protected void setup() {
+    scheduler = new TestScheduler();
+    protocol = new TestProtocol();
+    events = new ArrayList<>();
+    SwimFailureDetectionService.<NodeId>builder()
+        .withProtocol(protocol)
+        .withLocalNode(LOCAL)
+        .withPeerProvider(Collections::emptyList)
+        .withProbeExecutor(scheduler)
+        .withProbeInterval(Duration.ofMillis(PROBE_INTERVAL))
+        .withProbeTimeout(Duration.ofMillis(PROBE_INTERVAL / 2))
+        .withSuspicionMultiplier(SUSPICION_MULTIPLIER)
+        .build()
+        .addListener(event -> {
+          if (event.subject().equals(MEMBER)) {
+            events.add(event.newState());
+          }
+        });
+  }
+
+  /**
+   * Delivers a message from the source node carrying the given updates, returning the local node's reply.
+   */
+  @SafeVarargs
+  private final SwimMessage<NodeId> receive(MemberUpdate<NodeId>... updates) {
+    return protocol.probeHandler.apply(new SwimMessage<>(SOURCE, 0, Arrays.asList(updates)));
+  }
+
+  private static MemberUpdate<NodeId> update(MemberUpdate.State state, long incarnation) {
+    return new MemberUpdate<>(MEMBER, state, incarnation);
+  }
+
+  /**
+   * Tests that a suspected member is declared dead once the suspicion timeout expires.
+   */
+  public void testSuspicionExpires() throws Exception {
+    receive(update(MemberUpdate.State.ALIVE, 0));
+    assertEquals(events, Collections.singletonList(FailureDetectionEvent.State.ACTIVE));
+
+    receive(update(MemberUpdate.State.SUSPECT, 0));
+    scheduler.tick(SUSPICION_TIMEOUT - 1);
+    assertEquals(events.size(), 1);
+    scheduler.tick(1);
+    assertEquals(events, Arrays.asList(FailureDetectionEvent.State.ACTIVE, FailureDetectionEvent.State.INACTIVE));
+  }
+
+  /**
+   * Tests that a suspicion at a newer incarnation restarts the suspicion timeout and still expires.
+   */
+  public void testNewerSuspicionExpires() throws Exception {
+    receive(update(MemberUpdate.State.SUSPECT, 0));
+    scheduler.tick(SUSPICION_TIMEOUT / 2);
+    receive(update(MemberUpdate.State.SUSPECT, 1));
+
+    // The earlier suspicion's deadline passes without declaring the member dead.
+    scheduler.tick(SUSPICION_TIMEOUT / 2);
+    assertTrue(events.isEmpty());
+    scheduler.tick(SUSPICION_TIMEOUT / 2);
+    assertEquals(events, Collections.singletonList(FailureDetectionEvent.State.INACTIVE));
+  }
+
+  /**
+   * Tests that a suspicion at the same or an older incarnation does not restart the suspicion timeout.
+   */
+  public void testStaleSuspicionIgnored() throws Exception {
+    receive(update(MemberUpdate.State.SUSPECT, 1));
+    scheduler.tick(SUSPICION_TIMEOUT / 2);
+    receive(update(MemberUpdate.State.SUSPECT, 1), update(MemberUpdate.State.SUSPECT, 0));
+    scheduler.tick(SUSPICION_TIMEOUT / 2);
+    assertEquals(events, Collections.singletonList(FailureDetectionEvent.State.INACTIVE));
+  }
+
+  /**
+   * Tests that a suspicion refuted at a newer incarnation is never declared dead.
+   */
+  public void testSuspicionRefuted() throws Exception {
+    receive(update(MemberUpdate.State.ALIVE, 0));
+    receive(update(MemberUpdate.State.SUSPECT, 0));
+    scheduler.tick(SUSPICION_TIMEOUT / 2);
+
+    // An alive update at the suspected incarnation does not refute the suspicion.
+    receive(update(MemberUpdate.State.ALIVE, 0));
+    receive(update(MemberUpdate.State.ALIVE, 1));
+    scheduler.tick(SUSPICION_TIMEOUT * 2);
+    assertEquals(events, Collections.singletonList(FailureDetectionEvent.State.ACTIVE));
+
+    // The member can be suspected again at its new incarnation.
+    receive(update(MemberUpdate.State.SUSPECT, 1));
+    scheduler.tick(SUSPICION_TIMEOUT);
+    assertEquals(events, Arrays.asList(FailureDetectionEvent.State.ACTIVE, FailureDetectionEvent.State.INACTIVE));
+  }
+
+  /**
+   * Tests that a dead member is found alive again at a newer incarnation.
+   */
+  public void testDeadMemberRejoins() throws Exception {
+    receive(update(MemberUpdate.State.ALIVE, 0));
+    receive(update(MemberUpdate.State.DEAD, 0));
+    receive(update(MemberUpdate.State.SUSPECT, 0), update(MemberUpdate.State.ALIVE, 0));
+    assertEquals(events, Arrays.asList(FailureDetectionEvent.State.ACTIVE, FailureDetectionEvent.State.INACTIVE));
+
+    receive(update(MemberUpdate.State.ALIVE, 1));
+    assertEquals(events, Arrays.asList(
+        FailureDetectionEvent.State.ACTIVE, FailureDetectionEvent.State.INACTIVE, FailureDetectionEvent.State.ACTIVE));
+  }
+
+  /**
+   * Tests that the local node refutes suspicion of itself by broadcasting a newer incarnation.
+   */
+  public void testLocalSuspicionRefuted() throws Exception {
+    SwimMessage<NodeId> reply = receive(new MemberUpdate<>(LOCAL, MemberUpdate.State.SUSPECT, 3));
+    assertEquals(reply.incarnation(), 4);
+    assertTrue(reply.updates().stream().anyMatch(update -> update.member().equals(LOCAL)
+        && update.state() == MemberUpdate.State.ALIVE
+        && update.incarnation() == 4));
+
+    // Suspicion at an older incarnation has already been refuted.
+    reply = receive(new MemberUpdate<>(LOCAL, MemberUpdate.State.SUSPECT, 2));
+    assertEquals(reply.incarnation(), 4);
+  }
+
+  /**
+   * Test node identifier.
+   */
+  private static class NodeId extends Identifier<String> {
+    NodeId(String id) {
+      super(id);
+    }
+  }
+
+  /**
+   * Test protocol that captures the registered probe handler and never reaches other members.
+   */
+  private static class TestProtocol implements SwimProtocol<NodeId> {
+    private Function<SwimMessage<NodeId>, SwimMessage<NodeId>> probeHandler;
+
+    @Override
+    public CompletableFuture<SwimMessage<NodeId>> probe(NodeId member, SwimMessage<NodeId> message) {
+      return new CompletableFuture<>();
+    }
+
+    @Override
+    public CompletableFuture<SwimMessage<NodeId>> probeRequest(NodeId member, ProbeRequestMessage<NodeId> message) {
+      return new CompletableFuture<>();
+    }
+
+    @Override
+    public void registerProbeHandler(Function<SwimMessage<NodeId>, SwimMessage<NodeId>> handler) {
+      this.probeHandler = handler;
+    }
+
+    @Override
+    public void unregisterProbeHandler() {
+      this.probeHandler = null;
+    }
+
+    @Override
+    public void registerProbeRequestHandler(
+        Function<ProbeRequestMessage<NodeId>, CompletableFuture<SwimMessage<NodeId>>> handler) {
+    }
+
+    @Override
+    public void unregisterProbeRequestHandler() {
+    }
+  }
+
+  /**
+   * Scheduler that runs tasks on the calling thread as a virtual clock is advanced.
+   */
+  private static class TestScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+    private final PriorityQueue<Task<?>> tasks = new PriorityQueue<>();
+    private long time;
+    private long sequence;
+
+    /**
+     * Advances the clock by the given number of milliseconds, running the tasks that become due.
+     */
+    void tick(long millis) {
+      long target = time + millis;
+      while (!tasks.isEmpty() && tasks.peek().time <= target) {
+        Task<?> task = tasks.poll();
+        time = task.time;
+        task.run();
+      }
+      time = target;
+    }
+
+    private <V> Task<V> schedule(Callable<V> callable, long delay, long period, TimeUnit unit) {
+      Task<V> task = new Task<>(callable, time + unit.toMillis(delay), unit.toMillis(period));
+      tasks.add(task);
+      return task;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+      return schedule(Executors.callable(command), delay, 0, unit);
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+      return schedule(callable, delay, 0, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+      return schedule(Executors.callable(command), initialDelay, period, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+      return schedule(Executors.callable(command), initialDelay, delay, unit);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      schedule(command, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void shutdown() {
+      tasks.clear();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      tasks.clear();
+      return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return false;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return false;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return true;
+    }
+
+    /**
+     * Scheduled task.
+     */
+    private final class Task<V> extends CompletableFuture<V> implements ScheduledFuture<V> {
+      private final Callable<V> callable;
+      private final long period;
+      private final long order = sequence++;
+      private long time;
+
+      private Task(Callable<V> callable, long time, long period) {
+        this.callable = callable;
+        this.time = time;
+        this.period = period;
+      }
+
+      private void run() {
+        if (isDone()) {
+          return;
+        }
+        try {
+          V result = callable.call();
+          if (period > 0) {
+            time += period;
+            tasks.add(this);
+          } else {
+            complete(result);
+          }
+        } catch (Exception e) {
+          completeExceptionally(e);
+        }
+      }
+
+      @Override
+      public boolean cancel(boolean mayInterruptIfRunning) {
+        tasks.remove(this);
+        return super.cancel(mayInterruptIfRunning);
+      }
+
+      @Override
+      public long getDelay(TimeUnit unit) {
+        return unit.convert(time - TestScheduler.this.time, TimeUnit.MILLISECONDS);
+      }
+
+      @Override
+      public int compareTo(Delayed other) {
+        Task<?> that = (Task<?>) other;
+        return time != that.time ? Long.compare(time, that.time) : Long.compare(order, that.order);
+      }
+    }
+  }
+}
@@ -15,7 +15,6 @@
  */
 package io.atomix.protocols.gossip;
 
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.MoreExecutors;
@@ -27,30 +26,56 @@ import io.atomix.protocols.gossip.protocol.AntiEntropyProtocol;
 import io.atomix.protocols.gossip.protocol.AntiEntropyResponse;
 import io.atomix.protocols.gossip.protocol.GossipMessage;
 import io.atomix.protocols.gossip.protocol.GossipUpdate;
-import io.atomix.time.LogicalClock;
-import io.atomix.utils.AbstractAccumulator;
+import io.atomix.protocols.gossip.storage.GossipLog;
+import io.atomix.time.LogicalTimestamp;
 import io.atomix.utils.Identifier;
 import io.atomix.utils.SlidingWindowCounter;
 
 import java.time.Duration;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.Timer;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Anti-entropy service.
+ * <p>
+ * Updates are summarized in a {@link MerkleTree} that is maintained as updates are applied. Anti-entropy rounds
+ * compare the root of the tree with a random peer and descend level by level only into the subtrees whose hashes
+ * differ, exchanging entry digests for just the mismatched leaves. The cost of a round is therefore proportional
+ * to the difference between the two nodes rather than to the number of updates.
+ * <p>
+ * If the service is configured with a {@link GossipLog}, updates are recovered from the log when the service is
+ * constructed, so a restarted node only needs to exchange the updates it missed while it was down with its peers.
+ * <p>
+ * Updates are sent to each peer through a bounded queue in which updates are coalesced by subject. If a peer's
+ * queue is full, new subjects are dropped from the queue and left to be repaired by anti-entropy, so a slow peer
+ * cannot cause unbounded memory growth.
+ * <p>
+ * Updates whose values are {@link io.atomix.protocols.gossip.crdt.DeltaCrdt delta-state CRDTs} are merged into
+ * the current value rather than replacing it, and only the deltas are queued for peers. Deltas lost to dropped
+ * or failed messages are repaired by anti-entropy, which compares the hashes of CRDT values as well as their
+ * timestamps.
+ * <p>
+ * Updates are held in a striped {@link GossipUpdateStore}. Updates to subjects in different stripes are applied
+ * concurrently, advertisements read the hash tree without locking, and tombstones are purged one at a time, so
+ * gossip ingest, anti-entropy and purging do not serialize on a single lock. Updates are appended to the
+ * {@link GossipLog} through its lock-free append queue, so persistence doesn't serialize ingest either.
  */
 public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEvent<K, V>, GossipEventListener<K, V>> implements GossipService<K, V> {
 
@@ -61,17 +86,24 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
   private final Logger log = LoggerFactory.getLogger(getClass());
   private final AntiEntropyProtocol<Identifier> protocol;
   private final Supplier<Collection<Identifier>> peerProvider;
+  private final PeerSelector peerSelector;
   private final Executor eventExecutor;
-  private final Executor communicationExecutor;
+  private final ScheduledExecutorService communicationExecutor;
 
   private final boolean tombstonesDisabled;
 
   private final ScheduledFuture<?> updateFuture;
   private final ScheduledFuture<?> purgeFuture;
-
-  private final Map<K, GossipUpdate<K, V>> updates = Maps.newLinkedHashMap();
-  private final LogicalClock logicalClock = new LogicalClock();
-  private final Map<Identifier, UpdateAccumulator> pendingUpdates = Maps.newConcurrentMap();
+  private final ScheduledFuture<?> flushFuture;
+  private final GossipLog<K, V> gossipLog;
+
+  private final GossipUpdateStore<K, V> updates = new GossipUpdateStore<>();
+  private final MerkleTree<K> tree = updates.tree();
+  private final AtomicLong logicalTime = new AtomicLong();
+  private final AtomicBoolean checkpointing = new AtomicBoolean();
+  private final Map<Identifier, UpdateQueue> pendingUpdates = Maps.newConcurrentMap();
+  private final GossipMetrics metrics = new GossipMetrics();
+  private final int maxQueueSize;
   private final Map<Identifier, Long> peerUpdateTimes = Maps.newConcurrentMap();
 
   private volatile boolean open = true;
@@ -81,19 +113,67 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
   public AntiEntropyService(
       AntiEntropyProtocol<Identifier> protocol,
       Supplier<Collection<Identifier>> peerProvider,
+      PeerSelector peerSelector,
       Executor eventExecutor,
       ScheduledExecutorService communicationExecutor,
       Duration antiEntropyInterval,
       boolean tombstonesDisabled,
-      Duration purgeInterval) {
+      Duration purgeInterval,
+      int maxQueueSize,
+      GossipLog<K, V> gossipLog) {
     this.protocol = checkNotNull(protocol, "protocol cannot be null");
     this.peerProvider = checkNotNull(peerProvider, "peerProvider cannot be null");
+    this.peerSelector = checkNotNull(peerSelector, "peerSelector cannot be null");
     this.eventExecutor = checkNotNull(eventExecutor, "eventExecutor cannot be null");
     this.communicationExecutor = checkNotNull(communicationExecutor, "communicationExecutor cannot be null");
     this.tombstonesDisabled = tombstonesDisabled;
+    this.maxQueueSize = maxQueueSize;
+    this.gossipLog = gossipLog;
+    if (gossipLog != null) {
+      recover();
+    }
     protocol.registerGossipListener(this::update);
+    protocol.registerAdvertisementHandler(this::handleAdvertisement);
     updateFuture = communicationExecutor.scheduleAtFixedRate(this::performAntiEntropy, 0, antiEntropyInterval.toMillis(), TimeUnit.MILLISECONDS);
     purgeFuture = !tombstonesDisabled ? communicationExecutor.scheduleAtFixedRate(this::purgeTombstones, 0, purgeInterval.toMillis(), TimeUnit.MILLISECONDS) : null;
+    flushFuture = gossipLog != null ? communicationExecutor.scheduleAtFixedRate(this::flushLog, antiEntropyInterval.toMillis(), antiEntropyInterval.toMillis(), TimeUnit.MILLISECONDS) : null;
+  }
+
+  /**
+   * Recovers updates from the gossip log.
+   * <p>
+   * The logical clock is advanced past the recovered timestamps to ensure updates made after a restart supersede
+   * the updates made before it.
+   */
+  private void recover() {
+    for (GossipUpdate<K, V> update : gossipLog.recover().values()) {
+      synchronized (updates.lock(update.subject())) {
+        updates.put(update);
+      }
+      if (update.timestamp() instanceof LogicalTimestamp) {
+        logicalTime.accumulateAndGet(((LogicalTimestamp) update.timestamp()).value(), Math::max);
+      }
+    }
+    log.debug("Recovered {} updates", updates.size());
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * If updates are persisted in a {@link GossipLog}, the listener is sent an event for each stored update so that
+   * listeners added after recovery observe the recovered state.
+   */
+  @Override
+  public void addListener(GossipEventListener<K, V> listener) {
+    super.addListener(listener);
+    if (gossipLog != null) {
+      for (GossipUpdate<K, V> update : updates.values()) {
+        if (!update.isTombstone()) {
+          GossipEvent<K, V> event = new GossipEvent<>(update.creationTime(), update.subject(), update.value());
+          eventExecutor.execute(() -> listener.onEvent(event));
+        }
+      }
+    }
   }
 
   @Override
@@ -101,65 +181,289 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
     eventExecutor.execute(() -> super.post(event));
   }
 
+  /**
+   * Returns the next local logical timestamp.
+   *
+   * @return the next local logical timestamp
+   */
+  private LogicalTimestamp nextTimestamp() {
+    return new LogicalTimestamp(logicalTime.incrementAndGet());
+  }
+
   @Override
   public void process(GossipEvent<K, V> event) {
     GossipUpdate<K, V> update = new GossipUpdate<>(
         event.subject(),
         event.value(),
-        logicalClock.increment());
+        nextTimestamp());
 
     if (update.isTombstone()) {
       // For deletes, simply remove the event if tombstones are disabled.
       // Otherwise, treat the tombstone as an update to ensure it's replicated.
       if (tombstonesDisabled) {
-        updates.remove(update.subject());
+        removeUpdate(update.subject());
       } else {
-        updates.put(event.subject(), update);
+        putUpdate(update);
         notifyPeers(update);
       }
     } else {
-      updates.put(event.subject(), update);
+      // Merge delta-state CRDTs into the current value, but send only the delta to peers.
+      GossipUpdate<K, V> merged = mergeUpdate(update);
       notifyPeers(update);
+      if (merged != update) {
+        event = new GossipEvent<>(event.time(), event.subject(), merged.value());
+      }
     }
     post(event);
   }
 
+  @Override
+  public V mutate(K subject, UnaryOperator<V> mutator) {
+    GossipUpdate<K, V> update;
+    GossipUpdate<K, V> merged;
+    synchronized (updates.lock(subject)) {
+      GossipUpdate<K, V> existingUpdate = updates.get(subject);
+      V value = checkNotNull(mutator.apply(existingUpdate != null ? existingUpdate.value() : null), "value cannot be null");
+      update = new GossipUpdate<>(subject, value, nextTimestamp());
+      merged = existingUpdate != null && existingUpdate.isMergeableWith(update) ? existingUpdate.merge(update) : update;
+      storeUpdate(merged);
+      post(new GossipEvent<>(subject, merged.value()));
+    }
+    checkpoint();
+    notifyPeers(update);
+    return merged.value();
+  }
+
+  /**
+   * Stores an update, merging it into the current update for its subject if both are delta-state CRDTs.
+   *
+   * @param update the update to store
+   * @return the stored update
+   */
+  private GossipUpdate<K, V> mergeUpdate(GossipUpdate<K, V> update) {
+    synchronized (updates.lock(update.subject())) {
+      GossipUpdate<K, V> existingUpdate = updates.get(update.subject());
+      if (existingUpdate != null && existingUpdate.isMergeableWith(update)) {
+        update = existingUpdate.merge(update);
+      }
+      storeUpdate(update);
+    }
+    checkpoint();
+    return update;
+  }
+
+  /**
+   * Stores an update.
+   *
+   * @param update the update to store
+   */
+  private void putUpdate(GossipUpdate<K, V> update) {
+    synchronized (updates.lock(update.subject())) {
+      storeUpdate(update);
+    }
+    checkpoint();
+  }
+
+  /**
+   * Stores an update and appends it to the gossip log.
+   * <p>
+   * The caller must hold the store lock for the update's subject, which ensures updates to a subject are appended
+   * to the gossip log in the order in which they're stored.
+   *
+   * @param update the update to store
+   */
+  private void storeUpdate(GossipUpdate<K, V> update) {
+    updates.put(update);
+    if (gossipLog != null) {
+      gossipLog.append(update);
+    }
+  }
+
+  /**
+   * Removes the update for a subject.
+   *
+   * @param subject the subject for which to remove the update
+   */
+  private void removeUpdate(K subject) {
+    synchronized (updates.lock(subject)) {
+      if (updates.remove(subject) != null) {
+        removeLog(subject);
+      }
+    }
+    checkpoint();
+  }
+
+  /**
+   * Appends the removal of a subject to the gossip log.
+   * <p>
+   * The caller must hold the store lock for the subject.
+   *
+   * @param subject the removed subject
+   */
+  private void removeLog(K subject) {
+    if (gossipLog != null) {
+      gossipLog.remove(subject);
+    }
+  }
+
+  /**
+   * Schedules a checkpoint of the gossip log once enough entries have been appended since the last checkpoint.
+   * <p>
+   * A checkpoint rewrites every live update, so it's written on the communication executor rather than on the
+   * thread that applied the update, and at most one checkpoint is scheduled at a time.
+   */
+  private void checkpoint() {
+    if (gossipLog != null && open && gossipLog.shouldCheckpoint(updates.size()) && checkpointing.compareAndSet(false, true)) {
+      communicationExecutor.execute(this::writeCheckpoint);
+    }
+  }
+
+  /**
+   * Writes a checkpoint of the gossip log.
+   * <p>
+   * Checkpoints are written without holding any store locks. Updates that are stored while the checkpoint is
+   * written are queued by the gossip log and appended after the checkpoint.
+   */
+  private void writeCheckpoint() {
+    try {
+      gossipLog.checkpoint(updates.values());
+    } catch (Exception e) {
+      // Catch all exceptions to avoid losing the checkpointing flag.
+      log.error("Exception thrown while checkpointing gossip log", e);
+    } finally {
+      checkpointing.set(false);
+    }
+  }
+
+  /**
+   * Flushes the gossip log to disk.
+   */
+  private void flushLog() {
+    try {
+      gossipLog.flush();
+    } catch (Exception e) {
+      // Catch all exceptions to avoid scheduled task being suppressed.
+      log.error("Exception thrown while flushing gossip log", e);
+    }
+  }
+
   /**
    * Handles a gossip message.
    */
-  private synchronized void update(GossipMessage<K, V> message) {
+  private void update(GossipMessage<K, V> message) {
     // Update the logical clock using the peer's logical time.
-    logicalClock.update(message.timestamp());
+    logicalTime.accumulateAndGet(message.timestamp().value(), Math::max);
     for (GossipUpdate<K, V> update : message.updates()) {
-      GossipUpdate<K, V> existingUpdate = updates.get(update.subject());
-
-      // If no existing update is found, or if an update is overriding a tombstone, or if the update
-      // version is greater than the existing entry version, perform the update.
-      if (existingUpdate == null
-          || (existingUpdate.isTombstone() && !update.isTombstone())
-          || existingUpdate.timestamp().isOlderThan(update.timestamp())) {
-        // It's possible tombstones could just be disabled on this node.
-        if (!tombstonesDisabled) {
-          updates.put(update.subject(), update);
-        }
+      synchronized (updates.lock(update.subject())) {
+        applyUpdate(update);
+      }
+    }
+    checkpoint();
+  }
 
-        // Post the event to listeners.
+  /**
+   * Applies an update received from a peer.
+   * <p>
+   * The caller must hold the store lock for the update's subject.
+   *
+   * @param update the update to apply
+   */
+  private void applyUpdate(GossipUpdate<K, V> update) {
+    GossipUpdate<K, V> existingUpdate = updates.get(update.subject());
+
+    // If both updates are delta-state CRDTs, merge the update into the existing update. The merged update
+    // is stored if either its value or its timestamp changed, but listeners are only notified of new values.
+    if (existingUpdate != null && existingUpdate.isMergeableWith(update)) {
+      GossipUpdate<K, V> merged = existingUpdate.merge(update);
+      boolean changed = !merged.value().equals(existingUpdate.value());
+      if (changed || merged.isNewerThan(existingUpdate)) {
+        storeUpdate(merged);
+      }
+      if (changed) {
         post(new GossipEvent<>(
             update.creationTime(),
             update.subject(),
-            update.value()));
+            merged.value()));
       }
+      return;
+    }
+
+    // If no existing update is found, or if an update is overriding a tombstone, or if the update
+    // version is greater than the existing entry version, perform the update.
+    if (existingUpdate == null
+        || (existingUpdate.isTombstone() && !update.isTombstone())
+        || existingUpdate.timestamp().isOlderThan(update.timestamp())) {
+      // It's possible tombstones could just be disabled on this node.
+      if (!tombstonesDisabled) {
+        storeUpdate(update);
+      }
+
+      // Post the event to listeners.
+      post(new GossipEvent<>(
+          update.creationTime(),
+          update.subject(),
+          update.value()));
     }
   }
 
   /**
-   * Returns the update accumulator for the given peer.
+   * Handles an anti-entropy advertisement from a peer.
+   * <p>
+   * If the advertisement carries hash tree node hashes, the response contains the advertised nodes whose hashes
+   * differ from the local tree. Otherwise, the response contains the keys for which the advertised digests are
+   * newer than the local updates, and the keys of delta-state CRDTs whose advertised values differ from the
+   * local values so that they can be merged.
+   */
+  private AntiEntropyResponse<K> handleAdvertisement(AntiEntropyAdvertisement<K> advertisement) {
+    if (!open || underHighLoad()) {
+      return new AntiEntropyResponse<>(AntiEntropyResponse.Status.IGNORED, Collections.emptySet());
+    }
+
+    if (!advertisement.hashes().isEmpty()) {
+      Set<Integer> nodes = new HashSet<>();
+      for (Map.Entry<Integer, Long> entry : advertisement.hashes().entrySet()) {
+        int node = entry.getKey();
+        if (!tree.contains(node)) {
+          return new AntiEntropyResponse<>(AntiEntropyResponse.Status.FAILED, Collections.emptySet());
+        }
+        if (tree.hash(node) != entry.getValue()) {
+          nodes.add(node);
+        }
+      }
+      return new AntiEntropyResponse<>(AntiEntropyResponse.Status.PROCESSED, Collections.emptySet(), nodes);
+    }
+
+    Set<K> keys = new HashSet<>();
+    for (Map.Entry<K, GossipUpdate.Digest> entry : advertisement.digest().entrySet()) {
+      GossipUpdate<K, V> existingUpdate = updates.get(entry.getKey());
+      GossipUpdate.Digest digest = entry.getValue();
+      if (existingUpdate == null
+          || (existingUpdate.isTombstone() && !digest.isTombstone())
+          || existingUpdate.timestamp().isOlderThan(digest.timestamp())
+          || (existingUpdate.isMergeable() && existingUpdate.digest().valueHash() != digest.valueHash())) {
+        keys.add(entry.getKey());
+      }
+    }
+    return new AntiEntropyResponse<>(AntiEntropyResponse.Status.PROCESSED, keys);
+  }
+
+  /**
+   * Returns the gossip update queue metrics.
    *
-   * @param peer the peer for which to return the accumulator
-   * @return the update accumulator for the given peer
+   * @return the gossip update queue metrics
    */
-  private UpdateAccumulator getAccumulator(Identifier peer) {
-    return pendingUpdates.computeIfAbsent(peer, UpdateAccumulator::new);
+  public GossipMetrics metrics() {
+    return metrics;
+  }
+
+  /**
+   * Returns the update queue for the given peer.
+   *
+   * @param peer the peer for which to return the queue
+   * @return the update queue for the given peer
+   */
+  private UpdateQueue getQueue(Identifier peer) {
+    return pendingUpdates.computeIfAbsent(peer, UpdateQueue::new);
   }
 
   /**
@@ -172,14 +476,17 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
   }
 
   /**
-   * Sends an anti-entropy advertisement to a random peer.
+   * Sends an anti-entropy advertisement to a peer chosen by the peer selector.
    */
   private void performAntiEntropy() {
     try {
       if (underHighLoad() || !open) {
         return;
       }
-      pickRandomActivePeer().ifPresent(this::sendAdvertisementToPeer);
+      Identifier peer = peerSelector.select(peerProvider.get());
+      if (peer != null) {
+        sendAdvertisementToPeer(peer);
+      }
     } catch (Exception e) {
       // Catch all exceptions to avoid scheduled task being suppressed.
       log.error("Exception thrown while sending advertisement", e);
@@ -187,35 +494,91 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
   }
 
   /**
-   * Picks a random active peer to which to send an anti-entropy advertisement.
+   * Sends an anti-entropy advertisement to the given peer.
    *
-   * @return a random peer to which to send an anti-entropy advertisement
+   * @param peer the peer to which to send the anti-entropy advertisement
    */
-  private Optional<Identifier> pickRandomActivePeer() {
-    List<Identifier> peers = Lists.newArrayList(peerProvider.get());
-    Collections.shuffle(peers);
-    return peers.isEmpty() ? Optional.empty() : Optional.of(peers.get(0));
+  private void sendAdvertisementToPeer(Identifier peer) {
+    long updateTime = System.currentTimeMillis();
+    sendNodesToPeer(peer, Collections.singletonList(MerkleTree.ROOT), updateTime);
   }
 
   /**
-   * Sends an anti-entropy advertisement to the given peer.
+   * Sends the hashes of the given hash tree nodes to the given peer.
+   * <p>
+   * Internal nodes whose hashes differ on the peer are expanded into their children and advertised again,
+   * and mismatched leaves are resolved by advertising the digests of the updates in those leaves.
    *
-   * @param peer the peer to which to send the anti-entropy advertisement
+   * @param peer the peer to which to send the hashes
+   * @param nodes the hash tree nodes to advertise
+   * @param updateTime the time at which the anti-entropy round started
    */
-  private void sendAdvertisementToPeer(Identifier peer) {
-    long updateTime = System.currentTimeMillis();
-    AntiEntropyAdvertisement<K> advertisement = new AntiEntropyAdvertisement<>(
-        ImmutableMap.copyOf(Maps.transformValues(updates, GossipUpdate::digest)));
-    protocol.advertise(peer, advertisement).whenComplete((response, error) -> {
+  private void sendNodesToPeer(Identifier peer, Collection<Integer> nodes, long updateTime) {
+    Map<Integer, Long> hashes = Maps.newHashMapWithExpectedSize(nodes.size());
+    for (int node : nodes) {
+      hashes.put(node, tree.hash(node));
+    }
+
+    protocol.<K>advertise(peer, new AntiEntropyAdvertisement<>(hashes, Collections.emptyMap())).whenComplete((response, error) -> {
+      if (error != null) {
+        log.debug("Failed to send anti-entropy advertisement to {}: {}", peer, error.getMessage());
+      } else if (response.status() == AntiEntropyResponse.Status.PROCESSED) {
+        List<Integer> children = Lists.newArrayList();
+        List<Integer> leaves = Lists.newArrayList();
+        for (int node : response.nodes()) {
+          if (!hashes.containsKey(node)) {
+            continue;
+          }
+          if (tree.isLeaf(node)) {
+            leaves.add(node);
+          } else {
+            int firstChild = tree.firstChild(node);
+            for (int i = 0; i < tree.fanout(); i++) {
+              children.add(firstChild + i);
+            }
+          }
+        }
+
+        if (!leaves.isEmpty()) {
+          sendDigestToPeer(peer, leaves, updateTime);
+        } else if (!children.isEmpty()) {
+          sendNodesToPeer(peer, children, updateTime);
+        } else {
+          peerUpdateTimes.put(peer, updateTime);
+        }
+      }
+    });
+  }
+
+  /**
+   * Sends the digests of the updates in the given hash tree leaves to the given peer.
+   *
+   * @param peer the peer to which to send the digests
+   * @param leaves the hash tree leaves for which to send digests
+   * @param updateTime the time at which the anti-entropy round started
+   */
+  private void sendDigestToPeer(Identifier peer, Collection<Integer> leaves, long updateTime) {
+    Map<K, GossipUpdate.Digest> digest = Maps.newHashMap();
+    for (int leaf : leaves) {
+      updates.digests(leaf, digest);
+    }
+
+    // If the local node has no updates in the mismatched leaves, there's nothing to send to the peer.
+    if (digest.isEmpty()) {
+      peerUpdateTimes.put(peer, updateTime);
+      return;
+    }
+
+    protocol.advertise(peer, new AntiEntropyAdvertisement<>(digest)).whenComplete((response, error) -> {
       if (error != null) {
         log.debug("Failed to send anti-entropy advertisement to {}: {}", peer, error.getMessage());
       } else if (response.status() == AntiEntropyResponse.Status.PROCESSED) {
         if (!response.keys().isEmpty()) {
-          UpdateAccumulator accumulator = getAccumulator(peer);
+          UpdateQueue queue = getQueue(peer);
           for (K key : response.keys()) {
             GossipUpdate<K, V> update = updates.get(key);
             if (update != null) {
-              accumulator.add(update);
+              queue.add(update);
             }
           }
         }
@@ -252,36 +615,50 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
   private void queueUpdate(GossipUpdate<K, V> event, Collection<Identifier> peers) {
     if (peers != null) {
       for (Identifier peer : peers) {
-        getAccumulator(peer).add(event);
+        getQueue(peer).add(event);
       }
     }
   }
 
   /**
    * Purges tombstones from updates.
+   * <p>
+   * Tombstones are purged incrementally, holding the store lock for each tombstone's subject only while it is
+   * removed. A tombstone that has been replaced since it was read is not removed.
    */
-  private synchronized void purgeTombstones() {
+  private void purgeTombstones() {
     long minTombstoneTime = peerProvider.get().stream()
         .map(peer -> peerUpdateTimes.getOrDefault(peer, 0L))
         .reduce(Math::min)
         .orElse(0L);
-    Iterator<Map.Entry<K, GossipUpdate<K, V>>> iterator = updates.entrySet().iterator();
-    while (iterator.hasNext()) {
-      GossipUpdate<K, V> update = iterator.next().getValue();
+    for (GossipUpdate<K, V> update : updates.values()) {
       if (update.isTombstone() && update.creationTime() < minTombstoneTime) {
-        iterator.remove();
+        synchronized (updates.lock(update.subject())) {
+          if (updates.get(update.subject()) == update) {
+            updates.remove(update.subject());
+            removeLog(update.subject());
+          }
+        }
       }
     }
+    checkpoint();
   }
 
   @Override
   public void close() {
     open = false;
     protocol.unregisterGossipListener();
+    protocol.unregisterAdvertisementHandler();
     updateFuture.cancel(false);
     if (purgeFuture != null) {
       purgeFuture.cancel(false);
     }
+    if (flushFuture != null) {
+      flushFuture.cancel(false);
+    }
+    if (gossipLog != null) {
+      gossipLog.close();
+    }
   }
 
   @Override
@@ -291,34 +668,89 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
         .toString();
   }
 
-  private static final int DEFAULT_MAX_EVENTS = 1000;
-  private static final int DEFAULT_MAX_IDLE_MS = 10;
-  private static final int DEFAULT_MAX_BATCH_MS = 50;
-  private static final Timer TIMER = new Timer("onos-ecm-sender-events");
+  private static final int MAX_BATCH_SIZE = 1000;
+  private static final int BATCH_DELAY_MILLIS = 10;
 
   /**
-   * Accumulator for dispatching updates to a peer.
+   * Bounded queue of updates to be sent to a peer.
+   * <p>
+   * Updates are coalesced by subject, so the queue holds at most one update per subject. Deltas of delta-state
+   * CRDTs are coalesced by merging them into a single delta. The first update added
+   * to an empty queue schedules a flush on the communication executor after a short delay to allow updates to be
+   * batched, and a batch is flushed immediately once it reaches the maximum batch size.
    */
-  private final class UpdateAccumulator extends AbstractAccumulator<GossipUpdate<K, V>> {
+  private final class UpdateQueue {
     private final Identifier peer;
+    private final Map<K, GossipUpdate<K, V>> updates = Maps.newLinkedHashMap();
+    private boolean scheduled;
 
-    private UpdateAccumulator(Identifier peer) {
-      super(TIMER, DEFAULT_MAX_EVENTS, DEFAULT_MAX_BATCH_MS, DEFAULT_MAX_IDLE_MS);
+    private UpdateQueue(Identifier peer) {
       this.peer = peer;
     }
 
-    @Override
-    public void processItems(List<GossipUpdate<K, V>> items) {
-      Map<K, GossipUpdate<K, V>> map = Maps.newHashMap();
-      items.forEach(item -> map.compute(item.subject(), (key, existing) ->
-          item.timestamp().isNewerThan(existing.timestamp()) ? item : existing));
-      communicationExecutor.execute(() -> {
-        try {
-          protocol.gossip(peer, new GossipMessage<>(logicalClock.increment(), map.values()));
-        } catch (Exception e) {
-          log.warn("Failed to send to {}", peer, e);
+    /**
+     * Adds an update to the queue.
+     *
+     * @param update the update to add
+     */
+    synchronized void add(GossipUpdate<K, V> update) {
+      GossipUpdate<K, V> existing = updates.get(update.subject());
+      if (existing != null) {
+        if (existing.isMergeableWith(update)) {
+          updates.put(update.subject(), existing.merge(update));
+        } else if (update.isNewerThan(existing)) {
+          updates.put(update.subject(), update);
+        }
+        metrics.recordCoalesced();
+        return;
+      }
+
+      // If the queue is full, drop the update and rely on anti-entropy to repair the peer.
+      if (updates.size() >= maxQueueSize) {
+        metrics.recordDropped();
+        return;
+      }
+
+      updates.put(update.subject(), update);
+      metrics.recordQueued();
+      if (updates.size() == MAX_BATCH_SIZE) {
+        communicationExecutor.execute(this::flush);
+      } else if (!scheduled) {
+        scheduled = true;
+        communicationExecutor.schedule(this::flush, BATCH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+      }
+    }
+
+    /**
+     * Sends the next batch of updates to the peer.
+     */
+    private void flush() {
+      List<GossipUpdate<K, V>> batch;
+      synchronized (this) {
+        scheduled = false;
+        if (updates.isEmpty()) {
+          return;
+        }
+
+        batch = Lists.newArrayListWithCapacity(Math.min(updates.size(), MAX_BATCH_SIZE));
+        Iterator<GossipUpdate<K, V>> iterator = updates.values().iterator();
+        while (iterator.hasNext() && batch.size() < MAX_BATCH_SIZE) {
+          batch.add(iterator.next());
+          iterator.remove();
+        }
+
+        if (!updates.isEmpty()) {
+          scheduled = true;
+          communicationExecutor.execute(this::flush);
         }
-      });
+      }
+
+      metrics.recordSent(batch.size());
+      try {
+        protocol.gossip(peer, new GossipMessage<>(nextTimestamp(), batch));
+      } catch (Exception e) {
+        log.warn("Failed to send to {}", peer, e);
+      }
     }
   }
 
@@ -331,11 +763,14 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
   public static class Builder<K, V> implements GossipService.Builder<K, V> {
     protected AntiEntropyProtocol protocol;
     protected Supplier<Collection<Identifier>> peerProvider;
+    protected PeerSelector peerSelector = new RandomPeerSelector();
     protected Executor eventExecutor = MoreExecutors.directExecutor();
     protected ScheduledExecutorService communicationExecutor;
     protected Duration antiEntropyInterval = Duration.ofSeconds(1);
     protected boolean tombstonesDisabled = false;
     protected Duration purgeInterval = Duration.ofMinutes(1);
+    protected int maxQueueSize = 10000;
+    protected GossipLog<K, V> gossipLog;
 
     /**
      * Sets the anti-entropy protocol.
@@ -361,6 +796,20 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
       return this;
     }
 
+    /**
+     * Sets the gossip peer selector.
+     * <p>
+     * By default, peers are selected uniformly at random.
+     *
+     * @param peerSelector the gossip peer selector
+     * @return the anti-entropy service builder
+     * @throws NullPointerException if the peer selector is null
+     */
+    public Builder<K, V> withPeerSelector(PeerSelector peerSelector) {
+      this.peerSelector = checkNotNull(peerSelector, "peerSelector cannot be null");
+      return this;
+    }
+
     /**
      * Sets the gossip event executor.
      *
@@ -420,9 +869,39 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
       return this;
     }
 
+    /**
+     * Sets the maximum number of updates to queue for each peer.
+     * <p>
+     * Updates are coalesced by subject, so this bounds the number of distinct subjects awaiting delivery to a peer.
+     * Updates to new subjects are dropped while a peer's queue is full and are repaired by anti-entropy instead.
+     *
+     * @param maxQueueSize the maximum number of updates to queue for each peer
+     * @return the anti-entropy service builder
+     * @throws IllegalArgumentException if the maximum queue size is not positive
+     */
+    public Builder<K, V> withMaxQueueSize(int maxQueueSize) {
+      checkArgument(maxQueueSize > 0, "maxQueueSize must be positive");
+      this.maxQueueSize = maxQueueSize;
+      return this;
+    }
+
+    /**
+     * Sets the gossip log in which to persist updates.
+     * <p>
+     * By default, updates are not persisted and a restarted node must recover all updates from its peers.
+     *
+     * @param gossipLog the gossip log
+     * @return the anti-entropy service builder
+     * @throws NullPointerException if the gossip log is null
+     */
+    public Builder<K, V> withLog(GossipLog<K, V> gossipLog) {
+      this.gossipLog = checkNotNull(gossipLog, "gossipLog cannot be null");
+      return this;
+    }
+
     @Override
     public GossipService<K, V> build() {
-      return new AntiEntropyService<>(protocol, peerProvider, eventExecutor, communicationExecutor, antiEntropyInterval, tombstonesDisabled, purgeInterval);
+      return new AntiEntropyService<>(protocol, peerProvider, peerSelector, eventExecutor, communicationExecutor, antiEntropyInterval, tombstonesDisabled, purgeInterval, maxQueueSize, gossipLog);
     }
   }
 }
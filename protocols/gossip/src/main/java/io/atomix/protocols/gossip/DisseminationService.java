@@ -22,28 +22,38 @@ import io.atomix.event.AbstractListenerManager;
 import io.atomix.protocols.gossip.protocol.GossipMessage;
 import io.atomix.protocols.gossip.protocol.GossipProtocol;
 import io.atomix.protocols.gossip.protocol.GossipUpdate;
-import io.atomix.time.LogicalClock;
 import io.atomix.time.LogicalTimestamp;
 import io.atomix.utils.Identifier;
 
 import java.time.Duration;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
+import java.util.function.UnaryOperator;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Dissemination service.
+ * <p>
+ * Updates are indexed in a log ordered by the local logical time at which they were applied, and each peer
+ * tracks the logical time up to which it has been sent the log. Gossiping to a peer is a range scan of the
+ * tail of the log from that time, so its cost is proportional to the number of changes since the peer was
+ * last updated rather than to the number of updates. Writes to the log are serialized, but gossip reads the
+ * log concurrently without holding the service's monitor.
+ * <p>
+ * Updates whose values are {@link io.atomix.protocols.gossip.crdt.DeltaCrdt delta-state CRDTs} are merged into
+ * the current value rather than replacing it, so concurrent updates on different nodes are not lost. Because the
+ * dissemination protocol has no repair mechanism, the log holds merged values rather than deltas, so an update
+ * lost in transit is healed by the next update to its subject.
  */
 public class DisseminationService<K, V> extends AbstractListenerManager<GossipEvent<K, V>, GossipEventListener<K, V>> implements GossipService<K, V> {
 
@@ -60,19 +70,23 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
 
   private final GossipProtocol protocol;
   private final Supplier<Collection<Identifier>> peerProvider;
+  private final PeerSelector peerSelector;
   private final Executor eventExecutor;
   private final boolean fastConvergence;
   private final boolean tombstonesDisabled;
   private final ScheduledFuture<?> updateFuture;
   private final ScheduledFuture<?> purgeFuture;
-  private final Map<K, GossipUpdate<K, V>> updates = Maps.newLinkedHashMap();
-  private final LogicalClock logicalClock = new LogicalClock();
+  private final Map<K, LogicalTimestamp> updates = Maps.newConcurrentMap();
+  private final NavigableMap<LogicalTimestamp, GossipUpdate<K, V>> log = new ConcurrentSkipListMap<>();
+  private final AtomicLong logicalTime = new AtomicLong();
+  private volatile LogicalTimestamp logTimestamp = new LogicalTimestamp(0);
   private final Map<Identifier, Long> peerUpdateTimes = Maps.newConcurrentMap();
-  private final Map<Identifier, LogicalTimestamp> peerTimestamps = Maps.newHashMap();
+  private final Map<Identifier, LogicalTimestamp> peerTimestamps = Maps.newConcurrentMap();
 
   public DisseminationService(
       GossipProtocol<?> protocol,
       Supplier<Collection<Identifier>> peerProvider,
+      PeerSelector peerSelector,
       Executor eventExecutor,
       ScheduledExecutorService communicationExecutor,
       Duration updateInterval,
@@ -81,6 +95,7 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
       Duration purgeInterval) {
     this.protocol = checkNotNull(protocol, "protocol cannot be null");
     this.peerProvider = checkNotNull(peerProvider, "peerProvider cannot be null");
+    this.peerSelector = checkNotNull(peerSelector, "peerSelector cannot be null");
     this.eventExecutor = checkNotNull(eventExecutor, "eventExecutor cannot be null");
     this.fastConvergence = fastConvergence;
     this.tombstonesDisabled = tombstonesDisabled;
@@ -96,14 +111,11 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
 
   @Override
   public void process(GossipEvent<K, V> event) {
-    LogicalTimestamp timestamp = logicalClock.increment();
-    GossipUpdate<K, V> update = new GossipUpdate<>(
-        event.subject(),
-        event.value(),
-        timestamp.asVersion());
-
     if (event.value() != null) {
-      updates.put(event.subject(), update);
+      GossipUpdate<K, V> update = append(event);
+      if (update.value() != event.value()) {
+        event = new GossipEvent<>(event.time(), event.subject(), update.value());
+      }
       if (fastConvergence) {
         updatePeers();
       }
@@ -111,9 +123,9 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
       // For deletes, simply remove the event if tombstones are disabled.
       // Otherwise, treat the tombstone as an update to ensure it's replicated.
       if (tombstonesDisabled) {
-        updates.remove(event.subject());
+        remove(event.subject());
       } else {
-        updates.put(event.subject(), update);
+        append(event);
         if (fastConvergence) {
           updatePeers();
         }
@@ -122,14 +134,106 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
     post(event);
   }
 
+  @Override
+  public V mutate(K subject, UnaryOperator<V> mutator) {
+    GossipUpdate<K, V> update;
+    synchronized (this) {
+      GossipUpdate<K, V> existingUpdate = get(subject);
+      V value = checkNotNull(mutator.apply(existingUpdate != null ? existingUpdate.value() : null), "value cannot be null");
+      update = append(new GossipEvent<>(subject, value));
+      post(new GossipEvent<>(subject, update.value()));
+    }
+    if (fastConvergence) {
+      updatePeers();
+    }
+    return update.value();
+  }
+
+  /**
+   * Appends a local event to the update log.
+   * <p>
+   * If the event value and the current value of its subject are delta-state CRDTs, the event value is merged into
+   * the current value.
+   *
+   * @param event the event to append
+   * @return the appended update
+   */
+  private synchronized GossipUpdate<K, V> append(GossipEvent<K, V> event) {
+    LogicalTimestamp timestamp = new LogicalTimestamp(logicalTime.incrementAndGet());
+    GossipUpdate<K, V> update = new GossipUpdate<>(event.subject(), event.value(), timestamp.asVersion());
+    GossipUpdate<K, V> existingUpdate = get(event.subject());
+    if (existingUpdate != null && existingUpdate.isMergeableWith(update)) {
+      update = existingUpdate.merge(update);
+    }
+    append(update, timestamp);
+    return update;
+  }
+
+  /**
+   * Appends an update to the update log at the given logical time, replacing any prior update for its subject.
+   * <p>
+   * Appends must be made in logical time order while holding the service's monitor. The log timestamp is
+   * published only once the update is in the log, so readers observe every update up to the log timestamp.
+   *
+   * @param update the update to append
+   * @param timestamp the logical time at which the update was applied
+   */
+  private void append(GossipUpdate<K, V> update, LogicalTimestamp timestamp) {
+    LogicalTimestamp previous = updates.put(update.subject(), timestamp);
+    log.put(timestamp, update);
+    if (previous != null) {
+      log.remove(previous);
+    }
+    logTimestamp = timestamp;
+  }
+
+  /**
+   * Removes the update for a subject from the update log.
+   *
+   * @param subject the subject for which to remove the update
+   */
+  private synchronized void remove(K subject) {
+    LogicalTimestamp previous = updates.remove(subject);
+    if (previous != null) {
+      log.remove(previous);
+    }
+  }
+
+  /**
+   * Returns the current update for a subject.
+   *
+   * @param subject the subject for which to return the update
+   * @return the current update for the subject or {@code null} if no update exists
+   */
+  private GossipUpdate<K, V> get(K subject) {
+    LogicalTimestamp timestamp = updates.get(subject);
+    return timestamp != null ? log.get(timestamp) : null;
+  }
+
   /**
    * Handles a gossip message.
    */
   private synchronized void update(GossipMessage<K, V> message) {
     // Update the logical clock using the peer's logical time.
-    logicalClock.update(message.timestamp());
+    logicalTime.accumulateAndGet(message.timestamp().value(), Math::max);
     for (GossipUpdate<K, V> update : message.updates()) {
-      GossipUpdate<K, V> existingUpdate = updates.get(update.subject());
+      GossipUpdate<K, V> existingUpdate = get(update.subject());
+
+      // If both updates are delta-state CRDTs, merge the update into the existing update and append the merged
+      // update only if its value changed.
+      if (existingUpdate != null && existingUpdate.isMergeableWith(update)) {
+        GossipUpdate<K, V> merged = existingUpdate.merge(update);
+        if (!merged.value().equals(existingUpdate.value())) {
+          if (!tombstonesDisabled) {
+            append(merged, new LogicalTimestamp(logicalTime.incrementAndGet()));
+          }
+          post(new GossipEvent<>(
+              update.creationTime(),
+              update.subject(),
+              merged.value()));
+        }
+        continue;
+      }
 
       // If no existing update is found, or if an update is overriding a tombstone, or if the update
       // version is greater than the existing entry version, perform the update.
@@ -138,7 +242,7 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
           || existingUpdate.timestamp().isOlderThan(update.timestamp())) {
         // It's possible tombstones could just be disabled on this node.
         if (!tombstonesDisabled) {
-          updates.put(update.subject(), update);
+          append(update, new LogicalTimestamp(logicalTime.incrementAndGet()));
         }
 
         // Post the event to listeners.
@@ -151,13 +255,11 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
   }
 
   /**
-   * Sends a gossip message to a random peer.
+   * Sends a gossip message to a peer chosen by the peer selector.
    */
-  private synchronized void gossip() {
-    List<Identifier> peers = Lists.newArrayList(peerProvider.get());
-    if (!peers.isEmpty()) {
-      Collections.shuffle(peers);
-      Identifier peer = peers.get(0);
+  private void gossip() {
+    Identifier peer = peerSelector.select(peerProvider.get());
+    if (peer != null) {
       updatePeer(peer);
     }
   }
@@ -174,42 +276,52 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
   /**
    * Updates the given peer.
    */
-  private synchronized void updatePeer(Identifier peer) {
-    // Increment the logical clock.
-    LogicalTimestamp updateTimestamp = logicalClock.increment();
-
+  private void updatePeer(Identifier peer) {
     // Store the update time.
     long updateTime = System.currentTimeMillis();
 
+    // Read the log timestamp before scanning the log. All updates up to the log timestamp are in the log.
+    LogicalTimestamp updateTimestamp = logTimestamp;
+
     // Look up the last update time for the peer.
-    LogicalTimestamp lastUpdate = peerTimestamps.computeIfAbsent(peer, n -> new LogicalTimestamp(0));
+    LogicalTimestamp lastUpdate = peerTimestamps.getOrDefault(peer, new LogicalTimestamp(0));
 
-    // Filter updates based on the peer's last update time from this node.
-    Collection<GossipUpdate<K, V>> filteredUpdates = updates.values().stream()
-        .filter(update -> update.timestamp().isNewerThan(lastUpdate))
-        .collect(Collectors.toList());
+    // Read the updates applied since the peer's last update time from this node.
+    if (updateTimestamp.isNewerThan(lastUpdate)) {
+      Collection<GossipUpdate<K, V>> filteredUpdates = Lists.newArrayList(
+          log.subMap(lastUpdate, false, updateTimestamp, true).values());
 
-    // Send the gossip message.
-    protocol.gossip(peer, new GossipMessage<>(updateTimestamp, filteredUpdates));
+      // Send the gossip message.
+      if (!filteredUpdates.isEmpty()) {
+        protocol.gossip(peer, new GossipMessage<>(new LogicalTimestamp(logicalTime.incrementAndGet()), filteredUpdates));
+      }
 
-    // Set the peer's update time.
-    peerTimestamps.put(peer, updateTimestamp);
+      // Set the peer's update time.
+      peerTimestamps.merge(peer, updateTimestamp, (a, b) -> a.isNewerThan(b) ? a : b);
+    }
     peerUpdateTimes.put(peer, updateTime);
   }
 
   /**
    * Purges tombstones from updates.
+   * <p>
+   * The log is scanned without holding the service's monitor, which is only held while each tombstone is removed,
+   * so purging large logs does not block updates. A tombstone that has been replaced since it was read is not
+   * removed.
    */
-  private synchronized void purgeTombstones() {
+  private void purgeTombstones() {
     long minTombstoneTime = peerProvider.get().stream()
         .map(peer -> peerUpdateTimes.getOrDefault(peer, 0L))
         .reduce(Math::min)
         .orElse(0L);
-    Iterator<Map.Entry<K, GossipUpdate<K, V>>> iterator = updates.entrySet().iterator();
-    while (iterator.hasNext()) {
-      GossipUpdate<K, V> update = iterator.next().getValue();
+    for (Map.Entry<LogicalTimestamp, GossipUpdate<K, V>> entry : log.entrySet()) {
+      GossipUpdate<K, V> update = entry.getValue();
       if (update.isTombstone() && update.creationTime() < minTombstoneTime) {
-        iterator.remove();
+        synchronized (this) {
+          if (updates.remove(update.subject(), entry.getKey())) {
+            log.remove(entry.getKey(), update);
+          }
+        }
       }
     }
   }
@@ -239,6 +351,7 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
   public static class Builder<K, V> implements GossipService.Builder<K, V> {
     protected GossipProtocol protocol;
     protected Supplier<Collection<Identifier>> peerProvider;
+    protected PeerSelector peerSelector = new RandomPeerSelector();
     protected Executor eventExecutor = MoreExecutors.directExecutor();
     protected ScheduledExecutorService communicationExecutor;
     protected Duration updateInterval = Duration.ofSeconds(1);
@@ -270,6 +383,20 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
       return this;
     }
 
+    /**
+     * Sets the gossip peer selector.
+     * <p>
+     * By default, peers are selected uniformly at random.
+     *
+     * @param peerSelector the gossip peer selector
+     * @return the dissemination service builder
+     * @throws NullPointerException if the peer selector is null
+     */
+    public Builder<K, V> withPeerSelector(PeerSelector peerSelector) {
+      this.peerSelector = checkNotNull(peerSelector, "peerSelector cannot be null");
+      return this;
+    }
+
     /**
      * Sets the gossip event executor.
      *
@@ -342,7 +469,7 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
 
     @Override
     public GossipService<K, V> build() {
-      return new DisseminationService<>(protocol, peerProvider, eventExecutor, communicationExecutor, updateInterval, fastConvergence, tombstonesDisabled, purgeInterval);
+      return new DisseminationService<>(protocol, peerProvider, peerSelector, eventExecutor, communicationExecutor, updateInterval, fastConvergence, tombstonesDisabled, purgeInterval);
     }
   }
 }
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Gossip update queue metrics.
+ * <p>
+ * Updates sent to peers are queued per peer and coalesced by subject until they're sent. Metrics record how many
+ * updates were queued, how many were coalesced into an update already queued for the same subject, and how many
+ * were dropped because a peer's queue was full and must instead be repaired by anti-entropy. Metrics are updated
+ * concurrently and can be read from any thread.
+ */
+public class GossipMetrics {
+  private final AtomicLong queued = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong sent = new AtomicLong();
+  private final AtomicLong messages = new AtomicLong();
+  private final AtomicLong queueDepth = new AtomicLong();
+
+  /**
+   * Records an update added to a peer's queue.
+   */
+  void recordQueued() {
+    queued.incrementAndGet();
+    queueDepth.incrementAndGet();
+  }
+
+  /**
+   * Records an update coalesced into an update already queued for the same subject.
+   */
+  void recordCoalesced() {
+    coalesced.incrementAndGet();
+  }
+
+  /**
+   * Records an update dropped because a peer's queue was full.
+   */
+  void recordDropped() {
+    dropped.incrementAndGet();
+  }
+
+  /**
+   * Records a batch of updates removed from a peer's queue and sent to the peer.
+   *
+   * @param updates the number of updates sent
+   */
+  void recordSent(int updates) {
+    sent.addAndGet(updates);
+    messages.incrementAndGet();
+    queueDepth.addAndGet(-updates);
+  }
+
+  /**
+   * Returns the number of updates added to peer queues.
+   *
+   * @return the number of queued updates
+   */
+  public long getQueuedCount() {
+    return queued.get();
+  }
+
+  /**
+   * Returns the number of updates coalesced into updates already queued for the same subject.
+   *
+   * @return the number of coalesced updates
+   */
+  public long getCoalescedCount() {
+    return coalesced.get();
+  }
+
+  /**
+   * Returns the number of updates dropped because a peer's queue was full.
+   *
+   * @return the number of dropped updates
+   */
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+
+  /**
+   * Returns the number of updates sent to peers.
+   *
+   * @return the number of sent updates
+   */
+  public long getSentCount() {
+    return sent.get();
+  }
+
+  /**
+   * Returns the number of gossip messages sent to peers.
+   *
+   * @return the number of sent messages
+   */
+  public long getMessageCount() {
+    return messages.get();
+  }
+
+  /**
+   * Returns the total number of updates currently queued for all peers.
+   *
+   * @return the current queue depth
+   */
+  public long getQueueDepth() {
+    return queueDepth.get();
+  }
+
+  /**
+   * Returns the fraction of updates offered to peer queues that were coalesced.
+   *
+   * @return the coalescing ratio between {@code 0} and {@code 1}
+   */
+  public double getCoalescingRatio() {
+    long coalesced = this.coalesced.get();
+    long total = coalesced + queued.get();
+    return total > 0 ? (double) coalesced / total : 0;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("queued", getQueuedCount())
+        .add("coalesced", getCoalescedCount())
+        .add("dropped", getDroppedCount())
+        .add("sent", getSentCount())
+        .add("queueDepth", getQueueDepth())
+        .toString();
+  }
+}
@@ -18,11 +18,28 @@ package io.atomix.protocols.gossip;
 import io.atomix.event.EventSink;
 import io.atomix.event.ListenerService;
 
+import java.util.function.UnaryOperator;
+
 /**
  * Gossip service.
  */
 public interface GossipService<K, V> extends ListenerService<GossipEvent<K, V>, GossipEventListener<K, V>>, EventSink<GossipEvent<K, V>> {
 
+  /**
+   * Applies a delta mutator to the value of a subject.
+   * <p>
+   * The mutator is applied atomically to the current value of the subject, which is {@code null} if the subject
+   * has no value. If the mutator returns a {@link io.atomix.protocols.gossip.crdt.DeltaCrdt delta}, the delta is
+   * merged into the current value and only the delta is gossiped to peers. Otherwise, the returned value replaces
+   * the current value as if it were {@link #process processed}.
+   *
+   * @param subject the subject to update
+   * @param mutator the mutator with which to compute the update from the current value
+   * @return the updated value
+   * @throws NullPointerException if the mutator returns {@code null}
+   */
+  V mutate(K subject, UnaryOperator<V> mutator);
+
   /**
    * Closes the service.
    */
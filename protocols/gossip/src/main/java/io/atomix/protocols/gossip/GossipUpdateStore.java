@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import com.google.common.collect.Maps;
+import io.atomix.protocols.gossip.protocol.GossipUpdate;
+
+import java.util.Collection;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Striped concurrent store of gossip updates.
+ * <p>
+ * Updates are held in a concurrent map and summarized in a {@link MerkleTree}. Reads of updates and tree hashes
+ * do not lock. Writes to a subject must be made while holding the subject's {@link #lock(Object) stripe lock},
+ * which allows a writer to atomically compare and replace the update for a subject while writes to subjects in
+ * other stripes proceed in parallel. Stripes are aligned with the leaves of the hash tree, so the digests of the
+ * updates in a leaf can be read as a consistent snapshot by holding a single stripe lock.
+ */
+final class GossipUpdateStore<K, V> {
+  private static final int MAX_STRIPES = 1024;
+
+  private final Map<K, GossipUpdate<K, V>> updates = Maps.newConcurrentMap();
+  private final MerkleTree<K> tree = new MerkleTree<>();
+  private final Object[] locks;
+  private final int mask;
+
+  GossipUpdateStore() {
+    this(Math.min(Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1, MAX_STRIPES));
+  }
+
+  GossipUpdateStore(int stripes) {
+    checkArgument(stripes > 0 && Integer.bitCount(stripes) == 1, "stripes must be a positive power of 2");
+    this.locks = new Object[stripes];
+    for (int i = 0; i < stripes; i++) {
+      locks[i] = new Object();
+    }
+    this.mask = stripes - 1;
+  }
+
+  /**
+   * Returns the lock guarding writes to the given subject.
+   *
+   * @param subject the subject for which to return the lock
+   * @return the lock guarding writes to the subject
+   */
+  Object lock(K subject) {
+    return locks[tree.leaf(subject) & mask];
+  }
+
+  /**
+   * Returns the hash tree summarizing the stored updates.
+   * <p>
+   * The tree's node hashes may be read without locking, but its leaf keys must be read through
+   * {@link #digests(int, Map)}.
+   *
+   * @return the hash tree summarizing the stored updates
+   */
+  MerkleTree<K> tree() {
+    return tree;
+  }
+
+  /**
+   * Returns the number of stored updates.
+   *
+   * @return the number of stored updates
+   */
+  int size() {
+    return updates.size();
+  }
+
+  /**
+   * Returns the current update for the given subject.
+   *
+   * @param subject the subject for which to return the update
+   * @return the current update for the subject or {@code null} if no update is stored
+   */
+  GossipUpdate<K, V> get(K subject) {
+    return updates.get(subject);
+  }
+
+  /**
+   * Returns a weakly consistent view of the stored updates.
+   *
+   * @return the stored updates
+   */
+  Collection<GossipUpdate<K, V>> values() {
+    return updates.values();
+  }
+
+  /**
+   * Stores an update and folds its digest into the hash tree.
+   * <p>
+   * The caller must hold the {@link #lock(Object) lock} for the update's subject.
+   *
+   * @param update the update to store
+   * @return the previous update for the subject or {@code null} if no update was stored
+   */
+  GossipUpdate<K, V> put(GossipUpdate<K, V> update) {
+    GossipUpdate<K, V> previous = updates.put(update.subject(), update);
+    tree.update(update.subject(), previous != null ? previous.digest() : null, update.digest());
+    return previous;
+  }
+
+  /**
+   * Removes the update for a subject and removes its digest from the hash tree.
+   * <p>
+   * The caller must hold the {@link #lock(Object) lock} for the subject.
+   *
+   * @param subject the subject for which to remove the update
+   * @return the removed update or {@code null} if no update was stored
+   */
+  GossipUpdate<K, V> remove(K subject) {
+    GossipUpdate<K, V> previous = updates.remove(subject);
+    if (previous != null) {
+      tree.update(subject, previous.digest(), null);
+    }
+    return previous;
+  }
+
+  /**
+   * Adds the digests of the updates in the given hash tree leaf to the given map.
+   * <p>
+   * The digests are read while holding the leaf's stripe lock, so they are consistent with the leaf's keys.
+   *
+   * @param leaf the hash tree leaf for which to read digests
+   * @param digests the map to which to add the digests
+   */
+  void digests(int leaf, Map<K, GossipUpdate.Digest> digests) {
+    synchronized (locks[leaf & mask]) {
+      for (K key : tree.keys(leaf)) {
+        digests.put(key, updates.get(key).digest());
+      }
+    }
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import io.atomix.protocols.gossip.protocol.GossipUpdate;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Hash tree summarizing the digests of a set of gossip updates.
+ * <p>
+ * Keys are assigned to fixed leaf buckets by hash, and each node stores the XOR of the hashes of all the
+ * key/digest pairs beneath it. Because XOR is its own inverse, replacing or removing an update only requires
+ * the old and new digests to be folded into the nodes on the path from the key's leaf to the root, so the tree
+ * can be maintained incrementally as updates are applied. Two trees built from the same updates have identical
+ * node hashes, allowing peers to compare the root and descend only into the subtrees whose hashes differ.
+ * <p>
+ * Keys must have a {@code hashCode} that is consistent across nodes for trees to be comparable. Node hashes are
+ * updated atomically and may be read and updated concurrently, but updates to the keys in a leaf must be serialized
+ * by the caller, and the keys of a leaf may only be read while holding the same lock.
+ */
+final class MerkleTree<K> {
+  static final int ROOT = 0;
+  private static final int FANOUT_BITS = 4;
+  private static final int FANOUT = 1 << FANOUT_BITS;
+  private static final int DEPTH = 3;
+
+  private final int leafOffset;
+  private final AtomicLongArray hashes;
+  private final Set<K>[] leaves;
+
+  @SuppressWarnings("unchecked")
+  MerkleTree() {
+    int leafCount = 1 << (FANOUT_BITS * DEPTH);
+    this.leafOffset = (leafCount - 1) / (FANOUT - 1);
+    this.hashes = new AtomicLongArray(leafOffset + leafCount);
+    this.leaves = new Set[leafCount];
+  }
+
+  /**
+   * Replaces the digest for the given key.
+   *
+   * @param key the key for which to update the digest
+   * @param previous the previous digest for the key or {@code null} if the key was not present
+   * @param current the current digest for the key or {@code null} if the key was removed
+   */
+  void update(K key, GossipUpdate.Digest previous, GossipUpdate.Digest current) {
+    long delta = 0;
+    if (previous != null) {
+      delta ^= hash(key, previous);
+    }
+    if (current != null) {
+      delta ^= hash(key, current);
+    }
+
+    int leaf = leaf(key);
+    Set<K> keys = leaves[leaf - leafOffset];
+    if (current != null) {
+      if (keys == null) {
+        keys = new HashSet<>();
+        leaves[leaf - leafOffset] = keys;
+      }
+      keys.add(key);
+    } else if (keys != null) {
+      keys.remove(key);
+    }
+
+    if (delta != 0) {
+      int node = leaf;
+      while (node > ROOT) {
+        xor(node, delta);
+        node = (node - 1) >>> FANOUT_BITS;
+      }
+      xor(ROOT, delta);
+    }
+  }
+
+  /**
+   * Folds the given delta into the hash of the given node.
+   */
+  private void xor(int node, long delta) {
+    long hash;
+    do {
+      hash = hashes.get(node);
+    } while (!hashes.compareAndSet(node, hash, hash ^ delta));
+  }
+
+  /**
+   * Returns whether the given node exists in the tree.
+   *
+   * @param node the node index
+   * @return indicates whether the node exists in the tree
+   */
+  boolean contains(int node) {
+    return node >= ROOT && node < hashes.length();
+  }
+
+  /**
+   * Returns the hash of the given node.
+   *
+   * @param node the node index
+   * @return the hash of all the key/digest pairs beneath the node
+   */
+  long hash(int node) {
+    return hashes.get(node);
+  }
+
+  /**
+   * Returns whether the given node is a leaf.
+   *
+   * @param node the node index
+   * @return indicates whether the node is a leaf
+   */
+  boolean isLeaf(int node) {
+    return node >= leafOffset;
+  }
+
+  /**
+   * Returns the index of the first child of the given node.
+   * <p>
+   * The children of an internal node are the {@link #fanout()} consecutive indexes starting at this index.
+   *
+   * @param node the internal node index
+   * @return the index of the node's first child
+   */
+  int firstChild(int node) {
+    return (node << FANOUT_BITS) + 1;
+  }
+
+  /**
+   * Returns the number of children of each internal node.
+   *
+   * @return the number of children of each internal node
+   */
+  int fanout() {
+    return FANOUT;
+  }
+
+  /**
+   * Returns the keys assigned to the given leaf.
+   *
+   * @param node the leaf node index
+   * @return the keys assigned to the leaf
+   */
+  Set<K> keys(int node) {
+    Set<K> keys = leaves[node - leafOffset];
+    return keys != null ? keys : Collections.emptySet();
+  }
+
+  /**
+   * Returns the leaf node to which the given key is assigned.
+   *
+   * @param key the key for which to return the leaf
+   * @return the leaf node index
+   */
+  int leaf(K key) {
+    return leafOffset + (int) (mix(key.hashCode()) >>> (Long.SIZE - FANOUT_BITS * DEPTH));
+  }
+
+  /**
+   * Returns the hash of a key/digest pair.
+   */
+  private static long hash(Object key, GossipUpdate.Digest digest) {
+    return mix((((long) key.hashCode() << 32) | (digest.hashCode() & 0xFFFFFFFFL)) ^ 0x9E3779B97F4A7C15L);
+  }
+
+  /**
+   * Spreads the bits of the given value using the SplitMix64 finalizer.
+   */
+  private static long mix(long value) {
+    value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+    value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+    return value ^ (value >>> 31);
+  }
+}
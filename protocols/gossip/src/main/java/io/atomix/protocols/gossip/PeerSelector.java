@@ -0,0 +1,39 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import io.atomix.utils.Identifier;
+
+import java.util.Collection;
+
+/**
+ * Gossip peer selection strategy.
+ * <p>
+ * Gossip services consult the peer selector on each gossip round to choose the peer with which to exchange
+ * updates. Selectors are called on every round and should avoid allocating.
+ */
+@FunctionalInterface
+public interface PeerSelector {
+
+  /**
+   * Selects a peer with which to gossip.
+   *
+   * @param peers the peers from which to select
+   * @return the selected peer or {@code null} if there are no peers
+   */
+  Identifier select(Collection<Identifier> peers);
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import io.atomix.utils.Identifier;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Peer selector that selects peers uniformly at random.
+ */
+public class RandomPeerSelector implements PeerSelector {
+
+  @Override
+  public Identifier select(Collection<Identifier> peers) {
+    int size = peers.size();
+    if (size == 0) {
+      return null;
+    }
+
+    int index = ThreadLocalRandom.current().nextInt(size);
+    if (peers instanceof List && peers instanceof RandomAccess) {
+      return ((List<Identifier>) peers).get(index);
+    }
+
+    Identifier peer = null;
+    Iterator<Identifier> iterator = peers.iterator();
+    for (int i = 0; i <= index && iterator.hasNext(); i++) {
+      peer = iterator.next();
+    }
+    return peer;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this).toString();
+  }
+}
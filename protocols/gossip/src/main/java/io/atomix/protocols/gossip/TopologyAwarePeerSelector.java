@@ -0,0 +1,279 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import io.atomix.cluster.ClusterService;
+import io.atomix.cluster.Node;
+import io.atomix.cluster.NodeId;
+import io.atomix.utils.Identifier;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Peer selector that prefers peers near the local node.
+ * <p>
+ * Peers are grouped by their distance from the local node using the {@link Node#zone() zone} and
+ * {@link Node#rack() rack} of each {@link Node}: peers in the same rack, peers in other racks of the same zone,
+ * and peers in other zones. Most rounds select a random peer in the local rack, but every cross-rack round
+ * selects a peer in another rack of the zone and every cross-zone round selects a peer in another zone, which
+ * bounds the time for an update to reach every zone while keeping most traffic off expensive links. If no peer
+ * is at the preferred distance, the nearest closer peers are selected, and then the nearest farther peers.
+ * Node locations are set with {@link io.atomix.cluster.DefaultNode.Builder#withZone(String)} and
+ * {@link io.atomix.cluster.DefaultNode.Builder#withRack(String)}; nodes with no zone or rack are grouped together.
+ * <p>
+ * Because gossip services send each peer every update it has not yet been sent, the number of bytes sent across
+ * zones depends on how many distinct remote peers a node gossips with rather than on how often it does so. Cross-zone
+ * rounds therefore rotate over a small stable set of distinct bridge peers, the remote peers with the lowest
+ * rendezvous hashes of the local and remote node identifiers, and updates reach the rest of each remote zone
+ * through the bridges' local rounds. Peers are only selected uniformly across zones if the local node has no peers
+ * in its own zone.
+ * <p>
+ * Peers that are not {@link NodeId}s of nodes known to the cluster service are treated as remote. Peers are
+ * selected without allocating, in two passes over the peer collection, or one pass per bridge slot in cross-zone
+ * rounds.
+ */
+public class TopologyAwarePeerSelector implements PeerSelector {
+
+  /**
+   * Returns a new topology-aware peer selector builder.
+   *
+   * @return a new topology-aware peer selector builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private static final int LOCAL_RACK = 0;
+  private static final int LOCAL_ZONE = 1;
+  private static final int REMOTE_ZONE = 2;
+  private static final int DISTANCES = 3;
+
+  private final ClusterService clusterService;
+  private final int crossRackInterval;
+  private final int crossZoneInterval;
+  private final int crossZoneFanout;
+  private final AtomicLong rounds = new AtomicLong();
+
+  public TopologyAwarePeerSelector(ClusterService clusterService, int crossRackInterval, int crossZoneInterval, int crossZoneFanout) {
+    this.clusterService = checkNotNull(clusterService, "clusterService cannot be null");
+    checkArgument(crossRackInterval > 0, "crossRackInterval must be positive");
+    checkArgument(crossZoneInterval > 0, "crossZoneInterval must be positive");
+    checkArgument(crossZoneFanout > 0, "crossZoneFanout must be positive");
+    this.crossRackInterval = crossRackInterval;
+    this.crossZoneInterval = crossZoneInterval;
+    this.crossZoneFanout = crossZoneFanout;
+  }
+
+  @Override
+  public Identifier select(Collection<Identifier> peers) {
+    if (peers.isEmpty()) {
+      return null;
+    }
+
+    long round = rounds.incrementAndGet();
+    int preferred = round % crossZoneInterval == 0 ? REMOTE_ZONE : round % crossRackInterval == 0 ? LOCAL_ZONE : LOCAL_RACK;
+
+    // Count the peers at each distance from the local node.
+    Node localNode = clusterService.localNode();
+    int localRack = 0;
+    int localZone = 0;
+    int remoteZone = 0;
+    for (Identifier peer : peers) {
+      switch (distance(localNode, peer)) {
+        case LOCAL_RACK:
+          localRack++;
+          break;
+        case LOCAL_ZONE:
+          localZone++;
+          break;
+        default:
+          remoteZone++;
+          break;
+      }
+    }
+
+    // Select the distance nearest to the preferred distance at which there are peers, preferring closer peers.
+    int distance = -1;
+    int count = 0;
+    for (int i = 0; i < DISTANCES && count == 0; i++) {
+      distance = i <= preferred ? preferred - i : i;
+      count = distance == LOCAL_RACK ? localRack : distance == LOCAL_ZONE ? localZone : remoteZone;
+    }
+
+    // If the local node has peers in its zone, select the bridge for the next bridge slot. The bridge for
+    // slot n is the remote peer with the (n + 1)th lowest rendezvous hash, so the bridges are distinct.
+    if (distance == REMOTE_ZONE && localRack + localZone > 0) {
+      int slot = (int) ((round / crossZoneInterval) % Math.min(crossZoneFanout, remoteZone));
+      Identifier bridge = null;
+      long previousHash = 0;
+      for (int i = 0; i <= slot; i++) {
+        Identifier selected = null;
+        long selectedHash = 0;
+        for (Identifier peer : peers) {
+          if (distance(localNode, peer) == REMOTE_ZONE) {
+            long hash = hash(localNode, peer);
+            if ((i == 0 || hash > previousHash) && (selected == null || hash < selectedHash)) {
+              selected = peer;
+              selectedHash = hash;
+            }
+          }
+        }
+
+        // If the peers changed between passes, fall back to the last bridge found.
+        if (selected == null) {
+          break;
+        }
+        bridge = selected;
+        previousHash = selectedHash;
+      }
+      return bridge;
+    }
+
+    // Select a random peer at the selected distance. If the peers changed between passes, fall back to the
+    // last peer at the selected distance.
+    int index = ThreadLocalRandom.current().nextInt(count);
+    Identifier selected = null;
+    for (Identifier peer : peers) {
+      if (distance(localNode, peer) == distance) {
+        selected = peer;
+        if (index-- == 0) {
+          break;
+        }
+      }
+    }
+    return selected;
+  }
+
+  /**
+   * Returns the distance from the local node to the given peer.
+   *
+   * @param localNode the local node
+   * @param peer the peer for which to return the distance
+   * @return the distance from the local node to the given peer
+   */
+  private int distance(Node localNode, Identifier peer) {
+    Node node = peer instanceof NodeId ? clusterService.getNode((NodeId) peer) : null;
+    if (node == null || localNode == null || !Objects.equals(localNode.zone(), node.zone())) {
+      return REMOTE_ZONE;
+    }
+    return Objects.equals(localNode.rack(), node.rack()) ? LOCAL_RACK : LOCAL_ZONE;
+  }
+
+  /**
+   * Returns the rendezvous hash of the given peer.
+   *
+   * @param localNode the local node
+   * @param peer the peer for which to return the hash
+   * @return the rendezvous hash of the peer for the local node
+   */
+  private static long hash(Node localNode, Identifier peer) {
+    long hash = (localNode.nodeId().hashCode() * 0x9E3779B97F4A7C15L + peer.hashCode()) * 0xC2B2AE3D27D4EB4FL;
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    hash *= 0xC4CEB9FE1A85EC53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("crossRackInterval", crossRackInterval)
+        .add("crossZoneInterval", crossZoneInterval)
+        .add("crossZoneFanout", crossZoneFanout)
+        .toString();
+  }
+
+  /**
+   * Topology-aware peer selector builder.
+   */
+  public static class Builder implements io.atomix.utils.Builder<TopologyAwarePeerSelector> {
+    protected ClusterService clusterService;
+    protected int crossRackInterval = 4;
+    protected int crossZoneInterval = 10;
+    protected int crossZoneFanout = 2;
+
+    /**
+     * Sets the cluster service from which to read node locations.
+     *
+     * @param clusterService the cluster service
+     * @return the peer selector builder
+     * @throws NullPointerException if the cluster service is null
+     */
+    public Builder withClusterService(ClusterService clusterService) {
+      this.clusterService = checkNotNull(clusterService, "clusterService cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the number of rounds between rounds that select a peer in another rack of the local zone.
+     *
+     * @param crossRackInterval the number of rounds between cross-rack rounds
+     * @return the peer selector builder
+     * @throws IllegalArgumentException if the interval is not positive
+     */
+    public Builder withCrossRackInterval(int crossRackInterval) {
+      checkArgument(crossRackInterval > 0, "crossRackInterval must be positive");
+      this.crossRackInterval = crossRackInterval;
+      return this;
+    }
+
+    /**
+     * Sets the number of rounds between rounds that select a peer in another zone.
+     * <p>
+     * An update reaches another zone within this many rounds, so the interval bounds convergence time across
+     * zones.
+     *
+     * @param crossZoneInterval the number of rounds between cross-zone rounds
+     * @return the peer selector builder
+     * @throws IllegalArgumentException if the interval is not positive
+     */
+    public Builder withCrossZoneInterval(int crossZoneInterval) {
+      checkArgument(crossZoneInterval > 0, "crossZoneInterval must be positive");
+      this.crossZoneInterval = crossZoneInterval;
+      return this;
+    }
+
+    /**
+     * Sets the number of bridge peers in other zones with which the local node gossips in cross-zone rounds.
+     * <p>
+     * More bridges increase the number of paths between zones at the cost of sending each update across zones
+     * more times.
+     *
+     * @param crossZoneFanout the number of bridge peers in other zones
+     * @return the peer selector builder
+     * @throws IllegalArgumentException if the fanout is not positive
+     */
+    public Builder withCrossZoneFanout(int crossZoneFanout) {
+      checkArgument(crossZoneFanout > 0, "crossZoneFanout must be positive");
+      this.crossZoneFanout = crossZoneFanout;
+      return this;
+    }
+
+    @Override
+    public TopologyAwarePeerSelector build() {
+      return new TopologyAwarePeerSelector(clusterService, crossRackInterval, crossZoneInterval, crossZoneFanout);
+    }
+  }
+}
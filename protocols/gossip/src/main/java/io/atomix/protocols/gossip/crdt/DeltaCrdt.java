@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip.crdt;
+
+/**
+ * Delta-state conflict-free replicated data type.
+ * <p>
+ * Delta-state CRDTs are immutable states that form a join semilattice. Mutators do not modify a state but return
+ * a delta: a small state representing only the effect of the mutation. Deltas and full states are both joined
+ * with {@link #merge(DeltaCrdt)}, so a delta can be gossiped in place of the whole value and applied to a replica
+ * in any order, any number of times, without losing concurrent updates.
+ * <p>
+ * When the value of a gossip update is a delta-state CRDT, the gossip services merge updates for a subject
+ * rather than resolving them last-writer-wins. Implementations must implement {@link #hashCode()} and
+ * {@link #equals(Object)} in terms of their state so that anti-entropy can detect replicas whose states differ.
+ *
+ * @param <T> the CRDT type
+ */
+public interface DeltaCrdt<T extends DeltaCrdt<T>> {
+
+  /**
+   * Merges the given state or delta with this state.
+   * <p>
+   * Merges must be associative, commutative and idempotent.
+   *
+   * @param other the state or delta to merge
+   * @return the merged state
+   */
+  T merge(T other);
+
+}
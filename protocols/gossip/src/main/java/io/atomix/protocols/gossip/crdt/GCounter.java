@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip.crdt;
+
+import com.google.common.collect.Maps;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Grow-only counter.
+ * <p>
+ * The counter holds a count for each replica that has incremented it, and its value is the sum of the counts.
+ * Increment deltas hold only the incrementing replica's count, and counters are merged by taking the maximum
+ * count for each replica.
+ */
+public final class GCounter implements DeltaCrdt<GCounter> {
+  private final Map<String, Long> counts;
+  private transient int hash;
+
+  public GCounter() {
+    this(Maps.newHashMap());
+  }
+
+  private GCounter(Map<String, Long> counts) {
+    this.counts = counts;
+  }
+
+  /**
+   * Returns the counter value.
+   *
+   * @return the sum of the counts of all replicas
+   */
+  public long value() {
+    long value = 0;
+    for (long count : counts.values()) {
+      value += count;
+    }
+    return value;
+  }
+
+  /**
+   * Returns the count for the given replica.
+   *
+   * @param replica the replica for which to return the count
+   * @return the count for the given replica
+   */
+  public long value(String replica) {
+    return counts.getOrDefault(replica, 0L);
+  }
+
+  /**
+   * Returns the counts for each replica.
+   *
+   * @return the counts for each replica
+   */
+  public Map<String, Long> counts() {
+    return Collections.unmodifiableMap(counts);
+  }
+
+  /**
+   * Returns a delta incrementing the counter by one.
+   *
+   * @param replica the incrementing replica
+   * @return the increment delta
+   */
+  public GCounter increment(String replica) {
+    return increment(replica, 1);
+  }
+
+  /**
+   * Returns a delta incrementing the counter by the given amount.
+   *
+   * @param replica the incrementing replica
+   * @param delta the amount by which to increment the counter
+   * @return the increment delta
+   * @throws IllegalArgumentException if the amount is negative
+   */
+  public GCounter increment(String replica, long delta) {
+    checkNotNull(replica, "replica cannot be null");
+    checkArgument(delta >= 0, "delta cannot be negative");
+    Map<String, Long> counts = Maps.newHashMapWithExpectedSize(1);
+    counts.put(replica, value(replica) + delta);
+    return new GCounter(counts);
+  }
+
+  @Override
+  public GCounter merge(GCounter other) {
+    Map<String, Long> counts = Maps.newHashMap(this.counts);
+    for (Map.Entry<String, Long> entry : other.counts.entrySet()) {
+      counts.merge(entry.getKey(), entry.getValue(), Math::max);
+    }
+    return new GCounter(counts);
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = this.hash;
+    if (hash == 0) {
+      hash = counts.hashCode();
+      this.hash = hash;
+    }
+    return hash;
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    return object instanceof GCounter && counts.equals(((GCounter) object).counts);
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("value", value())
+        .add("counts", counts)
+        .toString();
+  }
+}
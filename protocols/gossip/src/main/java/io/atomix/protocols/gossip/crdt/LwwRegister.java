@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip.crdt;
+
+import com.google.common.base.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Last-writer-wins register.
+ * <p>
+ * Each write is tagged with a timestamp and the writing replica, and registers are merged by keeping the write
+ * with the greatest timestamp, with ties broken by replica. Write timestamps are taken from the wall clock but
+ * always exceed the timestamp of the current write, so a replica's writes supersede every write it has observed.
+ *
+ * @param <V> the register value type
+ */
+public final class LwwRegister<V> implements DeltaCrdt<LwwRegister<V>> {
+  private final V value;
+  private final long timestamp;
+  private final String replica;
+
+  public LwwRegister() {
+    this(null, 0, "");
+  }
+
+  private LwwRegister(V value, long timestamp, String replica) {
+    this.value = value;
+    this.timestamp = timestamp;
+    this.replica = replica;
+  }
+
+  /**
+   * Returns the register value.
+   *
+   * @return the register value or {@code null} if the register has not been written
+   */
+  public V value() {
+    return value;
+  }
+
+  /**
+   * Returns the timestamp of the current write.
+   *
+   * @return the timestamp of the current write
+   */
+  public long timestamp() {
+    return timestamp;
+  }
+
+  /**
+   * Returns the replica that made the current write.
+   *
+   * @return the replica that made the current write
+   */
+  public String replica() {
+    return replica;
+  }
+
+  /**
+   * Returns a delta setting the register value.
+   *
+   * @param replica the writing replica
+   * @param value the value to set
+   * @return the write delta
+   */
+  public LwwRegister<V> set(String replica, V value) {
+    return set(replica, value, Math.max(System.currentTimeMillis(), timestamp + 1));
+  }
+
+  /**
+   * Returns a delta setting the register value at the given timestamp.
+   *
+   * @param replica the writing replica
+   * @param value the value to set
+   * @param timestamp the write timestamp
+   * @return the write delta
+   */
+  public LwwRegister<V> set(String replica, V value, long timestamp) {
+    return new LwwRegister<>(value, timestamp, checkNotNull(replica, "replica cannot be null"));
+  }
+
+  /**
+   * Returns whether this register's write supersedes the given register's write.
+   * <p>
+   * Writes made by the same replica at the same timestamp are ordered by the hash of their values so that merges
+   * remain commutative.
+   */
+  private boolean isNewerThan(LwwRegister<V> other) {
+    if (timestamp != other.timestamp) {
+      return timestamp > other.timestamp;
+    }
+    int compare = replica.compareTo(other.replica);
+    if (compare != 0) {
+      return compare > 0;
+    }
+    return Objects.hashCode(value) > Objects.hashCode(other.value);
+  }
+
+  @Override
+  public LwwRegister<V> merge(LwwRegister<V> other) {
+    return other.isNewerThan(this) ? other : this;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(value, timestamp, replica);
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (object instanceof LwwRegister) {
+      LwwRegister that = (LwwRegister) object;
+      return this.timestamp == that.timestamp
+          && this.replica.equals(that.replica)
+          && Objects.equal(this.value, that.value);
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("value", value)
+        .add("timestamp", timestamp)
+        .add("replica", replica)
+        .toString();
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip.crdt;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Observed-remove set.
+ * <p>
+ * Each add tags the element with a tag that is unique to the adding replica, and a remove deletes only the tags
+ * observed by the removing replica, so an add that is concurrent with a remove of the same element wins. Add deltas
+ * hold a single tag and remove deltas hold the removed element's observed tags.
+ * <p>
+ * Removed tags are retained so that merging a stale add cannot resurrect a removed element. The set therefore grows
+ * with the number of removes over its lifetime, and is best suited to sets with modest churn.
+ *
+ * @param <E> the element type
+ */
+public final class OrSet<E> implements DeltaCrdt<OrSet<E>> {
+  private final Map<E, Set<Tag>> elements;
+  private final Set<Tag> removed;
+  private final Map<String, Long> sequences;
+  private transient int hash;
+
+  public OrSet() {
+    this(Maps.newHashMap(), Sets.newHashSet(), Maps.newHashMap());
+  }
+
+  private OrSet(Map<E, Set<Tag>> elements, Set<Tag> removed, Map<String, Long> sequences) {
+    this.elements = elements;
+    this.removed = removed;
+    this.sequences = sequences;
+  }
+
+  /**
+   * Returns the elements in the set.
+   *
+   * @return the elements in the set
+   */
+  public Set<E> elements() {
+    return Collections.unmodifiableSet(elements.keySet());
+  }
+
+  /**
+   * Returns whether the set contains the given element.
+   *
+   * @param element the element to check
+   * @return whether the set contains the given element
+   */
+  public boolean contains(E element) {
+    return elements.containsKey(element);
+  }
+
+  /**
+   * Returns the number of elements in the set.
+   *
+   * @return the number of elements in the set
+   */
+  public int size() {
+    return elements.size();
+  }
+
+  /**
+   * Returns a delta adding the given element to the set.
+   *
+   * @param replica the adding replica
+   * @param element the element to add
+   * @return the add delta
+   */
+  public OrSet<E> add(String replica, E element) {
+    checkNotNull(replica, "replica cannot be null");
+    checkNotNull(element, "element cannot be null");
+    long sequence = sequences.getOrDefault(replica, 0L) + 1;
+    Map<E, Set<Tag>> elements = Maps.newHashMapWithExpectedSize(1);
+    elements.put(element, Sets.newHashSet(new Tag(replica, sequence)));
+    Map<String, Long> sequences = Maps.newHashMapWithExpectedSize(1);
+    sequences.put(replica, sequence);
+    return new OrSet<>(elements, Sets.newHashSet(), sequences);
+  }
+
+  /**
+   * Returns a delta removing the given element from the set.
+   *
+   * @param element the element to remove
+   * @return the remove delta
+   */
+  public OrSet<E> remove(E element) {
+    Set<Tag> tags = elements.get(element);
+    return new OrSet<>(Maps.newHashMap(), tags != null ? Sets.newHashSet(tags) : Sets.newHashSet(), Maps.newHashMap());
+  }
+
+  @Override
+  public OrSet<E> merge(OrSet<E> other) {
+    Set<Tag> removed = Sets.newHashSet(this.removed);
+    removed.addAll(other.removed);
+
+    Map<E, Set<Tag>> elements = Maps.newHashMapWithExpectedSize(this.elements.size() + other.elements.size());
+    addTags(elements, this.elements, removed);
+    addTags(elements, other.elements, removed);
+
+    Map<String, Long> sequences = Maps.newHashMap(this.sequences);
+    for (Map.Entry<String, Long> entry : other.sequences.entrySet()) {
+      sequences.merge(entry.getKey(), entry.getValue(), Math::max);
+    }
+    return new OrSet<>(elements, removed, sequences);
+  }
+
+  /**
+   * Adds the tags of the given elements that have not been removed to the given element map.
+   */
+  private static <E> void addTags(Map<E, Set<Tag>> elements, Map<E, Set<Tag>> source, Set<Tag> removed) {
+    for (Map.Entry<E, Set<Tag>> entry : source.entrySet()) {
+      for (Tag tag : entry.getValue()) {
+        if (!removed.contains(tag)) {
+          elements.computeIfAbsent(entry.getKey(), e -> Sets.newHashSet()).add(tag);
+        }
+      }
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = this.hash;
+    if (hash == 0) {
+      hash = Objects.hashCode(elements, removed, sequences);
+      this.hash = hash;
+    }
+    return hash;
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (object instanceof OrSet) {
+      OrSet that = (OrSet) object;
+      return this.elements.equals(that.elements)
+          && this.removed.equals(that.removed)
+          && this.sequences.equals(that.sequences);
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("elements", elements.keySet())
+        .toString();
+  }
+
+  /**
+   * Unique add tag.
+   */
+  public static final class Tag {
+    private final String replica;
+    private final long sequence;
+
+    Tag(String replica, long sequence) {
+      this.replica = replica;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * replica.hashCode() + Long.hashCode(sequence);
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (object instanceof Tag) {
+        Tag that = (Tag) object;
+        return this.replica.equals(that.replica) && this.sequence == that.sequence;
+      }
+      return false;
+    }
+
+    @Override
+    public String toString() {
+      return replica + ":" + sequence;
+    }
+  }
+}
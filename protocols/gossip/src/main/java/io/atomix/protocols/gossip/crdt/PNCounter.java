@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip.crdt;
+
+import com.google.common.base.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Positive-negative counter.
+ * <p>
+ * The counter is a pair of {@link GCounter}s counting increments and decrements, and its value is the difference
+ * between them. Deltas hold only the incrementing or decrementing replica's count in one of the two counters.
+ */
+public final class PNCounter implements DeltaCrdt<PNCounter> {
+  private final GCounter increments;
+  private final GCounter decrements;
+
+  public PNCounter() {
+    this(new GCounter(), new GCounter());
+  }
+
+  private PNCounter(GCounter increments, GCounter decrements) {
+    this.increments = increments;
+    this.decrements = decrements;
+  }
+
+  /**
+   * Returns the counter value.
+   *
+   * @return the total increments less the total decrements of all replicas
+   */
+  public long value() {
+    return increments.value() - decrements.value();
+  }
+
+  /**
+   * Returns a delta incrementing the counter by one.
+   *
+   * @param replica the incrementing replica
+   * @return the increment delta
+   */
+  public PNCounter increment(String replica) {
+    return increment(replica, 1);
+  }
+
+  /**
+   * Returns a delta incrementing the counter by the given amount.
+   *
+   * @param replica the incrementing replica
+   * @param delta the amount by which to increment the counter
+   * @return the increment delta
+   * @throws IllegalArgumentException if the amount is negative
+   */
+  public PNCounter increment(String replica, long delta) {
+    return new PNCounter(increments.increment(replica, delta), new GCounter());
+  }
+
+  /**
+   * Returns a delta decrementing the counter by one.
+   *
+   * @param replica the decrementing replica
+   * @return the decrement delta
+   */
+  public PNCounter decrement(String replica) {
+    return decrement(replica, 1);
+  }
+
+  /**
+   * Returns a delta decrementing the counter by the given amount.
+   *
+   * @param replica the decrementing replica
+   * @param delta the amount by which to decrement the counter
+   * @return the decrement delta
+   * @throws IllegalArgumentException if the amount is negative
+   */
+  public PNCounter decrement(String replica, long delta) {
+    return new PNCounter(new GCounter(), decrements.increment(replica, delta));
+  }
+
+  @Override
+  public PNCounter merge(PNCounter other) {
+    return new PNCounter(increments.merge(other.increments), decrements.merge(other.decrements));
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(increments, decrements);
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (object instanceof PNCounter) {
+      PNCounter that = (PNCounter) object;
+      return this.increments.equals(that.increments) && this.decrements.equals(that.decrements);
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("value", value())
+        .add("increments", increments.counts())
+        .add("decrements", decrements.counts())
+        .toString();
+  }
+}
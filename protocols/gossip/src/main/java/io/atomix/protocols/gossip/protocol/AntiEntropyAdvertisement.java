@@ -24,8 +24,13 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Anti-entropy advertisement.
+ * <p>
+ * An advertisement carries either the hashes of a set of hash tree nodes, in which case the receiver responds
+ * with the nodes whose hashes differ from its own, or the digests of a set of map entries, in which case the
+ * receiver responds with the keys for which the sender's entries are newer.
  */
 public class AntiEntropyAdvertisement<K> {
+  private final Map<Integer, Long> hashes;
   private final Map<K, GossipUpdate.Digest> digest;
 
   /**
@@ -34,9 +39,29 @@ public class AntiEntropyAdvertisement<K> {
    * @param digest for map entries
    */
   public AntiEntropyAdvertisement(Map<K, GossipUpdate.Digest> digest) {
+    this(ImmutableMap.of(), digest);
+  }
+
+  /**
+   * Creates a new anti entropy advertisement message.
+   *
+   * @param hashes mapping from hash tree node to node hash
+   * @param digest for map entries
+   */
+  public AntiEntropyAdvertisement(Map<Integer, Long> hashes, Map<K, GossipUpdate.Digest> digest) {
+    this.hashes = ImmutableMap.copyOf(checkNotNull(hashes));
     this.digest = ImmutableMap.copyOf(checkNotNull(digest));
   }
 
+  /**
+   * Returns the hashes for hash tree nodes.
+   *
+   * @return mapping from hash tree node to node hash
+   */
+  public Map<Integer, Long> hashes() {
+    return hashes;
+  }
+
   /**
    * Returns the digest for map entries.
    *
@@ -49,6 +74,7 @@ public class AntiEntropyAdvertisement<K> {
   @Override
   public String toString() {
     return MoreObjects.toStringHelper(getClass())
+        .add("totalNodes", hashes.size())
         .add("totalEntries", digest.size())
         .toString();
   }
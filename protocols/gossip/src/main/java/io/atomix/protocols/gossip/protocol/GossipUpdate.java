@@ -17,10 +17,12 @@ package io.atomix.protocols.gossip.protocol;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
+import io.atomix.protocols.gossip.crdt.DeltaCrdt;
 import io.atomix.time.Timestamp;
 import io.atomix.time.Version;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
 
 /**
  * Gossip update message.
@@ -102,13 +104,53 @@ public class GossipUpdate<K, V> {
     return this.timestamp.isNewerThan(timestamp);
   }
 
+  /**
+   * Returns whether the update value is a delta-state CRDT.
+   *
+   * @return whether the update value is a delta-state CRDT
+   */
+  public boolean isMergeable() {
+    return value instanceof DeltaCrdt;
+  }
+
+  /**
+   * Returns whether this update can be merged with the given update.
+   * <p>
+   * Updates can be merged if both values are delta-state CRDTs of the same type.
+   *
+   * @param other the update with which to merge
+   * @return whether this update can be merged with the given update
+   */
+  public boolean isMergeableWith(GossipUpdate<K, V> other) {
+    return isMergeable() && other.value != null && value.getClass() == other.value.getClass();
+  }
+
+  /**
+   * Merges the given update with this update.
+   * <p>
+   * The merged update holds the join of the update values and the newer of the update timestamps.
+   *
+   * @param other the update to merge
+   * @return the merged update
+   * @throws IllegalArgumentException if the updates cannot be merged
+   */
+  @SuppressWarnings("unchecked")
+  public GossipUpdate<K, V> merge(GossipUpdate<K, V> other) {
+    checkArgument(isMergeableWith(other), "update values cannot be merged");
+    V merged = (V) ((DeltaCrdt) value).merge((DeltaCrdt) other.value);
+    return new GossipUpdate<>(subject, merged, other.timestamp.isNewerThan(timestamp) ? other.timestamp : timestamp);
+  }
+
   /**
    * Returns summary of a update for use during anti-entropy exchanges.
+   * <p>
+   * Updates with the same timestamp may hold different states of a delta-state CRDT, so the digests of mergeable
+   * updates also hold the hash of the value.
    *
    * @return Digest with timestamp and whether this value is null or not
    */
   public Digest digest() {
-    return new Digest(timestamp, isTombstone());
+    return new Digest(timestamp, isTombstone(), isMergeable() ? value.hashCode() : 0);
   }
 
   @Override
@@ -126,10 +168,16 @@ public class GossipUpdate<K, V> {
   public static class Digest {
     private final Timestamp timestamp;
     private final boolean isTombstone;
+    private final int valueHash;
 
     public Digest(Timestamp timestamp, boolean isTombstone) {
+      this(timestamp, isTombstone, 0);
+    }
+
+    public Digest(Timestamp timestamp, boolean isTombstone, int valueHash) {
       this.timestamp = timestamp;
       this.isTombstone = isTombstone;
+      this.valueHash = valueHash;
     }
 
     /**
@@ -150,6 +198,15 @@ public class GossipUpdate<K, V> {
       return isTombstone;
     }
 
+    /**
+     * Returns the hash of the update value if the value is a delta-state CRDT.
+     *
+     * @return the hash of the update value or {@code 0} if the value is not a delta-state CRDT
+     */
+    public int valueHash() {
+      return valueHash;
+    }
+
     /**
      * Returns whether the update is newer than the given update digest.
      *
@@ -162,7 +219,7 @@ public class GossipUpdate<K, V> {
 
     @Override
     public int hashCode() {
-      return Objects.hashCode(timestamp, isTombstone);
+      return Objects.hashCode(timestamp, isTombstone, valueHash);
     }
 
     @Override
@@ -170,7 +227,8 @@ public class GossipUpdate<K, V> {
       if (other instanceof Digest) {
         Digest that = (Digest) other;
         return Objects.equal(this.timestamp, that.timestamp) &&
-            Objects.equal(this.isTombstone, that.isTombstone);
+            Objects.equal(this.isTombstone, that.isTombstone) &&
+            this.valueHash == that.valueHash;
       }
       return false;
     }
@@ -180,6 +238,7 @@ public class GossipUpdate<K, V> {
       return MoreObjects.toStringHelper(getClass())
           .add("timestamp", timestamp)
           .add("isTombstone", isTombstone)
+          .add("valueHash", valueHash)
           .toString();
     }
   }
@@ -0,0 +1,467 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip.storage;
+
+import com.google.common.collect.Maps;
+import io.atomix.logging.Logger;
+import io.atomix.logging.LoggerFactory;
+import io.atomix.protocols.gossip.protocol.GossipUpdate;
+import io.atomix.serializer.Serializer;
+import io.atomix.storage.StorageLevel;
+import io.atomix.storage.compression.CompressionCodec;
+import io.atomix.storage.journal.Indexed;
+import io.atomix.storage.journal.JournalReader;
+import io.atomix.storage.journal.JournalWriter;
+import io.atomix.storage.journal.SegmentedJournal;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Gossip log.
+ * <p>
+ * The gossip log persists the updates stored by a gossip service in a {@link SegmentedJournal}. Each update or
+ * removal is appended to the journal, and the journal is periodically rewritten as a checkpoint of the live updates
+ * after which the segments preceding the checkpoint are compacted. The log is written to the journal's buffers and
+ * flushed only when checkpointed or explicitly {@link #flush() flushed}, so updates that are lost in a crash must be
+ * recovered from peers.
+ * <p>
+ * Appends are queued in a lock-free queue and written to the journal by whichever thread holds the log's write
+ * lock, so appends from concurrent threads are not serialized on the journal and do not block while a checkpoint
+ * is written.
+ * <p>
+ * The journal serializer must be able to serialize {@link GossipUpdate}s and their subjects, values and timestamps,
+ * as well as {@link RemoveEntry} and {@link CheckpointEntry}.
+ */
+public class GossipLog<K, V> implements AutoCloseable {
+
+  /**
+   * Returns a new gossip log builder.
+   *
+   * @param <K> the gossip subject type
+   * @param <V> the gossip value type
+   * @return a new gossip log builder
+   */
+  public static <K, V> Builder<K, V> builder() {
+    return new Builder<>();
+  }
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+  private final SegmentedJournal<Object> journal;
+  private final JournalWriter<Object> writer;
+  private final int checkpointThreshold;
+  private final Queue<Object> pendingEntries = new ConcurrentLinkedQueue<>();
+  private final ReentrantLock writeLock = new ReentrantLock();
+  private volatile long entriesSinceCheckpoint;
+  private volatile boolean open = true;
+
+  public GossipLog(SegmentedJournal<Object> journal, int checkpointThreshold) {
+    this.journal = checkNotNull(journal, "journal cannot be null");
+    this.writer = journal.writer();
+    this.checkpointThreshold = checkpointThreshold;
+  }
+
+  /**
+   * Recovers the updates stored in the log.
+   * <p>
+   * Entries are replayed from the start of the journal, and the state is replaced with the contents of each
+   * complete checkpoint. A checkpoint that was interrupted by a crash is truncated from the journal.
+   *
+   * @return the updates stored in the log
+   */
+  @SuppressWarnings("unchecked")
+  public Map<K, GossipUpdate<K, V>> recover() {
+    Map<K, GossipUpdate<K, V>> updates = Maps.newLinkedHashMap();
+    Map<K, GossipUpdate<K, V>> checkpoint = null;
+    long checkpointIndex = 0;
+    int remaining = 0;
+    long entries = 0;
+
+    writeLock.lock();
+    try {
+      try (JournalReader<Object> reader = journal.openReader(1)) {
+        while (reader.hasNext()) {
+          Indexed<Object> indexed = reader.next();
+          Object entry = indexed.entry();
+          if (entry instanceof CheckpointEntry) {
+            checkpoint = Maps.newLinkedHashMap();
+            checkpointIndex = indexed.index();
+            remaining = ((CheckpointEntry) entry).size();
+          } else if (checkpoint != null) {
+            GossipUpdate<K, V> update = (GossipUpdate<K, V>) entry;
+            checkpoint.put(update.subject(), update);
+            remaining--;
+          } else if (entry instanceof RemoveEntry) {
+            updates.remove(((RemoveEntry<K>) entry).subject());
+            entries++;
+          } else {
+            GossipUpdate<K, V> update = (GossipUpdate<K, V>) entry;
+            updates.put(update.subject(), update);
+            entries++;
+          }
+
+          if (checkpoint != null && remaining == 0) {
+            updates = checkpoint;
+            checkpoint = null;
+            entries = 0;
+          }
+        }
+      }
+
+      if (checkpoint != null) {
+        log.warn("Truncating incomplete checkpoint at index {}", checkpointIndex);
+        writer.truncate(checkpointIndex - 1);
+      }
+      entriesSinceCheckpoint = entries;
+    } finally {
+      unlock();
+    }
+    return updates;
+  }
+
+  /**
+   * Appends an update to the log.
+   * <p>
+   * The update is appended asynchronously but in order with the other entries appended to the log.
+   *
+   * @param update the update to append
+   */
+  public void append(GossipUpdate<K, V> update) {
+    enqueue(update);
+  }
+
+  /**
+   * Appends the removal of a subject's update to the log.
+   * <p>
+   * The removal is appended asynchronously but in order with the other entries appended to the log.
+   *
+   * @param subject the subject for which the update was removed
+   */
+  public void remove(K subject) {
+    enqueue(new RemoveEntry<>(subject));
+  }
+
+  /**
+   * Queues an entry to be written to the journal.
+   * <p>
+   * Entries are written to the journal by whichever thread holds the write lock. Threads that fail to acquire the
+   * lock return immediately and leave their entries to the lock holder, so concurrent appends don't wait on each
+   * other or on a checkpoint.
+   *
+   * @param entry the entry to queue
+   */
+  private void enqueue(Object entry) {
+    pendingEntries.add(entry);
+    if (writeLock.tryLock()) {
+      unlock();
+    }
+  }
+
+  /**
+   * Writes the queued entries to the journal.
+   * <p>
+   * The caller must hold the write lock. Entries queued after the log is closed are discarded.
+   */
+  private void writePendingEntries() {
+    Object entry;
+    while ((entry = pendingEntries.poll()) != null) {
+      if (open) {
+        writer.append(entry);
+        entriesSinceCheckpoint++;
+      }
+    }
+  }
+
+  /**
+   * Writes the queued entries and releases the write lock.
+   * <p>
+   * Entries queued by threads that failed to acquire the lock while it was held are written after the lock is
+   * released, unless another thread has acquired the lock to write them.
+   */
+  private void unlock() {
+    do {
+      try {
+        writePendingEntries();
+      } finally {
+        writeLock.unlock();
+      }
+    } while (!pendingEntries.isEmpty() && writeLock.tryLock());
+  }
+
+  /**
+   * Returns whether the log should be checkpointed.
+   * <p>
+   * The log is checkpointed once the number of entries appended since the last checkpoint exceeds both the
+   * checkpoint threshold and the number of live updates, which bounds the journal to a small multiple of the
+   * live state while keeping the amortized cost of checkpoints constant per update.
+   *
+   * @param size the number of live updates
+   * @return whether the log should be checkpointed
+   */
+  public boolean shouldCheckpoint(int size) {
+    return entriesSinceCheckpoint >= Math.max(checkpointThreshold, size);
+  }
+
+  /**
+   * Writes a checkpoint of the given updates and compacts the entries preceding it.
+   * <p>
+   * The updates may be a weakly consistent view of a concurrently modified store. Entries queued before the
+   * checkpoint are written first, the view is then copied, and any update or removal that's queued after the
+   * copy is written after the checkpoint.
+   *
+   * @param updates the live updates to checkpoint
+   */
+  public void checkpoint(Collection<GossipUpdate<K, V>> updates) {
+    writeLock.lock();
+    try {
+      writePendingEntries();
+      if (!open) {
+        return;
+      }
+
+      // Copy the updates before writing the checkpoint size, since the collection may be modified concurrently.
+      List<GossipUpdate<K, V>> snapshot = new ArrayList<>(updates);
+      long index = writer.append(new CheckpointEntry(snapshot.size())).index();
+      for (GossipUpdate<K, V> update : snapshot) {
+        writer.append(update);
+      }
+      writer.flush();
+      journal.compact(index);
+      entriesSinceCheckpoint = 0;
+    } finally {
+      unlock();
+    }
+  }
+
+  /**
+   * Flushes the log to disk.
+   * <p>
+   * Entries queued before the log is flushed are written to the journal before it's flushed.
+   */
+  public void flush() {
+    writeLock.lock();
+    try {
+      writePendingEntries();
+      if (open) {
+        writer.flush();
+      }
+    } finally {
+      unlock();
+    }
+  }
+
+  @Override
+  public void close() {
+    writeLock.lock();
+    try {
+      writePendingEntries();
+      if (open) {
+        open = false;
+        writer.flush();
+        journal.close();
+      }
+    } finally {
+      unlock();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("journal", journal.name())
+        .add("entriesSinceCheckpoint", entriesSinceCheckpoint)
+        .toString();
+  }
+
+  /**
+   * Entry indicating the removal of a subject's update.
+   */
+  public static class RemoveEntry<K> {
+    private final K subject;
+
+    public RemoveEntry(K subject) {
+      this.subject = subject;
+    }
+
+    /**
+     * Returns the subject for which the update was removed.
+     *
+     * @return the removed subject
+     */
+    public K subject() {
+      return subject;
+    }
+
+    @Override
+    public String toString() {
+      return toStringHelper(this)
+          .add("subject", subject)
+          .toString();
+    }
+  }
+
+  /**
+   * Entry marking the start of a checkpoint.
+   */
+  public static class CheckpointEntry {
+    private final int size;
+
+    public CheckpointEntry(int size) {
+      this.size = size;
+    }
+
+    /**
+     * Returns the number of updates in the checkpoint.
+     *
+     * @return the number of updates following the checkpoint entry
+     */
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public String toString() {
+      return toStringHelper(this)
+          .add("size", size)
+          .toString();
+    }
+  }
+
+  /**
+   * Gossip log builder.
+   *
+   * @param <K> the gossip subject type
+   * @param <V> the gossip value type
+   */
+  public static class Builder<K, V> implements io.atomix.utils.Builder<GossipLog<K, V>> {
+    private static final int DEFAULT_CHECKPOINT_THRESHOLD = 1024;
+    private final SegmentedJournal.Builder<Object> journalBuilder = SegmentedJournal.newBuilder();
+    private int checkpointThreshold = DEFAULT_CHECKPOINT_THRESHOLD;
+
+    protected Builder() {
+      journalBuilder.withName("gossip");
+    }
+
+    /**
+     * Sets the log name.
+     *
+     * @param name the log name
+     * @return the gossip log builder
+     */
+    public Builder<K, V> withName(String name) {
+      journalBuilder.withName(name);
+      return this;
+    }
+
+    /**
+     * Sets the log storage level.
+     *
+     * @param storageLevel the log storage level
+     * @return the gossip log builder
+     */
+    public Builder<K, V> withStorageLevel(StorageLevel storageLevel) {
+      journalBuilder.withStorageLevel(storageLevel);
+      return this;
+    }
+
+    /**
+     * Sets the log directory.
+     *
+     * @param directory the log directory
+     * @return the gossip log builder
+     * @throws NullPointerException if the directory is null
+     */
+    public Builder<K, V> withDirectory(String directory) {
+      journalBuilder.withDirectory(directory);
+      return this;
+    }
+
+    /**
+     * Sets the log directory.
+     *
+     * @param directory the log directory
+     * @return the gossip log builder
+     * @throws NullPointerException if the directory is null
+     */
+    public Builder<K, V> withDirectory(File directory) {
+      journalBuilder.withDirectory(directory);
+      return this;
+    }
+
+    /**
+     * Sets the log serializer.
+     *
+     * @param serializer the log serializer
+     * @return the gossip log builder
+     */
+    public Builder<K, V> withSerializer(Serializer serializer) {
+      journalBuilder.withSerializer(serializer);
+      return this;
+    }
+
+    /**
+     * Sets the maximum segment size in bytes.
+     *
+     * @param maxSegmentSize the maximum segment size in bytes
+     * @return the gossip log builder
+     * @throws IllegalArgumentException if the maximum segment size is not positive
+     */
+    public Builder<K, V> withMaxSegmentSize(int maxSegmentSize) {
+      journalBuilder.withMaxSegmentSize(maxSegmentSize);
+      return this;
+    }
+
+    /**
+     * Sets the codec with which to compress log entries.
+     *
+     * @param compression the log compression codec
+     * @return the gossip log builder
+     * @throws NullPointerException if the compression codec is null
+     */
+    public Builder<K, V> withCompression(CompressionCodec compression) {
+      journalBuilder.withCompression(compression);
+      return this;
+    }
+
+    /**
+     * Sets the minimum number of entries to append between checkpoints.
+     *
+     * @param checkpointThreshold the minimum number of entries between checkpoints
+     * @return the gossip log builder
+     * @throws IllegalArgumentException if the checkpoint threshold is not positive
+     */
+    public Builder<K, V> withCheckpointThreshold(int checkpointThreshold) {
+      checkArgument(checkpointThreshold > 0, "checkpointThreshold must be positive");
+      this.checkpointThreshold = checkpointThreshold;
+      return this;
+    }
+
+    @Override
+    public GossipLog<K, V> build() {
+      return new GossipLog<>(journalBuilder.build(), checkpointThreshold);
+    }
+  }
+}
@@ -0,0 +1,538 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import com.google.common.collect.Maps;
+import io.atomix.cluster.NodeId;
+import io.atomix.protocols.gossip.crdt.GCounter;
+import io.atomix.protocols.gossip.protocol.AntiEntropyAdvertisement;
+import io.atomix.protocols.gossip.protocol.AntiEntropyProtocol;
+import io.atomix.protocols.gossip.protocol.AntiEntropyResponse;
+import io.atomix.protocols.gossip.protocol.GossipMessage;
+import io.atomix.protocols.gossip.protocol.GossipUpdate;
+import io.atomix.time.LogicalTimestamp;
+import io.atomix.utils.Identifier;
+import io.atomix.utils.concurrent.Futures;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Anti-entropy service test.
+ */
+@Test
+public class AntiEntropyServiceTest {
+  private static final long TIMEOUT_MILLIS = 10000;
+  private static final Duration PURGE_INTERVAL = Duration.ofHours(1);
+  private static final int MAX_QUEUE_SIZE = 10000;
+
+  private TestExecutor executor;
+  private TestNetwork network;
+  private List<TestNode> nodes;
+
+  @BeforeMethod
+  protected void setup() {
+    executor = new TestExecutor();
+    network = new TestNetwork();
+    nodes = new ArrayList<>();
+  }
+
+  @AfterMethod
+  protected void teardown() {
+    nodes.forEach(node -> node.service.close());
+    executor.shutdownNow();
+  }
+
+  /**
+   * Creates a node whose peers are all the other nodes in the test network.
+   */
+  private TestNode createNode(String id) {
+    return createNode(id, MAX_QUEUE_SIZE);
+  }
+
+  /**
+   * Creates a node with the given maximum number of updates to queue for each peer.
+   */
+  private TestNode createNode(String id, int maxQueueSize) {
+    TestNode node = new TestNode(NodeId.from(id), maxQueueSize);
+    nodes.add(node);
+    return node;
+  }
+
+  /**
+   * Blocks the communication executor until the returned latch is released, so that updates remain queued.
+   */
+  private CountDownLatch blockExecutor() {
+    CountDownLatch latch = new CountDownLatch(1);
+    executor.execute(() -> {
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    return latch;
+  }
+
+  /**
+   * Runs a single anti-entropy round from one node to another.
+   */
+  private void runAntiEntropy(TestNode from, TestNode to) throws Exception {
+    from.selector.next.set(to.nodeId);
+    waitFor(() -> from.selector.next.get() == null);
+
+    // The round runs on the communication executor, and the stub protocol responds synchronously.
+    executor.submit(() -> {
+    }).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Returns the given keys for which the node has no update, by advertising old tombstones for the keys.
+   */
+  private static Set<Object> missingKeys(TestNode node, Collection<String> keys) {
+    Map<Object, GossipUpdate.Digest> digest = new HashMap<>();
+    for (String key : keys) {
+      digest.put(key, new GossipUpdate.Digest(new LogicalTimestamp(0), true));
+    }
+    return node.protocol.advertisementHandler.apply(new AntiEntropyAdvertisement<>(digest)).keys();
+  }
+
+  private static void waitFor(BooleanSupplier condition) throws Exception {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > deadline) {
+        fail("timed out waiting for condition");
+      }
+      Thread.sleep(10);
+    }
+  }
+
+  /**
+   * Tests that an anti-entropy round descends only into the subtrees whose hashes differ.
+   */
+  public void testDescentStopsAtEqualSubtrees() throws Exception {
+    TestNode a = createNode("a");
+    TestNode b = createNode("b");
+    for (int i = 0; i < 100; i++) {
+      a.service.process(new GossipEvent<>("key" + i, "value" + i));
+    }
+    waitFor(() -> b.values.size() == 100);
+
+    // The trees are equal, so only the root is compared.
+    a.protocol.advertisements.clear();
+    runAntiEntropy(a, b);
+    assertEquals(a.protocol.advertisements.size(), 1);
+    assertEquals(a.protocol.advertisements.get(0).hashes().keySet(), Collections.singleton(MerkleTree.ROOT));
+
+    // Drop the gossip message for a new update so that only anti-entropy can repair it.
+    network.gossipEnabled = false;
+    a.service.process(new GossipEvent<>("key100", "value100"));
+    waitFor(() -> a.service.metrics().getQueueDepth() == 0);
+    network.gossipEnabled = true;
+
+    a.protocol.advertisements.clear();
+    runAntiEntropy(a, b);
+
+    // The root is followed by the children of a single differing node at each level and the leaf's digests.
+    MerkleTree<String> tree = new MerkleTree<>();
+    List<AntiEntropyAdvertisement<?>> advertisements = a.protocol.advertisements;
+    assertEquals(advertisements.size(), 5);
+    for (int i = 1; i < 4; i++) {
+      assertEquals(advertisements.get(i).hashes().size(), tree.fanout());
+    }
+    AntiEntropyAdvertisement<?> digest = advertisements.get(4);
+    assertTrue(digest.hashes().isEmpty());
+    assertTrue(digest.digest().containsKey("key100"));
+    for (Object key : digest.digest().keySet()) {
+      assertEquals(tree.leaf((String) key), tree.leaf("key100"));
+    }
+    waitFor(() -> Optional.of("value100").equals(b.values.get("key100")));
+  }
+
+  /**
+   * Tests that two nodes that missed each other's updates converge through anti-entropy.
+   */
+  public void testConvergence() throws Exception {
+    TestNode a = createNode("a");
+    TestNode b = createNode("b");
+
+    network.gossipEnabled = false;
+    for (int i = 0; i < 100; i++) {
+      a.service.process(new GossipEvent<>("a" + i, "value" + i));
+      b.service.process(new GossipEvent<>("b" + i, "value" + i));
+    }
+    a.service.process(new GossipEvent<>("a5", null));
+    waitFor(() -> a.service.metrics().getQueueDepth() == 0 && b.service.metrics().getQueueDepth() == 0);
+    assertEquals(a.values.keySet().stream().filter(key -> key.startsWith("b")).count(), 0);
+    network.gossipEnabled = true;
+
+    runAntiEntropy(a, b);
+    runAntiEntropy(b, a);
+    waitFor(() -> a.values.equals(b.values));
+    assertEquals(a.values.size(), 200);
+    assertEquals(b.values.get("a5"), Optional.empty());
+
+    // Once the nodes have converged, a round compares only the root.
+    a.protocol.advertisements.clear();
+    runAntiEntropy(a, b);
+    assertEquals(a.protocol.advertisements.size(), 1);
+  }
+
+  /**
+   * Returns a key other than the given key that is assigned to the hash tree leaf for which the given predicate holds.
+   */
+  private static String findKey(String key, Predicate<Integer> leaf) {
+    MerkleTree<String> tree = new MerkleTree<>();
+    for (int i = 0; ; i++) {
+      String other = "key" + i;
+      if (!other.equals(key) && leaf.test(tree.leaf(other))) {
+        return other;
+      }
+    }
+  }
+
+  /**
+   * Tests that a tombstone replaced after the purge has read it but before it has locked its subject is not removed.
+   */
+  public void testPurgeReplacedTombstone() throws Exception {
+    TestNode a = createNode("a");
+    TestNode b = createNode("b");
+
+    // The replaced tombstone shares a leaf, and therefore a lock stripe, with a live key. The purged tombstone is in
+    // a leaf with a different stripe for any number of stripes.
+    MerkleTree<String> tree = new MerkleTree<>();
+    String replacedKey = "key0";
+    String liveKey = findKey(replacedKey, leaf -> leaf == tree.leaf(replacedKey));
+    String purgedKey = findKey(replacedKey, leaf -> (leaf & 1) != (tree.leaf(replacedKey) & 1));
+    for (String key : Arrays.asList(replacedKey, purgedKey)) {
+      a.service.process(new GossipEvent<>(key, "value"));
+      a.service.process(new GossipEvent<>(key, null));
+    }
+    waitFor(() -> b.values.size() == 2);
+
+    // Tombstones created before a's last completed anti-entropy round with b are eligible to be purged.
+    Thread.sleep(10);
+    runAntiEntropy(a, b);
+    assertTrue(missingKeys(a, Arrays.asList(replacedKey, purgedKey)).isEmpty());
+
+    // Listeners are called while holding the lock for the event's subject. Purge tombstones while the lock for the
+    // live key is held, and replace the tombstone once the purge has blocked on the lock for the tombstone.
+    Thread purger = new Thread(a.purgeTask);
+    AtomicBoolean replaced = new AtomicBoolean();
+    a.service.addListener(event -> {
+      if (event.subject().equals(liveKey) && replaced.compareAndSet(false, true)) {
+        purger.start();
+        try {
+          waitFor(() -> purger.getState() == Thread.State.BLOCKED);
+        } catch (Exception e) {
+          throw new AssertionError(e);
+        }
+        a.service.mutate(replacedKey, value -> "new");
+      }
+    });
+    a.service.mutate(liveKey, value -> "value");
+    purger.join(TIMEOUT_MILLIS);
+    assertTrue(replaced.get());
+    assertFalse(purger.isAlive());
+
+    assertEquals(missingKeys(a, Arrays.asList(replacedKey, purgedKey)), Collections.singleton(purgedKey));
+    assertEquals(a.values.get(replacedKey), Optional.of("new"));
+  }
+
+  /**
+   * Tests that updates to new subjects are dropped while a peer's queue is full and repaired by anti-entropy.
+   */
+  public void testQueueFull() throws Exception {
+    TestNode a = createNode("a", 10);
+    TestNode b = createNode("b");
+    GossipMetrics metrics = a.service.metrics();
+
+    CountDownLatch latch = blockExecutor();
+    for (int i = 0; i < 15; i++) {
+      a.service.process(new GossipEvent<>("key" + i, "value"));
+    }
+    assertEquals(metrics.getQueuedCount(), 10);
+    assertEquals(metrics.getDroppedCount(), 5);
+    assertEquals(metrics.getQueueDepth(), 10);
+
+    // Updates to subjects that are already queued are coalesced rather than dropped.
+    a.service.process(new GossipEvent<>("key0", "value2"));
+    assertEquals(metrics.getDroppedCount(), 5);
+    assertEquals(metrics.getCoalescedCount(), 1);
+
+    latch.countDown();
+    waitFor(() -> b.values.size() == 10);
+    for (int i = 0; i < 10; i++) {
+      assertTrue(b.values.containsKey("key" + i));
+    }
+    assertEquals(b.values.get("key0"), Optional.of("value2"));
+    assertEquals(metrics.getSentCount(), 10);
+    assertEquals(metrics.getMessageCount(), 1);
+    assertEquals(metrics.getQueueDepth(), 0);
+
+    runAntiEntropy(a, b);
+    waitFor(() -> b.values.size() == 15);
+  }
+
+  /**
+   * Tests that a newer update replaces an older update queued for the same subject.
+   */
+  public void testQueueCoalescing() throws Exception {
+    TestNode a = createNode("a");
+    TestNode b = createNode("b");
+    GossipMetrics metrics = a.service.metrics();
+
+    CountDownLatch latch = blockExecutor();
+    a.service.process(new GossipEvent<>("key1", "value1"));
+    a.service.process(new GossipEvent<>("key2", "value1"));
+    a.service.process(new GossipEvent<>("key1", "value2"));
+    a.service.process(new GossipEvent<>("key1", "value3"));
+    assertEquals(metrics.getQueuedCount(), 2);
+    assertEquals(metrics.getCoalescedCount(), 2);
+    assertEquals(metrics.getQueueDepth(), 2);
+    assertEquals(metrics.getCoalescingRatio(), 0.5);
+
+    latch.countDown();
+    waitFor(() -> b.values.size() == 2);
+    assertEquals(a.protocol.messages.size(), 1);
+    List<String> updates = a.protocol.messages.get(0).updates().stream()
+        .map(update -> update.subject() + "=" + update.value())
+        .collect(Collectors.toList());
+    assertEquals(updates, Arrays.asList("key1=value3", "key2=value1"));
+    assertEquals(b.values.get("key1"), Optional.of("value3"));
+  }
+
+  /**
+   * Tests that deltas of a delta-state CRDT queued for the same subject are merged into a single delta.
+   */
+  public void testQueueCrdtMerge() throws Exception {
+    TestNode a = createNode("a");
+    TestNode b = createNode("b");
+    GossipMetrics metrics = a.service.metrics();
+
+    GCounter counter = new GCounter();
+    GCounter delta1 = counter.increment("a");
+    GCounter delta2 = counter.merge(delta1).increment("a");
+    GCounter delta3 = counter.increment("b", 5);
+
+    CountDownLatch latch = blockExecutor();
+    a.service.process(new GossipEvent<>("counter", delta1));
+    a.service.process(new GossipEvent<>("counter", delta2));
+    a.service.process(new GossipEvent<>("counter", delta3));
+    assertEquals(metrics.getQueuedCount(), 1);
+    assertEquals(metrics.getCoalescedCount(), 2);
+
+    latch.countDown();
+    waitFor(() -> b.values.containsKey("counter"));
+    assertEquals(a.protocol.messages.size(), 1);
+    GossipUpdate<?, ?> update = a.protocol.messages.get(0).updates().iterator().next();
+    assertEquals(update.value(), delta1.merge(delta2).merge(delta3));
+    assertEquals(((GCounter) b.values.get("counter").get()).value(), 7);
+    assertEquals(b.values.get("counter"), a.values.get("counter"));
+  }
+
+  /**
+   * Tests that queued updates are sent in batches of at most 1000 updates.
+   */
+  public void testQueueBatches() throws Exception {
+    TestNode a = createNode("a");
+    TestNode b = createNode("b");
+    GossipMetrics metrics = a.service.metrics();
+
+    CountDownLatch latch = blockExecutor();
+    for (int i = 0; i < 1500; i++) {
+      a.service.process(new GossipEvent<>("key" + i, "value"));
+    }
+    assertEquals(metrics.getQueueDepth(), 1500);
+
+    latch.countDown();
+    waitFor(() -> b.values.size() == 1500);
+    assertEquals(a.protocol.messages.stream()
+        .map(message -> message.updates().size())
+        .collect(Collectors.toList()), Arrays.asList(1000, 500));
+    assertEquals(metrics.getMessageCount(), 2);
+    assertEquals(metrics.getSentCount(), 1500);
+    assertEquals(metrics.getQueueDepth(), 0);
+  }
+
+  /**
+   * Test node.
+   */
+  private final class TestNode {
+    private final NodeId nodeId;
+    private final TestProtocol protocol;
+    private final TestPeerSelector selector = new TestPeerSelector();
+    private final Map<String, Optional<Object>> values = Maps.newConcurrentMap();
+    private final AntiEntropyService<String, Object> service;
+    private final Runnable purgeTask;
+
+    private TestNode(NodeId nodeId, int maxQueueSize) {
+      this.nodeId = nodeId;
+      this.protocol = new TestProtocol(nodeId, network);
+      this.service = (AntiEntropyService<String, Object>) new AntiEntropyService.Builder<String, Object>()
+          .withProtocol(protocol)
+          .withPeerProvider(() -> network.peers(nodeId))
+          .withPeerSelector(selector)
+          .withCommunicationExecutor(executor)
+          .withAntiEntropyInterval(Duration.ofMillis(10))
+          .withPurgeInterval(PURGE_INTERVAL)
+          .withMaxQueueSize(maxQueueSize)
+          .build();
+      this.purgeTask = executor.purgeTasks.remove(0);
+
+      // Tombstones are recorded as empty values so that they can be compared across nodes.
+      service.addListener(event -> values.put(event.subject(), Optional.ofNullable(event.value())));
+    }
+  }
+
+  /**
+   * Executor that captures the periodic tombstone purge tasks so that tests can run them directly.
+   */
+  private static final class TestExecutor extends ScheduledThreadPoolExecutor {
+    private final List<Runnable> purgeTasks = new CopyOnWriteArrayList<>();
+
+    private TestExecutor() {
+      super(1);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+      if (unit.toMillis(period) == PURGE_INTERVAL.toMillis()) {
+        purgeTasks.add(command);
+        return schedule(() -> {
+        }, period, unit);
+      }
+      return super.scheduleAtFixedRate(command, initialDelay, period, unit);
+    }
+  }
+
+  /**
+   * Peer selector that selects a peer only when a round is requested by the test.
+   */
+  private static final class TestPeerSelector implements PeerSelector {
+    private final AtomicReference<Identifier> next = new AtomicReference<>();
+
+    @Override
+    public Identifier select(Collection<Identifier> peers) {
+      return next.getAndSet(null);
+    }
+  }
+
+  /**
+   * Test network that delivers messages synchronously.
+   */
+  private static final class TestNetwork {
+    private final Map<Identifier, TestProtocol> protocols = Maps.newConcurrentMap();
+    private volatile boolean gossipEnabled = true;
+
+    private Collection<Identifier> peers(Identifier nodeId) {
+      return protocols.keySet().stream()
+          .filter(peer -> !peer.equals(nodeId))
+          .collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * Anti-entropy protocol stub that records the messages it sends.
+   */
+  private static final class TestProtocol implements AntiEntropyProtocol<Identifier> {
+    private final TestNetwork network;
+    private final List<AntiEntropyAdvertisement<?>> advertisements = new CopyOnWriteArrayList<>();
+    private final List<GossipMessage<?, ?>> messages = new CopyOnWriteArrayList<>();
+    private volatile Consumer<GossipMessage<Object, Object>> gossipListener;
+    private volatile Function<AntiEntropyAdvertisement<Object>, AntiEntropyResponse<Object>> advertisementHandler;
+
+    private TestProtocol(NodeId nodeId, TestNetwork network) {
+      this.network = network;
+      network.protocols.put(nodeId, this);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> void gossip(Identifier identifier, GossipMessage<K, V> message) {
+      messages.add(message);
+      TestProtocol peer = network.protocols.get(identifier);
+      Consumer<GossipMessage<Object, Object>> listener = peer != null ? peer.gossipListener : null;
+      if (network.gossipEnabled && listener != null) {
+        listener.accept((GossipMessage<Object, Object>) message);
+      }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> void registerGossipListener(Consumer<GossipMessage<K, V>> listener) {
+      this.gossipListener = (Consumer) listener;
+    }
+
+    @Override
+    public void unregisterGossipListener() {
+      this.gossipListener = null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K> CompletableFuture<AntiEntropyResponse<K>> advertise(Identifier identifier, AntiEntropyAdvertisement<K> advertisement) {
+      advertisements.add(advertisement);
+      TestProtocol peer = network.protocols.get(identifier);
+      Function<AntiEntropyAdvertisement<Object>, AntiEntropyResponse<Object>> handler = peer != null ? peer.advertisementHandler : null;
+      if (handler == null) {
+        return Futures.exceptionalFuture(new ConnectException());
+      }
+      return CompletableFuture.completedFuture((AntiEntropyResponse<K>) handler.apply((AntiEntropyAdvertisement<Object>) advertisement));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K> void registerAdvertisementHandler(Function<AntiEntropyAdvertisement<K>, AntiEntropyResponse<K>> handler) {
+      this.advertisementHandler = (Function) handler;
+    }
+
+    @Override
+    public void unregisterAdvertisementHandler() {
+      this.advertisementHandler = null;
+    }
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import io.atomix.cluster.NodeId;
+import io.atomix.protocols.gossip.protocol.GossipMessage;
+import io.atomix.protocols.gossip.protocol.GossipProtocol;
+import io.atomix.protocols.gossip.protocol.GossipUpdate;
+import io.atomix.utils.Identifier;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Dissemination service test.
+ */
+@Test
+public class DisseminationServiceTest {
+  private static final long TIMEOUT_MILLIS = 10000;
+  private static final Identifier PEER = NodeId.from("peer");
+
+  private ScheduledExecutorService executor;
+  private TestProtocol protocol;
+  private DisseminationService<String, String> service;
+
+  @BeforeMethod
+  protected void setup() {
+    executor = Executors.newSingleThreadScheduledExecutor();
+    protocol = new TestProtocol();
+  }
+
+  @AfterMethod
+  protected void teardown() {
+    if (service != null) {
+      service.close();
+    }
+    executor.shutdownNow();
+  }
+
+  private DisseminationService<String, String> createService(PeerSelector peerSelector, Duration updateInterval) {
+    service = (DisseminationService<String, String>) DisseminationService.<String, String>builder()
+        .withProtocol(protocol)
+        .withPeerProvider(() -> Collections.singletonList(PEER))
+        .withPeerSelector(peerSelector)
+        .withCommunicationExecutor(executor)
+        .withUpdateInterval(updateInterval)
+        .build();
+    return service;
+  }
+
+  /**
+   * Runs a single gossip round to the peer.
+   */
+  private void runGossip(TestPeerSelector selector) throws Exception {
+    selector.next.set(PEER);
+    waitFor(() -> selector.next.get() == null);
+
+    // The round runs on the communication executor.
+    executor.submit(() -> {
+    }).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  private static void waitFor(BooleanSupplier condition) throws Exception {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > deadline) {
+        fail("timed out waiting for condition");
+      }
+      Thread.sleep(10);
+    }
+  }
+
+  /**
+   * Returns the subject/value pairs sent in the given message.
+   */
+  private static List<String> updates(GossipMessage<?, ?> message) {
+    return message.updates().stream()
+        .map(update -> update.subject() + "=" + update.value())
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Tests that a replaced update moves to the tail of the log and is sent to the peer exactly once.
+   */
+  public void testReplacedUpdate() throws Exception {
+    TestPeerSelector selector = new TestPeerSelector();
+    createService(selector, Duration.ofMillis(10));
+
+    service.process(new GossipEvent<>("a", "1"));
+    service.process(new GossipEvent<>("b", "1"));
+    service.process(new GossipEvent<>("c", "1"));
+    runGossip(selector);
+    assertEquals(protocol.messages.size(), 1);
+    assertEquals(updates(protocol.messages.get(0)), Arrays.asList("a=1", "b=1", "c=1"));
+
+    // Only the replaced update is sent.
+    service.process(new GossipEvent<>("a", "2"));
+    runGossip(selector);
+    assertEquals(protocol.messages.size(), 2);
+    assertEquals(updates(protocol.messages.get(1)), Collections.singletonList("a=2"));
+
+    // Nothing is sent once the peer is up to date.
+    runGossip(selector);
+    assertEquals(protocol.messages.size(), 2);
+
+    // Updates replaced between rounds are sent once, in the order in which they were last applied.
+    service.process(new GossipEvent<>("b", "2"));
+    service.process(new GossipEvent<>("d", "1"));
+    service.process(new GossipEvent<>("b", "3"));
+    service.process(new GossipEvent<>("c", null));
+    runGossip(selector);
+    assertEquals(protocol.messages.size(), 3);
+    assertEquals(updates(protocol.messages.get(2)), Arrays.asList("d=1", "b=3", "c=null"));
+  }
+
+  /**
+   * Tests that updates appended concurrently with gossip rounds are each sent to the peer exactly once.
+   */
+  public void testConcurrentAppend() throws Exception {
+    int threads = 4;
+    int updatesPerThread = 2500;
+    createService(peers -> PEER, Duration.ofMillis(1));
+
+    ExecutorService writers = Executors.newFixedThreadPool(threads);
+    CountDownLatch latch = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int i = 0; i < threads; i++) {
+        int thread = i;
+        futures.add(writers.submit(() -> {
+          latch.await();
+          for (int j = 0; j < updatesPerThread; j++) {
+            service.process(new GossipEvent<>(thread + "-" + j, "value"));
+          }
+          return null;
+        }));
+      }
+      latch.countDown();
+      for (Future<?> future : futures) {
+        future.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      }
+    } finally {
+      writers.shutdownNow();
+    }
+
+    int total = threads * updatesPerThread;
+    waitFor(() -> protocol.updateCount() >= total);
+    Thread.sleep(50);
+
+    Map<Object, Integer> counts = new HashMap<>();
+    for (GossipMessage<?, ?> message : protocol.messages) {
+      for (GossipUpdate<?, ?> update : message.updates()) {
+        counts.merge(update.subject(), 1, Integer::sum);
+      }
+    }
+    assertEquals(counts.size(), total);
+    assertTrue(counts.values().stream().allMatch(count -> count == 1), "updates were sent more than once");
+  }
+
+  /**
+   * Peer selector that selects a peer only when a round is requested by the test.
+   */
+  private static final class TestPeerSelector implements PeerSelector {
+    private final AtomicReference<Identifier> next = new AtomicReference<>();
+
+    @Override
+    public Identifier select(Collection<Identifier> peers) {
+      return next.getAndSet(null);
+    }
+  }
+
+  /**
+   * Gossip protocol stub that records the messages it sends.
+   */
+  private static final class TestProtocol implements GossipProtocol<Identifier> {
+    private final List<GossipMessage<?, ?>> messages = new CopyOnWriteArrayList<>();
+
+    private int updateCount() {
+      return messages.stream().mapToInt(message -> message.updates().size()).sum();
+    }
+
+    @Override
+    public <K, V> void gossip(Identifier identifier, GossipMessage<K, V> message) {
+      messages.add(message);
+    }
+
+    @Override
+    public <K, V> void registerGossipListener(Consumer<GossipMessage<K, V>> listener) {
+    }
+
+    @Override
+    public void unregisterGossipListener() {
+    }
+  }
+}
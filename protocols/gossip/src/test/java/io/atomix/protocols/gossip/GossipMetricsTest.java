@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Gossip metrics test.
+ */
+@Test
+public class GossipMetricsTest {
+
+  /**
+   * Tests counting queued, coalesced, dropped and sent updates.
+   */
+  public void testCounts() throws Exception {
+    GossipMetrics metrics = new GossipMetrics();
+    metrics.recordQueued();
+    metrics.recordQueued();
+    metrics.recordQueued();
+    metrics.recordCoalesced();
+    metrics.recordDropped();
+    metrics.recordSent(2);
+    assertEquals(metrics.getQueuedCount(), 3);
+    assertEquals(metrics.getCoalescedCount(), 1);
+    assertEquals(metrics.getDroppedCount(), 1);
+    assertEquals(metrics.getSentCount(), 2);
+    assertEquals(metrics.getMessageCount(), 1);
+  }
+
+  /**
+   * Tests tracking the number of updates currently queued.
+   */
+  public void testQueueDepth() throws Exception {
+    GossipMetrics metrics = new GossipMetrics();
+    assertEquals(metrics.getQueueDepth(), 0);
+    for (int i = 0; i < 5; i++) {
+      metrics.recordQueued();
+    }
+
+    // Coalesced and dropped updates don't change the depth.
+    metrics.recordCoalesced();
+    metrics.recordDropped();
+    assertEquals(metrics.getQueueDepth(), 5);
+
+    metrics.recordSent(3);
+    assertEquals(metrics.getQueueDepth(), 2);
+    metrics.recordSent(2);
+    assertEquals(metrics.getQueueDepth(), 0);
+  }
+
+  /**
+   * Tests computing the fraction of offered updates that were coalesced.
+   */
+  public void testCoalescingRatio() throws Exception {
+    GossipMetrics metrics = new GossipMetrics();
+    assertEquals(metrics.getCoalescingRatio(), 0.0);
+
+    metrics.recordQueued();
+    assertEquals(metrics.getCoalescingRatio(), 0.0);
+
+    metrics.recordCoalesced();
+    assertEquals(metrics.getCoalescingRatio(), 0.5);
+
+    // Dropped updates don't count towards the ratio.
+    metrics.recordDropped();
+    metrics.recordCoalesced();
+    metrics.recordCoalesced();
+    assertEquals(metrics.getCoalescingRatio(), 0.75);
+  }
+}
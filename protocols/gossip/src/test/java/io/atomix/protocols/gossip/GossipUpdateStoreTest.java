@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import io.atomix.protocols.gossip.protocol.GossipUpdate;
+import io.atomix.time.LogicalTimestamp;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+
+/**
+ * Gossip update store test.
+ */
+@Test
+public class GossipUpdateStoreTest {
+  private static final int THREADS = 4;
+  private static final int KEYS = 10000;
+  private static final int STRIPES = 16;
+
+  private static GossipUpdate<String, String> update(String subject, String value, long time) {
+    return new GossipUpdate<>(subject, value, new LogicalTimestamp(time));
+  }
+
+  /**
+   * Stores an update if it's newer than the stored update for its subject, as updates from peers are applied.
+   */
+  private static void apply(GossipUpdateStore<String, String> store, GossipUpdate<String, String> update) {
+    synchronized (store.lock(update.subject())) {
+      GossipUpdate<String, String> existing = store.get(update.subject());
+      if (existing == null || update.isNewerThan(existing)) {
+        store.put(update);
+      }
+    }
+  }
+
+  /**
+   * Returns the update written by the given thread for the given key.
+   * <p>
+   * Each thread writes every key, and the thread that writes the newest update differs from key to key.
+   */
+  private static GossipUpdate<String, String> update(int thread, int key) {
+    return update("key" + key, key % 5 == 0 ? null : "value" + thread, 1 + (thread + key) % THREADS);
+  }
+
+  /**
+   * Tests that updates applied concurrently by several threads produce the same store and hash tree as the
+   * newest updates applied serially.
+   */
+  public void testConcurrentIngest() throws Exception {
+    GossipUpdateStore<String, String> store = new GossipUpdateStore<>(STRIPES);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch latch = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int i = 0; i < THREADS; i++) {
+        int thread = i;
+        futures.add(executor.submit(() -> {
+          latch.await();
+          for (int key = 0; key < KEYS; key++) {
+            apply(store, update(thread, key));
+          }
+          return null;
+        }));
+      }
+      latch.countDown();
+      for (Future<?> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    GossipUpdateStore<String, String> serialStore = new GossipUpdateStore<>(STRIPES);
+    for (int key = 0; key < KEYS; key++) {
+      int newest = Math.floorMod(THREADS - 1 - key, THREADS);
+      serialStore.put(update(newest, key));
+    }
+
+    assertEquals(store.size(), KEYS);
+    for (int key = 0; key < KEYS; key++) {
+      GossipUpdate<String, String> update = store.get("key" + key);
+      GossipUpdate<String, String> serialUpdate = serialStore.get("key" + key);
+      assertEquals(update.value(), serialUpdate.value());
+      assertEquals(update.timestamp(), serialUpdate.timestamp());
+    }
+
+    MerkleTree<String> tree = store.tree();
+    MerkleTree<String> serialTree = serialStore.tree();
+    assertNotEquals(tree.hash(MerkleTree.ROOT), 0L);
+    for (int node = MerkleTree.ROOT; tree.contains(node); node++) {
+      assertEquals(tree.hash(node), serialTree.hash(node), "node " + node);
+      if (tree.isLeaf(node)) {
+        Map<String, GossipUpdate.Digest> digests = new HashMap<>();
+        Map<String, GossipUpdate.Digest> serialDigests = new HashMap<>();
+        store.digests(node, digests);
+        serialStore.digests(node, serialDigests);
+        assertEquals(digests, serialDigests);
+      }
+    }
+  }
+
+  /**
+   * Tests that removals and writes applied concurrently to keys in the same stripes leave a tree summarizing only
+   * the remaining updates.
+   */
+  public void testConcurrentRemove() throws Exception {
+    GossipUpdateStore<String, String> store = new GossipUpdateStore<>(STRIPES);
+    GossipUpdateStore<String, String> serialStore = new GossipUpdateStore<>(STRIPES);
+    for (int key = 0; key < KEYS; key += 2) {
+      apply(store, update("key" + key, "value", 1));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> remover = executor.submit(() -> {
+        for (int key = 0; key < KEYS; key += 2) {
+          synchronized (store.lock("key" + key)) {
+            store.remove("key" + key);
+          }
+        }
+      });
+      Future<?> writer = executor.submit(() -> {
+        for (int key = 1; key < KEYS; key += 2) {
+          apply(store, update("key" + key, "value", 1));
+        }
+      });
+      remover.get(10, TimeUnit.SECONDS);
+      writer.get(10, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    for (int key = 1; key < KEYS; key += 2) {
+      serialStore.put(update("key" + key, "value", 1));
+    }
+    assertEquals(store.size(), KEYS / 2);
+    for (int node = MerkleTree.ROOT; store.tree().contains(node); node++) {
+      assertEquals(store.tree().hash(node), serialStore.tree().hash(node), "node " + node);
+    }
+  }
+}
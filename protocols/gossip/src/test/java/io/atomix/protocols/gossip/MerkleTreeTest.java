@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import io.atomix.protocols.gossip.protocol.GossipUpdate;
+import io.atomix.time.LogicalTimestamp;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Hash tree test.
+ */
+@Test
+public class MerkleTreeTest {
+  private static final int KEYS = 1000;
+
+  private static GossipUpdate.Digest digest(long time) {
+    return new GossipUpdate.Digest(new LogicalTimestamp(time), false);
+  }
+
+  /**
+   * Asserts that two trees have the same hash for every node.
+   */
+  private static void assertTreesEqual(MerkleTree<String> tree1, MerkleTree<String> tree2) {
+    for (int node = MerkleTree.ROOT; tree1.contains(node); node++) {
+      assertEquals(tree1.hash(node), tree2.hash(node), "node " + node);
+    }
+  }
+
+  /**
+   * Returns the nodes whose hashes differ between two trees.
+   */
+  private static List<Integer> differences(MerkleTree<String> tree1, MerkleTree<String> tree2) {
+    List<Integer> nodes = new ArrayList<>();
+    for (int node = MerkleTree.ROOT; tree1.contains(node); node++) {
+      if (tree1.hash(node) != tree2.hash(node)) {
+        nodes.add(node);
+      }
+    }
+    return nodes;
+  }
+
+  /**
+   * Tests that trees built from the same updates in different orders have the same hashes.
+   */
+  public void testUpdateOrder() throws Exception {
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < KEYS; i++) {
+      keys.add("key" + i);
+    }
+
+    // Insert every key and then replace the digests of every other key.
+    MerkleTree<String> tree1 = new MerkleTree<>();
+    for (String key : keys) {
+      tree1.update(key, null, digest(1));
+    }
+    for (int i = 0; i < KEYS; i += 2) {
+      tree1.update(keys.get(i), digest(1), digest(2));
+    }
+
+    // Insert the final digests in a random order.
+    List<Integer> order = new ArrayList<>();
+    for (int i = 0; i < KEYS; i++) {
+      order.add(i);
+    }
+    Collections.shuffle(order, new Random(0));
+    MerkleTree<String> tree2 = new MerkleTree<>();
+    for (int i : order) {
+      tree2.update(keys.get(i), null, digest(i % 2 == 0 ? 2 : 1));
+    }
+
+    assertNotEquals(tree1.hash(MerkleTree.ROOT), 0L);
+    assertTreesEqual(tree1, tree2);
+    for (String key : keys) {
+      assertTrue(tree2.keys(tree2.leaf(key)).contains(key));
+    }
+  }
+
+  /**
+   * Tests that removing a key folds its digest out of the tree.
+   */
+  public void testRemove() throws Exception {
+    MerkleTree<String> tree1 = new MerkleTree<>();
+    MerkleTree<String> tree2 = new MerkleTree<>();
+    for (int i = 0; i < KEYS; i++) {
+      tree1.update("key" + i, null, digest(i));
+      if (i < KEYS / 2) {
+        tree2.update("key" + i, null, digest(i));
+      }
+    }
+
+    for (int i = KEYS / 2; i < KEYS; i++) {
+      tree1.update("key" + i, digest(i), null);
+      assertFalse(tree1.keys(tree1.leaf("key" + i)).contains("key" + i));
+    }
+    assertTreesEqual(tree1, tree2);
+
+    // Removing every key returns every node to the empty hash.
+    for (int i = 0; i < KEYS / 2; i++) {
+      tree1.update("key" + i, digest(i), null);
+    }
+    assertTreesEqual(tree1, new MerkleTree<>());
+    assertEquals(tree1.hash(MerkleTree.ROOT), 0L);
+  }
+
+  /**
+   * Tests that a single differing key changes only the nodes on the path from its leaf to the root, so that
+   * comparing trees descends into a single subtree at each level.
+   */
+  public void testDifferingPath() throws Exception {
+    MerkleTree<String> tree1 = new MerkleTree<>();
+    MerkleTree<String> tree2 = new MerkleTree<>();
+    for (int i = 0; i < KEYS; i++) {
+      tree1.update("key" + i, null, digest(1));
+      tree2.update("key" + i, null, digest(1));
+    }
+    tree2.update("key0", digest(1), digest(2));
+
+    // Walk from the root to the leaf, following the only differing child at each level.
+    List<Integer> path = new ArrayList<>();
+    int node = MerkleTree.ROOT;
+    while (true) {
+      assertNotEquals(tree1.hash(node), tree2.hash(node));
+      path.add(node);
+      if (tree1.isLeaf(node)) {
+        break;
+      }
+
+      int next = -1;
+      int firstChild = tree1.firstChild(node);
+      for (int i = 0; i < tree1.fanout(); i++) {
+        if (tree1.hash(firstChild + i) != tree2.hash(firstChild + i)) {
+          assertEquals(next, -1, "more than one child differs");
+          next = firstChild + i;
+        }
+      }
+      node = next;
+    }
+
+    assertEquals(node, tree1.leaf("key0"));
+    assertEquals(differences(tree1, tree2), path);
+  }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import com.google.common.collect.Maps;
+import io.atomix.cluster.ClusterEventListener;
+import io.atomix.cluster.ClusterService;
+import io.atomix.cluster.DefaultNode;
+import io.atomix.cluster.Node;
+import io.atomix.cluster.NodeId;
+import io.atomix.utils.Identifier;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Topology-aware peer selector test.
+ */
+@Test
+public class TopologyAwarePeerSelectorTest {
+  private static final int CROSS_RACK_INTERVAL = 4;
+  private static final int CROSS_ZONE_INTERVAL = 10;
+
+  /**
+   * Test cluster of nodes.
+   */
+  private static final class TestCluster implements ClusterService {
+    private final Map<NodeId, Node> nodes = Maps.newHashMap();
+    private Node localNode;
+
+    private NodeId add(String id, String zone, String rack) {
+      NodeId nodeId = NodeId.from(id);
+      nodes.put(nodeId, DefaultNode.builder()
+          .withNodeId(nodeId)
+          .withZone(zone)
+          .withRack(rack)
+          .build());
+      return nodeId;
+    }
+
+    private TestCluster local(NodeId nodeId) {
+      localNode = nodes.get(nodeId);
+      return this;
+    }
+
+    @Override
+    public Node localNode() {
+      return localNode;
+    }
+
+    @Override
+    public Set<Node> getNodes() {
+      return new HashSet<>(nodes.values());
+    }
+
+    @Override
+    public Node getNode(NodeId nodeId) {
+      return nodes.get(nodeId);
+    }
+
+    @Override
+    public Node.State getState(NodeId nodeId) {
+      return Node.State.ACTIVE;
+    }
+
+    @Override
+    public void addListener(ClusterEventListener listener) {
+    }
+
+    @Override
+    public void removeListener(ClusterEventListener listener) {
+    }
+  }
+
+  private static TopologyAwarePeerSelector newSelector(ClusterService clusterService, int crossZoneFanout) {
+    return TopologyAwarePeerSelector.builder()
+        .withClusterService(clusterService)
+        .withCrossRackInterval(CROSS_RACK_INTERVAL)
+        .withCrossZoneInterval(CROSS_ZONE_INTERVAL)
+        .withCrossZoneFanout(crossZoneFanout)
+        .build();
+  }
+
+  /**
+   * Returns the peers selected in each of the given number of rounds.
+   */
+  private static List<Identifier> select(PeerSelector selector, Collection<Identifier> peers, int rounds) {
+    List<Identifier> selected = new ArrayList<>();
+    for (int i = 0; i < rounds; i++) {
+      selected.add(selector.select(peers));
+    }
+    return selected;
+  }
+
+  /**
+   * Tests that rounds select peers in the local rack, other racks and other zones at the configured intervals.
+   */
+  public void testSelectByDistance() throws Exception {
+    TestCluster cluster = new TestCluster();
+    NodeId local = cluster.add("local", "zone-1", "rack-1");
+    NodeId sameRack = cluster.add("same-rack", "zone-1", "rack-1");
+    NodeId sameZone = cluster.add("same-zone", "zone-1", "rack-2");
+    NodeId remote = cluster.add("remote", "zone-2", "rack-1");
+    List<Identifier> peers = new ArrayList<>();
+    peers.add(sameRack);
+    peers.add(sameZone);
+    peers.add(remote);
+
+    List<Identifier> selected = select(newSelector(cluster.local(local), 1), peers, 40);
+    for (int round = 1; round <= selected.size(); round++) {
+      Identifier expected = round % CROSS_ZONE_INTERVAL == 0 ? remote : round % CROSS_RACK_INTERVAL == 0 ? sameZone : sameRack;
+      assertEquals(selected.get(round - 1), expected, "round " + round);
+    }
+  }
+
+  /**
+   * Tests that rounds fall back to closer peers, and then to farther peers, when no peer is at the preferred
+   * distance.
+   */
+  public void testDistanceFallback() throws Exception {
+    TestCluster cluster = new TestCluster();
+    NodeId local = cluster.add("local", "zone-1", "rack-1");
+    NodeId sameRack = cluster.add("same-rack", "zone-1", "rack-1");
+    NodeId sameZone = cluster.add("same-zone", "zone-1", "rack-2");
+    NodeId remote = cluster.add("remote", "zone-2", "rack-1");
+    cluster.local(local);
+
+    // Without other racks, cross-rack rounds select the local rack.
+    List<Identifier> peers = new ArrayList<>();
+    peers.add(sameRack);
+    peers.add(remote);
+    List<Identifier> selected = select(newSelector(cluster, 1), peers, 10);
+    assertEquals(selected.get(CROSS_RACK_INTERVAL - 1), sameRack);
+    assertEquals(selected.get(CROSS_ZONE_INTERVAL - 1), remote);
+
+    // Without other zones, cross-zone rounds select the nearest closer peers.
+    peers = new ArrayList<>();
+    peers.add(sameRack);
+    peers.add(sameZone);
+    selected = select(newSelector(cluster, 1), peers, 10);
+    assertEquals(selected.get(CROSS_ZONE_INTERVAL - 1), sameZone);
+
+    // Without peers in the local rack, local rounds select the nearest farther peers.
+    peers = new ArrayList<>();
+    peers.add(sameZone);
+    peers.add(remote);
+    selected = select(newSelector(cluster, 1), peers, 10);
+    assertEquals(selected.get(0), sameZone);
+    assertEquals(selected.get(CROSS_ZONE_INTERVAL - 1), remote);
+  }
+
+  /**
+   * Tests that peers unknown to the cluster service are treated as remote, and that an empty peer set selects
+   * no peer.
+   */
+  public void testUnknownPeers() throws Exception {
+    TestCluster cluster = new TestCluster();
+    NodeId local = cluster.add("local", "zone-1", "rack-1");
+    NodeId sameRack = cluster.add("same-rack", "zone-1", "rack-1");
+    NodeId unknown = NodeId.from("unknown");
+    List<Identifier> peers = new ArrayList<>();
+    peers.add(sameRack);
+    peers.add(unknown);
+
+    PeerSelector selector = newSelector(cluster.local(local), 1);
+    List<Identifier> selected = select(selector, peers, CROSS_ZONE_INTERVAL);
+    assertEquals(selected.get(0), sameRack);
+    assertEquals(selected.get(CROSS_ZONE_INTERVAL - 1), unknown);
+    assertNull(selector.select(new ArrayList<>()));
+  }
+
+  /**
+   * Tests that cross-zone rounds rotate over a stable set of bridge peers when the local zone has other peers.
+   */
+  public void testBridgeRotation() throws Exception {
+    TestCluster cluster = new TestCluster();
+    List<NodeId> locals = new ArrayList<>();
+    List<Identifier> remotes = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      locals.add(cluster.add("local-" + i, "zone-1", "rack-1"));
+      remotes.add(cluster.add("remote-" + i, "zone-2", "rack-" + (i % 2)));
+    }
+
+    int fanout = 2;
+    Set<Set<Identifier>> bridgeSets = new HashSet<>();
+    for (NodeId local : locals) {
+      List<Identifier> peers = new ArrayList<>(remotes);
+      locals.stream().filter(nodeId -> !nodeId.equals(local)).forEach(peers::add);
+
+      List<Identifier> selected = select(newSelector(cluster.local(local), fanout), peers, CROSS_ZONE_INTERVAL * fanout * 5);
+      List<Identifier> bridges = new ArrayList<>();
+      for (int round = CROSS_ZONE_INTERVAL; round <= selected.size(); round += CROSS_ZONE_INTERVAL) {
+        bridges.add(selected.get(round - 1));
+      }
+
+      // Each cross-zone round selects the bridge for the next slot, so the bridges repeat every fanout rounds.
+      Set<Identifier> bridgeSet = new HashSet<>(bridges);
+      assertEquals(bridgeSet.size(), fanout);
+      assertTrue(remotes.containsAll(bridgeSet));
+      for (int i = fanout; i < bridges.size(); i++) {
+        assertEquals(bridges.get(i), bridges.get(i - fanout));
+      }
+      bridgeSets.add(bridgeSet);
+    }
+
+    // Different local nodes bridge to different remote peers.
+    assertTrue(bridgeSets.size() > 1);
+  }
+
+  /**
+   * Tests that peers are selected across all zones when the local node has no peers in its own zone.
+   */
+  public void testNoLocalPeers() throws Exception {
+    TestCluster cluster = new TestCluster();
+    NodeId local = cluster.add("local", "zone-1", "rack-1");
+    List<Identifier> peers = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      peers.add(cluster.add("remote-" + i, "zone-2", "rack-1"));
+    }
+
+    List<Identifier> selected = select(newSelector(cluster.local(local), 1), peers, 200);
+    assertEquals(new HashSet<>(selected), new HashSet<>(peers));
+  }
+}
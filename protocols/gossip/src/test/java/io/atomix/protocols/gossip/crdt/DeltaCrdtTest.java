@@ -0,0 +1,258 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip.crdt;
+
+import com.google.common.collect.Sets;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Delta-state CRDT test.
+ */
+@Test
+public class DeltaCrdtTest {
+  private static final String[] REPLICAS = {"a", "b", "c"};
+  private static final int OPERATIONS = 500;
+
+  /**
+   * Replicated history of a delta-state CRDT.
+   */
+  private static final class History<T extends DeltaCrdt<T>> {
+    private final List<T> states = new ArrayList<>();
+    private final List<T> deltas = new ArrayList<>();
+    private final T initial;
+
+    private History(T initial) {
+      this.initial = initial;
+    }
+  }
+
+  /**
+   * Runs random operations against replicas that occasionally exchange full states.
+   *
+   * @param initial the initial state
+   * @param operation a function producing a delta for the given replica and state
+   * @return the history of the replicas
+   */
+  private static <T extends DeltaCrdt<T>> History<T> simulate(Supplier<T> initial, BiFunction<String, T, T> operation) {
+    Random random = new Random(1);
+    History<T> history = new History<>(initial.get());
+    for (int i = 0; i < REPLICAS.length; i++) {
+      history.states.add(initial.get());
+    }
+    for (int i = 0; i < OPERATIONS; i++) {
+      int replica = random.nextInt(REPLICAS.length);
+      T state = history.states.get(replica);
+      if (random.nextInt(10) == 0) {
+        state = state.merge(history.states.get(random.nextInt(REPLICAS.length)));
+      } else {
+        T delta = operation.apply(REPLICAS[replica], state);
+        history.deltas.add(delta);
+        state = state.merge(delta);
+      }
+      history.states.set(replica, state);
+    }
+    return history;
+  }
+
+  /**
+   * Asserts that merges of the given states are commutative, associative and idempotent.
+   */
+  private static <T extends DeltaCrdt<T>> void assertSemilattice(T a, T b, T c) {
+    assertEquals(a.merge(b), b.merge(a));
+    assertEquals(a.merge(b).merge(c), a.merge(b.merge(c)));
+    assertEquals(a.merge(a), a);
+    assertEquals(a.merge(b).merge(b), a.merge(b));
+  }
+
+  /**
+   * Asserts the semilattice laws over the history's states and deltas, and that joining every delta in any order
+   * yields the same state as joining the replicas' full states.
+   */
+  private static <T extends DeltaCrdt<T>> T assertHistory(History<T> history) {
+    List<T> states = history.states;
+    assertSemilattice(states.get(0), states.get(1), states.get(2));
+    assertSemilattice(history.deltas.get(0), history.deltas.get(1), states.get(2));
+
+    T merged = history.initial;
+    for (T state : states) {
+      merged = merged.merge(state);
+    }
+
+    List<T> deltas = new ArrayList<>(history.deltas);
+    Random random = new Random(2);
+    for (int i = 0; i < 3; i++) {
+      Collections.shuffle(deltas, random);
+      T joined = history.initial;
+      for (T delta : deltas) {
+        joined = joined.merge(delta);
+      }
+      assertEquals(joined, merged);
+      assertEquals(joined.hashCode(), merged.hashCode());
+    }
+    return merged;
+  }
+
+  /**
+   * Tests grow-only counter merges.
+   */
+  public void testGCounter() throws Exception {
+    Random random = new Random(3);
+    long[] total = new long[1];
+    GCounter counter = assertHistory(simulate(GCounter::new, (replica, state) -> {
+      long delta = random.nextInt(5);
+      total[0] += delta;
+      return state.increment(replica, delta);
+    }));
+    assertEquals(counter.value(), total[0]);
+  }
+
+  /**
+   * Tests positive-negative counter merges.
+   */
+  public void testPNCounter() throws Exception {
+    Random random = new Random(4);
+    long[] total = new long[1];
+    PNCounter counter = assertHistory(simulate(PNCounter::new, (replica, state) -> {
+      long delta = random.nextInt(5);
+      if (random.nextBoolean()) {
+        total[0] += delta;
+        return state.increment(replica, delta);
+      } else {
+        total[0] -= delta;
+        return state.decrement(replica, delta);
+      }
+    }));
+    assertEquals(counter.value(), total[0]);
+  }
+
+  /**
+   * Tests observed-remove set merges.
+   */
+  public void testOrSet() throws Exception {
+    Random random = new Random(5);
+    assertHistory(simulate(OrSet<Integer>::new, (replica, state) -> {
+      int element = random.nextInt(10);
+      return random.nextBoolean() ? state.add(replica, element) : state.remove(element);
+    }));
+  }
+
+  /**
+   * Tests that an add concurrent with a remove of the same element wins.
+   */
+  public void testOrSetConcurrentAddRemove() throws Exception {
+    OrSet<String> a = new OrSet<>();
+    a = a.merge(a.add("a", "x"));
+    OrSet<String> b = new OrSet<String>().merge(a);
+    assertTrue(b.contains("x"));
+
+    OrSet<String> remove = b.remove("x");
+    OrSet<String> add = a.add("a", "x");
+    b = b.merge(remove);
+    a = a.merge(add);
+    assertFalse(b.contains("x"));
+
+    assertTrue(a.merge(remove).contains("x"));
+    assertTrue(b.merge(add).contains("x"));
+    assertEquals(a.merge(b), b.merge(a));
+    assertEquals(a.merge(b).elements(), Sets.newHashSet("x"));
+  }
+
+  /**
+   * Tests that concurrent removes of the same element remove it, and that an element can be added again.
+   */
+  public void testOrSetConcurrentRemoves() throws Exception {
+    OrSet<String> a = new OrSet<>();
+    a = a.merge(a.add("a", "x"));
+    a = a.merge(a.add("a", "y"));
+    OrSet<String> b = new OrSet<String>().merge(a);
+
+    a = a.merge(a.remove("x"));
+    b = b.merge(b.remove("x"));
+    OrSet<String> merged = a.merge(b);
+    assertEquals(merged.elements(), Sets.newHashSet("y"));
+
+    merged = merged.merge(merged.add("b", "x"));
+    assertTrue(merged.contains("x"));
+    assertTrue(merged.merge(a).merge(b).contains("x"));
+  }
+
+  /**
+   * Tests that removing an element only removes the adds that the removing replica observed.
+   */
+  public void testOrSetRemoveUnobservedAdd() throws Exception {
+    OrSet<String> a = new OrSet<>();
+    OrSet<String> b = new OrSet<>();
+    OrSet<String> addA = a.add("a", "x");
+    OrSet<String> addB = b.add("b", "x");
+    a = a.merge(addA);
+    b = b.merge(addB);
+
+    // Replica a removes x before observing b's add.
+    a = a.merge(a.remove("x"));
+    assertFalse(a.contains("x"));
+    assertTrue(a.merge(b).contains("x"));
+    assertEquals(a.merge(b).size(), 1);
+  }
+
+  /**
+   * Tests last-writer-wins register merges.
+   */
+  public void testLwwRegister() throws Exception {
+    Random random = new Random(6);
+    assertHistory(simulate(LwwRegister<Integer>::new, (replica, state) ->
+        state.set(replica, random.nextInt(10), state.timestamp() + random.nextInt(3))));
+  }
+
+  /**
+   * Tests that concurrent register writes with the same timestamp are resolved by replica.
+   */
+  public void testLwwRegisterTimestampTie() throws Exception {
+    LwwRegister<String> register = new LwwRegister<>();
+    LwwRegister<String> a = register.set("a", "foo", 10);
+    LwwRegister<String> b = register.set("b", "bar", 10);
+    assertEquals(a.merge(b).value(), "bar");
+    assertEquals(b.merge(a).value(), "bar");
+
+    LwwRegister<String> newer = register.set("a", "baz", 11);
+    assertEquals(b.merge(newer).value(), "baz");
+    assertEquals(newer.merge(b).value(), "baz");
+
+    LwwRegister<String> same = register.set("a", "qux", 10);
+    assertEquals(a.merge(same), same.merge(a));
+    assertEquals(a.merge(a), a);
+  }
+
+  /**
+   * Tests that register writes always supersede the write they were made from.
+   */
+  public void testLwwRegisterSet() throws Exception {
+    LwwRegister<String> register = new LwwRegister<String>().set("b", "foo", Long.MAX_VALUE - 1);
+    LwwRegister<String> write = register.set("a", "bar");
+    assertEquals(write.timestamp(), Long.MAX_VALUE);
+    assertEquals(register.merge(write).value(), "bar");
+  }
+}
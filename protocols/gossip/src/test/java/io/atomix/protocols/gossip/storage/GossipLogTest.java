@@ -0,0 +1,232 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip.storage;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import io.atomix.protocols.gossip.protocol.GossipUpdate;
+import io.atomix.serializer.Serializer;
+import io.atomix.serializer.kryo.KryoNamespace;
+import io.atomix.storage.StorageLevel;
+import io.atomix.storage.journal.JournalWriter;
+import io.atomix.storage.journal.SegmentedJournal;
+import io.atomix.time.LogicalTimestamp;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Gossip log test.
+ */
+@Test
+public class GossipLogTest {
+  private static final Path PATH = Paths.get("target/test-logs/gossip");
+  private static final Serializer SERIALIZER = Serializer.using(KryoNamespace.newBuilder()
+      .register(GossipUpdate.class)
+      .register(LogicalTimestamp.class)
+      .register(GossipLog.RemoveEntry.class)
+      .register(GossipLog.CheckpointEntry.class)
+      .build());
+  private static final int MAX_SEGMENT_SIZE = 4 * 1024;
+
+  @SuppressWarnings("unchecked")
+  private SegmentedJournal<Object> createJournal() {
+    return SegmentedJournal.newBuilder()
+        .withName("test")
+        .withStorageLevel(StorageLevel.DISK)
+        .withDirectory(PATH.toFile())
+        .withSerializer(SERIALIZER)
+        .withMaxSegmentSize(MAX_SEGMENT_SIZE)
+        .build();
+  }
+
+  private GossipLog<String, String> createLog() {
+    return new GossipLog<>(createJournal(), 1);
+  }
+
+  private static GossipUpdate<String, String> update(String subject, String value, long time) {
+    return new GossipUpdate<>(subject, value, new LogicalTimestamp(time));
+  }
+
+  private static void assertUpdate(GossipUpdate<String, String> update, String value, long time) {
+    assertEquals(update.value(), value);
+    assertEquals(update.timestamp(), new LogicalTimestamp(time));
+  }
+
+  private static long countSegments() throws IOException {
+    return Files.list(PATH).filter(file -> file.getFileName().toString().endsWith(".log")).count();
+  }
+
+  /**
+   * Tests recovering appended updates and removals.
+   */
+  public void testRecoverAppendsAndRemoves() throws Exception {
+    GossipLog<String, String> log = createLog();
+    assertTrue(log.recover().isEmpty());
+    log.append(update("a", "1", 1));
+    log.append(update("b", "2", 2));
+    log.append(update("a", "3", 3));
+    log.remove("b");
+    log.append(update("c", "4", 4));
+    log.close();
+
+    log = createLog();
+    Map<String, GossipUpdate<String, String>> updates = log.recover();
+    assertEquals(updates.size(), 2);
+    assertUpdate(updates.get("a"), "3", 3);
+    assertNull(updates.get("b"));
+    assertUpdate(updates.get("c"), "4", 4);
+    log.close();
+  }
+
+  /**
+   * Tests recovering updates from a checkpoint after the preceding segments have been compacted.
+   */
+  public void testRecoverCheckpoint() throws Exception {
+    GossipLog<String, String> log = createLog();
+    log.recover();
+    List<GossipUpdate<String, String>> live = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      GossipUpdate<String, String> update = update(String.valueOf(i % 10), String.valueOf(i), i + 1);
+      log.append(update);
+      if (i >= 990) {
+        live.add(update);
+      }
+    }
+    long segments = countSegments();
+    assertTrue(segments > 1);
+    assertTrue(log.shouldCheckpoint(live.size()));
+
+    log.checkpoint(live);
+    assertFalse(log.shouldCheckpoint(live.size()));
+    assertTrue(countSegments() < segments);
+    log.append(update("1", "after", 1001));
+    log.remove("2");
+    log.close();
+
+    log = createLog();
+    Map<String, GossipUpdate<String, String>> updates = log.recover();
+    assertEquals(updates.size(), 9);
+    assertUpdate(updates.get("0"), "990", 991);
+    assertUpdate(updates.get("1"), "after", 1001);
+    assertNull(updates.get("2"));
+    assertUpdate(updates.get("9"), "999", 1000);
+    log.close();
+  }
+
+  /**
+   * Tests that recovery truncates a checkpoint that was interrupted before all its updates were written.
+   */
+  public void testTruncateIncompleteCheckpoint() throws Exception {
+    SegmentedJournal<Object> journal = createJournal();
+    JournalWriter<Object> writer = journal.writer();
+    writer.append(update("a", "1", 1));
+    writer.append(update("b", "2", 2));
+    writer.append(new GossipLog.CheckpointEntry(3));
+    writer.append(update("a", "3", 3));
+    writer.flush();
+    journal.close();
+
+    GossipLog<String, String> log = createLog();
+    Map<String, GossipUpdate<String, String>> updates = log.recover();
+    assertEquals(updates.size(), 2);
+    assertUpdate(updates.get("a"), "1", 1);
+    assertUpdate(updates.get("b"), "2", 2);
+
+    // Entries appended after recovery must follow the entries preceding the truncated checkpoint.
+    log.append(update("c", "4", 4));
+    log.close();
+
+    log = createLog();
+    updates = log.recover();
+    assertEquals(updates.keySet(), Sets.newHashSet("a", "b", "c"));
+    assertUpdate(updates.get("a"), "1", 1);
+    assertUpdate(updates.get("c"), "4", 4);
+    log.close();
+  }
+
+  /**
+   * Tests recovering a checkpoint of updates that were purged while the checkpoint was being written.
+   */
+  public void testCheckpointConcurrentPurge() throws Exception {
+    GossipLog<String, String> log = createLog();
+    log.recover();
+    Map<String, GossipUpdate<String, String>> updates = Maps.newConcurrentMap();
+    for (int i = 0; i < 10000; i++) {
+      GossipUpdate<String, String> update = update(String.valueOf(i), String.valueOf(i), i + 1);
+      updates.put(update.subject(), update);
+      log.append(update);
+    }
+
+    CountDownLatch started = new CountDownLatch(1);
+    Thread purger = new Thread(() -> {
+      started.countDown();
+      for (int i = 0; i < 10000; i += 2) {
+        String subject = String.valueOf(i);
+        updates.remove(subject);
+        log.remove(subject);
+      }
+    });
+    purger.start();
+    started.await();
+    log.checkpoint(updates.values());
+    purger.join();
+    log.close();
+
+    GossipLog<String, String> recoveredLog = createLog();
+    Map<String, GossipUpdate<String, String>> recovered = recoveredLog.recover();
+    assertEquals(recovered.keySet(), updates.keySet());
+    assertEquals(recovered.size(), 5000);
+    recoveredLog.close();
+  }
+
+  @BeforeMethod
+  @AfterMethod
+  protected void cleanupStorage() throws IOException {
+    if (Files.exists(PATH)) {
+      Files.walkFileTree(PATH, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+          Files.delete(file);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+          Files.delete(dir);
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    }
+  }
+}
@@ -16,10 +16,13 @@
 package io.atomix.protocols.raft;
 
 import io.atomix.protocols.raft.cluster.MemberId;
+import io.atomix.protocols.raft.proxy.MemberStatistics;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * Strategies for managing how clients connect to and communicate with the cluster.
@@ -87,6 +90,36 @@ public enum CommunicationStrategies implements CommunicationStrategy {
       }
       return servers;
     }
+  },
+
+  /**
+   * The {@code FASTEST_FOLLOWERS} selection strategy connects the client to the fastest healthy follower. Followers
+   * are prioritized by the response latencies and error rates observed by the client, and the client periodically
+   * switches to a significantly faster follower. Followers with which the client has not yet communicated are
+   * prioritized to allow the client to observe them. Slow {@link RaftQuery.ConsistencyLevel#SEQUENTIAL sequential}
+   * queries are hedged to the next fastest follower.
+   * <p>
+   * This strategy should be used by clients that primarily submit sequential queries, as with the
+   * {@link #FOLLOWERS} strategy.
+   */
+  FASTEST_FOLLOWERS {
+    @Override
+    public List<MemberId> selectConnections(MemberId leader, List<MemberId> servers) {
+      return FOLLOWERS.selectConnections(leader, servers);
+    }
+
+    @Override
+    public List<MemberId> selectConnections(MemberId leader, List<MemberId> servers, Function<MemberId, MemberStatistics> statistics) {
+      List<MemberId> followers = FOLLOWERS.selectConnections(leader, servers);
+      followers.sort(Comparator.comparing(statistics, Comparator.nullsFirst(
+          Comparator.comparing(MemberStatistics::isHealthy).reversed().thenComparing(MemberStatistics::latency))));
+      return followers;
+    }
+
+    @Override
+    public boolean usesStatistics() {
+      return true;
+    }
   }
 
 }
@@ -16,8 +16,10 @@
 package io.atomix.protocols.raft;
 
 import io.atomix.protocols.raft.cluster.MemberId;
+import io.atomix.protocols.raft.proxy.MemberStatistics;
 
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * Strategy for selecting nodes to which to connect and submit operations.
@@ -46,4 +48,34 @@ public interface CommunicationStrategy {
    */
   List<MemberId> selectConnections(MemberId leader, List<MemberId> servers);
 
+  /**
+   * Returns a prioritized list of servers to which the client can connect based on observed member statistics.
+   * <p>
+   * Strategies that {@link #usesStatistics() use statistics} can prioritize servers by the latencies and error
+   * rates observed by the client. By default, statistics are ignored and the servers are selected by
+   * {@link #selectConnections(MemberId, List)}.
+   *
+   * @param leader     The current cluster leader. The {@code leader} may be {@code null} if no current
+   *                   leader exists.
+   * @param servers    The full list of available servers.
+   * @param statistics A function returning the statistics for a server, or {@code null} if the client has not
+   *                   yet communicated with the server.
+   * @return A collection of servers to which the client can connect.
+   */
+  default List<MemberId> selectConnections(MemberId leader, List<MemberId> servers, Function<MemberId, MemberStatistics> statistics) {
+    return selectConnections(leader, servers);
+  }
+
+  /**
+   * Returns a boolean indicating whether the strategy prioritizes servers by observed member statistics.
+   * <p>
+   * Clients re-evaluate the selection of statistics-based strategies periodically and hedge slow
+   * {@link RaftQuery.ConsistencyLevel#SEQUENTIAL sequential} queries to an alternate server.
+   *
+   * @return Indicates whether the strategy uses member statistics.
+   */
+  default boolean usesStatistics() {
+    return false;
+  }
+
 }
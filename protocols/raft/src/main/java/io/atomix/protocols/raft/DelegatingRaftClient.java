@@ -16,9 +16,11 @@
 package io.atomix.protocols.raft;
 
 import io.atomix.protocols.raft.cluster.MemberId;
+import io.atomix.protocols.raft.proxy.MemberStatistics;
 import io.atomix.protocols.raft.proxy.RaftProxy;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -43,6 +45,11 @@ public class DelegatingRaftClient implements RaftClient {
     return delegate.metadata();
   }
 
+  @Override
+  public Map<MemberId, MemberStatistics> statistics() {
+    return delegate.statistics();
+  }
+
   @Override
   public RaftProxy.Builder newProxyBuilder() {
     return delegate.newProxyBuilder();
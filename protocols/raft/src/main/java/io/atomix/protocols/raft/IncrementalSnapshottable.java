@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft;
+
+import io.atomix.protocols.raft.storage.RaftStorage;
+import io.atomix.protocols.raft.storage.snapshot.SnapshotReader;
+import io.atomix.protocols.raft.storage.snapshot.SnapshotWriter;
+
+/**
+ * Support for persisting incremental {@link RaftStateMachine} snapshots.
+ * <p>
+ * Incremental state machines track the state changed since their last snapshot, and rather than writing the complete
+ * state machine state on each snapshot, Raft will periodically invoke {@link #snapshotDelta(SnapshotWriter)} to write
+ * only the changed state. Delta snapshots are chained to the full snapshot preceding them, and once the chain reaches
+ * the configured {@link RaftStorage#maxSnapshotDeltas() maximum number of deltas}, a full snapshot is taken via
+ * {@link #snapshot(SnapshotWriter)} to replace the chain.
+ * <p>
+ * <pre>
+ *   {@code
+ *   public class MyStateMachine extends StateMachine implements IncrementalSnapshottable {
+ *     private final Map<String, String> map = new HashMap<>();
+ *     private final Set<String> dirty = new HashSet<>();
+ *
+ *     public void snapshot(SnapshotWriter writer) {
+ *       dirty.clear();
+ *       writer.writeObject(map);
+ *     }
+ *
+ *     public void snapshotDelta(SnapshotWriter writer) {
+ *       Map<String, String> changes = new HashMap<>();
+ *       dirty.forEach(key -> changes.put(key, map.get(key)));
+ *       dirty.clear();
+ *       writer.writeObject(changes);
+ *     }
+ *   }
+ *   }
+ * </pre>
+ * When a snapshot chain is installed, the full snapshot is installed via {@link #install(SnapshotReader)} and each
+ * delta is then installed in order via {@link #installDelta(SnapshotReader)}. State machines must reset the set of
+ * changed state whenever a full snapshot or delta is written or installed.
+ */
+public interface IncrementalSnapshottable extends Snapshottable {
+
+  /**
+   * Takes a snapshot of the state machine state changed since the last snapshot was taken or installed.
+   * <p>
+   * This method is called on the state machine thread. Once the delta has been written, the state machine should
+   * reset its set of changed state so the next delta contains only subsequent changes.
+   *
+   * @param writer The snapshot writer.
+   */
+  void snapshotDelta(SnapshotWriter writer);
+
+  /**
+   * Installs a delta snapshot of the state machine state.
+   * <p>
+   * Deltas are installed in order on top of the state installed from the full snapshot at the beginning of the chain
+   * and must apply precisely the changes written by {@link #snapshotDelta(SnapshotWriter)}.
+   *
+   * @param reader The snapshot reader.
+   */
+  void installDelta(SnapshotReader reader);
+
+}
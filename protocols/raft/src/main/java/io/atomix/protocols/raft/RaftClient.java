@@ -18,11 +18,13 @@ package io.atomix.protocols.raft;
 import io.atomix.protocols.raft.cluster.MemberId;
 import io.atomix.protocols.raft.impl.DefaultRaftClient;
 import io.atomix.protocols.raft.protocol.RaftClientProtocol;
+import io.atomix.protocols.raft.proxy.MemberStatistics;
 import io.atomix.protocols.raft.proxy.RaftProxy;
 
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
@@ -90,6 +92,13 @@ public interface RaftClient {
    */
   RaftMetadataClient metadata();
 
+  /**
+   * Returns the request statistics observed by the client for each member of the cluster.
+   *
+   * @return The request statistics for each member with which the client has communicated.
+   */
+  Map<MemberId, MemberStatistics> statistics();
+
   /**
    * Returns a new proxy builder.
    *
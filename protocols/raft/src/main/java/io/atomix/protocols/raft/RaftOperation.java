@@ -16,13 +16,38 @@
 package io.atomix.protocols.raft;
 
 import java.io.Serializable;
+import java.util.function.Function;
 
 /**
  * Base type for Raft state operations.
+ * <p>
+ * Operations may declare a compact {@link #opcode() op-code} which is sent along with the serialized operation
+ * and logged with it. State machines that {@link StateMachineExecutor#register(int, Class, Function) register}
+ * callbacks under the same op-code dispatch the operation by indexing an array rather than looking up the
+ * operation type.
  *
  * @param <T> operation result type
  * @see RaftCommand
  * @see RaftQuery
  */
 public interface RaftOperation<T> extends Serializable {
+
+  /**
+   * Indicates that an operation has no op-code and is dispatched by type.
+   */
+  int NO_OPCODE = 0;
+
+  /**
+   * Returns the operation op-code.
+   * <p>
+   * Op-codes must be positive and should be small, as state machines dispatch operations through an array
+   * indexed by op-code. The op-code must match the op-code under which the operation callback is registered
+   * in the state machine.
+   *
+   * @return The operation op-code, or {@link #NO_OPCODE} if the operation is dispatched by type.
+   */
+  default int opcode() {
+    return NO_OPCODE;
+  }
+
 }
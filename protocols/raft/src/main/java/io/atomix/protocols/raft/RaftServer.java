@@ -23,6 +23,7 @@ import io.atomix.protocols.raft.impl.RaftStateMachineRegistry;
 import io.atomix.protocols.raft.protocol.RaftServerProtocol;
 import io.atomix.protocols.raft.storage.RaftStorage;
 import io.atomix.protocols.raft.storage.log.RaftLog;
+import io.atomix.protocols.raft.storage.snapshot.SnapshotMetrics;
 import io.atomix.storage.StorageLevel;
 
 import java.time.Duration;
@@ -294,6 +295,15 @@ public interface RaftServer {
    */
   void removeRoleChangeListener(Consumer<Role> listener);
 
+  /**
+   * Returns the server's snapshot and log compaction metrics.
+   * <p>
+   * The metrics record the decisions made by the snapshot policy configured via the server's {@link RaftStorage}.
+   *
+   * @return The server's snapshot metrics.
+   */
+  SnapshotMetrics snapshotMetrics();
+
   /**
    * Bootstraps a single-node cluster.
    * <p>
@@ -25,7 +25,9 @@ import io.atomix.time.LogicalClock;
 import io.atomix.time.WallClock;
 import io.atomix.utils.concurrent.Scheduler;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
@@ -162,7 +164,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * For snapshottable state machines, Raft will periodically request a {@link io.atomix.protocols.raft.storage.snapshot.Snapshot Snapshot}
  * of the state machine's state by calling the {@link Snapshottable#snapshot(io.atomix.protocols.raft.storage.snapshot.SnapshotWriter)}
  * method. Once the state machine has written a snapshot of its state, Raft will automatically remove all commands
- * associated with the state machine from the underlying log.
+ * associated with the state machine from the underlying log. State machines with large state can avoid blocking
+ * operations while a snapshot is written by capturing an immutable view of their state in
+ * {@link Snapshottable#captureSnapshot()}, in which case the view will be written to the snapshot asynchronously.
  *
  * @see RaftCommit
  * @see StateMachineContext
@@ -372,13 +376,12 @@ public abstract class RaftStateMachine implements Snapshottable {
    * Wraps a void method.
    */
   private Consumer wrapVoidMethod(Method method) {
+    MethodHandle handle = unreflect(method).asType(MethodType.methodType(void.class, RaftCommit.class));
     return c -> {
       try {
-        method.invoke(this, c);
-      } catch (InvocationTargetException e) {
+        handle.invokeExact((RaftCommit) c);
+      } catch (Throwable e) {
         throw new CommandException(e);
-      } catch (IllegalAccessException e) {
-        throw new AssertionError(e);
       }
     };
   }
@@ -395,15 +398,29 @@ public abstract class RaftStateMachine implements Snapshottable {
    * Wraps a value method.
    */
   private Function wrapValueMethod(Method method) {
+    MethodHandle handle = unreflect(method).asType(MethodType.methodType(Object.class, RaftCommit.class));
     return c -> {
       try {
-        return method.invoke(this, c);
-      } catch (InvocationTargetException e) {
+        return (Object) handle.invokeExact((RaftCommit) c);
+      } catch (Throwable e) {
         throw new CommandException(e);
-      } catch (IllegalAccessException e) {
-        throw new AssertionError(e);
       }
     };
   }
 
+  /**
+   * Returns a method handle for the given operation method bound to this state machine.
+   * <p>
+   * Method handles are resolved once when operations are registered so operations can be invoked without the
+   * access checks and argument boxing of reflective calls.
+   */
+  private MethodHandle unreflect(Method method) {
+    try {
+      method.setAccessible(true);
+      return MethodHandles.lookup().unreflect(method).bindTo(this);
+    } catch (IllegalAccessException e) {
+      throw new AssertionError(e);
+    }
+  }
+
 }
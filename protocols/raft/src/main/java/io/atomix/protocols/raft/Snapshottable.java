@@ -19,6 +19,8 @@ import io.atomix.protocols.raft.storage.log.RaftLog;
 import io.atomix.protocols.raft.storage.snapshot.SnapshotReader;
 import io.atomix.protocols.raft.storage.snapshot.SnapshotWriter;
 
+import java.util.function.Consumer;
+
 /**
  * Support for periodically persisting {@link RaftStateMachine} snapshots to disk.
  * <p>
@@ -63,6 +65,23 @@ import io.atomix.protocols.raft.storage.snapshot.SnapshotWriter;
  * and other commands, and state machine implementations should take care not to overwrite non-snapshot command
  * state with snapshots. For simpler state machines, <em>users should use either snapshotting or log cleaning
  * but not both</em>.
+ * <p>
+ * By default, snapshots are written on the state machine thread, and no operations can be applied to the state machine
+ * until the snapshot has been written in full. State machines with large state can instead capture a cheap immutable
+ * view of their state via {@link #captureSnapshot()} and have the view written to the snapshot asynchronously:
+ * <p>
+ * <pre>
+ *   {@code
+ *   public class MyStateMachine extends StateMachine implements Snapshottable {
+ *     private ImmutableMap<String, String> map = ImmutableMap.of();
+ *
+ *     public Consumer<SnapshotWriter> captureSnapshot() {
+ *       ImmutableMap<String, String> view = map;
+ *       return writer -> writer.writeObject(view);
+ *     }
+ *   }
+ *   }
+ * </pre>
  */
 public interface Snapshottable {
 
@@ -82,6 +101,22 @@ public interface Snapshottable {
    */
   void snapshot(SnapshotWriter writer);
 
+  /**
+   * Captures a point-in-time view of the state machine state to be written to a snapshot asynchronously.
+   * <p>
+   * This method will be called on the state machine thread in place of {@link #snapshot(SnapshotWriter)}. The
+   * returned consumer will be called on a background snapshot thread while the state machine continues to apply
+   * operations, so it must only access state that will not be modified by subsequent operations, e.g. a persistent
+   * data structure or a copy-on-write handle captured by this method. If {@code null} is returned, the snapshot
+   * will instead be written synchronously via {@link #snapshot(SnapshotWriter)}.
+   *
+   * @return A consumer with which to write the captured state to the snapshot, or {@code null} to write the
+   * snapshot synchronously.
+   */
+  default Consumer<SnapshotWriter> captureSnapshot() {
+    return null;
+  }
+
   /**
    * Installs a snapshot of the state machine state.
    * <p>
@@ -104,6 +104,40 @@ public interface StateMachineExecutor extends ThreadContext {
    */
   <T extends RaftOperation<U>, U> StateMachineExecutor register(Class<T> type, Function<RaftCommit<T>, U> callback);
 
+  /**
+   * Registers a void operation callback under the given op-code.
+   * <p>
+   * Operations submitted with the given {@link RaftOperation#opcode() op-code} are dispatched directly to the
+   * callback without looking up the operation type. Operations of {@code type} submitted without an op-code
+   * are still dispatched to the callback by type.
+   *
+   * @param opcode   The operation op-code.
+   * @param type     The operation type.
+   * @param callback The operation callback.
+   * @param <T>      The operation type.
+   * @return The state machine executor.
+   * @throws NullPointerException if {@code type} or {@code callback} are null
+   * @throws IllegalArgumentException if {@code opcode} is not positive
+   */
+  <T extends RaftOperation<Void>> StateMachineExecutor register(int opcode, Class<T> type, Consumer<RaftCommit<T>> callback);
+
+  /**
+   * Registers an operation callback under the given op-code.
+   * <p>
+   * Operations submitted with the given {@link RaftOperation#opcode() op-code} are dispatched directly to the
+   * callback without looking up the operation type. Operations of {@code type} submitted without an op-code
+   * are still dispatched to the callback by type.
+   *
+   * @param opcode   The operation op-code.
+   * @param type     The operation type.
+   * @param callback The operation callback.
+   * @param <T>      The operation type.
+   * @return The state machine executor.
+   * @throws NullPointerException if {@code type} or {@code callback} are null
+   * @throws IllegalArgumentException if {@code opcode} is not positive
+   */
+  <T extends RaftOperation<U>, U> StateMachineExecutor register(int opcode, Class<T> type, Function<RaftCommit<T>, U> callback);
+
   @Override
   default void close() {
   }
@@ -17,6 +17,9 @@ package io.atomix.protocols.raft.cluster.impl;
 
 import io.atomix.protocols.raft.storage.log.RaftLog;
 import io.atomix.protocols.raft.storage.log.RaftLogReader;
+import io.atomix.protocols.raft.storage.snapshot.Snapshot;
+import io.atomix.protocols.raft.storage.snapshot.SnapshotReader;
+import io.atomix.serializer.Serializer;
 import io.atomix.utils.concurrent.ThreadContext;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -32,6 +35,7 @@ public final class RaftMemberContext {
   private final ThreadContext context;
   private long term;
   private long configIndex;
+  private long snapshotIndex;
   private long nextSnapshotIndex;
   private int nextSnapshotOffset;
   private long matchIndex;
@@ -45,6 +49,9 @@ public final class RaftMemberContext {
   private boolean installing;
   private volatile int failures;
   private volatile RaftLogReader reader;
+  private Snapshot snapshot;
+  private SnapshotReader snapshotReader;
+  private int snapshotReaderStart;
   private final TimeBuffer timeBuffer = new TimeBuffer(8);
 
   RaftMemberContext(DefaultRaftMember member, RaftClusterContext cluster, ThreadContext context) {
@@ -58,6 +65,7 @@ public final class RaftMemberContext {
   public void resetState(RaftLog log) {
     nextSnapshotIndex = 0;
     nextSnapshotOffset = 0;
+    closeSnapshotReader();
     matchIndex = 0;
     nextIndex = log.writer().getLastIndex() + 1;
     heartbeatTime = 0;
@@ -142,6 +150,24 @@ public final class RaftMemberContext {
     this.configIndex = configIndex;
   }
 
+  /**
+   * Returns the index of the last snapshot installed on the member.
+   *
+   * @return The index of the last snapshot installed on the member.
+   */
+  public long getSnapshotIndex() {
+    return snapshotIndex;
+  }
+
+  /**
+   * Sets the index of the last snapshot installed on the member.
+   *
+   * @param snapshotIndex The index of the last snapshot installed on the member.
+   */
+  public void setSnapshotIndex(long snapshotIndex) {
+    this.snapshotIndex = snapshotIndex;
+  }
+
   /**
    * Returns the member's next snapshot index.
    *
@@ -178,6 +204,40 @@ public final class RaftMemberContext {
     this.nextSnapshotOffset = nextSnapshotOffset;
   }
 
+  /**
+   * Returns a reader for the given snapshot positioned at the given offset.
+   * <p>
+   * The reader is retained between calls so that a snapshot installed on the member in chunks is read once. A new
+   * reader is only opened if the snapshot changes or the offset is not the reader's current position, e.g. when an
+   * install is restarted.
+   *
+   * @param snapshot The snapshot being installed on the member.
+   * @param offset The offset in bytes from which to read the snapshot.
+   * @param serializer The serializer with which to open the reader.
+   * @return The snapshot reader.
+   */
+  public SnapshotReader getSnapshotReader(Snapshot snapshot, int offset, Serializer serializer) {
+    if (snapshotReader == null || this.snapshot != snapshot || snapshotReader.position() - snapshotReaderStart != offset) {
+      closeSnapshotReader();
+      this.snapshot = snapshot;
+      this.snapshotReader = snapshot.openReader(serializer);
+      this.snapshotReaderStart = snapshotReader.position();
+      snapshotReader.skip(offset);
+    }
+    return snapshotReader;
+  }
+
+  /**
+   * Closes the reader for the snapshot being installed on the member, if any.
+   */
+  public void closeSnapshotReader() {
+    if (snapshotReader != null) {
+      snapshotReader.close();
+      snapshotReader = null;
+      snapshot = null;
+    }
+  }
+
   /**
    * Returns the member's match index.
    *
@@ -20,12 +20,14 @@ import io.atomix.protocols.raft.RaftClient;
 import io.atomix.protocols.raft.RaftMetadataClient;
 import io.atomix.protocols.raft.cluster.MemberId;
 import io.atomix.protocols.raft.protocol.RaftClientProtocol;
+import io.atomix.protocols.raft.proxy.MemberStatistics;
 import io.atomix.protocols.raft.proxy.RaftProxy;
 import io.atomix.protocols.raft.proxy.impl.NodeSelectorManager;
 import io.atomix.protocols.raft.proxy.impl.RaftProxyManager;
 import io.atomix.utils.concurrent.ThreadPoolContext;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -69,6 +71,11 @@ public class DefaultRaftClient implements RaftClient {
     return metadata;
   }
 
+  @Override
+  public Map<MemberId, MemberStatistics> statistics() {
+    return selectorManager.statistics();
+  }
+
   @Override
   public synchronized CompletableFuture<RaftClient> connect(Collection<MemberId> cluster) {
     CompletableFuture<RaftClient> future = new CompletableFuture<>();
@@ -120,7 +127,7 @@ public class DefaultRaftClient implements RaftClient {
   private class SessionBuilder extends RaftProxy.Builder {
     @Override
     public RaftProxy build() {
-      return sessionManager.openSession(name, type, communicationStrategy, serializer, executor, timeout).join();
+      return sessionManager.openSession(name, type, communicationStrategy, serializer, executor, timeout, batchSize, batchLinger, sharedSession).join();
     }
   }
 
@@ -25,6 +25,7 @@ import io.atomix.protocols.raft.cluster.RaftMember;
 import io.atomix.protocols.raft.error.ConfigurationException;
 import io.atomix.protocols.raft.protocol.RaftServerProtocol;
 import io.atomix.protocols.raft.storage.RaftStorage;
+import io.atomix.protocols.raft.storage.snapshot.SnapshotMetrics;
 import io.atomix.utils.concurrent.Futures;
 
 import java.util.Arrays;
@@ -85,6 +86,11 @@ public class DefaultRaftServer implements RaftServer {
     context.removeStateChangeListener(listener);
   }
 
+  @Override
+  public SnapshotMetrics snapshotMetrics() {
+    return context.getSnapshotMetrics();
+  }
+
   @Override
   public CompletableFuture<RaftServer> bootstrap() {
     return bootstrap(Collections.EMPTY_LIST);
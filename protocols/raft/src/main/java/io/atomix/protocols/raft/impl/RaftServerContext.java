@@ -39,6 +39,7 @@ import io.atomix.protocols.raft.storage.RaftStorage;
 import io.atomix.protocols.raft.storage.log.RaftLog;
 import io.atomix.protocols.raft.storage.log.RaftLogReader;
 import io.atomix.protocols.raft.storage.log.RaftLogWriter;
+import io.atomix.protocols.raft.storage.snapshot.SnapshotMetrics;
 import io.atomix.protocols.raft.storage.snapshot.SnapshotStore;
 import io.atomix.protocols.raft.storage.system.MetaStore;
 import io.atomix.utils.concurrent.SingleThreadContext;
@@ -83,6 +84,7 @@ public class RaftServerContext implements AutoCloseable {
   private RaftLogWriter writer;
   private RaftLogReader reader;
   private SnapshotStore snapshot;
+  private final SnapshotMetrics snapshotMetrics = new SnapshotMetrics();
   private RaftServerStateMachineManager stateMachine;
   protected final ScheduledExecutorService threadPool;
   protected final ThreadContext stateContext;
@@ -532,6 +534,15 @@ public class RaftServerContext implements AutoCloseable {
     return snapshot;
   }
 
+  /**
+   * Returns the server snapshot metrics.
+   *
+   * @return The server snapshot metrics.
+   */
+  public SnapshotMetrics getSnapshotMetrics() {
+    return snapshotMetrics;
+  }
+
   /**
    * Checks that the current thread is the state context thread.
    */
@@ -18,6 +18,7 @@ package io.atomix.protocols.raft.impl;
 
 import io.atomix.logging.Logger;
 import io.atomix.logging.LoggerFactory;
+import io.atomix.protocols.raft.IncrementalSnapshottable;
 import io.atomix.protocols.raft.RaftCommand;
 import io.atomix.protocols.raft.RaftCommit;
 import io.atomix.protocols.raft.RaftOperation;
@@ -31,7 +32,9 @@ import io.atomix.protocols.raft.session.RaftSessionListener;
 import io.atomix.protocols.raft.session.SessionId;
 import io.atomix.protocols.raft.session.impl.RaftSessionContext;
 import io.atomix.protocols.raft.session.impl.RaftSessionManager;
+import io.atomix.protocols.raft.storage.RaftStorage;
 import io.atomix.protocols.raft.storage.snapshot.Snapshot;
+import io.atomix.protocols.raft.storage.snapshot.SnapshotMetrics;
 import io.atomix.protocols.raft.storage.snapshot.SnapshotReader;
 import io.atomix.protocols.raft.storage.snapshot.SnapshotWriter;
 import io.atomix.protocols.raft.storage.snapshot.StateMachineId;
@@ -42,6 +45,7 @@ import io.atomix.utils.concurrent.ThreadContext;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -52,6 +56,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
@@ -60,7 +65,6 @@ import static com.google.common.base.Preconditions.checkState;
  */
 public class RaftServerStateMachineExecutor implements StateMachineExecutor {
   private static final Logger LOGGER = LoggerFactory.getLogger(RaftServerStateMachineExecutor.class);
-  private static final long SNAPSHOT_INTERVAL_MILLIS = 1000 * 60 * 10;
 
   private final RaftStateMachine stateMachine;
   private final RaftServerContext server;
@@ -71,10 +75,16 @@ public class RaftServerStateMachineExecutor implements StateMachineExecutor {
   private final Queue<Runnable> tasks = new LinkedList<>();
   private final List<ServerScheduledTask> scheduledTasks = new ArrayList<>();
   private final List<ServerScheduledTask> complete = new ArrayList<>();
-  private final Map<Class, Function> operations = new HashMap<>();
+  private final Map<Class<?>, OperationHandler> operations = new HashMap<>();
+  private OperationHandler[] opcodeOperations = new OperationHandler[0];
   private volatile Snapshot pendingSnapshot;
+  private volatile boolean snapshotting;
   private long snapshotTime;
   private long snapshotIndex;
+  private long lastIndex;
+  private long entriesSinceSnapshot;
+  private long commandsSinceSnapshot;
+  private long bytesSinceSnapshot;
   private long timestamp;
 
   RaftServerStateMachineExecutor(StateMachineId id, String name, String type, RaftStateMachine stateMachine, RaftServerContext server, RaftSessionManager sessionManager, ThreadContext stateMachineExecutor, ThreadContext snapshotExecutor) {
@@ -166,6 +176,7 @@ public class RaftServerStateMachineExecutor implements StateMachineExecutor {
 
     // Expire sessions that have timed out.
     expireSessions(index, this.timestamp);
+    lastIndex = index;
   }
 
   /**
@@ -196,33 +207,196 @@ public class RaftServerStateMachineExecutor implements StateMachineExecutor {
     }
   }
 
+  /**
+   * Records an entry applied to the state machine for the snapshot policy.
+   */
+  private void recordEntry() {
+    entriesSinceSnapshot++;
+  }
+
+  /**
+   * Records a command applied to the state machine for the snapshot policy.
+   */
+  private void recordCommand(int bytes) {
+    entriesSinceSnapshot++;
+    commandsSinceSnapshot++;
+    bytesSinceSnapshot += bytes;
+    server.getSnapshotMetrics().recordWrite(bytes);
+  }
+
+  /**
+   * Checks the storage snapshot policy, taking a snapshot at the given index if necessary.
+   * <p>
+   * The policy is checked periodically by the state machine manager rather than as entries are applied, so state
+   * machines to which only keep-alives are applied are snapshotted too. The given index must be unique to this
+   * state machine, and no entries may be applied to the state machine between its last applied entry and the index.
+   *
+   * @param index The index at which to take the snapshot.
+   */
+  void checkSnapshot(long index) {
+    stateMachineExecutor.execute(() -> {
+      if (pendingSnapshot != null) {
+        maybeCompleteSnapshot(index);
+      }
+      maybeTakeSnapshot(index, timestamp);
+    });
+  }
+
+  /**
+   * Returns the trigger for a new snapshot according to the storage snapshot policy.
+   *
+   * @return The snapshot trigger or {@code null} if no snapshot should be taken.
+   */
+  private SnapshotMetrics.Trigger getSnapshotTrigger() {
+    RaftStorage storage = server.getStorage();
+    SnapshotMetrics metrics = server.getSnapshotMetrics();
+
+    // Size and disk based triggers wait for the pending snapshot to be completed before taking another snapshot.
+    if (pendingSnapshot == null) {
+      if (storage.snapshotEntryThreshold() > 0 && entriesSinceSnapshot >= storage.snapshotEntryThreshold()) {
+        return SnapshotMetrics.Trigger.ENTRIES;
+      }
+      if (storage.snapshotSizeThreshold() > 0 && bytesSinceSnapshot >= storage.snapshotSizeThreshold()) {
+        return SnapshotMetrics.Trigger.SIZE;
+      }
+      if (entriesSinceSnapshot > 0 && metrics.isDiskPressure()) {
+        return SnapshotMetrics.Trigger.DISK_PRESSURE;
+      }
+    }
+
+    // Once the snapshot interval has elapsed, only take a snapshot if commands have been applied in the meantime.
+    // The snapshot time starts at zero, so the first command applied to the state machine is always snapshotted.
+    long currentTime = System.currentTimeMillis();
+    long interval = storage.snapshotInterval().toMillis();
+    if (currentTime - snapshotTime > interval) {
+      if (commandsSinceSnapshot > 0) {
+        return SnapshotMetrics.Trigger.INTERVAL;
+      }
+      metrics.recordSkippedSnapshot();
+      snapshotTime = currentTime;
+    }
+
+    // While the write rate is above the rate threshold, shorten the interval by the ratio of the rate to the threshold.
+    long rateThreshold = storage.snapshotRateThreshold();
+    double writeRate = metrics.getWriteRate();
+    if (pendingSnapshot == null && rateThreshold > 0 && writeRate > rateThreshold && commandsSinceSnapshot > 0
+        && (currentTime - snapshotTime) * writeRate >= (double) interval * rateThreshold) {
+      return SnapshotMetrics.Trigger.RATE;
+    }
+    return null;
+  }
+
   /**
    * Takes a snapshot of the state machine.
    */
   private synchronized void maybeTakeSnapshot(long index, long timestamp) {
-    if (pendingSnapshot == null && snapshotTime == 0 || System.currentTimeMillis() - snapshotTime > SNAPSHOT_INTERVAL_MILLIS) {
-      LOGGER.info("{} - Taking snapshot {}", server.getCluster().getMember().memberId(), index);
+    // If a snapshot is still being written asynchronously, wait for it to be persisted before taking another.
+    if (snapshotting) {
+      return;
+    }
+
+    SnapshotMetrics.Trigger trigger = getSnapshotTrigger();
+    if (trigger != null) {
+      LOGGER.info("{} - Taking snapshot {} ({})", server.getCluster().getMember().memberId(), index, trigger);
+      server.getSnapshotMetrics().recordSnapshot(trigger);
+      entriesSinceSnapshot = 0;
+      commandsSinceSnapshot = 0;
+      bytesSinceSnapshot = 0;
       context.update(index, timestamp, RaftServerStateMachineContext.Type.SNAPSHOT);
-      pendingSnapshot = server.getSnapshotStore()
-          .newTemporarySnapshot(context.stateMachineId(), index, WallClockTimestamp.from(timestamp));
-      try (SnapshotWriter writer = pendingSnapshot.openWriter(serializer())) {
-        writer.writeInt(sessions.getSessions().size());
-        for (RaftSessionContext session : sessions.getSessions()) {
-          writer.writeLong(session.sessionId().id());
-          writer.writeLong(session.getTimeout());
-          writer.writeLong(session.getTimestamp());
-        }
-        stateMachine.snapshot(writer);
+
+      // If the state machine supports delta snapshots, write a delta based on the latest snapshot if possible.
+      Snapshot baseSnapshot = getDeltaBase();
+      long baseIndex = baseSnapshot != null ? baseSnapshot.index() : 0;
+      if (baseSnapshot != null) {
+        server.getSnapshotMetrics().recordDeltaSnapshot();
+      }
+
+      Snapshot snapshot = server.getSnapshotStore()
+          .newTemporarySnapshot(context.stateMachineId(), index, baseIndex, WallClockTimestamp.from(timestamp));
+      SnapshotWriter writer = snapshot.openWriter(serializer());
+
+      // Session state is owned by the state machine thread, so always write sessions synchronously.
+      writer.writeInt(sessions.getSessions().size());
+      for (RaftSessionContext session : sessions.getSessions()) {
+        writer.writeLong(session.sessionId().id());
+        writer.writeString(session.getMemberId().id());
+        writer.writeLong(session.getTimeout());
+        writer.writeLong(session.getTimestamp());
       }
-      snapshotTime = System.currentTimeMillis();
 
-      snapshotExecutor.execute(() -> {
-        synchronized (this) {
-          if (pendingSnapshot != null) {
-            pendingSnapshot = pendingSnapshot.persist();
+      // If the state machine can capture an immutable view of its state, write the view to the snapshot
+      // in the snapshot thread to avoid blocking the application of operations while the snapshot is written.
+      Consumer<SnapshotWriter> snapshotView = baseSnapshot == null ? stateMachine.captureSnapshot() : null;
+      snapshotTime = System.currentTimeMillis();
+      if (snapshotView == null) {
+        try {
+          if (baseSnapshot != null) {
+            ((IncrementalSnapshottable) stateMachine).snapshotDelta(writer);
+          } else {
+            stateMachine.snapshot(writer);
           }
+        } finally {
+          writer.close();
         }
-      });
+        pendingSnapshot = snapshot;
+
+        snapshotExecutor.execute(() -> {
+          synchronized (this) {
+            if (pendingSnapshot != null) {
+              pendingSnapshot = pendingSnapshot.persist();
+            }
+          }
+        });
+      } else {
+        snapshotting = true;
+        snapshotExecutor.execute(() -> writeSnapshot(snapshot, writer, snapshotView));
+      }
+    }
+  }
+
+  /**
+   * Returns the snapshot on which to base a delta snapshot.
+   * <p>
+   * A delta can only be taken if the latest stored snapshot is the last snapshot taken or installed by this
+   * executor, since the state machine tracks changes relative to that snapshot.
+   *
+   * @return The base snapshot or {@code null} if a full snapshot must be taken.
+   */
+  private Snapshot getDeltaBase() {
+    if (!(stateMachine instanceof IncrementalSnapshottable) || pendingSnapshot != null) {
+      return null;
+    }
+
+    // Once the chain reaches the maximum number of deltas, take a full snapshot to replace the chain.
+    List<Snapshot> chain = server.getSnapshotStore().getSnapshotChain(context.stateMachineId());
+    if (chain.isEmpty() || chain.size() > server.getStorage().maxSnapshotDeltas()) {
+      return null;
+    }
+
+    Snapshot snapshot = chain.get(chain.size() - 1);
+    return snapshot.index() == snapshotIndex ? snapshot : null;
+  }
+
+  /**
+   * Writes a captured state machine view to the given snapshot in the snapshot thread.
+   */
+  private void writeSnapshot(Snapshot snapshot, SnapshotWriter writer, Consumer<SnapshotWriter> snapshotView) {
+    try {
+      try {
+        snapshotView.accept(writer);
+      } finally {
+        writer.close();
+      }
+      Snapshot persistedSnapshot = snapshot.persist();
+      synchronized (this) {
+        pendingSnapshot = persistedSnapshot;
+      }
+    } catch (Exception e) {
+      LOGGER.warn("{} - Failed to write snapshot {}: {}", server.getCluster().getMember().memberId(), snapshot.index(), e);
+      snapshot.close();
+      snapshot.delete();
+    } finally {
+      snapshotting = false;
     }
   }
 
@@ -255,35 +429,56 @@ public class RaftServerStateMachineExecutor implements StateMachineExecutor {
    * Installs a snapshot if one exists.
    */
   private void maybeInstallSnapshot(long index) {
-    Snapshot snapshot = server.getSnapshotStore().getSnapshotById(context.stateMachineId());
-    if (snapshot != null && snapshot.index() > snapshotIndex && snapshot.index() <= index) {
+    List<Snapshot> chain = server.getSnapshotStore().getSnapshotChain(context.stateMachineId());
+    Snapshot snapshot = !chain.isEmpty() ? chain.get(chain.size() - 1) : null;
+
+    // The snapshot includes the entry at the snapshot index, so it's installed before applying a later entry.
+    // Snapshots older than the last applied entry are skipped to avoid rolling back the state machine.
+    if (snapshot != null && snapshot.index() > snapshotIndex && snapshot.index() >= lastIndex && snapshot.index() < index) {
       LOGGER.info("{} - Installing snapshot {}", server.getCluster().getMember().memberId(), snapshot.index());
-      try (SnapshotReader reader = snapshot.openReader(serializer())) {
-        int sessionCount = reader.readInt();
-        sessions.clear();
-        for (int i = 0; i < sessionCount; i++) {
-          SessionId sessionId = SessionId.from(reader.readLong());
-          MemberId node = MemberId.from(reader.readString());
-          long sessionTimeout = reader.readLong();
-          long sessionTimestamp = reader.readLong();
-          RaftSessionContext session = new RaftSessionContext(
-              sessionId,
-              node,
-              context.name(),
-              context.typeName(),
-              sessionTimeout,
-              this,
-              server);
-          session.setTimestamp(sessionTimestamp);
-          session.setLastApplied(snapshot.index());
-          sessions.add(session);
-        }
-        stateMachine.install(reader);
+
+      // Install the full snapshot at the beginning of the chain followed by each delta in order.
+      for (Snapshot chainSnapshot : chain) {
+        installSnapshot(chainSnapshot);
       }
       snapshotIndex = snapshot.index();
     }
   }
 
+  /**
+   * Installs a single snapshot from a snapshot chain.
+   */
+  private void installSnapshot(Snapshot snapshot) {
+    checkState(!snapshot.isDelta() || stateMachine instanceof IncrementalSnapshottable,
+        "cannot install delta snapshot to non-incremental state machine");
+    try (SnapshotReader reader = snapshot.openReader(serializer())) {
+      int sessionCount = reader.readInt();
+      sessions.clear();
+      for (int i = 0; i < sessionCount; i++) {
+        SessionId sessionId = SessionId.from(reader.readLong());
+        MemberId node = MemberId.from(reader.readString());
+        long sessionTimeout = reader.readLong();
+        long sessionTimestamp = reader.readLong();
+        RaftSessionContext session = new RaftSessionContext(
+            sessionId,
+            node,
+            context.name(),
+            context.typeName(),
+            sessionTimeout,
+            this,
+            server);
+        session.setTimestamp(sessionTimestamp);
+        session.setLastApplied(snapshot.index());
+        sessions.add(session);
+      }
+      if (snapshot.isDelta()) {
+        ((IncrementalSnapshottable) stateMachine).installDelta(reader);
+      } else {
+        stateMachine.install(reader);
+      }
+    }
+  }
+
   /**
    * Registers the given session.
    *
@@ -306,6 +501,7 @@ public class RaftServerStateMachineExecutor implements StateMachineExecutor {
 
       // Add the session to the sessions list.
       sessions.add(session);
+      recordEntry();
 
       // Iterate through and invoke session listeners.
       for (RaftSessionListener listener : sessions.getListeners()) {
@@ -369,6 +565,7 @@ public class RaftServerStateMachineExecutor implements StateMachineExecutor {
 
       // Commit the index, causing events to be sent to clients if necessary.
       commit();
+      recordEntry();
 
       // Complete the future.
       future.complete(null);
@@ -401,6 +598,7 @@ public class RaftServerStateMachineExecutor implements StateMachineExecutor {
 
       // Close the session.
       session.close();
+      recordEntry();
 
       // Iterate through and invoke session listeners.
       for (RaftSessionListener listener : sessions.getListeners()) {
@@ -426,16 +624,16 @@ public class RaftServerStateMachineExecutor implements StateMachineExecutor {
    * @param bytes     The command to execute.
    * @return A future to be completed with the command result.
    */
-  CompletableFuture<RaftOperationResult> executeCommand(long index, long sequence, long timestamp, RaftSessionContext session, byte[] bytes) {
+  CompletableFuture<RaftOperationResult> executeCommand(long index, long sequence, long timestamp, RaftSessionContext session, int opcode, byte[] bytes) {
     CompletableFuture<RaftOperationResult> future = new CompletableFuture<>();
-    stateMachineExecutor.execute(() -> executeCommand(index, sequence, timestamp, session, bytes, future));
+    stateMachineExecutor.execute(() -> executeCommand(index, sequence, timestamp, session, opcode, bytes, future));
     return future;
   }
 
   /**
    * Executes a command on the state machine thread.
    */
-  private void executeCommand(long index, long sequence, long timestamp, RaftSessionContext session, byte[] bytes, CompletableFuture<RaftOperationResult> future) {
+  private void executeCommand(long index, long sequence, long timestamp, RaftSessionContext session, int opcode, byte[] bytes, CompletableFuture<RaftOperationResult> future) {
     // Update the session's timestamp to prevent it from being expired.
     session.setTimestamp(timestamp);
 
@@ -459,14 +657,14 @@ public class RaftServerStateMachineExecutor implements StateMachineExecutor {
     else {
       // Execute the command in the state machine thread. Once complete, the CompletableFuture callback will be completed
       // in the state machine thread. Register the result in that thread and then complete the future in the caller's thread.
-      applyCommand(index, sequence, timestamp, bytes, session, future);
+      applyCommand(index, sequence, timestamp, opcode, bytes, session, future);
 
       // Update the session timestamp and command sequence number. This is done in the caller's thread since all
       // timestamp/index/sequence checks are done in this thread prior to executing operations on the state machine thread.
       session.setCommandSequence(sequence);
 
-      // Take a snapshot if the command count has surpassed the snapshot command count.
-      maybeTakeSnapshot(index, timestamp);
+      // Record the command for the snapshot policy, which is checked periodically by the state machine manager.
+      recordCommand(bytes.length);
     }
   }
 
@@ -484,7 +682,7 @@ public class RaftServerStateMachineExecutor implements StateMachineExecutor {
   /**
    * Applies the given commit to the state machine.
    */
-  private void applyCommand(long index, long sequence, long timestamp, byte[] bytes, RaftSessionContext session, CompletableFuture<RaftOperationResult> future) {
+  private void applyCommand(long index, long sequence, long timestamp, int opcode, byte[] bytes, RaftSessionContext session, CompletableFuture<RaftOperationResult> future) {
     // No-op commands will be empty.
     if (bytes.length == 0) {
       future.complete(new RaftOperationResult(index, session.getEventIndex(), null));
@@ -500,7 +698,7 @@ public class RaftServerStateMachineExecutor implements StateMachineExecutor {
     RaftOperationResult result;
     try {
       // Execute the state machine operation and get the result.
-      Object output = applyCommit(commit);
+      Object output = applyCommit(opcode, commit);
 
       // Store the result for linearizability and complete the command.
       result = new RaftOperationResult(index, eventIndex, output);
@@ -530,16 +728,16 @@ public class RaftServerStateMachineExecutor implements StateMachineExecutor {
    * @param bytes     The query to execute.
    * @return A future to be completed with the query result.
    */
-  CompletableFuture<RaftOperationResult> executeQuery(long index, long sequence, long timestamp, RaftSessionContext session, byte[] bytes) {
+  CompletableFuture<RaftOperationResult> executeQuery(long index, long sequence, long timestamp, RaftSessionContext session, int opcode, byte[] bytes) {
     CompletableFuture<RaftOperationResult> future = new CompletableFuture<>();
-    stateMachineExecutor.execute(() -> executeQuery(index, sequence, timestamp, session, bytes, future));
+    stateMachineExecutor.execute(() -> executeQuery(index, sequence, timestamp, session, opcode, bytes, future));
     return future;
   }
 
   /**
    * Executes a query on the state machine thread.
    */
-  private void executeQuery(long index, long sequence, long timestamp, RaftSessionContext session, byte[] bytes, CompletableFuture<RaftOperationResult> future) {
+  private void executeQuery(long index, long sequence, long timestamp, RaftSessionContext session, int opcode, byte[] bytes, CompletableFuture<RaftOperationResult> future) {
     // If the session is not open, fail the request.
     if (!session.getState().active()) {
       future.completeExceptionally(new UnknownSessionException("Unknown session: " + session.sessionId()));
@@ -547,39 +745,39 @@ public class RaftServerStateMachineExecutor implements StateMachineExecutor {
     }
 
     // Otherwise, sequence the query.
-    sequenceQuery(index, sequence, timestamp, session, bytes, future);
+    sequenceQuery(index, sequence, timestamp, session, opcode, bytes, future);
   }
 
   /**
    * Sequences the given query.
    */
-  private void sequenceQuery(long index, long sequence, long timestamp, RaftSessionContext session, byte[] bytes, CompletableFuture<RaftOperationResult> future) {
+  private void sequenceQuery(long index, long sequence, long timestamp, RaftSessionContext session, int opcode, byte[] bytes, CompletableFuture<RaftOperationResult> future) {
     // If the query's sequence number is greater than the session's current sequence number, queue the request for
     // handling once the state machine is caught up.
     if (sequence > session.getCommandSequence()) {
-      session.registerSequenceQuery(sequence, () -> indexQuery(index, timestamp, session, bytes, future));
+      session.registerSequenceQuery(sequence, () -> indexQuery(index, timestamp, session, opcode, bytes, future));
     } else {
-      indexQuery(index, timestamp, session, bytes, future);
+      indexQuery(index, timestamp, session, opcode, bytes, future);
     }
   }
 
   /**
    * Ensures the given query is applied after the appropriate index.
    */
-  private void indexQuery(long index, long timestamp, RaftSessionContext session, byte[] bytes, CompletableFuture<RaftOperationResult> future) {
+  private void indexQuery(long index, long timestamp, RaftSessionContext session, int opcode, byte[] bytes, CompletableFuture<RaftOperationResult> future) {
     // If the query index is greater than the session's last applied index, queue the request for handling once the
     // state machine is caught up.
     if (index > session.getLastApplied()) {
-      session.registerIndexQuery(index, () -> applyQuery(index, timestamp, session, bytes, future));
+      session.registerIndexQuery(index, () -> applyQuery(index, timestamp, session, opcode, bytes, future));
     } else {
-      applyQuery(index, timestamp, session, bytes, future);
+      applyQuery(index, timestamp, session, opcode, bytes, future);
     }
   }
 
   /**
    * Applies a query to the state machine.
    */
-  private void applyQuery(long index, long timestamp, RaftSessionContext session, byte[] bytes, CompletableFuture<RaftOperationResult> future) {
+  private void applyQuery(long index, long timestamp, RaftSessionContext session, int opcode, byte[] bytes, CompletableFuture<RaftOperationResult> future) {
     // If the session is not open, fail the request.
     if (!session.getState().active()) {
       future.completeExceptionally(new UnknownSessionException("Unknown session: " + session.sessionId()));
@@ -594,7 +792,7 @@ public class RaftServerStateMachineExecutor implements StateMachineExecutor {
 
     RaftOperationResult result;
     try {
-      result = new RaftOperationResult(index, eventIndex, applyCommit(commit));
+      result = new RaftOperationResult(index, eventIndex, applyCommit(opcode, commit));
     } catch (Exception e) {
       result = new RaftOperationResult(index, eventIndex, e);
     }
@@ -604,35 +802,21 @@ public class RaftServerStateMachineExecutor implements StateMachineExecutor {
   /**
    * Executes an operation.
    */
-  @SuppressWarnings("unchecked")
-  private <T extends RaftOperation<U>, U> U applyCommit(RaftCommit commit) {
-    // Get the function registered for the operation. If no function is registered, attempt to
-    // use a global function if available.
-    Function function = operations.get(commit.type());
-
-    if (function == null) {
-      // If no operation function was found for the class, try to find an operation function
-      // registered with a parent class.
-      for (Map.Entry<Class, Function> entry : operations.entrySet()) {
-        if (entry.getKey().isAssignableFrom(commit.type())) {
-          function = entry.getValue();
-          break;
-        }
-      }
-
-      // If a parent operation function was found, store the function for future reference.
-      if (function != null) {
-        operations.put(commit.type(), function);
-      }
+  private Object applyCommit(int opcode, RaftCommit<?> commit) {
+    // If the operation was submitted with an op-code registered by the state machine, dispatch the operation
+    // directly from the op-code table. Otherwise, look up the handler registered for the operation type.
+    OperationHandler handler = opcode > 0 && opcode < opcodeOperations.length ? opcodeOperations[opcode] : null;
+    if (handler == null) {
+      handler = getOperation(commit.type());
     }
 
-    if (function == null) {
+    if (handler == null) {
       throw new IllegalStateException("unknown state machine operation: " + commit.type());
     } else {
       // Execute the operation. If the operation return value is a Future, await the result,
       // otherwise immediately complete the execution future.
       try {
-        return (U) function.apply(commit);
+        return handler.apply(commit);
       } catch (Exception e) {
         LOGGER.warn("State machine operation failed: {}", e);
         throw new ApplicationException(e, "An application error occurred");
@@ -640,6 +824,29 @@ public class RaftServerStateMachineExecutor implements StateMachineExecutor {
     }
   }
 
+  /**
+   * Returns the handler registered for the given operation type.
+   */
+  private OperationHandler getOperation(Class<?> type) {
+    OperationHandler handler = operations.get(type);
+    if (handler == null) {
+      // If no operation handler was found for the class, try to find an operation handler
+      // registered with a parent class.
+      for (Map.Entry<Class<?>, OperationHandler> entry : operations.entrySet()) {
+        if (entry.getKey().isAssignableFrom(type)) {
+          handler = entry.getValue();
+          break;
+        }
+      }
+
+      // If a parent operation handler was found, store the handler for future reference.
+      if (handler != null) {
+        operations.put(type, handler);
+      }
+    }
+    return handler;
+  }
+
   /**
    * Commits the application of a command to the state machine.
    */
@@ -679,10 +886,10 @@ public class RaftServerStateMachineExecutor implements StateMachineExecutor {
   public <T extends RaftOperation<Void>> StateMachineExecutor register(Class<T> type, Consumer<RaftCommit<T>> callback) {
     checkNotNull(type, "type cannot be null");
     checkNotNull(callback, "callback cannot be null");
-    operations.put(type, (Function<RaftCommit<T>, Void>) commit -> {
+    operations.put(type, OperationHandler.of((Function<RaftCommit<T>, Void>) commit -> {
       callback.accept(commit);
       return null;
-    });
+    }));
     LOGGER.trace("Registered void operation callback {}", type);
     return this;
   }
@@ -691,16 +898,60 @@ public class RaftServerStateMachineExecutor implements StateMachineExecutor {
   public <T extends RaftOperation<U>, U> StateMachineExecutor register(Class<T> type, Function<RaftCommit<T>, U> callback) {
     checkNotNull(type, "type cannot be null");
     checkNotNull(callback, "callback cannot be null");
-    operations.put(type, callback);
+    operations.put(type, OperationHandler.of(callback));
     LOGGER.trace("Registered value operation callback {}", type);
     return this;
   }
 
+  @Override
+  public <T extends RaftOperation<Void>> StateMachineExecutor register(int opcode, Class<T> type, Consumer<RaftCommit<T>> callback) {
+    checkNotNull(callback, "callback cannot be null");
+    return register(opcode, type, (Function<RaftCommit<T>, Void>) commit -> {
+      callback.accept(commit);
+      return null;
+    });
+  }
+
+  @Override
+  public <T extends RaftOperation<U>, U> StateMachineExecutor register(int opcode, Class<T> type, Function<RaftCommit<T>, U> callback) {
+    checkArgument(opcode > 0, "opcode must be positive");
+    register(type, callback);
+    if (opcode >= opcodeOperations.length) {
+      opcodeOperations = Arrays.copyOf(opcodeOperations, opcode + 1);
+    }
+    opcodeOperations[opcode] = operations.get(type);
+    LOGGER.trace("Registered operation callback {} with opcode {}", type, opcode);
+    return this;
+  }
+
   @Override
   public void close() {
     stateMachineExecutor.close();
   }
 
+  /**
+   * Operation callback registered by the state machine.
+   * <p>
+   * Callbacks are dispatched by operation type or op-code rather than by the commit's static type, so the commit type
+   * a callback accepts is erased once when the callback is registered.
+   */
+  private static final class OperationHandler {
+    private final Function<RaftCommit<?>, ?> callback;
+
+    private OperationHandler(Function<RaftCommit<?>, ?> callback) {
+      this.callback = callback;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends RaftOperation<U>, U> OperationHandler of(Function<RaftCommit<T>, U> callback) {
+      return new OperationHandler((Function<RaftCommit<?>, ?>) (Function) callback);
+    }
+
+    private Object apply(RaftCommit<?> commit) {
+      return callback.apply(commit);
+    }
+  }
+
   /**
    * Scheduled task.
    */
@@ -37,16 +37,21 @@ import io.atomix.protocols.raft.storage.log.entry.OpenSessionEntry;
 import io.atomix.protocols.raft.storage.log.entry.QueryEntry;
 import io.atomix.protocols.raft.storage.log.entry.RaftLogEntry;
 import io.atomix.protocols.raft.storage.snapshot.Snapshot;
+import io.atomix.protocols.raft.storage.snapshot.SnapshotMetrics;
 import io.atomix.protocols.raft.storage.snapshot.StateMachineId;
 import io.atomix.storage.journal.Indexed;
 import io.atomix.utils.concurrent.ComposableFuture;
 import io.atomix.utils.concurrent.Futures;
+import io.atomix.utils.concurrent.Scheduled;
 import io.atomix.utils.concurrent.ThreadContext;
 import io.atomix.utils.concurrent.ThreadPoolContext;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -65,7 +70,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public class RaftServerStateMachineManager implements AutoCloseable {
   private static final Logger LOGGER = LoggerFactory.getLogger(RaftServerStateMachineManager.class);
-  private static final long COMPACT_INTERVAL_MILLIS = 1000 * 60;
+  private static final Duration COMPACT_CHECK_INTERVAL = Duration.ofSeconds(1);
 
   private final RaftServerContext state;
   private final ScheduledExecutorService threadPool;
@@ -74,7 +79,11 @@ public class RaftServerStateMachineManager implements AutoCloseable {
   private final RaftLogReader reader;
   private final RaftSessionManager sessionManager = new RaftSessionManager();
   private final Map<String, RaftServerStateMachineExecutor> stateMachines = new HashMap<>();
+  private final Map<RaftServerStateMachineExecutor, Long> stateMachineIndexes = new HashMap<>();
+  private final Scheduled compactTimer;
   private volatile long lastApplied;
+  private long compactIndex;
+  private long snapshotCheckIndex;
 
   public RaftServerStateMachineManager(RaftServerContext state, ScheduledExecutorService threadPool, ThreadContext threadContext) {
     this.state = checkNotNull(state, "state cannot be null");
@@ -82,7 +91,7 @@ public class RaftServerStateMachineManager implements AutoCloseable {
     this.reader = log.openReader(1, RaftLogReader.Mode.COMMITS);
     this.threadPool = threadPool;
     this.threadContext = threadContext;
-    threadContext.schedule(Duration.ofMillis(COMPACT_INTERVAL_MILLIS), this::compactLog);
+    this.compactTimer = threadContext.schedule(COMPACT_CHECK_INTERVAL, COMPACT_CHECK_INTERVAL, this::compactLog);
   }
 
   /**
@@ -324,6 +333,7 @@ public class RaftServerStateMachineManager implements AutoCloseable {
 
       RaftSessionContext session = sessionManager.getSession(sessionId);
       if (session != null) {
+        stateMachineIndexes.put(session.getStateMachineExecutor(), entry.index());
         session.getStateMachineExecutor().keepAlive(entry.index(), entry.entry().timestamp(), session, commandSequence, eventIndex);
       }
     }
@@ -364,6 +374,11 @@ public class RaftServerStateMachineManager implements AutoCloseable {
         entry.entry().timeout(),
         stateMachineExecutor,
         state);
+
+    // Register the session before it's opened in the state machine thread so that commands applied while
+    // replaying the log can find the session.
+    sessionManager.registerSession(session);
+    stateMachineIndexes.put(stateMachineExecutor, entry.index());
     return stateMachineExecutor.openSession(entry.index(), entry.entry().timestamp(), session);
   }
 
@@ -380,6 +395,7 @@ public class RaftServerStateMachineManager implements AutoCloseable {
 
     // Get the state machine executor associated with the session and unregister the session.
     RaftServerStateMachineExecutor stateMachineExecutor = session.getStateMachineExecutor();
+    stateMachineIndexes.put(stateMachineExecutor, entry.index());
     return stateMachineExecutor.closeSession(entry.index(), entry.entry().timestamp(), session);
   }
 
@@ -439,7 +455,8 @@ public class RaftServerStateMachineManager implements AutoCloseable {
     }
 
     // Execute the command using the state machine associated with the session.
-    return session.getStateMachineExecutor().executeCommand(entry.index(), entry.entry().sequenceNumber(), entry.entry().timestamp(), session, entry.entry().bytes());
+    stateMachineIndexes.put(session.getStateMachineExecutor(), entry.index());
+    return session.getStateMachineExecutor().executeCommand(entry.index(), entry.entry().sequenceNumber(), entry.entry().timestamp(), session, entry.entry().opcode(), entry.entry().bytes());
   }
 
   /**
@@ -470,13 +487,28 @@ public class RaftServerStateMachineManager implements AutoCloseable {
     }
 
     // Execute the query using the state machine associated with the session.
-    return session.getStateMachineExecutor().executeQuery(entry.index(), entry.entry().sequenceNumber(), entry.entry().timestamp(), session, entry.entry().bytes());
+    return session.getStateMachineExecutor().executeQuery(entry.index(), entry.entry().sequenceNumber(), entry.entry().timestamp(), session, entry.entry().opcode(), entry.entry().bytes());
   }
 
   /**
-   * Compacts the log if necessary.
+   * Checks the snapshot policy of each state machine and compacts the log if necessary.
+   * <p>
+   * The log is compacted as soon as all state machines have stored a snapshot beyond the last compacted index,
+   * so the frequency of compaction follows the snapshot policy configured in the server's storage.
    */
   private void compactLog() {
+    // Update the disk pressure and write rate used by state machines to decide when to take snapshots.
+    SnapshotMetrics metrics = state.getSnapshotMetrics();
+    metrics.setDiskPressure(state.getStorage().isDiskPressure());
+    metrics.updateWriteRate(System.currentTimeMillis());
+
+    // The log can only be compacted once snapshots have been taken of all state machines.
+    if (stateMachines.isEmpty()) {
+      return;
+    }
+
+    checkSnapshots();
+
     // Iterate through state machines and compute the lowest stored snapshot for all state machines.
     long snapshotIndex = state.getLogWriter().getLastIndex();
     for (RaftServerStateMachineExecutor stateMachineExecutor : stateMachines.values()) {
@@ -488,12 +520,52 @@ public class RaftServerStateMachineManager implements AutoCloseable {
       }
     }
 
-    // Compact logs prior to the lowest snapshot.
-    state.getLog().compact(snapshotIndex);
+    // Compact logs prior to the lowest snapshot if new snapshots have been stored since the last compaction.
+    if (snapshotIndex > compactIndex) {
+      state.getLog().compact(snapshotIndex);
+      compactIndex = snapshotIndex;
+      state.getSnapshotMetrics().recordCompaction(snapshotIndex);
+    }
+  }
+
+  /**
+   * Checks the snapshot policy of each state machine at a unique index.
+   * <p>
+   * Snapshots are stored and replicated by index, so no two state machines may be snapshotted at the same index.
+   * Keep-alive entries are applied to all state machines with sessions in them at the same index, but a state
+   * machine's state doesn't change between the last entry applied to it and the last applied index, so it can be
+   * snapshotted at any index in between. Each state machine is assigned the lowest such index not assigned to
+   * another state machine, starting with the state machines with the oldest snapshots since those prevent the log
+   * from being compacted. Indexes are not reused by later checks since prior snapshots may not yet be stored.
+   */
+  private void checkSnapshots() {
+    long lastApplied = this.lastApplied;
+    if (lastApplied <= snapshotCheckIndex) {
+      return;
+    }
+
+    List<RaftServerStateMachineExecutor> executors = new ArrayList<>(stateMachines.values());
+    executors.sort(Comparator.comparingLong(executor -> {
+      Snapshot snapshot = state.getSnapshotStore().getSnapshotById(executor.getContext().stateMachineId());
+      return snapshot != null ? snapshot.index() : 0;
+    }));
+
+    Set<Long> indexes = new HashSet<>();
+    for (RaftServerStateMachineExecutor executor : executors) {
+      long index = Math.max(stateMachineIndexes.getOrDefault(executor, 0L), snapshotCheckIndex + 1);
+      while (index <= lastApplied && !indexes.add(index)) {
+        index++;
+      }
+      if (index <= lastApplied) {
+        executor.checkSnapshot(index);
+      }
+    }
+    snapshotCheckIndex = lastApplied;
   }
 
   @Override
   public void close() {
     // Don't close the thread context here since state machines can be reused.
+    compactTimer.cancel();
   }
 }
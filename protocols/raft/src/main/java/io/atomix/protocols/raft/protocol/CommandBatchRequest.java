@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft.protocol;
+
+import io.atomix.protocols.raft.RaftOperation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Client command batch request.
+ * <p>
+ * Batch requests are used by clients to submit multiple {@link CommandRequest commands} for a single session
+ * in one message. The batched commands must be ordered by {@link CommandRequest#sequenceNumber() sequence number}
+ * and are sequenced and applied by the leader exactly as if they had been submitted individually. Batch requests
+ * are answered with a {@link CommandBatchResponse} containing a response for each command in the batch.
+ * <p>
+ * The batch request's own {@link #sequenceNumber()} is the sequence number of the first command in the batch.
+ */
+public class CommandBatchRequest extends CommandRequest {
+
+  /**
+   * Returns a new batch request builder.
+   *
+   * @return A new batch request builder.
+   */
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  private final List<CommandRequest> requests;
+
+  public CommandBatchRequest(long session, List<CommandRequest> requests) {
+    super(session, requests.get(0).sequenceNumber(), RaftOperation.NO_OPCODE, new byte[0]);
+    this.requests = requests;
+  }
+
+  /**
+   * Returns the batched command requests.
+   *
+   * @return The batched command requests in sequence order.
+   */
+  public List<CommandRequest> requests() {
+    return requests;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getClass(), session, requests);
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (object instanceof CommandBatchRequest) {
+      CommandBatchRequest request = (CommandBatchRequest) object;
+      return request.session == session && request.requests.equals(requests);
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("session", session)
+        .add("sequence", sequence)
+        .add("requests", requests.size())
+        .toString();
+  }
+
+  /**
+   * Command batch request builder.
+   */
+  public static class Builder extends CommandRequest.Builder {
+    private final List<CommandRequest> requests = new ArrayList<>();
+
+    public Builder() {
+      withBytes(new byte[0]);
+    }
+
+    /**
+     * Adds a command request to the batch.
+     *
+     * @param request The command request to add.
+     * @return The request builder.
+     * @throws NullPointerException if the request is {@code null}
+     * @throws IllegalArgumentException if the request is not sequenced after the previous request
+     */
+    public Builder addRequest(CommandRequest request) {
+      checkNotNull(request, "request cannot be null");
+      checkArgument(requests.isEmpty() || requests.get(requests.size() - 1).sequenceNumber() < request.sequenceNumber(),
+          "requests must be ordered by sequence number");
+      requests.add(request);
+      return this;
+    }
+
+    /**
+     * Adds a collection of command requests to the batch.
+     *
+     * @param requests The command requests to add.
+     * @return The request builder.
+     * @throws NullPointerException if the requests are {@code null}
+     */
+    public Builder addRequests(Collection<CommandRequest> requests) {
+      checkNotNull(requests, "requests cannot be null").forEach(this::addRequest);
+      return this;
+    }
+
+    @Override
+    protected void validate() {
+      super.validate();
+      checkArgument(!requests.isEmpty(), "requests cannot be empty");
+    }
+
+    @Override
+    public CommandBatchRequest build() {
+      validate();
+      return new CommandBatchRequest(session, new ArrayList<>(requests));
+    }
+  }
+}
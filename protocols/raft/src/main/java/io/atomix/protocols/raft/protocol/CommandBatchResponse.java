@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft.protocol;
+
+import io.atomix.protocols.raft.error.RaftError;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Client command batch response.
+ * <p>
+ * Batch responses are sent by servers to clients upon the completion of a {@link CommandBatchRequest}. The batch
+ * response contains a {@link CommandResponse} for each command in the batch, in the same order as the commands
+ * in the request. Each response may succeed or fail independently of the others in the batch.
+ */
+public class CommandBatchResponse extends CommandResponse {
+
+  /**
+   * Returns a new batch response builder.
+   *
+   * @return A new batch response builder.
+   */
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  private final List<CommandResponse> responses;
+
+  public CommandBatchResponse(Status status, RaftError error, long index, long eventIndex, Object result, long lastSequence, List<CommandResponse> responses) {
+    super(status, error, index, eventIndex, result, lastSequence);
+    this.responses = responses;
+  }
+
+  /**
+   * Returns the batched command responses.
+   *
+   * @return The batched command responses in request order.
+   */
+  public List<CommandResponse> responses() {
+    return responses;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("status", status)
+        .add("error", error)
+        .add("index", index)
+        .add("responses", responses)
+        .toString();
+  }
+
+  /**
+   * Command batch response builder.
+   */
+  public static class Builder extends CommandResponse.Builder {
+    private List<CommandResponse> responses = new ArrayList<>();
+
+    /**
+     * Sets the batched command responses.
+     *
+     * @param responses The batched command responses.
+     * @return The response builder.
+     * @throws NullPointerException if the responses are {@code null}
+     */
+    public Builder withResponses(List<CommandResponse> responses) {
+      this.responses = checkNotNull(responses, "responses cannot be null");
+      return this;
+    }
+
+    @Override
+    public CommandBatchResponse build() {
+      validate();
+      return new CommandBatchResponse(status, error, index, eventIndex, result, lastSequence, responses);
+    }
+  }
+}
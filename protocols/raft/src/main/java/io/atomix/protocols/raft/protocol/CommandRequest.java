@@ -47,13 +47,13 @@ public class CommandRequest extends OperationRequest {
     return new Builder();
   }
 
-  public CommandRequest(long session, long sequence, byte[] bytes) {
-    super(session, sequence, bytes);
+  public CommandRequest(long session, long sequence, int opcode, byte[] bytes) {
+    super(session, sequence, opcode, bytes);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(getClass(), session, sequence, bytes);
+    return Objects.hash(getClass(), session, sequence, opcode, bytes);
   }
 
   @Override
@@ -62,6 +62,7 @@ public class CommandRequest extends OperationRequest {
       CommandRequest request = (CommandRequest) object;
       return request.session == session
           && request.sequence == sequence
+          && request.opcode == opcode
           && Arrays.equals(request.bytes, bytes);
     }
     return false;
@@ -72,6 +73,7 @@ public class CommandRequest extends OperationRequest {
     return toStringHelper(this)
         .add("session", session)
         .add("sequence", sequence)
+        .add("opcode", opcode)
         .add("bytes", ArraySizeHashPrinter.of(bytes))
         .toString();
   }
@@ -83,7 +85,7 @@ public class CommandRequest extends OperationRequest {
     @Override
     public CommandRequest build() {
       validate();
-      return new CommandRequest(session, sequence, bytes);
+      return new CommandRequest(session, sequence, opcode, bytes);
     }
   }
 }
@@ -16,6 +16,7 @@
 package io.atomix.protocols.raft.protocol;
 
 import io.atomix.protocols.raft.cluster.MemberId;
+import io.atomix.storage.compression.CompressionCodec;
 import io.atomix.utils.ArraySizeHashPrinter;
 
 import java.util.Arrays;
@@ -50,18 +51,22 @@ public class InstallRequest extends AbstractRaftRequest {
   private final MemberId leader;
   private final long id;
   private final long index;
+  private final long baseIndex;
   private final long timestamp;
   private final int offset;
+  private final byte compression;
   private final byte[] data;
   private final boolean complete;
 
-  public InstallRequest(long term, MemberId leader, long id, long index, long timestamp, int offset, byte[] data, boolean complete) {
+  public InstallRequest(long term, MemberId leader, long id, long index, long baseIndex, long timestamp, int offset, byte compression, byte[] data, boolean complete) {
     this.term = term;
     this.leader = leader;
     this.id = id;
     this.index = index;
+    this.baseIndex = baseIndex;
     this.timestamp = timestamp;
     this.offset = offset;
+    this.compression = compression;
     this.data = data;
     this.complete = complete;
   }
@@ -102,6 +107,15 @@ public class InstallRequest extends AbstractRaftRequest {
     return index;
   }
 
+  /**
+   * Returns the index of the snapshot on which the snapshot is based.
+   *
+   * @return The snapshot base index, or {@code 0} if the snapshot is a full snapshot.
+   */
+  public long snapshotBaseIndex() {
+    return baseIndex;
+  }
+
   /**
    * Returns the snapshot timestamp.
    *
@@ -120,8 +134,19 @@ public class InstallRequest extends AbstractRaftRequest {
     return offset;
   }
 
+  /**
+   * Returns the codec with which the snapshot data is compressed.
+   *
+   * @return The snapshot data compression codec.
+   */
+  public CompressionCodec compression() {
+    return CompressionCodec.forId(compression);
+  }
+
   /**
    * Returns the snapshot data.
+   * <p>
+   * The data is compressed with the request {@link #compression() codec}.
    *
    * @return The snapshot data.
    */
@@ -140,7 +165,7 @@ public class InstallRequest extends AbstractRaftRequest {
 
   @Override
   public int hashCode() {
-    return Objects.hash(getClass(), term, leader, id, index, offset, complete, data);
+    return Objects.hash(getClass(), term, leader, id, index, baseIndex, offset, compression, complete, data);
   }
 
   @Override
@@ -151,7 +176,9 @@ public class InstallRequest extends AbstractRaftRequest {
           && request.leader == leader
           && request.id == id
           && request.index == index
+          && request.baseIndex == baseIndex
           && request.offset == offset
+          && request.compression == compression
           && request.complete == complete
           && Arrays.equals(request.data, data);
     }
@@ -165,7 +192,9 @@ public class InstallRequest extends AbstractRaftRequest {
         .add("leader", leader)
         .add("id", id)
         .add("index", index)
+        .add("baseIndex", baseIndex)
         .add("offset", offset)
+        .add("compression", compression())
         .add("data", ArraySizeHashPrinter.of(data))
         .add("complete", complete)
         .toString();
@@ -179,8 +208,10 @@ public class InstallRequest extends AbstractRaftRequest {
     private MemberId leader;
     private long id;
     private long index;
+    private long baseIndex;
     private long timestamp;
     private int offset;
+    private byte compression;
     private byte[] data;
     private boolean complete;
 
@@ -233,6 +264,19 @@ public class InstallRequest extends AbstractRaftRequest {
       return this;
     }
 
+    /**
+     * Sets the index of the snapshot on which the snapshot is based.
+     *
+     * @param baseIndex The snapshot base index, or {@code 0} for a full snapshot.
+     * @return The request builder.
+     * @throws IllegalArgumentException if {@code baseIndex} is negative
+     */
+    public Builder withBaseIndex(long baseIndex) {
+      checkArgument(baseIndex >= 0, "baseIndex must be positive");
+      this.baseIndex = baseIndex;
+      return this;
+    }
+
     /**
      * Sets the request timestamp.
      *
@@ -257,6 +301,18 @@ public class InstallRequest extends AbstractRaftRequest {
       return this;
     }
 
+    /**
+     * Sets the codec with which the snapshot bytes are compressed.
+     *
+     * @param compression The snapshot bytes compression codec.
+     * @return The request builder.
+     * @throws NullPointerException if {@code compression} is null
+     */
+    public Builder withCompression(CompressionCodec compression) {
+      this.compression = checkNotNull(compression, "compression cannot be null").id();
+      return this;
+    }
+
     /**
      * Sets the request snapshot bytes.
      *
@@ -287,6 +343,7 @@ public class InstallRequest extends AbstractRaftRequest {
       checkNotNull(leader, "leader cannot be null");
       checkArgument(id > 0, "id must be positive");
       checkArgument(index >= 0, "index must be positive");
+      checkArgument(baseIndex == 0 || baseIndex < index, "baseIndex must be less than index");
       checkArgument(offset >= 0, "offset must be positive");
       checkNotNull(data, "data cannot be null");
     }
@@ -297,7 +354,7 @@ public class InstallRequest extends AbstractRaftRequest {
     @Override
     public InstallRequest build() {
       validate();
-      return new InstallRequest(term, leader, id, index, timestamp, offset, data, complete);
+      return new InstallRequest(term, leader, id, index, baseIndex, timestamp, offset, compression, data, complete);
     }
   }
 
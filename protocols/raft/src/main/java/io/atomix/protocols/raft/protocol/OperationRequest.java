@@ -29,11 +29,13 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public abstract class OperationRequest extends SessionRequest {
   protected final long sequence;
+  protected final int opcode;
   protected final byte[] bytes;
 
-  protected OperationRequest(long session, long sequence, byte[] bytes) {
+  protected OperationRequest(long session, long sequence, int opcode, byte[] bytes) {
     super(session);
     this.sequence = sequence;
+    this.opcode = opcode;
     this.bytes = bytes;
   }
 
@@ -46,6 +48,15 @@ public abstract class OperationRequest extends SessionRequest {
     return sequence;
   }
 
+  /**
+   * Returns the request operation op-code.
+   *
+   * @return The request operation op-code, or {@code 0} if the operation is dispatched by type.
+   */
+  public int opcode() {
+    return opcode;
+  }
+
   /**
    * Returns the request operation.
    *
@@ -60,6 +71,7 @@ public abstract class OperationRequest extends SessionRequest {
    */
   public static abstract class Builder<T extends Builder<T, U>, U extends OperationRequest> extends SessionRequest.Builder<T, U> {
     protected long sequence;
+    protected int opcode;
     protected byte[] bytes;
 
     /**
@@ -76,6 +88,20 @@ public abstract class OperationRequest extends SessionRequest {
       return (T) this;
     }
 
+    /**
+     * Sets the request operation op-code.
+     *
+     * @param opcode The request operation op-code.
+     * @return The request builder.
+     * @throws IllegalArgumentException if the op-code is negative
+     */
+    @SuppressWarnings("unchecked")
+    public T withOpcode(int opcode) {
+      checkArgument(opcode >= 0, "opcode cannot be negative");
+      this.opcode = opcode;
+      return (T) this;
+    }
+
     /**
      * Sets the request bytes.
      *
@@ -56,8 +56,8 @@ public class QueryRequest extends OperationRequest {
   private final long index;
   private final RaftQuery.ConsistencyLevel consistency;
 
-  public QueryRequest(long session, long sequence, byte[] bytes, long index, RaftQuery.ConsistencyLevel consistency) {
-    super(session, sequence, bytes);
+  public QueryRequest(long session, long sequence, int opcode, byte[] bytes, long index, RaftQuery.ConsistencyLevel consistency) {
+    super(session, sequence, opcode, bytes);
     this.index = index;
     this.consistency = consistency;
   }
@@ -82,7 +82,7 @@ public class QueryRequest extends OperationRequest {
 
   @Override
   public int hashCode() {
-    return Objects.hash(getClass(), session, sequence, index, bytes);
+    return Objects.hash(getClass(), session, sequence, opcode, index, bytes);
   }
 
   @Override
@@ -91,6 +91,7 @@ public class QueryRequest extends OperationRequest {
       QueryRequest request = (QueryRequest) object;
       return request.session == session
           && request.sequence == sequence
+          && request.opcode == opcode
           && request.consistency == consistency
           && Arrays.equals(request.bytes, bytes);
     }
@@ -102,6 +103,7 @@ public class QueryRequest extends OperationRequest {
     return toStringHelper(this)
         .add("session", session)
         .add("sequence", sequence)
+        .add("opcode", opcode)
         .add("index", index)
         .add("consistency", consistency)
         .add("bytes", ArraySizeHashPrinter.of(bytes))
@@ -152,7 +154,7 @@ public class QueryRequest extends OperationRequest {
     @Override
     public QueryRequest build() {
       validate();
-      return new QueryRequest(session, sequence, bytes, index, consistency);
+      return new QueryRequest(session, sequence, opcode, bytes, index, consistency);
     }
   }
 
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft.proxy;
+
+import io.atomix.protocols.raft.cluster.MemberId;
+
+import java.time.Duration;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Client-side request statistics for a single cluster member.
+ * <p>
+ * Statistics are observed by the client from the responses to the requests it sends to each member. The
+ * {@link #latency() latency} and {@link #errorRate() error rate} are exponentially weighted moving averages
+ * that favor recent requests, so they adapt as the load on the member changes.
+ */
+public final class MemberStatistics {
+  private static final double UNHEALTHY_ERROR_RATE = .5;
+
+  private final MemberId memberId;
+  private final long requests;
+  private final long failures;
+  private final long latency;
+  private final long tailLatency;
+  private final double errorRate;
+
+  public MemberStatistics(MemberId memberId, long requests, long failures, long latency, long tailLatency, double errorRate) {
+    this.memberId = checkNotNull(memberId, "memberId cannot be null");
+    this.requests = requests;
+    this.failures = failures;
+    this.latency = latency;
+    this.tailLatency = tailLatency;
+    this.errorRate = errorRate;
+  }
+
+  /**
+   * Returns the member identifier.
+   *
+   * @return The member identifier.
+   */
+  public MemberId memberId() {
+    return memberId;
+  }
+
+  /**
+   * Returns the total number of requests sent to the member.
+   *
+   * @return The total number of requests sent to the member.
+   */
+  public long requests() {
+    return requests;
+  }
+
+  /**
+   * Returns the total number of requests to the member that failed.
+   *
+   * @return The total number of failed requests.
+   */
+  public long failures() {
+    return failures;
+  }
+
+  /**
+   * Returns the moving average response latency of the member.
+   *
+   * @return The moving average response latency.
+   */
+  public Duration latency() {
+    return Duration.ofNanos(latency);
+  }
+
+  /**
+   * Returns the tail response latency of the member.
+   * <p>
+   * The tail latency is the 95th percentile of recent response latencies, or zero if too few responses have
+   * been received from the member to compute it.
+   *
+   * @return The tail response latency.
+   */
+  public Duration tailLatency() {
+    return Duration.ofNanos(tailLatency);
+  }
+
+  /**
+   * Returns the moving average rate of failed requests to the member.
+   *
+   * @return The moving average error rate between {@code 0} and {@code 1}.
+   */
+  public double errorRate() {
+    return errorRate;
+  }
+
+  /**
+   * Returns a boolean indicating whether the member is considered healthy.
+   *
+   * @return Indicates whether the member is healthy.
+   */
+  public boolean isHealthy() {
+    return errorRate < UNHEALTHY_ERROR_RATE;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("memberId", memberId)
+        .add("requests", requests)
+        .add("failures", failures)
+        .add("latency", latency())
+        .add("tailLatency", tailLatency())
+        .add("errorRate", errorRate)
+        .toString();
+  }
+}
@@ -234,6 +234,9 @@ public interface RaftProxy {
     protected Executor executor;
     protected CommunicationStrategy communicationStrategy = CommunicationStrategies.LEADER;
     protected Duration timeout = Duration.ofMillis(0);
+    protected int batchSize = 1;
+    protected Duration batchLinger = Duration.ofMillis(0);
+    protected boolean sharedSession;
 
     /**
      * Sets the session name.
@@ -317,5 +320,60 @@ public interface RaftProxy {
       this.timeout = timeout;
       return this;
     }
+
+    /**
+     * Sets the maximum number of commands to batch in a single request.
+     * <p>
+     * When the batch size is greater than {@code 1}, commands submitted to the proxy within the
+     * {@link #withBatchLinger(Duration) batch linger} window are coalesced into a single request to the leader,
+     * which sequences and applies them as if they had been submitted individually. By default, the batch size
+     * is {@code 1} and each command is sent in its own request.
+     *
+     * @param batchSize The maximum number of commands to batch in a single request.
+     * @return The proxy builder.
+     * @throws IllegalArgumentException if the batch size is not positive
+     */
+    public Builder withBatchSize(int batchSize) {
+      checkArgument(batchSize > 0, "batchSize must be positive");
+      this.batchSize = batchSize;
+      return this;
+    }
+
+    /**
+     * Sets the time for which to wait for additional commands before sending a batch.
+     * <p>
+     * The linger only applies when the {@link #withBatchSize(int) batch size} is greater than {@code 1}. A batch is
+     * sent once the linger has elapsed or once it is full, whichever comes first. A zero linger batches only commands
+     * that are submitted concurrently. By default, the batch linger is {@code 0}.
+     *
+     * @param batchLinger The time for which to wait for additional commands before sending a batch.
+     * @return The proxy builder.
+     * @throws NullPointerException if the linger is null
+     * @throws IllegalArgumentException if the linger is negative
+     */
+    public Builder withBatchLinger(Duration batchLinger) {
+      checkArgument(!checkNotNull(batchLinger, "batchLinger cannot be null").isNegative(), "batchLinger cannot be negative");
+      this.batchLinger = batchLinger;
+      return this;
+    }
+
+    /**
+     * Sets whether to share a single session among all proxies for the state machine.
+     * <p>
+     * When sharing is enabled, proxies opened by the same client for the same state machine {@link #withName(String)
+     * name} are multiplexed over a single session, amortizing session keep-alives, sequencing and event delivery
+     * across all the proxies. All the proxies sharing a session must be configured with the same communication
+     * strategy, timeout, batch size and batch linger, and opening a proxy with a different configuration fails with
+     * an {@link IllegalArgumentException}. The session is closed once all the proxies sharing it have been closed.
+     * Events published to the session are delivered to the listeners of every proxy sharing it. By default, sessions
+     * are not shared.
+     *
+     * @param sharedSession Whether to share a single session among all proxies for the state machine.
+     * @return The proxy builder.
+     */
+    public Builder withSharedSession(boolean sharedSession) {
+      this.sharedSession = sharedSession;
+      return this;
+    }
   }
 }
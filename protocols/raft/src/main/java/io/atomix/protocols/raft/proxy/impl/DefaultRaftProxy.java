@@ -28,6 +28,7 @@ import io.atomix.protocols.raft.session.SessionId;
 import io.atomix.serializer.Serializer;
 import io.atomix.utils.concurrent.ThreadContext;
 
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
@@ -64,6 +65,8 @@ public class DefaultRaftProxy implements RaftProxy {
       RaftProxyManager sessionManager,
       CommunicationStrategy communicationStrategy,
       Serializer serializer,
+      int batchSize,
+      Duration batchLinger,
       ThreadContext context) {
     this.state = checkNotNull(state, "state cannot be null");
     this.sessionManager = checkNotNull(sessionManager, "sessionManager cannot be null");
@@ -96,6 +99,8 @@ public class DefaultRaftProxy implements RaftProxy {
         sequencer,
         sessionManager,
         serializer,
+        batchSize,
+        batchLinger,
         context);
   }
 
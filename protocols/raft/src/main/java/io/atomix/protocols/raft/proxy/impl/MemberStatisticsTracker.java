@@ -0,0 +1,160 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft.proxy.impl;
+
+import io.atomix.protocols.raft.cluster.MemberId;
+import io.atomix.protocols.raft.proxy.MemberStatistics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks client-side response latencies and error rates for cluster members.
+ * <p>
+ * Latencies and error rates are tracked as exponentially weighted moving averages. Additionally, a window of
+ * recent latency samples is retained for each member from which the tail latency is computed. The tail latency
+ * is recomputed lazily after a number of new samples have been recorded to avoid sorting the window on each request.
+ */
+final class MemberStatisticsTracker {
+  private static final double LATENCY_WEIGHT = .2;
+  private static final double ERROR_WEIGHT = .1;
+  private static final double TAIL_PERCENTILE = .95;
+  private static final int WINDOW_SIZE = 128;
+  private static final int MIN_TAIL_SAMPLES = 16;
+  private static final int TAIL_INTERVAL = 16;
+  private static final double SWITCH_RATIO = 1.5;
+
+  private final Map<MemberId, Tracker> trackers = new ConcurrentHashMap<>();
+
+  /**
+   * Records a successful response from the given member.
+   *
+   * @param memberId The member from which the response was received.
+   * @param latency  The response latency in nanoseconds.
+   */
+  void recordSuccess(MemberId memberId, long latency) {
+    trackers.computeIfAbsent(memberId, id -> new Tracker()).recordSuccess(latency);
+  }
+
+  /**
+   * Records a failed request to the given member.
+   *
+   * @param memberId The member to which the request failed.
+   */
+  void recordFailure(MemberId memberId) {
+    trackers.computeIfAbsent(memberId, id -> new Tracker()).recordFailure();
+  }
+
+  /**
+   * Returns the tail latency for the given member.
+   *
+   * @param memberId The member for which to return the tail latency.
+   * @return The member's tail latency in nanoseconds, or {@code 0} if too few samples have been recorded.
+   */
+  long tailLatency(MemberId memberId) {
+    Tracker tracker = trackers.get(memberId);
+    return tracker != null ? tracker.tailLatency() : 0;
+  }
+
+  /**
+   * Returns a boolean indicating whether the candidate member should be preferred over the current member.
+   * <p>
+   * To avoid flapping between members with similar latencies, a candidate is only preferred if the current
+   * member is unhealthy or the candidate is significantly faster than the current member.
+   *
+   * @param candidate The candidate member.
+   * @param current   The current member.
+   * @return Indicates whether to switch from the current member to the candidate.
+   */
+  boolean prefer(MemberId candidate, MemberId current) {
+    MemberStatistics candidateStatistics = statistics(candidate);
+    MemberStatistics currentStatistics = statistics(current);
+    if (candidateStatistics == null || currentStatistics == null || !candidateStatistics.isHealthy()) {
+      return false;
+    }
+    return !currentStatistics.isHealthy()
+        || candidateStatistics.latency().toNanos() * SWITCH_RATIO < currentStatistics.latency().toNanos();
+  }
+
+  /**
+   * Returns the statistics for the given member.
+   *
+   * @param memberId The member for which to return statistics.
+   * @return The member statistics or {@code null} if no requests have been sent to the member.
+   */
+  MemberStatistics statistics(MemberId memberId) {
+    Tracker tracker = trackers.get(memberId);
+    return tracker != null ? tracker.statistics(memberId) : null;
+  }
+
+  /**
+   * Returns the statistics for all members.
+   *
+   * @return The statistics for all members to which requests have been sent.
+   */
+  Map<MemberId, MemberStatistics> statistics() {
+    Map<MemberId, MemberStatistics> statistics = new HashMap<>();
+    trackers.forEach((memberId, tracker) -> statistics.put(memberId, tracker.statistics(memberId)));
+    return statistics;
+  }
+
+  /**
+   * Per-member statistics tracker.
+   */
+  private static final class Tracker {
+    private final long[] window = new long[WINDOW_SIZE];
+    private long requests;
+    private long failures;
+    private long samples;
+    private double latency;
+    private double errorRate;
+    private long tailLatency;
+    private int tailSamples;
+
+    synchronized void recordSuccess(long latency) {
+      requests++;
+      this.latency = samples == 0 ? latency : this.latency + LATENCY_WEIGHT * (latency - this.latency);
+      this.errorRate -= ERROR_WEIGHT * errorRate;
+      window[(int) (samples++ % WINDOW_SIZE)] = latency;
+      tailSamples++;
+    }
+
+    synchronized void recordFailure() {
+      requests++;
+      failures++;
+      this.errorRate += ERROR_WEIGHT * (1 - errorRate);
+    }
+
+    synchronized long tailLatency() {
+      if (samples < MIN_TAIL_SAMPLES) {
+        return 0;
+      }
+      if (tailLatency == 0 || tailSamples >= TAIL_INTERVAL) {
+        long[] sorted = Arrays.copyOf(window, (int) Math.min(samples, WINDOW_SIZE));
+        Arrays.sort(sorted);
+        tailLatency = sorted[Math.max((int) Math.ceil(TAIL_PERCENTILE * sorted.length) - 1, 0)];
+        tailSamples = 0;
+      }
+      return tailLatency;
+    }
+
+    synchronized MemberStatistics statistics(MemberId memberId) {
+      return new MemberStatistics(memberId, requests, failures, (long) latency, tailLatency(), errorRate);
+    }
+  }
+}
@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -68,7 +69,14 @@ public final class NodeSelector implements Iterator<MemberId>, AutoCloseable {
     this.servers = checkNotNull(servers, "servers cannot be null");
     this.strategy = checkNotNull(strategy, "strategy cannot be null");
     this.selectors = checkNotNull(selectors, "selectors cannot be null");
-    this.selections = strategy.selectConnections(leader, new ArrayList<>(servers));
+    this.selections = select(leader, servers);
+  }
+
+  /**
+   * Selects the prioritized list of servers to which to connect.
+   */
+  private List<MemberId> select(MemberId leader, Collection<MemberId> servers) {
+    return strategy.selectConnections(leader, new ArrayList<>(servers), selectors.tracker()::statistics);
   }
 
   /**
@@ -120,7 +128,7 @@ public final class NodeSelector implements Iterator<MemberId>, AutoCloseable {
    */
   public NodeSelector reset() {
     if (selectionsIterator != null) {
-      this.selections = strategy.selectConnections(leader, new ArrayList<>(servers));
+      this.selections = select(leader, servers);
       this.selectionsIterator = null;
     }
     return this;
@@ -128,6 +136,9 @@ public final class NodeSelector implements Iterator<MemberId>, AutoCloseable {
 
   /**
    * Resets the connection addresses.
+   * <p>
+   * If the selector's strategy {@link CommunicationStrategy#usesStatistics() uses statistics}, the selection is
+   * also re-evaluated, and the selector is reset if a significantly better server is found.
    *
    * @param servers The collection of server addresses.
    * @return The address selector.
@@ -136,12 +147,52 @@ public final class NodeSelector implements Iterator<MemberId>, AutoCloseable {
     if (changed(leader, servers)) {
       this.leader = leader;
       this.servers = servers;
-      this.selections = strategy.selectConnections(leader, new ArrayList<>(servers));
+      this.selections = select(leader, servers);
       this.selectionsIterator = null;
+    } else if (strategy.usesStatistics() && selectionsIterator != null && selection != null) {
+      List<MemberId> selections = select(leader, servers);
+      if (!selections.isEmpty() && selectors.tracker().prefer(selections.get(0), selection)) {
+        this.selections = selections;
+        this.selectionsIterator = null;
+      }
     }
     return this;
   }
 
+  /**
+   * Returns an alternate server to the given server.
+   *
+   * @param memberId The server for which to return an alternate.
+   * @return The highest priority selected server other than the given server, or {@code null} if no other
+   * server is selected.
+   */
+  public MemberId alternate(MemberId memberId) {
+    for (MemberId selection : selections) {
+      if (!selection.equals(memberId)) {
+        return selection;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the selector's communication strategy.
+   *
+   * @return The selector's communication strategy.
+   */
+  public CommunicationStrategy strategy() {
+    return strategy;
+  }
+
+  /**
+   * Returns the member statistics tracker.
+   *
+   * @return The member statistics tracker.
+   */
+  MemberStatisticsTracker statistics() {
+    return selectors.tracker();
+  }
+
   /**
    * Returns a boolean value indicating whether the selector state would be changed by the given members.
    */
@@ -17,10 +17,12 @@ package io.atomix.protocols.raft.proxy.impl;
 
 import io.atomix.protocols.raft.CommunicationStrategy;
 import io.atomix.protocols.raft.cluster.MemberId;
+import io.atomix.protocols.raft.proxy.MemberStatistics;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 
@@ -29,6 +31,7 @@ import java.util.concurrent.CopyOnWriteArraySet;
  */
 public final class NodeSelectorManager {
   private final Set<NodeSelector> selectors = new CopyOnWriteArraySet<>();
+  private final MemberStatisticsTracker statistics = new MemberStatisticsTracker();
   private volatile MemberId leader;
   private volatile Collection<MemberId> servers = Collections.emptyList();
 
@@ -50,6 +53,24 @@ public final class NodeSelectorManager {
     return servers;
   }
 
+  /**
+   * Returns the statistics observed for each member in the cluster.
+   *
+   * @return The statistics for each member with which the client has communicated.
+   */
+  public Map<MemberId, MemberStatistics> statistics() {
+    return statistics.statistics();
+  }
+
+  /**
+   * Returns the member statistics tracker.
+   *
+   * @return The member statistics tracker.
+   */
+  MemberStatisticsTracker tracker() {
+    return statistics;
+  }
+
   /**
    * Creates a new address selector.
    *
@@ -34,10 +34,12 @@ import io.atomix.protocols.raft.protocol.QueryResponse;
 import io.atomix.protocols.raft.protocol.RaftClientProtocol;
 import io.atomix.protocols.raft.protocol.RaftRequest;
 import io.atomix.protocols.raft.protocol.RaftResponse;
+import io.atomix.utils.concurrent.Scheduled;
 import io.atomix.utils.concurrent.ThreadContext;
 
 import java.net.ConnectException;
 import java.nio.channels.ClosedChannelException;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeoutException;
@@ -152,6 +154,57 @@ public class RaftProxyConnection {
     return future;
   }
 
+  /**
+   * Sends a query request, hedging the query to an alternate node if the first node is slow to respond.
+   * <p>
+   * If the selector's strategy {@link io.atomix.protocols.raft.CommunicationStrategy#usesStatistics() uses statistics}
+   * and the node to which the query is sent does not respond within its tail latency, the query is also sent to an
+   * alternate node. The query is completed with the first successful or definitive error response from either node.
+   * Responses from the alternate node that would cause the query to be resent to another node are ignored.
+   *
+   * @param request the request to send
+   * @return a future to be completed with the response
+   */
+  public CompletableFuture<QueryResponse> hedgedQuery(QueryRequest request) {
+    CompletableFuture<QueryResponse> future = query(request);
+    MemberId node = this.node;
+    if (!selector.strategy().usesStatistics() || node == null || future.isDone()) {
+      return future;
+    }
+
+    long tailLatency = selector.statistics().tailLatency(node);
+    if (tailLatency == 0) {
+      return future;
+    }
+
+    CompletableFuture<QueryResponse> hedgedFuture = new CompletableFuture<>();
+    future.whenComplete((response, error) -> {
+      if (error == null) {
+        hedgedFuture.complete(response);
+      } else {
+        hedgedFuture.completeExceptionally(error);
+      }
+    });
+
+    Scheduled hedge = context.schedule(Duration.ofNanos(tailLatency), () -> {
+      MemberId alternate = selector.alternate(node);
+      if (!hedgedFuture.isDone() && alternate != null) {
+        LOGGER.trace("{} - Hedging {} to {}", name, request, alternate);
+        long startTime = System.nanoTime();
+        protocol.query(alternate, request).whenCompleteAsync((response, error) -> {
+          if (error == null && response != null && isComplete(response)) {
+            recordResponse(alternate, startTime, response);
+            hedgedFuture.complete(response);
+          } else if (error != null || response != null) {
+            selector.statistics().recordFailure(alternate);
+          }
+        }, context);
+      }
+    });
+    hedgedFuture.whenComplete((response, error) -> hedge.cancel());
+    return hedgedFuture;
+  }
+
   /**
    * Sends a command request to the given node.
    *
@@ -183,9 +236,10 @@ public class RaftProxyConnection {
     MemberId node = next();
     if (node != null) {
       LOGGER.trace("{} - Sending {}", name, request);
+      long startTime = System.nanoTime();
       sender.apply(node, request).whenCompleteAsync((r, e) -> {
         if (e != null || r != null) {
-          handleResponse(request, sender, node, r, e, future);
+          handleResponse(request, sender, node, startTime, r, e, future);
         } else {
           future.complete(null);
         }
@@ -214,22 +268,18 @@ public class RaftProxyConnection {
    * Handles a response from the cluster.
    */
   @SuppressWarnings("unchecked")
-  protected <T extends RaftRequest> void handleResponse(T request, BiFunction sender, MemberId node, RaftResponse response, Throwable error, CompletableFuture future) {
+  protected <T extends RaftRequest> void handleResponse(T request, BiFunction sender, MemberId node, long startTime, RaftResponse response, Throwable error, CompletableFuture future) {
     if (error == null) {
-      if (response.status() == RaftResponse.Status.OK
-          || response.error() == RaftError.Type.COMMAND_ERROR
-          || response.error() == RaftError.Type.QUERY_ERROR
-          || response.error() == RaftError.Type.APPLICATION_ERROR
-          || response.error() == RaftError.Type.UNKNOWN_CLIENT_ERROR
-          || response.error() == RaftError.Type.UNKNOWN_SESSION_ERROR
-          || response.error() == RaftError.Type.UNKNOWN_STATE_MACHINE_ERROR
-          || response.error() == RaftError.Type.INTERNAL_ERROR) {
+      if (isComplete(response)) {
         LOGGER.trace("{} - Received {}", name, response);
+        recordResponse(node, startTime, response);
         future.complete(response);
       } else {
+        selector.statistics().recordFailure(node);
         resendRequest(response.error().createException(), request, sender, node, future);
       }
     } else if (error instanceof ConnectException || error instanceof TimeoutException || error instanceof ClosedChannelException) {
+      selector.statistics().recordFailure(node);
       resendRequest(error, request, sender, node, future);
     } else {
       LOGGER.debug("{} - {} failed! Reason: {}", name, request, error);
@@ -237,6 +287,40 @@ public class RaftProxyConnection {
     }
   }
 
+  /**
+   * Returns a boolean indicating whether the given response completes a request.
+   * <p>
+   * Requests are completed by successful responses and by errors that would not be resolved by resending the
+   * request to another node.
+   */
+  private static boolean isComplete(RaftResponse response) {
+    return response.status() == RaftResponse.Status.OK
+        || response.error() == RaftError.Type.COMMAND_ERROR
+        || response.error() == RaftError.Type.QUERY_ERROR
+        || response.error() == RaftError.Type.APPLICATION_ERROR
+        || response.error() == RaftError.Type.UNKNOWN_CLIENT_ERROR
+        || response.error() == RaftError.Type.UNKNOWN_SESSION_ERROR
+        || response.error() == RaftError.Type.UNKNOWN_STATE_MACHINE_ERROR
+        || response.error() == RaftError.Type.INTERNAL_ERROR;
+  }
+
+  /**
+   * Records the latency of a completed response from the given node.
+   * <p>
+   * Errors raised by the node while executing the request count as failures of the node. Errors caused by the
+   * client's session or by the operation itself are successful round trips.
+   */
+  private void recordResponse(MemberId node, long startTime, RaftResponse response) {
+    if (response.status() == RaftResponse.Status.OK
+        || (response.error() != RaftError.Type.COMMAND_ERROR
+        && response.error() != RaftError.Type.QUERY_ERROR
+        && response.error() != RaftError.Type.INTERNAL_ERROR)) {
+      selector.statistics().recordSuccess(node, System.nanoTime() - startTime);
+    } else {
+      selector.statistics().recordFailure(node);
+    }
+  }
+
   /**
    * Connects to the cluster.
    */
@@ -36,6 +36,7 @@ import java.time.Duration;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.OptionalLong;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
@@ -60,6 +61,7 @@ public class RaftProxyManager {
   private final ScheduledExecutorService threadPoolExecutor;
   private final NodeSelectorManager selectorManager;
   private final Map<Long, RaftProxyState> sessions = new ConcurrentHashMap<>();
+  private final Map<String, SharedSession> sharedSessions = new HashMap<>();
   private final AtomicBoolean open = new AtomicBoolean();
   private ScheduledFuture<?> keepAliveFuture;
 
@@ -110,6 +112,9 @@ public class RaftProxyManager {
    * @param stateMachine          The session type.
    * @param communicationStrategy The strategy with which to communicate with servers.
    * @param timeout               The session timeout.
+   * @param batchSize             The maximum number of commands to batch in a single request.
+   * @param batchLinger           The time for which to wait for additional commands before sending a batch.
+   * @param sharedSession         Whether to share a single session among all proxies for the state machine.
    * @return A completable future to be completed once the session has been opened.
    */
   public CompletableFuture<RaftProxy> openSession(
@@ -118,13 +123,98 @@ public class RaftProxyManager {
       CommunicationStrategy communicationStrategy,
       Serializer serializer,
       Executor executor,
-      Duration timeout) {
+      Duration timeout,
+      int batchSize,
+      Duration batchLinger,
+      boolean sharedSession) {
     checkNotNull(name, "name cannot be null");
     checkNotNull(stateMachine, "stateMachine cannot be null");
     checkNotNull(communicationStrategy, "communicationStrategy cannot be null");
     checkNotNull(serializer, "serializer cannot be null");
     checkNotNull(timeout, "timeout cannot be null");
 
+    CompletableFuture<? extends RaftProxy> future;
+    if (sharedSession) {
+      future = openSharedProxy(name, stateMachine, communicationStrategy, serializer, timeout, batchSize, batchLinger);
+    } else {
+      future = openProxy(name, stateMachine, communicationStrategy, serializer, timeout, batchSize, batchLinger);
+    }
+
+    // Wrap the proxy in an executor delegate to complete futures and events on the proxy's executor.
+    Executor eventExecutor = executor != null ? executor : new ThreadPoolContext(threadPoolExecutor);
+    return future.thenApply(proxy -> new BlockingAwareRaftProxy(proxy, eventExecutor));
+  }
+
+  /**
+   * Opens a logical proxy on the shared session for the given state machine.
+   * <p>
+   * The physical session is opened by the first proxy for the state machine. Proxies that later share it must be
+   * configured with the same communication strategy, timeout and batching, since those are properties of the
+   * session. The session is closed once all the proxies sharing it have been closed.
+   */
+  private CompletableFuture<RaftProxy> openSharedProxy(
+      String name,
+      String stateMachine,
+      CommunicationStrategy communicationStrategy,
+      Serializer serializer,
+      Duration timeout,
+      int batchSize,
+      Duration batchLinger) {
+    SharedSession sharedSession;
+    synchronized (sharedSessions) {
+      sharedSession = sharedSessions.get(name);
+      if (sharedSession == null || sharedSession.isClosed()) {
+        sharedSession = new SharedSession(name, stateMachine, communicationStrategy, timeout, batchSize, batchLinger,
+            openProxy(name, stateMachine, communicationStrategy, serializer, timeout, batchSize, batchLinger));
+        sharedSessions.put(name, sharedSession);
+
+        // If the session could not be opened, allow the next proxy to attempt to open a new session.
+        SharedSession openingSession = sharedSession;
+        sharedSession.future.whenComplete((proxy, error) -> {
+          if (error != null) {
+            synchronized (sharedSessions) {
+              sharedSessions.remove(name, openingSession);
+            }
+          }
+        });
+      } else if (!sharedSession.type.equals(stateMachine)) {
+        return Futures.exceptionalFuture(new IllegalArgumentException(
+            "Cannot share session for " + name + " of type " + sharedSession.type + " with type " + stateMachine));
+      } else if (!sharedSession.isConfiguredWith(communicationStrategy, timeout, batchSize, batchLinger)) {
+        return Futures.exceptionalFuture(new IllegalArgumentException(
+            "Cannot share session for " + name + " with a proxy of a different configuration"));
+      }
+      sharedSession.references++;
+    }
+
+    SharedSession session = sharedSession;
+    return session.future.thenApply(proxy -> new SharedRaftProxy(proxy, () -> releaseSharedProxy(session)));
+  }
+
+  /**
+   * Releases a reference to a shared session, closing the session if it's no longer referenced.
+   */
+  private CompletableFuture<Void> releaseSharedProxy(SharedSession sharedSession) {
+    synchronized (sharedSessions) {
+      if (--sharedSession.references > 0) {
+        return CompletableFuture.completedFuture(null);
+      }
+      sharedSessions.remove(sharedSession.name, sharedSession);
+    }
+    return sharedSession.future.thenCompose(DefaultRaftProxy::close);
+  }
+
+  /**
+   * Opens a new physical session.
+   */
+  private CompletableFuture<DefaultRaftProxy> openProxy(
+      String name,
+      String stateMachine,
+      CommunicationStrategy communicationStrategy,
+      Serializer serializer,
+      Duration timeout,
+      int batchSize,
+      Duration batchLinger) {
     LOGGER.trace("{} - Opening session; name: {}, type: {}", clientId, name, stateMachine);
     OpenSessionRequest request = OpenSessionRequest.newBuilder()
         .withMember(nodeId)
@@ -134,7 +224,7 @@ public class RaftProxyManager {
         .build();
 
     LOGGER.trace("{} - Sending {}", clientId, request);
-    CompletableFuture<RaftProxy> future = new CompletableFuture<>();
+    CompletableFuture<DefaultRaftProxy> future = new CompletableFuture<>();
     ThreadContext proxyContext = new ThreadPoolContext(threadPoolExecutor);
     connection.openSession(request).whenCompleteAsync((response, error) -> {
       if (error == null) {
@@ -147,21 +237,17 @@ public class RaftProxyManager {
           // Ensure the proxy session info is reset and the session is kept alive.
           keepAliveSessions();
 
-          // Create the proxy wrapped in an executor delegate and complete the open future.
-          RaftProxy proxy;
-          proxy = new DefaultRaftProxy(
+          // Create the proxy and complete the open future.
+          future.complete(new DefaultRaftProxy(
               state,
               protocol,
               selectorManager,
               this,
               communicationStrategy,
               serializer,
-              proxyContext);
-
-          Executor eventExecutor = executor != null ? executor : new ThreadPoolContext(threadPoolExecutor);
-          proxy = new BlockingAwareRaftProxy(proxy, eventExecutor);
-
-          future.complete(proxy);
+              batchSize,
+              batchLinger,
+              proxyContext));
         } else {
           future.completeExceptionally(response.error().createException());
         }
@@ -377,4 +463,53 @@ public class RaftProxyManager {
         .toString();
   }
 
+  /**
+   * Physical session shared by multiple proxies for the same state machine.
+   */
+  private static final class SharedSession {
+    private final String name;
+    private final String type;
+    private final CommunicationStrategy communicationStrategy;
+    private final Duration timeout;
+    private final int batchSize;
+    private final Duration batchLinger;
+    private final CompletableFuture<DefaultRaftProxy> future;
+    private int references;
+
+    private SharedSession(
+        String name,
+        String type,
+        CommunicationStrategy communicationStrategy,
+        Duration timeout,
+        int batchSize,
+        Duration batchLinger,
+        CompletableFuture<DefaultRaftProxy> future) {
+      this.name = name;
+      this.type = type;
+      this.communicationStrategy = communicationStrategy;
+      this.timeout = timeout;
+      this.batchSize = batchSize;
+      this.batchLinger = batchLinger;
+      this.future = future;
+    }
+
+    /**
+     * Returns a boolean indicating whether the shared session was opened with the given configuration.
+     */
+    private boolean isConfiguredWith(
+        CommunicationStrategy communicationStrategy, Duration timeout, int batchSize, Duration batchLinger) {
+      return this.communicationStrategy.equals(communicationStrategy)
+          && this.timeout.equals(timeout)
+          && this.batchSize == batchSize
+          && Objects.equals(this.batchLinger, batchLinger);
+    }
+
+    /**
+     * Returns a boolean indicating whether the shared session has been closed or expired.
+     */
+    private boolean isClosed() {
+      return future.isDone() && !future.isCompletedExceptionally() && !future.join().isOpen();
+    }
+  }
+
 }
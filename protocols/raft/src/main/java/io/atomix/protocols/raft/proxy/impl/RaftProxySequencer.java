@@ -22,9 +22,15 @@ import io.atomix.protocols.raft.protocol.OperationResponse;
 import io.atomix.protocols.raft.protocol.PublishRequest;
 
 import java.util.ArrayDeque;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.google.common.base.Preconditions.checkArgument;
 
 /**
  * Client response sequencer.
@@ -52,22 +58,43 @@ import java.util.Queue;
  * of inactivity in the session can still be completed upon reception since the event is guaranteed not to have
  * occurred concurrently with any other operation. If requests for the session are outstanding, the event is placed
  * in a queue and the algorithm for checking sequenced responses is run again.
+ * <p>
+ * The sequencer is safe to call from any thread. Responses are stored in a pre-sized ring buffer indexed by request
+ * sequence number, and events are handed off through a non-blocking queue. Sequencing itself is performed by a
+ * single draining thread at a time: whichever thread finds the sequencer idle drains all pending responses and
+ * events, and threads that arrive while a drain is in progress leave their work for the draining thread. Responses
+ * for requests too far ahead of the last completed response to fit in the ring buffer are held in an overflow map
+ * until the ring buffer catches up.
  */
 final class RaftProxySequencer {
   private static final Logger LOGGER = LoggerFactory.getLogger(RaftProxySequencer.class);
+  private static final int DEFAULT_CAPACITY = 1024;
+  private static final AtomicLongFieldUpdater<RaftProxySequencer> REQUEST_SEQUENCE =
+      AtomicLongFieldUpdater.newUpdater(RaftProxySequencer.class, "requestSequence");
 
   private final RaftProxyState state;
   @VisibleForTesting
-  long requestSequence;
+  volatile long requestSequence;
   @VisibleForTesting
-  long responseSequence;
+  volatile long responseSequence;
   @VisibleForTesting
   long eventIndex;
+  private final int mask;
+  private final AtomicReferenceArray<ResponseCallback> responseCallbacks;
+  private final Map<Long, ResponseCallback> overflowCallbacks = new ConcurrentHashMap<>();
+  private final Queue<EventCallback> pendingEvents = new ConcurrentLinkedQueue<>();
   private final Queue<EventCallback> eventCallbacks = new ArrayDeque<>();
-  private final Map<Long, ResponseCallback> responseCallbacks = new HashMap<>();
+  private final AtomicInteger drains = new AtomicInteger();
 
   RaftProxySequencer(RaftProxyState state) {
+    this(state, DEFAULT_CAPACITY);
+  }
+
+  RaftProxySequencer(RaftProxyState state, int capacity) {
+    checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1, "capacity must be a positive power of 2");
     this.state = state;
+    this.mask = capacity - 1;
+    this.responseCallbacks = new AtomicReferenceArray<>(capacity);
   }
 
   /**
@@ -76,7 +103,7 @@ final class RaftProxySequencer {
    * @return The next request sequence number.
    */
   public long nextRequest() {
-    return ++requestSequence;
+    return REQUEST_SEQUENCE.incrementAndGet(this);
   }
 
   /**
@@ -92,14 +119,8 @@ final class RaftProxySequencer {
    * @param callback The callback to sequence.
    */
   public void sequenceEvent(PublishRequest request, Runnable callback) {
-    if (requestSequence == responseSequence) {
-      LOGGER.trace("{} - Completing {}", state.getSessionId(), request);
-      callback.run();
-      eventIndex = request.eventIndex();
-    } else {
-      eventCallbacks.add(new EventCallback(request, callback));
-      completeResponses();
-    }
+    pendingEvents.add(new EventCallback(request, callback));
+    drain();
   }
 
   /**
@@ -117,19 +138,93 @@ final class RaftProxySequencer {
    * @param callback The callback to sequence.
    */
   public void sequenceResponse(long sequence, OperationResponse response, Runnable callback) {
-    // If the request sequence number is equal to the next response sequence number, attempt to complete the response.
-    if (sequence == responseSequence + 1) {
-      if (completeResponse(response, callback)) {
-        ++responseSequence;
-        completeResponses();
-      } else {
-        responseCallbacks.put(sequence, new ResponseCallback(response, callback));
+    // If the response for the operation with this sequence number has already been handled, ignore it.
+    if (sequence <= responseSequence) {
+      return;
+    }
+
+    // The response sequence number only increases, so if the response fits in the ring buffer now, its slot
+    // cannot be claimed by a later sequence number until this response has been completed.
+    ResponseCallback responseCallback = new ResponseCallback(sequence, response, callback);
+    if (sequence - responseSequence <= responseCallbacks.length()) {
+      store(responseCallback);
+    } else {
+      overflowCallbacks.put(sequence, responseCallback);
+    }
+    drain();
+  }
+
+  /**
+   * Stores a response callback in its ring buffer slot.
+   */
+  private void store(ResponseCallback responseCallback) {
+    int index = (int) (responseCallback.sequence & mask);
+    for (;;) {
+      ResponseCallback current = responseCallbacks.get(index);
+      // A callback with a greater sequence number indicates this response is stale.
+      if (current != null && current.sequence > responseCallback.sequence) {
+        return;
+      }
+      if (responseCallbacks.compareAndSet(index, current, responseCallback)) {
+        return;
       }
     }
-    // If the response has not yet been sequenced, store it in the response callbacks map.
-    // Otherwise, the response for the operation with this sequence number has already been handled.
-    else if (sequence > responseSequence) {
-      responseCallbacks.put(sequence, new ResponseCallback(response, callback));
+  }
+
+  /**
+   * Returns the response callback for the given sequence number if it has been received.
+   */
+  private ResponseCallback callback(long sequence) {
+    ResponseCallback responseCallback = responseCallbacks.get((int) (sequence & mask));
+    if (responseCallback != null && responseCallback.sequence == sequence) {
+      return responseCallback;
+    }
+
+    // If the response was received before it fit in the ring buffer, move it into the ring buffer.
+    responseCallback = overflowCallbacks.remove(sequence);
+    if (responseCallback != null) {
+      store(responseCallback);
+    }
+    return responseCallback;
+  }
+
+  /**
+   * Drains pending events and responses.
+   * <p>
+   * Only one thread drains the sequencer at a time. Threads that call this method while another thread is
+   * draining increment the drain counter, which causes the draining thread to perform another pass.
+   */
+  private void drain() {
+    if (drains.getAndIncrement() != 0) {
+      return;
+    }
+
+    int missed = 1;
+    for (;;) {
+      EventCallback eventCallback = pendingEvents.poll();
+      while (eventCallback != null) {
+        sequenceEvent(eventCallback);
+        eventCallback = pendingEvents.poll();
+      }
+      completeResponses();
+
+      missed = drains.addAndGet(-missed);
+      if (missed == 0) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * Sequences an event on the draining thread.
+   */
+  private void sequenceEvent(EventCallback eventCallback) {
+    if (requestSequence == responseSequence) {
+      LOGGER.trace("{} - Completing {}", state.getSessionId(), eventCallback.request);
+      eventCallback.run();
+      eventIndex = eventCallback.request.eventIndex();
+    } else {
+      eventCallbacks.add(eventCallback);
     }
   }
 
@@ -138,13 +233,17 @@ final class RaftProxySequencer {
    */
   private void completeResponses() {
     // Iterate through queued responses and complete as many as possible.
-    ResponseCallback response = responseCallbacks.get(responseSequence + 1);
+    ResponseCallback response = callback(responseSequence + 1);
     while (response != null) {
-      // If the response was completed, remove the response callback from the response queue,
+      // If the response was completed, remove the response callback from the ring buffer,
       // increment the response sequence number, and check the next response.
       if (completeResponse(response.response, response.callback)) {
-        responseCallbacks.remove(++responseSequence);
-        response = responseCallbacks.get(responseSequence + 1);
+        responseCallbacks.compareAndSet((int) (response.sequence & mask), response, null);
+        if (!overflowCallbacks.isEmpty()) {
+          overflowCallbacks.remove(response.sequence);
+        }
+        responseSequence = response.sequence;
+        response = callback(responseSequence + 1);
       } else {
         break;
       }
@@ -221,10 +320,12 @@ final class RaftProxySequencer {
    * Response callback holder.
    */
   private static final class ResponseCallback implements Runnable {
+    private final long sequence;
     private final OperationResponse response;
     private final Runnable callback;
 
-    private ResponseCallback(OperationResponse response, Runnable callback) {
+    private ResponseCallback(long sequence, OperationResponse response, Runnable callback) {
+      this.sequence = sequence;
       this.response = response;
       this.callback = callback;
     }
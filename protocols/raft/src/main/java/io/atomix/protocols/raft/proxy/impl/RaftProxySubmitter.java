@@ -23,6 +23,8 @@ import io.atomix.protocols.raft.error.CommandException;
 import io.atomix.protocols.raft.error.QueryException;
 import io.atomix.protocols.raft.error.RaftError;
 import io.atomix.protocols.raft.error.UnknownSessionException;
+import io.atomix.protocols.raft.protocol.CommandBatchRequest;
+import io.atomix.protocols.raft.protocol.CommandBatchResponse;
 import io.atomix.protocols.raft.protocol.CommandRequest;
 import io.atomix.protocols.raft.protocol.CommandResponse;
 import io.atomix.protocols.raft.protocol.OperationRequest;
@@ -32,25 +34,33 @@ import io.atomix.protocols.raft.protocol.QueryResponse;
 import io.atomix.protocols.raft.protocol.RaftResponse;
 import io.atomix.protocols.raft.proxy.RaftProxy;
 import io.atomix.serializer.Serializer;
+import io.atomix.utils.concurrent.Scheduled;
 import io.atomix.utils.concurrent.ThreadContext;
 
 import java.net.ConnectException;
 import java.nio.channels.ClosedChannelException;
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Predicate;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Session operation submitter.
+ * <p>
+ * When the submitter is configured with a batch size greater than {@code 1}, command attempts are coalesced into
+ * {@link CommandBatchRequest batch requests} which are sent to the leader once the batch linger has elapsed or
+ * the batch is full. Responses to batched commands are completed individually in sequence order.
  */
 final class RaftProxySubmitter {
   private static final Logger LOG = LoggerFactory.getLogger(RaftProxySubmitter.class);
@@ -67,8 +77,12 @@ final class RaftProxySubmitter {
   private final RaftProxyManager manager;
   private final Serializer serializer;
   private final ThreadContext context;
-  private final Map<Long, OperationAttempt> attempts = new LinkedHashMap<>();
+  private final Map<Long, OperationAttempt> attempts = new ConcurrentSkipListMap<>();
   private final AtomicLong keepAliveIndex = new AtomicLong();
+  private final int batchSize;
+  private final Duration batchLinger;
+  private List<CommandAttempt<?>> batch = new ArrayList<>();
+  private Scheduled batchTimer;
 
   public RaftProxySubmitter(
       RaftProxyConnection leaderConnection,
@@ -78,6 +92,20 @@ final class RaftProxySubmitter {
       RaftProxyManager manager,
       Serializer serializer,
       ThreadContext context) {
+    this(leaderConnection, sessionConnection, state, sequencer, manager, serializer, 1, Duration.ZERO, context);
+  }
+
+  public RaftProxySubmitter(
+      RaftProxyConnection leaderConnection,
+      RaftProxyConnection sessionConnection,
+      RaftProxyState state,
+      RaftProxySequencer sequencer,
+      RaftProxyManager manager,
+      Serializer serializer,
+      int batchSize,
+      Duration batchLinger,
+      ThreadContext context) {
+    checkArgument(batchSize > 0, "batchSize must be positive");
     this.leaderConnection = checkNotNull(leaderConnection, "leaderConnection");
     this.sessionConnection = checkNotNull(sessionConnection, "sessionConnection");
     this.state = checkNotNull(state, "state");
@@ -85,6 +113,8 @@ final class RaftProxySubmitter {
     this.manager = checkNotNull(manager, "manager");
     this.serializer = checkNotNull(serializer, "serializer cannot be null");
     this.context = checkNotNull(context, "context cannot be null");
+    this.batchSize = batchSize;
+    this.batchLinger = checkNotNull(batchLinger, "batchLinger cannot be null");
   }
 
   /**
@@ -96,18 +126,28 @@ final class RaftProxySubmitter {
    */
   public <T> CompletableFuture<T> submit(RaftCommand<T> command) {
     CompletableFuture<T> future = new CompletableFuture<>();
-    context.execute(() -> submitCommand(command, future));
+    byte[] bytes;
+    try {
+      bytes = serializer.encode(command);
+    } catch (Exception e) {
+      future.completeExceptionally(e);
+      return future;
+    }
+    context.execute(() -> submitCommand(command, bytes, future));
     return future;
   }
 
   /**
    * Submits a command to the cluster.
+   * <p>
+   * The command is serialized by the submitting thread, and only sequencing and sending the command
+   * is performed on the proxy context.
    */
-  private <T> void submitCommand(RaftCommand<T> command, CompletableFuture<T> future) {
-    byte[] bytes = serializer.encode(command);
+  private <T> void submitCommand(RaftCommand<T> command, byte[] bytes, CompletableFuture<T> future) {
     CommandRequest request = CommandRequest.newBuilder()
         .withSession(state.getSessionId())
         .withSequence(state.nextCommandRequest())
+        .withOpcode(command.opcode())
         .withBytes(bytes)
         .build();
     submitCommand(request, future);
@@ -129,19 +169,26 @@ final class RaftProxySubmitter {
    */
   public <T> CompletableFuture<T> submit(RaftQuery<T> query) {
     CompletableFuture<T> future = new CompletableFuture<>();
-    context.execute(() -> submitQuery(query, future));
+    byte[] bytes;
+    try {
+      bytes = serializer.encode(query);
+    } catch (Exception e) {
+      future.completeExceptionally(e);
+      return future;
+    }
+    context.execute(() -> submitQuery(query, bytes, future));
     return future;
   }
 
   /**
    * Submits a query to the cluster.
    */
-  private <T> void submitQuery(RaftQuery<T> query, CompletableFuture<T> future) {
-    byte[] bytes = serializer.encode(query);
+  private <T> void submitQuery(RaftQuery<T> query, byte[] bytes, CompletableFuture<T> future) {
     QueryRequest request = QueryRequest.newBuilder()
         .withSession(state.getSessionId())
         .withSequence(state.getCommandRequest())
         .withIndex(state.getResponseIndex())
+        .withOpcode(query.opcode())
         .withBytes(bytes)
         .withConsistency(query.consistency())
         .build();
@@ -171,6 +218,95 @@ final class RaftProxySubmitter {
     }
   }
 
+  /**
+   * Adds a command attempt to the pending batch.
+   * <p>
+   * The batch is flushed immediately if it's full. Otherwise, a flush is scheduled after the batch linger
+   * once the first attempt is added to the batch.
+   */
+  private void batch(CommandAttempt<?> attempt) {
+    batch.add(attempt);
+    if (batch.size() >= batchSize) {
+      flush();
+    } else if (batchTimer == null) {
+      batchTimer = context.schedule(batchLinger, this::flush);
+    }
+  }
+
+  /**
+   * Sends all pending batched command attempts to the leader.
+   */
+  private void flush() {
+    if (batchTimer != null) {
+      batchTimer.cancel();
+      batchTimer = null;
+    }
+
+    List<CommandAttempt<?>> attempts = batch;
+    batch = new ArrayList<>();
+    attempts.removeIf(attempt -> attempt.future.isDone());
+    if (attempts.isEmpty()) {
+      return;
+    }
+
+    if (attempts.size() == 1) {
+      CommandAttempt<?> attempt = attempts.get(0);
+      leaderConnection.command(attempt.request).whenComplete(attempt);
+    } else {
+      // Commands must be ordered by sequence number for the leader to sequence them. Resubmitted commands
+      // may also have been batched more than once, in which case only the latest attempt is sent.
+      attempts.sort(Comparator.comparingLong(attempt -> attempt.request.sequenceNumber()));
+      List<CommandAttempt<?>> sequenced = new ArrayList<>(attempts.size());
+      for (CommandAttempt<?> attempt : attempts) {
+        if (!sequenced.isEmpty() && sequenced.get(sequenced.size() - 1).request.sequenceNumber() == attempt.request.sequenceNumber()) {
+          sequenced.set(sequenced.size() - 1, attempt);
+        } else {
+          sequenced.add(attempt);
+        }
+      }
+
+      CommandBatchRequest.Builder builder = CommandBatchRequest.newBuilder();
+      builder.withSession(state.getSessionId());
+      sequenced.forEach(attempt -> builder.addRequest(attempt.request));
+      CommandBatchRequest request = builder.build();
+      LOG.trace("{} - Sending {}", state.getSessionId(), request);
+      leaderConnection.command(request).whenComplete((response, error) -> complete(sequenced, response, error));
+    }
+  }
+
+  /**
+   * Completes a batch of command attempts.
+   */
+  private void complete(List<CommandAttempt<?>> attempts, CommandResponse response, Throwable error) {
+    if (error == null && response instanceof CommandBatchResponse) {
+      List<CommandResponse> responses = ((CommandBatchResponse) response).responses();
+
+      // Commands that were received out of sequence are resubmitted together once for the whole batch.
+      CommandAttempt<?> resubmitAttempt = null;
+      long resubmitSequence = 0;
+      for (int i = 0; i < attempts.size(); i++) {
+        CommandAttempt<?> attempt = attempts.get(i);
+        CommandResponse commandResponse = responses.get(i);
+        if (commandResponse.status() == RaftResponse.Status.ERROR && commandResponse.error() == RaftError.Type.COMMAND_ERROR) {
+          if (resubmitAttempt == null || attempt.attempt > resubmitAttempt.attempt) {
+            resubmitAttempt = attempt;
+          }
+          resubmitSequence = commandResponse.lastSequenceNumber();
+        } else {
+          attempt.accept(commandResponse, null);
+        }
+      }
+
+      if (resubmitAttempt != null) {
+        resubmit(resubmitSequence, resubmitAttempt);
+      }
+    } else {
+      for (CommandAttempt<?> attempt : attempts) {
+        attempt.accept(response, error);
+      }
+    }
+  }
+
   /**
    * Resubmits commands starting after the given sequence number.
    * <p>
@@ -212,6 +348,11 @@ final class RaftProxySubmitter {
    * @return A completable future to be completed with a list of pending operations.
    */
   public CompletableFuture<Void> close() {
+    if (batchTimer != null) {
+      batchTimer.cancel();
+      batchTimer = null;
+    }
+    batch.clear();
     for (OperationAttempt attempt : new ArrayList<>(attempts.values())) {
       attempt.fail(new UnknownSessionException("session closed"));
     }
@@ -327,7 +468,11 @@ final class RaftProxySubmitter {
 
     @Override
     protected void send() {
-      leaderConnection.command(request).whenComplete(this);
+      if (batchSize > 1) {
+        batch(this);
+      } else {
+        leaderConnection.command(request).whenComplete(this);
+      }
     }
 
     @Override
@@ -410,7 +555,11 @@ final class RaftProxySubmitter {
 
     @Override
     protected void send() {
-      sessionConnection.query(request).whenComplete(this);
+      if (request.consistencyLevel() == RaftQuery.ConsistencyLevel.SEQUENTIAL) {
+        sessionConnection.hedgedQuery(request).whenComplete(this);
+      } else {
+        sessionConnection.query(request).whenComplete(this);
+      }
     }
 
     @Override
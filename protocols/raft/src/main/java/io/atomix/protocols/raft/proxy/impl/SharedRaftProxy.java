@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft.proxy.impl;
+
+import com.google.common.collect.Sets;
+import io.atomix.event.Event;
+import io.atomix.event.EventListener;
+import io.atomix.protocols.raft.RaftCommand;
+import io.atomix.protocols.raft.RaftQuery;
+import io.atomix.protocols.raft.error.UnknownSessionException;
+import io.atomix.protocols.raft.proxy.DelegatingRaftProxy;
+import io.atomix.protocols.raft.proxy.RaftProxy;
+import io.atomix.utils.concurrent.Futures;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Logical Raft proxy that shares a physical session with other proxies for the same state machine.
+ * <p>
+ * Each logical proxy tracks the listeners registered through it so they can be removed from the shared session
+ * when the proxy is closed. Closing a logical proxy releases its reference to the shared session, and the physical
+ * session is only closed once all the proxies sharing it have been closed.
+ */
+final class SharedRaftProxy extends DelegatingRaftProxy {
+  private final Supplier<CompletableFuture<Void>> release;
+  private final Set<EventListener> eventListeners = Sets.newConcurrentHashSet();
+  private final Set<Consumer<State>> stateChangeListeners = Sets.newConcurrentHashSet();
+  private final AtomicBoolean open = new AtomicBoolean(true);
+
+  SharedRaftProxy(RaftProxy delegate, Supplier<CompletableFuture<Void>> release) {
+    super(delegate);
+    this.release = checkNotNull(release, "release cannot be null");
+  }
+
+  @Override
+  public State getState() {
+    return open.get() ? super.getState() : State.CLOSED;
+  }
+
+  @Override
+  public void addStateChangeListener(Consumer<State> listener) {
+    stateChangeListeners.add(listener);
+    super.addStateChangeListener(listener);
+  }
+
+  @Override
+  public void removeStateChangeListener(Consumer<State> listener) {
+    stateChangeListeners.remove(listener);
+    super.removeStateChangeListener(listener);
+  }
+
+  @Override
+  public <E extends Event> void addEventListener(EventListener<E> listener) {
+    eventListeners.add(listener);
+    super.addEventListener(listener);
+  }
+
+  @Override
+  public <E extends Event> void removeEventListener(EventListener<E> listener) {
+    eventListeners.remove(listener);
+    super.removeEventListener(listener);
+  }
+
+  @Override
+  public <T> CompletableFuture<T> submit(RaftCommand<T> command) {
+    if (!open.get()) {
+      return Futures.exceptionalFuture(new UnknownSessionException("proxy closed"));
+    }
+    return super.submit(command);
+  }
+
+  @Override
+  public <T> CompletableFuture<T> submit(RaftQuery<T> query) {
+    if (!open.get()) {
+      return Futures.exceptionalFuture(new UnknownSessionException("proxy closed"));
+    }
+    return super.submit(query);
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open.get() && super.isOpen();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public CompletableFuture<Void> close() {
+    if (open.compareAndSet(true, false)) {
+      eventListeners.forEach(super::removeEventListener);
+      eventListeners.clear();
+      stateChangeListeners.forEach(super::removeStateChangeListener);
+      stateChangeListeners.clear();
+      return release.get();
+    }
+    return CompletableFuture.completedFuture(null);
+  }
+}
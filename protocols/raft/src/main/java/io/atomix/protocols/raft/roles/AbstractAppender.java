@@ -32,6 +32,7 @@ import io.atomix.protocols.raft.storage.log.RaftLogReader;
 import io.atomix.protocols.raft.storage.log.entry.RaftLogEntry;
 import io.atomix.protocols.raft.storage.snapshot.Snapshot;
 import io.atomix.protocols.raft.storage.snapshot.SnapshotReader;
+import io.atomix.protocols.raft.storage.snapshot.StateMachineId;
 import io.atomix.storage.journal.Indexed;
 
 import java.util.ArrayList;
@@ -151,9 +152,9 @@ abstract class AbstractAppender implements AutoCloseable {
       // Get the next index from the reader.
       long nextIndex = reader.getNextIndex();
 
-      // If a snapshot exists at the next index, complete the request. This will ensure that
-      // the snapshot is sent on the next index.
-      Snapshot snapshot = server.getSnapshotStore().getSnapshotByIndex(nextIndex);
+      // If a snapshot that hasn't been installed on the member exists at the next index, complete the request.
+      // This will ensure that the snapshot is sent on the next index.
+      Snapshot snapshot = getSnapshotToInstall(member, nextIndex);
       if (snapshot != null) {
         break;
       }
@@ -450,7 +451,7 @@ abstract class AbstractAppender implements AutoCloseable {
    * Builds an install request for the given member.
    */
   protected InstallRequest buildInstallRequest(RaftMemberContext member) {
-    Snapshot snapshot = server.getSnapshotStore().getSnapshotByIndex(member.getNextIndex());
+    Snapshot snapshot = getNextSnapshot(member);
     if (member.getNextSnapshotIndex() != snapshot.index()) {
       member.setNextSnapshotIndex(snapshot.index());
       member.setNextSnapshotOffset(0);
@@ -458,31 +459,78 @@ abstract class AbstractAppender implements AutoCloseable {
 
     InstallRequest request;
     synchronized (snapshot) {
-      // Open a new snapshot reader.
-      try (SnapshotReader reader = snapshot.openReader(server.getStorage().serializer())) {
-        // Skip to the next batch of bytes according to the snapshot chunk size and current offset.
-        reader.skip(member.getNextSnapshotOffset() * MAX_BATCH_SIZE);
-        byte[] data = new byte[Math.min(MAX_BATCH_SIZE, (int) reader.remaining())];
-        reader.read(data);
-
-        // Create the install request, indicating whether this is the last chunk of data based on the number
-        // of bytes remaining in the buffer.
-        DefaultRaftMember leader = server.getLeader();
-        request = InstallRequest.newBuilder()
-            .withTerm(server.getTerm())
-            .withLeader(leader != null ? leader.memberId() : null)
-            .withId(snapshot.snapshotId().id())
-            .withIndex(snapshot.index())
-            .withOffset(member.getNextSnapshotOffset())
-            .withData(data)
-            .withComplete(!reader.hasRemaining())
-            .build();
-      }
+      // Read the next batch of bytes according to the snapshot chunk size and current offset. The member's reader
+      // is kept open between chunks, so the snapshot is read (and decompressed) once rather than once per chunk.
+      SnapshotReader reader = member.getSnapshotReader(snapshot, member.getNextSnapshotOffset() * MAX_BATCH_SIZE, server.getStorage().serializer());
+      byte[] data = new byte[Math.min(MAX_BATCH_SIZE, reader.remaining())];
+      reader.read(data);
+
+      // Create the install request, indicating whether this is the last chunk of data based on the number
+      // of bytes remaining in the reader.
+      DefaultRaftMember leader = server.getLeader();
+      request = InstallRequest.newBuilder()
+          .withTerm(server.getTerm())
+          .withLeader(leader != null ? leader.memberId() : null)
+          .withId(snapshot.snapshotId().id())
+          .withIndex(snapshot.index())
+          .withBaseIndex(snapshot.baseIndex())
+          .withTimestamp(snapshot.timestamp().unixTimestamp())
+          .withOffset(member.getNextSnapshotOffset())
+          .withCompression(server.getStorage().compression())
+          .withData(server.getStorage().compression().compress(data))
+          .withComplete(!reader.hasRemaining())
+          .build();
     }
 
     return request;
   }
 
+  /**
+   * Returns the snapshot at the given index if it has not yet been installed on the given member.
+   *
+   * @return The snapshot to install or {@code null} if no snapshot needs to be installed at the index.
+   */
+  protected Snapshot getSnapshotToInstall(RaftMemberContext member, long index) {
+    Snapshot snapshot = server.getSnapshotStore().getSnapshotByIndex(index);
+    return snapshot != null && snapshot.index() > member.getSnapshotIndex() ? snapshot : null;
+  }
+
+  /**
+   * Returns the next snapshot to send to the given member.
+   * <p>
+   * If the snapshot at the member's next index is a delta snapshot, each snapshot in the chain on which the delta is
+   * based is sent in order, beginning with the full snapshot at the start of the chain.
+   */
+  private Snapshot getNextSnapshot(RaftMemberContext member) {
+    Snapshot snapshot = server.getSnapshotStore().getSnapshotByIndex(member.getNextIndex());
+    if (snapshot.isDelta()) {
+      List<Snapshot> chain = server.getSnapshotStore().getSnapshotChain(snapshot.snapshotId());
+      for (Snapshot chainSnapshot : chain) {
+        if (chainSnapshot.index() == member.getNextSnapshotIndex()) {
+          return chainSnapshot;
+        }
+      }
+      if (!chain.isEmpty()) {
+        return chain.get(0);
+      }
+    }
+    return snapshot;
+  }
+
+  /**
+   * Returns the snapshot following the installed snapshot in the chain being sent to the given member.
+   *
+   * @return The next snapshot in the chain or {@code null} if the installed snapshot completed the chain.
+   */
+  private Snapshot getNextChainSnapshot(RaftMemberContext member, InstallRequest request) {
+    for (Snapshot snapshot : server.getSnapshotStore().getSnapshotChain(StateMachineId.from(request.snapshotId()))) {
+      if (snapshot.index() > request.snapshotIndex() && snapshot.index() <= member.getNextIndex()) {
+        return snapshot;
+      }
+    }
+    return null;
+  }
+
   /**
    * Connects to the member and sends a snapshot request.
    */
@@ -527,6 +575,7 @@ abstract class AbstractAppender implements AutoCloseable {
     // once a connection to the member is re-established.
     member.setNextSnapshotIndex(0);
     member.setNextSnapshotOffset(0);
+    member.closeSnapshotReader();
 
     // Log the failed attempt to contact the member.
     failAttempt(member, error);
@@ -552,11 +601,21 @@ abstract class AbstractAppender implements AutoCloseable {
     succeedAttempt(member);
 
     // If the install request was completed successfully, set the member's snapshotIndex and reset
-    // the next snapshot index/offset.
+    // the next snapshot index/offset. If the snapshot was a member of a snapshot chain, send the next
+    // snapshot in the chain.
     if (request.complete()) {
-      member.setNextSnapshotIndex(0);
-      member.setNextSnapshotOffset(0);
-      member.setNextIndex(request.snapshotIndex() + 1);
+      member.closeSnapshotReader();
+      Snapshot nextSnapshot = getNextChainSnapshot(member, request);
+      if (nextSnapshot != null) {
+        member.setNextSnapshotIndex(nextSnapshot.index());
+        member.setNextSnapshotOffset(0);
+      } else {
+        // Entries continue to be replicated from the snapshot index to keep the member's log contiguous. The member
+        // installs the snapshot once it has applied the entry at the snapshot index.
+        member.setSnapshotIndex(request.snapshotIndex());
+        member.setNextSnapshotIndex(0);
+        member.setNextSnapshotOffset(0);
+      }
     }
     // If more install requests remain, increment the member's snapshot offset.
     else {
@@ -575,6 +634,7 @@ abstract class AbstractAppender implements AutoCloseable {
     log.warn("{} - Failed to install {}", server.getCluster().getMember().memberId(), member.getMember().memberId());
     member.setNextSnapshotIndex(0);
     member.setNextSnapshotOffset(0);
+    member.closeSnapshotReader();
   }
 
   @Override
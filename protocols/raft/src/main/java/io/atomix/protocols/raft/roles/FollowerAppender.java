@@ -54,7 +54,7 @@ final class FollowerAppender extends AbstractAppender {
 
     // If the member's current snapshot index is less than the latest snapshot index and the latest snapshot index
     // is less than the nextIndex, send a snapshot request.
-    Snapshot snapshot = server.getSnapshotStore().getSnapshotByIndex(member.getNextIndex());
+    Snapshot snapshot = getSnapshotToInstall(member, member.getNextIndex());
     if (snapshot != null) {
       if (member.canInstall()) {
         sendInstallRequest(member, buildInstallRequest(member));
@@ -66,4 +66,14 @@ final class FollowerAppender extends AbstractAppender {
     }
   }
 
+  @Override
+  public void close() {
+    super.close();
+
+    // Close snapshot readers opened to install snapshots on members.
+    for (RaftMemberContext member : server.getClusterState().getAssignedPassiveMemberStates()) {
+      member.getThreadContext().execute(member::closeSnapshotReader);
+    }
+  }
+
 }
@@ -209,9 +209,9 @@ final class LeaderAppender extends AbstractAppender {
         sendAppendRequest(member, buildAppendEmptyRequest(member));
       }
     }
-    // If there's a snapshot at the member's nextIndex, replicate the snapshot.
+    // If there's a snapshot at the member's nextIndex that the member hasn't installed, replicate the snapshot.
     else if (member.getMember().getType() == RaftMember.Type.ACTIVE) {
-      Snapshot snapshot = server.getSnapshotStore().getSnapshotByIndex(member.getNextIndex());
+      Snapshot snapshot = getSnapshotToInstall(member, member.getNextIndex());
       if (snapshot != null) {
         if (member.canInstall()) {
           sendInstallRequest(member, buildInstallRequest(member));
@@ -530,4 +530,14 @@ final class LeaderAppender extends AbstractAppender {
     super.handleInstallResponseFailure(member, request, error);
   }
 
+  @Override
+  public void close() {
+    super.close();
+
+    // Close snapshot readers opened to install snapshots on members.
+    for (RaftMemberContext member : server.getClusterState().getRemoteMemberStates()) {
+      member.getThreadContext().execute(member::closeSnapshotReader);
+    }
+  }
+
 }
@@ -28,6 +28,8 @@ import io.atomix.protocols.raft.protocol.AppendRequest;
 import io.atomix.protocols.raft.protocol.AppendResponse;
 import io.atomix.protocols.raft.protocol.CloseSessionRequest;
 import io.atomix.protocols.raft.protocol.CloseSessionResponse;
+import io.atomix.protocols.raft.protocol.CommandBatchRequest;
+import io.atomix.protocols.raft.protocol.CommandBatchResponse;
 import io.atomix.protocols.raft.protocol.CommandRequest;
 import io.atomix.protocols.raft.protocol.CommandResponse;
 import io.atomix.protocols.raft.protocol.JoinRequest;
@@ -67,7 +69,9 @@ import io.atomix.utils.concurrent.Scheduled;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
@@ -502,6 +506,11 @@ public final class LeaderRole extends ActiveRole {
           .build()));
     }
 
+    // If the request is a batch of commands, append and replicate the batched commands together.
+    if (request instanceof CommandBatchRequest) {
+      return onCommandBatch((CommandBatchRequest) request, session);
+    }
+
     // If the command is LINEARIZABLE and the session's current sequence number is less then one prior to the request
     // sequence number, queue this request for handling later. We want to handle command requests in the order in which
     // they were sent by the client. Note that it's possible for the session sequence number to be greater than the request
@@ -525,7 +534,7 @@ public final class LeaderRole extends ActiveRole {
     final RaftLogWriter writer = context.getLogWriter();
     writer.getLock().lock();
     try {
-      entry = writer.append(new CommandEntry(term, timestamp, request.session(), request.sequenceNumber(), request.bytes()));
+      entry = writer.append(new CommandEntry(term, timestamp, request.session(), request.sequenceNumber(), request.opcode(), request.bytes()));
       LOGGER.debug("{} - Appended {}", context.getCluster().getMember().memberId(), entry);
     } finally {
       writer.getLock().unlock();
@@ -553,6 +562,79 @@ public final class LeaderRole extends ActiveRole {
     return future.thenApply(this::logResponse);
   }
 
+  /**
+   * Handles a batch of commands.
+   * <p>
+   * Each command in the batch is sequenced exactly as if it had been submitted individually, but all the
+   * sequenced commands are appended to the log under a single lock and replicated to followers together.
+   * Commands that are received out of sequence are failed individually with a {@code COMMAND_ERROR}.
+   */
+  private CompletableFuture<CommandResponse> onCommandBatch(final CommandBatchRequest batch, final RaftSessionContext session) {
+    final List<CommandRequest> requests = batch.requests();
+    final List<CompletableFuture<CommandResponse>> futures = new ArrayList<>(requests.size());
+    final long[] indexes = new long[requests.size()];
+
+    final long term = context.getTerm();
+    final long timestamp = System.currentTimeMillis();
+
+    long lastIndex = 0;
+    final RaftLogWriter writer = context.getLogWriter();
+    writer.getLock().lock();
+    try {
+      for (int i = 0; i < requests.size(); i++) {
+        CommandRequest request = requests.get(i);
+        if (session.setRequestSequence(request.sequenceNumber())) {
+          Indexed<CommandEntry> entry = writer.append(new CommandEntry(term, timestamp, request.session(), request.sequenceNumber(), request.opcode(), request.bytes()));
+          LOGGER.debug("{} - Appended {}", context.getCluster().getMember().memberId(), entry);
+          indexes[i] = lastIndex = entry.index();
+          futures.add(new CompletableFuture<>());
+        } else {
+          futures.add(CompletableFuture.completedFuture(CommandResponse.newBuilder()
+              .withStatus(RaftResponse.Status.ERROR)
+              .withError(RaftError.Type.COMMAND_ERROR)
+              .withLastSequence(session.getRequestSequence())
+              .build()));
+        }
+      }
+    } finally {
+      writer.getLock().unlock();
+    }
+
+    // Replicate all the appended commands to followers at once and apply them in order once committed.
+    if (lastIndex > 0) {
+      appender.appendEntries(lastIndex).whenComplete((commitIndex, commitError) -> {
+        context.checkThread();
+        if (isOpen()) {
+          for (int i = 0; i < indexes.length; i++) {
+            if (indexes[i] == 0) {
+              continue;
+            }
+
+            CompletableFuture<CommandResponse> future = futures.get(i);
+            if (commitError == null) {
+              context.getStateMachine().<RaftOperationResult>apply(indexes[i]).whenComplete((result, error) -> {
+                if (isOpen()) {
+                  completeOperation(result, CommandResponse.newBuilder(), error, future);
+                }
+              });
+            } else {
+              future.complete(CommandResponse.newBuilder()
+                  .withStatus(RaftResponse.Status.ERROR)
+                  .withError(RaftError.Type.INTERNAL_ERROR)
+                  .build());
+            }
+          }
+        }
+      });
+    }
+
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()]))
+        .thenApply(v -> logResponse(CommandBatchResponse.newBuilder()
+            .withResponses(futures.stream().map(CompletableFuture::join).collect(Collectors.toList()))
+            .withStatus(RaftResponse.Status.OK)
+            .build()));
+  }
+
   @Override
   public CompletableFuture<QueryResponse> onQuery(final QueryRequest request) {
     final long timestamp = System.currentTimeMillis();
@@ -567,6 +649,7 @@ public final class LeaderRole extends ActiveRole {
             System.currentTimeMillis(),
             request.session(),
             request.sequenceNumber(),
+            request.opcode(),
             request.bytes()), 0);
 
     final CompletableFuture<QueryResponse> future;
@@ -38,7 +38,9 @@ import io.atomix.protocols.raft.storage.snapshot.StateMachineId;
 import io.atomix.storage.journal.Indexed;
 import io.atomix.time.WallClockTimestamp;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
@@ -48,6 +50,7 @@ import java.util.concurrent.CompletionException;
  */
 public class PassiveRole extends ReserveRole {
   private final Map<Long, Snapshot> pendingSnapshots = new HashMap<>();
+  private final Map<Long, List<Snapshot>> pendingChains = new HashMap<>();
   private int nextSnapshotOffset;
 
   public PassiveRole(RaftServerContext context) {
@@ -275,6 +278,7 @@ public class PassiveRole extends ReserveRole {
               System.currentTimeMillis(),
               request.session(),
               request.sequenceNumber(),
+              request.opcode(),
               request.bytes()), 0);
 
       return applyQuery(entry).thenApply(this::logResponse);
@@ -400,6 +404,7 @@ public class PassiveRole extends ReserveRole {
       pendingSnapshot = context.getSnapshotStore().newSnapshot(
               StateMachineId.from(request.snapshotId()),
               request.snapshotIndex(),
+              request.snapshotBaseIndex(),
               WallClockTimestamp.from(request.snapshotTimestamp()));
       nextSnapshotOffset = 0;
     }
@@ -414,14 +419,22 @@ public class PassiveRole extends ReserveRole {
 
     // Write the data to the snapshot.
     try (SnapshotWriter writer = pendingSnapshot.openWriter(context.getStorage().serializer())) {
-      writer.write(request.data());
+      writer.write(request.compression().decompress(request.data()));
     }
 
     // If the snapshot is complete, store the snapshot and reset state, otherwise update the next snapshot offset.
     if (request.complete()) {
-      pendingSnapshot.persist().complete();
       pendingSnapshots.remove(request.snapshotId());
       nextSnapshotOffset = 0;
+
+      // If a delta snapshot can't be linked to the snapshot on which it's based, fail the request to force the
+      // leader to resend the snapshot chain from the beginning.
+      if (!completeSnapshot(pendingSnapshot.persist())) {
+        return CompletableFuture.completedFuture(logResponse(InstallResponse.newBuilder()
+            .withStatus(RaftResponse.Status.ERROR)
+            .withError(RaftError.Type.ILLEGAL_MEMBER_STATE_ERROR)
+            .build()));
+      }
     } else {
       nextSnapshotOffset++;
       pendingSnapshots.put(request.snapshotId(), pendingSnapshot);
@@ -432,11 +445,64 @@ public class PassiveRole extends ReserveRole {
         .build()));
   }
 
+  /**
+   * Completes a snapshot installed by the leader.
+   * <p>
+   * Leaders send delta snapshots in chain order following the full snapshot on which they're based. Since the
+   * full snapshot at the start of a chain may precede the latest local snapshot, received snapshots are held in a
+   * pending chain until the chain reaches the latest local snapshot, at which point the chain is stored.
+   *
+   * @param snapshot The persisted snapshot.
+   * @return Indicates whether the snapshot could be linked to the snapshot on which it's based.
+   */
+  private boolean completeSnapshot(Snapshot snapshot) {
+    StateMachineId stateMachineId = snapshot.snapshotId();
+    List<Snapshot> chain = pendingChains.get(stateMachineId.id());
+    if (!snapshot.isDelta()) {
+      if (chain != null) {
+        deleteSnapshots(chain);
+      }
+      chain = new ArrayList<>();
+      pendingChains.put(stateMachineId.id(), chain);
+    } else {
+      Snapshot baseSnapshot = chain != null && !chain.isEmpty()
+          ? chain.get(chain.size() - 1)
+          : context.getSnapshotStore().getSnapshotById(stateMachineId);
+      if (baseSnapshot == null || baseSnapshot.index() != snapshot.baseIndex()) {
+        snapshot.close();
+        snapshot.delete();
+        return false;
+      }
+      if (chain == null) {
+        chain = new ArrayList<>();
+        pendingChains.put(stateMachineId.id(), chain);
+      }
+    }
+    chain.add(snapshot);
+
+    Snapshot currentSnapshot = context.getSnapshotStore().getSnapshotById(stateMachineId);
+    if (currentSnapshot == null || snapshot.index() >= currentSnapshot.index()) {
+      context.getSnapshotStore().completeSnapshots(chain);
+      pendingChains.remove(stateMachineId.id());
+    }
+    return true;
+  }
+
+  /**
+   * Closes and deletes the given snapshots.
+   */
+  private void deleteSnapshots(Iterable<Snapshot> snapshots) {
+    for (Snapshot snapshot : snapshots) {
+      snapshot.close();
+      snapshot.delete();
+    }
+  }
+
   @Override
   public CompletableFuture<Void> close() {
-    for (Snapshot pendingSnapshot : pendingSnapshots.values()) {
-      pendingSnapshot.close();
-      pendingSnapshot.delete();
+    deleteSnapshots(pendingSnapshots.values());
+    for (List<Snapshot> chain : pendingChains.values()) {
+      deleteSnapshots(chain);
     }
     return super.close();
   }
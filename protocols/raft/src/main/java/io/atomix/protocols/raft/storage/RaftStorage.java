@@ -22,12 +22,14 @@ import io.atomix.protocols.raft.storage.snapshot.SnapshotStore;
 import io.atomix.protocols.raft.storage.system.MetaStore;
 import io.atomix.serializer.Serializer;
 import io.atomix.storage.StorageLevel;
+import io.atomix.storage.compression.CompressionCodec;
 import io.atomix.storage.journal.JournalSegmentDescriptor;
 import io.atomix.storage.journal.JournalSegmentFile;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.time.Duration;
 import java.util.function.Predicate;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -71,6 +73,13 @@ public class RaftStorage {
   private final int entryBufferSize;
   private final boolean flushOnCommit;
   private final boolean retainStaleSnapshots;
+  private final Duration snapshotInterval;
+  private final int snapshotEntryThreshold;
+  private final long snapshotSizeThreshold;
+  private final long snapshotRateThreshold;
+  private final int maxSnapshotDeltas;
+  private final double freeDiskBuffer;
+  private final CompressionCodec compression;
 
   private RaftStorage(
       String prefix,
@@ -81,7 +90,14 @@ public class RaftStorage {
       int maxEntriesPerSegment,
       int entryBufferSize,
       boolean flushOnCommit,
-      boolean retainStaleSnapshots) {
+      boolean retainStaleSnapshots,
+      Duration snapshotInterval,
+      int snapshotEntryThreshold,
+      long snapshotSizeThreshold,
+      long snapshotRateThreshold,
+      int maxSnapshotDeltas,
+      double freeDiskBuffer,
+      CompressionCodec compression) {
     this.prefix = prefix;
     this.storageLevel = storageLevel;
     this.directory = directory;
@@ -91,6 +107,13 @@ public class RaftStorage {
     this.entryBufferSize = entryBufferSize;
     this.flushOnCommit = flushOnCommit;
     this.retainStaleSnapshots = retainStaleSnapshots;
+    this.snapshotInterval = snapshotInterval;
+    this.snapshotEntryThreshold = snapshotEntryThreshold;
+    this.snapshotSizeThreshold = snapshotSizeThreshold;
+    this.snapshotRateThreshold = snapshotRateThreshold;
+    this.maxSnapshotDeltas = maxSnapshotDeltas;
+    this.freeDiskBuffer = freeDiskBuffer;
+    this.compression = compression;
     directory.mkdirs();
   }
 
@@ -194,6 +217,95 @@ public class RaftStorage {
     return retainStaleSnapshots;
   }
 
+  /**
+   * Returns the maximum interval between state machine snapshots.
+   * <p>
+   * A snapshot will be taken of a state machine once the interval has elapsed since its last snapshot if any
+   * commands have been applied to the state machine in the meantime.
+   *
+   * @return The maximum interval between state machine snapshots.
+   */
+  public Duration snapshotInterval() {
+    return snapshotInterval;
+  }
+
+  /**
+   * Returns the number of entries applied to a state machine after which a snapshot will be taken.
+   *
+   * @return The snapshot entry threshold, or {@code 0} if snapshots are not triggered by entry count.
+   */
+  public int snapshotEntryThreshold() {
+    return snapshotEntryThreshold;
+  }
+
+  /**
+   * Returns the number of bytes applied to a state machine after which a snapshot will be taken.
+   *
+   * @return The snapshot size threshold, or {@code 0} if snapshots are not triggered by size.
+   */
+  public long snapshotSizeThreshold() {
+    return snapshotSizeThreshold;
+  }
+
+  /**
+   * Returns the write rate above which the snapshot interval is shortened.
+   *
+   * @return The snapshot rate threshold in bytes per second, or {@code 0} if snapshots are not triggered by rate.
+   */
+  public long snapshotRateThreshold() {
+    return snapshotRateThreshold;
+  }
+
+  /**
+   * Returns the maximum number of delta snapshots to chain to a full snapshot.
+   * <p>
+   * State machines that implement {@link io.atomix.protocols.raft.IncrementalSnapshottable} write delta snapshots
+   * containing only the state changed since their previous snapshot. Once a chain of delta snapshots reaches this
+   * length, the next snapshot is a full snapshot which replaces the chain.
+   *
+   * @return The maximum number of delta snapshots per chain, or {@code 0} if delta snapshots are disabled.
+   */
+  public int maxSnapshotDeltas() {
+    return maxSnapshotDeltas;
+  }
+
+  /**
+   * Returns the fraction of disk space that must remain free in the storage directory.
+   * <p>
+   * When the usable space in the storage {@link #directory()} falls below this fraction of the total space,
+   * snapshots will be taken of all state machines to which entries have been applied so the log can be compacted.
+   *
+   * @return The fraction of disk space that must remain free.
+   */
+  public double freeDiskBuffer() {
+    return freeDiskBuffer;
+  }
+
+  /**
+   * Returns the codec with which log segments and snapshots are compressed.
+   * <p>
+   * The codec is recorded in the descriptor of each segment and snapshot file, so changing the codec does not
+   * prevent existing files from being read.
+   *
+   * @return The storage compression codec.
+   */
+  public CompressionCodec compression() {
+    return compression;
+  }
+
+  /**
+   * Returns a boolean indicating whether the storage directory is under disk pressure.
+   *
+   * @return Indicates whether free space in the storage directory is below the {@link #freeDiskBuffer()}.
+   */
+  public boolean isDiskPressure() {
+    if (storageLevel == StorageLevel.MEMORY) {
+      return false;
+    }
+    long totalSpace = directory.getTotalSpace();
+    return totalSpace > 0 && (double) directory.getUsableSpace() / totalSpace < freeDiskBuffer;
+  }
+
   /**
    * Opens a new {@link MetaStore}, recovering metadata from disk if it exists.
    * <p>
@@ -259,6 +371,7 @@ public class RaftStorage {
         .withMaxSegmentSize(maxSegmentSize)
         .withMaxEntriesPerSegment(maxEntriesPerSegment)
         .withEntryBufferSize(entryBufferSize)
+        .withCompression(compression)
         .build();
   }
 
@@ -319,6 +432,12 @@ public class RaftStorage {
     private static final int DEFAULT_ENTRY_BUFFER_SIZE = 1024;
     private static final boolean DEFAULT_FLUSH_ON_COMMIT = false;
     private static final boolean DEFAULT_RETAIN_STALE_SNAPSHOTS = false;
+    private static final Duration DEFAULT_SNAPSHOT_INTERVAL = Duration.ofMinutes(10);
+    private static final int DEFAULT_SNAPSHOT_ENTRY_THRESHOLD = 1024 * 1024;
+    private static final long DEFAULT_SNAPSHOT_SIZE_THRESHOLD = 1024 * 1024 * 64;
+    private static final long DEFAULT_SNAPSHOT_RATE_THRESHOLD = 0;
+    private static final int DEFAULT_MAX_SNAPSHOT_DELTAS = 8;
+    private static final double DEFAULT_FREE_DISK_BUFFER = .1;
 
     private String prefix = DEFAULT_PREFIX;
     private StorageLevel storageLevel = StorageLevel.DISK;
@@ -329,6 +448,13 @@ public class RaftStorage {
     private int entryBufferSize = DEFAULT_ENTRY_BUFFER_SIZE;
     private boolean flushOnCommit = DEFAULT_FLUSH_ON_COMMIT;
     private boolean retainStaleSnapshots = DEFAULT_RETAIN_STALE_SNAPSHOTS;
+    private Duration snapshotInterval = DEFAULT_SNAPSHOT_INTERVAL;
+    private int snapshotEntryThreshold = DEFAULT_SNAPSHOT_ENTRY_THRESHOLD;
+    private long snapshotSizeThreshold = DEFAULT_SNAPSHOT_SIZE_THRESHOLD;
+    private long snapshotRateThreshold = DEFAULT_SNAPSHOT_RATE_THRESHOLD;
+    private int maxSnapshotDeltas = DEFAULT_MAX_SNAPSHOT_DELTAS;
+    private double freeDiskBuffer = DEFAULT_FREE_DISK_BUFFER;
+    private CompressionCodec compression = CompressionCodec.NONE;
 
     private Builder() {
     }
@@ -517,6 +643,144 @@ public class RaftStorage {
       return this;
     }
 
+    /**
+     * Sets the maximum interval between state machine snapshots, returning the builder for method chaining.
+     * <p>
+     * Once the interval has elapsed since a state machine's last snapshot, a new snapshot will be taken if any
+     * commands have been applied to the state machine since. Idle state machines are not snapshotted. A state
+     * machine is also snapshotted shortly after the first command is applied to it.
+     * <p>
+     * By default, the snapshot interval is {@code 10} minutes.
+     *
+     * @param snapshotInterval The maximum interval between state machine snapshots.
+     * @return The storage builder.
+     * @throws NullPointerException if {@code snapshotInterval} is null
+     * @throws IllegalArgumentException if {@code snapshotInterval} is not positive
+     */
+    public Builder withSnapshotInterval(Duration snapshotInterval) {
+      checkNotNull(snapshotInterval, "snapshotInterval cannot be null");
+      checkArgument(!snapshotInterval.isNegative() && !snapshotInterval.isZero(), "snapshotInterval must be positive");
+      this.snapshotInterval = snapshotInterval;
+      return this;
+    }
+
+    /**
+     * Sets the number of entries after which to snapshot a state machine, returning the builder for method chaining.
+     * <p>
+     * Once the given number of entries has been applied to a state machine since its last snapshot, a new snapshot
+     * will be taken regardless of the {@link #withSnapshotInterval(Duration) snapshot interval}. A threshold of
+     * {@code 0} disables entry-based snapshots.
+     * <p>
+     * By default, the snapshot entry threshold is {@code 1024 * 1024}.
+     *
+     * @param snapshotEntryThreshold The number of entries after which to snapshot a state machine.
+     * @return The storage builder.
+     * @throws IllegalArgumentException if {@code snapshotEntryThreshold} is negative
+     */
+    public Builder withSnapshotEntryThreshold(int snapshotEntryThreshold) {
+      checkArgument(snapshotEntryThreshold >= 0, "snapshotEntryThreshold cannot be negative");
+      this.snapshotEntryThreshold = snapshotEntryThreshold;
+      return this;
+    }
+
+    /**
+     * Sets the number of bytes after which to snapshot a state machine, returning the builder for method chaining.
+     * <p>
+     * Once the given number of bytes has been applied to a state machine since its last snapshot, a new snapshot
+     * will be taken regardless of the {@link #withSnapshotInterval(Duration) snapshot interval}. A threshold of
+     * {@code 0} disables size-based snapshots.
+     * <p>
+     * By default, the snapshot size threshold is {@code 1024 * 1024 * 64}.
+     *
+     * @param snapshotSizeThreshold The number of bytes after which to snapshot a state machine.
+     * @return The storage builder.
+     * @throws IllegalArgumentException if {@code snapshotSizeThreshold} is negative
+     */
+    public Builder withSnapshotSizeThreshold(long snapshotSizeThreshold) {
+      checkArgument(snapshotSizeThreshold >= 0, "snapshotSizeThreshold cannot be negative");
+      this.snapshotSizeThreshold = snapshotSizeThreshold;
+      return this;
+    }
+
+    /**
+     * Sets the write rate above which to shorten the snapshot interval, returning the builder for method chaining.
+     * <p>
+     * While the rate at which bytes are applied to the server's state machines is above the given threshold, the
+     * {@link #withSnapshotInterval(Duration) snapshot interval} is divided by the ratio of the write rate to the
+     * threshold. Under heavy load state machines are therefore snapshotted more often so the log can be compacted,
+     * while under light load snapshots are taken only at the configured interval. A threshold of {@code 0}
+     * disables rate-based snapshots.
+     * <p>
+     * By default, rate-based snapshots are disabled.
+     *
+     * @param snapshotRateThreshold The write rate in bytes per second above which to shorten the snapshot interval.
+     * @return The storage builder.
+     * @throws IllegalArgumentException if {@code snapshotRateThreshold} is negative
+     */
+    public Builder withSnapshotRateThreshold(long snapshotRateThreshold) {
+      checkArgument(snapshotRateThreshold >= 0, "snapshotRateThreshold cannot be negative");
+      this.snapshotRateThreshold = snapshotRateThreshold;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of delta snapshots to chain to a full snapshot, returning the builder for method chaining.
+     * <p>
+     * State machines that implement {@link io.atomix.protocols.raft.IncrementalSnapshottable} write delta snapshots
+     * containing only the state changed since their previous snapshot. Each delta must be installed on top of the
+     * chain of snapshots preceding it, so once a chain reaches the maximum number of deltas the next snapshot
+     * merges the chain by writing the full state machine state. A maximum of {@code 0} disables delta snapshots.
+     * <p>
+     * By default, the maximum number of snapshot deltas is {@code 8}.
+     *
+     * @param maxSnapshotDeltas The maximum number of delta snapshots per chain.
+     * @return The storage builder.
+     * @throws IllegalArgumentException if {@code maxSnapshotDeltas} is negative
+     */
+    public Builder withMaxSnapshotDeltas(int maxSnapshotDeltas) {
+      checkArgument(maxSnapshotDeltas >= 0, "maxSnapshotDeltas cannot be negative");
+      this.maxSnapshotDeltas = maxSnapshotDeltas;
+      return this;
+    }
+
+    /**
+     * Sets the fraction of disk space that must remain free, returning the builder for method chaining.
+     * <p>
+     * When the usable space in the storage directory falls below the given fraction of the total space, the server
+     * is considered under disk pressure and will snapshot all state machines to which entries have been applied and
+     * compact the log as soon as possible. A buffer of {@code 0} disables disk pressure snapshots.
+     * <p>
+     * By default, the free disk buffer is {@code .1}.
+     *
+     * @param freeDiskBuffer The fraction of disk space that must remain free.
+     * @return The storage builder.
+     * @throws IllegalArgumentException if {@code freeDiskBuffer} is not between {@code 0} and {@code 1}
+     */
+    public Builder withFreeDiskBuffer(double freeDiskBuffer) {
+      checkArgument(freeDiskBuffer >= 0 && freeDiskBuffer < 1, "freeDiskBuffer must be between 0 and 1");
+      this.freeDiskBuffer = freeDiskBuffer;
+      return this;
+    }
+
+    /**
+     * Sets the codec with which to compress log segments and snapshots, returning the builder for method chaining.
+     * <p>
+     * Log entries are compressed individually within each new segment, and snapshots are compressed in blocks as
+     * they're written to disk. Snapshot chunks are also sent compressed to followers being sent a snapshot.
+     * {@link CompressionCodec#LZ4} trades compression ratio for speed, while {@link CompressionCodec#DEFLATE}
+     * produces smaller files at a higher CPU cost.
+     * <p>
+     * By default, the compression codec is {@link CompressionCodec#NONE}.
+     *
+     * @param compression The storage compression codec.
+     * @return The storage builder.
+     * @throws NullPointerException if {@code compression} is {@code null}
+     */
+    public Builder withCompression(CompressionCodec compression) {
+      this.compression = checkNotNull(compression, "compression cannot be null");
+      return this;
+    }
+
     /**
      * Builds the {@link RaftStorage} object.
      *
@@ -533,7 +797,14 @@ public class RaftStorage {
           maxEntriesPerSegment,
           entryBufferSize,
           flushOnCommit,
-          retainStaleSnapshots);
+          retainStaleSnapshots,
+          snapshotInterval,
+          snapshotEntryThreshold,
+          snapshotSizeThreshold,
+          snapshotRateThreshold,
+          maxSnapshotDeltas,
+          freeDiskBuffer,
+          compression);
     }
   }
 
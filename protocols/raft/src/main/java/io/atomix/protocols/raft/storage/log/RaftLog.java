@@ -18,6 +18,7 @@ package io.atomix.protocols.raft.storage.log;
 import io.atomix.protocols.raft.storage.log.entry.RaftLogEntry;
 import io.atomix.serializer.Serializer;
 import io.atomix.storage.StorageLevel;
+import io.atomix.storage.compression.CompressionCodec;
 import io.atomix.storage.journal.Journal;
 import io.atomix.storage.journal.DelegatingJournal;
 import io.atomix.storage.journal.SegmentedJournal;
@@ -227,6 +228,21 @@ public class RaftLog extends DelegatingJournal<RaftLogEntry> {
       return this;
     }
 
+    /**
+     * Sets the codec with which to compress log entries, returning the builder for method chaining.
+     * <p>
+     * The codec applies to segments created after the log is opened. Entries in existing segments are read with
+     * the codec recorded in each segment's descriptor.
+     *
+     * @param compression The log compression codec.
+     * @return The log builder.
+     * @throws NullPointerException if {@code compression} is {@code null}
+     */
+    public Builder withCompression(CompressionCodec compression) {
+      journalBuilder.withCompression(compression);
+      return this;
+    }
+
     /**
      * Enables flushing buffers to disk when entries are committed to a segment, returning the builder
      * for method chaining.
@@ -28,8 +28,8 @@ import static com.google.common.base.MoreObjects.toStringHelper;
  * client along with information relevant to sequencing the command in the server state machine.
  */
 public class CommandEntry extends OperationEntry {
-  public CommandEntry(long term, long timestamp, long session, long sequence, byte[] bytes) {
-    super(term, timestamp, session, sequence, bytes);
+  public CommandEntry(long term, long timestamp, long session, long sequence, int opcode, byte[] bytes) {
+    super(term, timestamp, session, sequence, opcode, bytes);
   }
 
   @Override
@@ -39,6 +39,7 @@ public class CommandEntry extends OperationEntry {
         .add("timestamp", new Date(timestamp))
         .add("session", session)
         .add("sequence", sequence)
+        .add("opcode", opcode)
         .add("command", ArraySizeHashPrinter.of(bytes))
         .toString();
   }
@@ -32,14 +32,25 @@ import static com.google.common.base.MoreObjects.toStringHelper;
  */
 public abstract class OperationEntry extends SessionEntry {
   protected final long sequence;
+  protected final int opcode;
   protected final byte[] bytes;
 
-  public OperationEntry(long term, long timestamp, long session, long sequence, byte[] bytes) {
+  public OperationEntry(long term, long timestamp, long session, long sequence, int opcode, byte[] bytes) {
     super(term, timestamp, session);
     this.sequence = sequence;
+    this.opcode = opcode;
     this.bytes = bytes;
   }
 
+  /**
+   * Returns the entry operation op-code.
+   *
+   * @return The entry operation op-code, or {@code 0} if the operation is dispatched by type.
+   */
+  public int opcode() {
+    return opcode;
+  }
+
   /**
    * Returns the entry operation bytes.
    *
@@ -65,6 +76,7 @@ public abstract class OperationEntry extends SessionEntry {
         .add("timestamp", new Date(timestamp))
         .add("session", session)
         .add("sequence", sequence)
+        .add("opcode", opcode)
         .add("operation", ArraySizeHashPrinter.of(bytes))
         .toString();
   }
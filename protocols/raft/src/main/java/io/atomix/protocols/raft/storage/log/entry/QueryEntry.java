@@ -30,8 +30,8 @@ import static com.google.common.base.MoreObjects.toStringHelper;
  * are used to sequence queries as they're applied to the user state machine.
  */
 public class QueryEntry extends OperationEntry {
-  public QueryEntry(long term, long timestamp, long session, long sequence, byte[] bytes) {
-    super(term, timestamp, session, sequence, bytes);
+  public QueryEntry(long term, long timestamp, long session, long sequence, int opcode, byte[] bytes) {
+    super(term, timestamp, session, sequence, opcode, bytes);
   }
 
   @Override
@@ -41,6 +41,7 @@ public class QueryEntry extends OperationEntry {
         .add("timestamp", new Date(timestamp))
         .add("session", session)
         .add("sequence", sequence)
+        .add("opcode", opcode)
         .add("query", ArraySizeHashPrinter.of(bytes))
         .toString();
   }
@@ -17,10 +17,15 @@ package io.atomix.protocols.raft.storage.snapshot;
 
 import io.atomix.storage.buffer.Buffer;
 import io.atomix.storage.buffer.FileBuffer;
+import io.atomix.storage.buffer.InputStreamBufferInput;
+import io.atomix.storage.buffer.OutputStreamBufferOutput;
+import io.atomix.storage.compression.CompressionCodec;
 import io.atomix.serializer.Serializer;
 import io.atomix.time.WallClockTimestamp;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -30,14 +35,26 @@ import static com.google.common.base.Preconditions.checkState;
 
 /**
  * File-based snapshot backed by a {@link FileBuffer}.
+ * <p>
+ * If the snapshot is compressed, bytes are compressed in blocks as they're written. Each block is stored in the file
+ * prefixed with its decompressed and compressed lengths, and readers decompress one block at a time, so at most one
+ * block of the snapshot is held in memory by each reader or writer.
  */
 final class FileSnapshot extends Snapshot {
+  private static final int BLOCK_SIZE = 1024 * 64;
+
   private final SnapshotFile file;
+  private final long baseIndex;
+  private final CompressionCodec compression;
   private final SnapshotStore store;
+  private Buffer fileBuffer;
+  private BlockOutputStream blockOutput;
 
-  FileSnapshot(SnapshotFile file, SnapshotStore store) {
+  FileSnapshot(SnapshotFile file, long baseIndex, CompressionCodec compression, SnapshotStore store) {
     super(store);
     this.file = checkNotNull(file, "file cannot be null");
+    this.baseIndex = baseIndex;
+    this.compression = checkNotNull(compression, "compression cannot be null");
     this.store = checkNotNull(store, "store cannot be null");
   }
 
@@ -56,25 +73,45 @@ final class FileSnapshot extends Snapshot {
     return WallClockTimestamp.from(file.timestamp());
   }
 
+  @Override
+  public long baseIndex() {
+    return baseIndex;
+  }
+
   @Override
   public synchronized SnapshotWriter openWriter(Serializer serializer) {
     checkWriter();
     SnapshotDescriptor descriptor = SnapshotDescriptor.newBuilder()
+        .withId(file.snapshotId().id())
         .withIndex(file.index())
         .withTimestamp(file.timestamp())
+        .withBaseIndex(baseIndex)
+        .withCompression(compression)
         .build();
 
     Buffer buffer = FileBuffer.allocate(file.file(), SnapshotDescriptor.BYTES);
     descriptor.copyTo(buffer);
 
     int length = buffer.position(SnapshotDescriptor.BYTES).readInt();
-    return openWriter(new SnapshotWriter(buffer.skip(length).mark(), this, serializer), descriptor);
+    fileBuffer = buffer.skip(length).mark();
+    if (compression == CompressionCodec.NONE) {
+      return openWriter(new SnapshotWriter(fileBuffer, this, serializer), descriptor);
+    }
+
+    // Compressed snapshots are compressed to the file one block at a time.
+    blockOutput = new BlockOutputStream(fileBuffer, compression);
+    return openWriter(new SnapshotWriter(new OutputStreamBufferOutput(blockOutput), this, serializer), descriptor);
   }
 
   @Override
   protected void closeWriter(SnapshotWriter writer) {
-    int length = writer.buffer.position() - (SnapshotDescriptor.BYTES + Integer.BYTES);
-    writer.buffer.writeInt(SnapshotDescriptor.BYTES, length).flush();
+    if (blockOutput != null) {
+      blockOutput.writeBlock();
+      blockOutput = null;
+    }
+    int length = fileBuffer.position() - (SnapshotDescriptor.BYTES + Integer.BYTES);
+    fileBuffer.writeInt(SnapshotDescriptor.BYTES, length).flush();
+    fileBuffer = null;
     super.closeWriter(writer);
   }
 
@@ -84,7 +121,13 @@ final class FileSnapshot extends Snapshot {
     Buffer buffer = FileBuffer.allocate(file.file(), SnapshotDescriptor.BYTES);
     SnapshotDescriptor descriptor = new SnapshotDescriptor(buffer);
     int length = buffer.position(SnapshotDescriptor.BYTES).readInt();
-    return openReader(new SnapshotReader(buffer.mark().limit(SnapshotDescriptor.BYTES + Integer.BYTES + length), this, serializer), descriptor);
+    if (descriptor.compression() == CompressionCodec.NONE) {
+      return openReader(new SnapshotReader(buffer.mark().limit(SnapshotDescriptor.BYTES + Integer.BYTES + length), this, serializer), descriptor);
+    }
+
+    // Compressed snapshots are decompressed from the file one block at a time.
+    BlockInputStream blockInput = new BlockInputStream(buffer, descriptor.compression(), SnapshotDescriptor.BYTES + Integer.BYTES + length);
+    return openReader(new SnapshotReader(new InputStreamBufferInput(blockInput), this, serializer), descriptor);
   }
 
   @Override
@@ -120,7 +163,182 @@ final class FileSnapshot extends Snapshot {
   public String toString() {
     return toStringHelper(this)
         .add("index", index())
+        .add("baseIndex", baseIndex())
+        .add("compression", compression)
         .toString();
   }
 
+  /**
+   * Output stream that compresses bytes to a buffer in blocks.
+   * <p>
+   * Bytes are collected until a full block has been written, and the block is then compressed to the buffer. The
+   * last partial block must be written by {@link #writeBlock()} once all bytes have been written.
+   */
+  private static final class BlockOutputStream extends OutputStream {
+    private final Buffer buffer;
+    private final CompressionCodec compression;
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private int position;
+
+    private BlockOutputStream(Buffer buffer, CompressionCodec compression) {
+      this.buffer = buffer;
+      this.compression = compression;
+    }
+
+    @Override
+    public void write(int b) {
+      block[position++] = (byte) b;
+      if (position == BLOCK_SIZE) {
+        writeBlock();
+      }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+      while (length > 0) {
+        int count = Math.min(length, BLOCK_SIZE - position);
+        System.arraycopy(bytes, offset, block, position, count);
+        position += count;
+        offset += count;
+        length -= count;
+        if (position == BLOCK_SIZE) {
+          writeBlock();
+        }
+      }
+    }
+
+    /**
+     * Compresses the pending bytes to the buffer as a block.
+     */
+    private void writeBlock() {
+      if (position > 0) {
+        byte[] compressed = compression.compress(block, 0, position);
+        buffer.writeInt(position).writeInt(compressed.length).write(compressed);
+        position = 0;
+      }
+    }
+
+    @Override
+    public void flush() {
+      buffer.flush();
+    }
+
+    @Override
+    public void close() {
+      buffer.close();
+    }
+  }
+
+  /**
+   * Input stream that decompresses blocks from a buffer.
+   * <p>
+   * Only the block being read is held in memory. Block headers are scanned when the stream is opened to determine
+   * the number of bytes {@link #available() available}, and whole blocks are skipped without being decompressed.
+   */
+  private static final class BlockInputStream extends InputStream {
+    private final Buffer buffer;
+    private final CompressionCodec compression;
+    private final int limit;
+    private byte[] block = new byte[0];
+    private int position;
+    private int remaining;
+
+    private BlockInputStream(Buffer buffer, CompressionCodec compression, int limit) {
+      this.buffer = buffer;
+      this.compression = compression;
+      this.limit = limit;
+
+      // Sum the decompressed lengths of all blocks without reading the compressed bytes.
+      buffer.mark();
+      while (buffer.position() < limit) {
+        remaining += buffer.readInt();
+        buffer.skip(buffer.readInt());
+      }
+      buffer.reset();
+    }
+
+    @Override
+    public int read() {
+      if (!nextBlock()) {
+        return -1;
+      }
+      remaining--;
+      return block[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      }
+
+      // Fill the array across blocks so that reads only return fewer bytes than requested at the end of the stream.
+      int read = 0;
+      while (read < length && nextBlock()) {
+        int count = Math.min(length - read, block.length - position);
+        System.arraycopy(block, position, bytes, offset + read, count);
+        position += count;
+        read += count;
+      }
+      remaining -= read;
+      return read > 0 ? read : -1;
+    }
+
+    @Override
+    public long skip(long bytes) {
+      long skipped = Math.min(bytes, block.length - position);
+      position += skipped;
+      while (skipped < bytes && buffer.position() < limit) {
+        int blockLength = buffer.readInt();
+        int compressedLength = buffer.readInt();
+        if (skipped + blockLength <= bytes) {
+          buffer.skip(compressedLength);
+          skipped += blockLength;
+        } else {
+          readBlock(compressedLength);
+          position = (int) (bytes - skipped);
+          skipped = bytes;
+        }
+      }
+      remaining -= skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return remaining;
+    }
+
+    /**
+     * Reads the next block if the current block has been read.
+     *
+     * @return Whether bytes remain to be read.
+     */
+    private boolean nextBlock() {
+      while (position == block.length) {
+        if (buffer.position() >= limit) {
+          return false;
+        }
+        buffer.readInt();
+        readBlock(buffer.readInt());
+      }
+      return true;
+    }
+
+    /**
+     * Reads and decompresses the block with the given compressed length.
+     */
+    private void readBlock(int compressedLength) {
+      byte[] compressed = new byte[compressedLength];
+      buffer.read(compressed);
+      block = compression.decompress(compressed);
+      position = 0;
+    }
+
+    @Override
+    public void close() {
+      buffer.close();
+    }
+  }
+
 }
@@ -17,6 +17,7 @@ package io.atomix.protocols.raft.storage.snapshot;
 
 import io.atomix.serializer.Serializer;
 import io.atomix.storage.StorageLevel;
+import io.atomix.storage.buffer.Buffer;
 import io.atomix.storage.buffer.HeapBuffer;
 import io.atomix.time.WallClockTimestamp;
 
@@ -30,6 +31,7 @@ final class MemorySnapshot extends Snapshot {
   private final HeapBuffer buffer;
   private final SnapshotDescriptor descriptor;
   private final SnapshotStore store;
+  private Buffer writeBuffer;
 
   MemorySnapshot(HeapBuffer buffer, SnapshotDescriptor descriptor, SnapshotStore store) {
     super(store);
@@ -55,30 +57,43 @@ final class MemorySnapshot extends Snapshot {
     return WallClockTimestamp.from(descriptor.timestamp());
   }
 
+  @Override
+  public long baseIndex() {
+    return descriptor.baseIndex();
+  }
+
   @Override
   public SnapshotWriter openWriter(Serializer serializer) {
     checkWriter();
-    return new SnapshotWriter(buffer.reset().slice(), this, serializer);
+    writeBuffer = buffer.reset().slice();
+    return new SnapshotWriter(writeBuffer, this, serializer);
   }
 
   @Override
   protected void closeWriter(SnapshotWriter writer) {
-    buffer.skip(writer.buffer.position()).mark();
+    buffer.skip(writeBuffer.position()).mark();
+    writeBuffer = null;
     super.closeWriter(writer);
   }
 
   @Override
   public synchronized SnapshotReader openReader(Serializer serializer) {
-    return openReader(new SnapshotReader(buffer.reset().slice(), this, serializer), descriptor);
+    return openReader(new SnapshotReader(buffer.position(SnapshotDescriptor.BYTES).slice(), this, serializer), descriptor);
   }
 
   @Override
   public Snapshot persist() {
     if (store.storage.storageLevel() != StorageLevel.MEMORY) {
-      try (Snapshot newSnapshot = store.newSnapshot(snapshotId(), index(), timestamp())) {
+      try (Snapshot newSnapshot = store.newSnapshot(snapshotId(), index(), baseIndex(), timestamp())) {
         try (SnapshotWriter newSnapshotWriter = newSnapshot.openWriter(store.storage.serializer())) {
+          // Copy only the snapshot contents, since the new snapshot writes its own descriptor.
           buffer.flip();
-          newSnapshotWriter.write(buffer.array(), 0, buffer.remaining());
+          newSnapshotWriter.write(buffer.array(), SnapshotDescriptor.BYTES, buffer.remaining() - SnapshotDescriptor.BYTES);
+        } catch (RuntimeException e) {
+          // Don't leave a partially written snapshot file behind.
+          newSnapshot.close();
+          newSnapshot.delete();
+          throw e;
         }
         return newSnapshot;
       }
@@ -107,6 +122,7 @@ final class MemorySnapshot extends Snapshot {
   public String toString() {
     return toStringHelper(this)
         .add("index", index())
+        .add("baseIndex", baseIndex())
         .toString();
   }
 
@@ -86,6 +86,26 @@ public abstract class Snapshot implements AutoCloseable {
    */
   public abstract WallClockTimestamp timestamp();
 
+  /**
+   * Returns the index of the snapshot on which this snapshot is based.
+   * <p>
+   * Full snapshots have a base index of {@code 0}. A delta snapshot contains only the state changed since the
+   * snapshot at its base index and must be installed on top of the {@link SnapshotStore#getSnapshotChain(StateMachineId)
+   * snapshot chain} ending at that snapshot.
+   *
+   * @return The snapshot base index.
+   */
+  public abstract long baseIndex();
+
+  /**
+   * Returns whether the snapshot is a delta snapshot.
+   *
+   * @return Whether the snapshot contains only the state changed since its {@link #baseIndex() base snapshot}.
+   */
+  public boolean isDelta() {
+    return baseIndex() > 0;
+  }
+
   /**
    * Opens a new snapshot writer.
    * <p>
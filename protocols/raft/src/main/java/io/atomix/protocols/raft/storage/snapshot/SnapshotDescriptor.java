@@ -18,6 +18,7 @@ package io.atomix.protocols.raft.storage.snapshot;
 import io.atomix.storage.buffer.Buffer;
 import io.atomix.storage.buffer.FileBuffer;
 import io.atomix.storage.buffer.HeapBuffer;
+import io.atomix.storage.compression.CompressionCodec;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -58,6 +59,8 @@ public final class SnapshotDescriptor implements AutoCloseable {
   private final long index;
   private final long timestamp;
   private boolean locked;
+  private final long baseIndex;
+  private final CompressionCodec compression;
 
   /**
    * @throws NullPointerException if {@code buffer} is null
@@ -68,6 +71,8 @@ public final class SnapshotDescriptor implements AutoCloseable {
     this.index = buffer.readLong();
     this.timestamp = buffer.readLong();
     this.locked = buffer.readBoolean();
+    this.baseIndex = buffer.readLong();
+    this.compression = CompressionCodec.forId(buffer.readByte());
     buffer.skip(BYTES - buffer.position());
   }
 
@@ -98,6 +103,27 @@ public final class SnapshotDescriptor implements AutoCloseable {
     return timestamp;
   }
 
+  /**
+   * Returns the index of the snapshot on which the snapshot is based.
+   * <p>
+   * Full snapshots have a base index of {@code 0}. Delta snapshots store only the state changed since the
+   * snapshot at the base index.
+   *
+   * @return The snapshot base index.
+   */
+  public long baseIndex() {
+    return baseIndex;
+  }
+
+  /**
+   * Returns the codec with which the snapshot is compressed.
+   *
+   * @return The snapshot compression codec.
+   */
+  public CompressionCodec compression() {
+    return compression;
+  }
+
   /**
    * Returns whether the snapshot has been locked by commitment.
    * <p>
@@ -128,6 +154,8 @@ public final class SnapshotDescriptor implements AutoCloseable {
         .writeLong(index)
         .writeLong(timestamp)
         .writeBoolean(locked)
+        .writeLong(baseIndex)
+        .writeByte(compression.id())
         .skip(BYTES - buffer.position())
         .flush();
     return this;
@@ -190,6 +218,28 @@ public final class SnapshotDescriptor implements AutoCloseable {
       return this;
     }
 
+    /**
+     * Sets the index of the snapshot on which the snapshot is based.
+     *
+     * @param baseIndex The snapshot base index.
+     * @return The snapshot builder.
+     */
+    public Builder withBaseIndex(long baseIndex) {
+      buffer.writeLong(25, baseIndex);
+      return this;
+    }
+
+    /**
+     * Sets the codec with which the snapshot is compressed.
+     *
+     * @param compression The snapshot compression codec.
+     * @return The snapshot builder.
+     */
+    public Builder withCompression(CompressionCodec compression) {
+      buffer.writeByte(33, checkNotNull(compression, "compression cannot be null").id());
+      return this;
+    }
+
     /**
      * Builds the snapshot descriptor.
      *
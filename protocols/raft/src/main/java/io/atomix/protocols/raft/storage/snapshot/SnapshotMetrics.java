@@ -0,0 +1,247 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft.storage.snapshot;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Snapshot and log compaction metrics.
+ * <p>
+ * Metrics record the decisions made by the server's snapshot policy, i.e. how many snapshots were triggered by
+ * each of the configured {@link Trigger triggers}, how many were skipped because a state machine was idle, and
+ * how often the log was compacted, along with the write rate used by the {@link Trigger#RATE rate trigger}. Metrics
+ * are updated concurrently by state machine threads and can be read from any thread.
+ */
+public class SnapshotMetrics {
+
+  /**
+   * Snapshot trigger.
+   */
+  public enum Trigger {
+
+    /**
+     * Indicates a snapshot was triggered by the number of entries applied since the last snapshot.
+     */
+    ENTRIES,
+
+    /**
+     * Indicates a snapshot was triggered by the number of bytes applied since the last snapshot.
+     */
+    SIZE,
+
+    /**
+     * Indicates a snapshot was triggered by the time elapsed since the last snapshot.
+     */
+    INTERVAL,
+
+    /**
+     * Indicates a snapshot was triggered because free disk space fell below the configured threshold.
+     */
+    DISK_PRESSURE,
+
+    /**
+     * Indicates a snapshot was triggered by the snapshot interval shortened by a high write rate.
+     */
+    RATE,
+  }
+
+  private static final double RATE_ALPHA = 0.5;
+
+  private final AtomicLongArray snapshots = new AtomicLongArray(Trigger.values().length);
+  private final AtomicLong deltaSnapshots = new AtomicLong();
+  private final AtomicLong skippedSnapshots = new AtomicLong();
+  private final AtomicLong bytesWritten = new AtomicLong();
+  private final AtomicLong compactions = new AtomicLong();
+  private volatile long compactIndex;
+  private volatile boolean diskPressure;
+  private volatile double writeRate;
+  private long lastBytesWritten;
+  private long lastRateUpdate;
+
+  /**
+   * Records a snapshot taken by the given trigger.
+   *
+   * @param trigger The trigger that caused the snapshot.
+   */
+  public void recordSnapshot(Trigger trigger) {
+    snapshots.incrementAndGet(checkNotNull(trigger, "trigger cannot be null").ordinal());
+  }
+
+  /**
+   * Records a snapshot written as a delta of the previous snapshot.
+   */
+  public void recordDeltaSnapshot() {
+    deltaSnapshots.incrementAndGet();
+  }
+
+  /**
+   * Records a snapshot that was skipped because no entries were applied since the last snapshot.
+   */
+  public void recordSkippedSnapshot() {
+    skippedSnapshots.incrementAndGet();
+  }
+
+  /**
+   * Records bytes applied to a state machine.
+   *
+   * @param bytes The number of bytes applied.
+   */
+  public void recordWrite(int bytes) {
+    bytesWritten.addAndGet(bytes);
+  }
+
+  /**
+   * Records a log compaction.
+   *
+   * @param index The index up to which the log was compacted.
+   */
+  public void recordCompaction(long index) {
+    compactions.incrementAndGet();
+    compactIndex = index;
+  }
+
+  /**
+   * Sets whether the server is under disk pressure.
+   *
+   * @param diskPressure Whether the server is under disk pressure.
+   */
+  public void setDiskPressure(boolean diskPressure) {
+    this.diskPressure = diskPressure;
+  }
+
+  /**
+   * Updates the write rate from the bytes written since the last update.
+   * <p>
+   * The rate is an exponentially weighted moving average of the rates measured between updates. This method
+   * must be called periodically from a single thread.
+   *
+   * @param time The current time in milliseconds.
+   */
+  public void updateWriteRate(long time) {
+    long bytes = bytesWritten.get();
+    if (lastRateUpdate > 0 && time > lastRateUpdate) {
+      double rate = (bytes - lastBytesWritten) / ((time - lastRateUpdate) / 1000d);
+      writeRate = RATE_ALPHA * rate + (1 - RATE_ALPHA) * writeRate;
+    }
+    lastBytesWritten = bytes;
+    lastRateUpdate = time;
+  }
+
+  /**
+   * Returns the number of snapshots taken by the given trigger.
+   *
+   * @param trigger The snapshot trigger.
+   * @return The number of snapshots taken by the given trigger.
+   */
+  public long getSnapshotCount(Trigger trigger) {
+    return snapshots.get(checkNotNull(trigger, "trigger cannot be null").ordinal());
+  }
+
+  /**
+   * Returns the total number of snapshots taken.
+   *
+   * @return The total number of snapshots taken.
+   */
+  public long getSnapshotCount() {
+    long count = 0;
+    for (int i = 0; i < snapshots.length(); i++) {
+      count += snapshots.get(i);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of snapshots written as deltas of the previous snapshot.
+   *
+   * @return The number of delta snapshots.
+   */
+  public long getDeltaSnapshotCount() {
+    return deltaSnapshots.get();
+  }
+
+  /**
+   * Returns the number of interval snapshots skipped because the state machine was idle.
+   *
+   * @return The number of skipped snapshots.
+   */
+  public long getSkippedSnapshotCount() {
+    return skippedSnapshots.get();
+  }
+
+  /**
+   * Returns the total number of bytes applied to state machines.
+   *
+   * @return The total number of bytes applied to state machines.
+   */
+  public long getBytesWritten() {
+    return bytesWritten.get();
+  }
+
+  /**
+   * Returns the approximate rate at which bytes are applied to state machines.
+   *
+   * @return The write rate in bytes per second.
+   */
+  public double getWriteRate() {
+    return writeRate;
+  }
+
+  /**
+   * Returns the number of times the log has been compacted.
+   *
+   * @return The number of log compactions.
+   */
+  public long getCompactionCount() {
+    return compactions.get();
+  }
+
+  /**
+   * Returns the index up to which the log was last compacted.
+   *
+   * @return The last compaction index.
+   */
+  public long getCompactIndex() {
+    return compactIndex;
+  }
+
+  /**
+   * Returns whether the server is under disk pressure.
+   *
+   * @return Whether free disk space is below the configured threshold.
+   */
+  public boolean isDiskPressure() {
+    return diskPressure;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("snapshots", getSnapshotCount())
+        .add("deltaSnapshots", getDeltaSnapshotCount())
+        .add("skippedSnapshots", getSkippedSnapshotCount())
+        .add("compactions", getCompactionCount())
+        .add("compactIndex", getCompactIndex())
+        .add("bytesWritten", getBytesWritten())
+        .add("writeRate", getWriteRate())
+        .add("diskPressure", isDiskPressure())
+        .toString();
+  }
+
+}
@@ -30,7 +30,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * Reads bytes from a state machine {@link Snapshot}.
  * <p>
  * This class provides the primary interface for reading snapshot buffers from disk or memory.
- * Snapshot bytes are read from an underlying {@link Buffer} which is backed by either memory
+ * Snapshot bytes are read from an underlying {@link BufferInput} which is backed by either memory
  * or disk based on the configured {@link StorageLevel}.
  * <p>
  * In addition to standard {@link BufferInput} methods, snapshot readers support reading serializable objects
@@ -38,11 +38,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * {@link RaftServer} serializer to be supported in snapshots.
  */
 public class SnapshotReader implements BufferInput<SnapshotReader> {
-  private final Buffer buffer;
+  private final BufferInput<?> buffer;
   private final Snapshot snapshot;
   private final Serializer serializer;
 
-  SnapshotReader(Buffer buffer, Snapshot snapshot, Serializer serializer) {
+  SnapshotReader(BufferInput<?> buffer, Snapshot snapshot, Serializer serializer) {
     this.buffer = checkNotNull(buffer, "buffer cannot be null");
     this.snapshot = checkNotNull(snapshot, "snapshot cannot be null");
     this.serializer = checkNotNull(serializer, "serializer cannot be null");
@@ -15,6 +15,7 @@
  */
 package io.atomix.protocols.raft.storage.snapshot;
 
+import com.google.common.collect.ImmutableList;
 import io.atomix.logging.Logger;
 import io.atomix.logging.LoggerFactory;
 import io.atomix.protocols.raft.storage.RaftStorage;
@@ -26,10 +27,13 @@ import io.atomix.time.WallClockTimestamp;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -67,12 +71,18 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * Snapshots don't necessarily represent the beginning of the log. Typical Raft implementations take a
  * snapshot of the state machine state and then clear their logs up to that point. However, in Raft
  * a snapshot may actually only represent a subset of the state machine's state.
+ * <p>
+ * The store maintains a {@link #getSnapshotChain(StateMachineId) snapshot chain} for each state machine. A chain
+ * begins with a full snapshot followed by zero or more {@link Snapshot#isDelta() delta snapshots}, each of which is
+ * based on the snapshot preceding it in the chain. Completing a delta snapshot appends it to the chain ending at its
+ * {@link Snapshot#baseIndex() base index}, and completing a full snapshot replaces the chain.
  */
 public class SnapshotStore implements AutoCloseable {
   private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotStore.class);
   final RaftStorage storage;
   private final Map<Long, Snapshot> indexSnapshots = new ConcurrentHashMap<>();
   private final Map<StateMachineId, Snapshot> stateMachineSnapshots = new ConcurrentHashMap<>();
+  private final Map<StateMachineId, List<Snapshot>> stateMachineChains = new ConcurrentHashMap<>();
 
   public SnapshotStore(RaftStorage storage) {
     this.storage = checkNotNull(storage, "storage cannot be null");
@@ -83,22 +93,71 @@ public class SnapshotStore implements AutoCloseable {
    * Opens the snapshot manager.
    */
   private void open() {
+    Map<StateMachineId, List<Snapshot>> snapshots = new HashMap<>();
     for (Snapshot snapshot : loadSnapshots()) {
-      Snapshot existingSnapshot = stateMachineSnapshots.get(snapshot.snapshotId());
-      if (existingSnapshot == null || existingSnapshot.index() < snapshot.index()) {
-        stateMachineSnapshots.put(snapshot.snapshotId(), snapshot);
-
-        // If a newer snapshot was found, delete the old snapshot if necessary.
-        if (existingSnapshot != null && !storage.isRetainStaleSnapshots()) {
-          existingSnapshot.close();
-          existingSnapshot.delete();
+      snapshots.computeIfAbsent(snapshot.snapshotId(), id -> new ArrayList<>()).add(snapshot);
+    }
+
+    for (Map.Entry<StateMachineId, List<Snapshot>> entry : snapshots.entrySet()) {
+      List<Snapshot> chain = buildChain(entry.getValue());
+      if (!chain.isEmpty()) {
+        setChain(entry.getKey(), chain);
+      }
+
+      // Delete snapshots that are not part of the latest chain if necessary.
+      if (!storage.isRetainStaleSnapshots()) {
+        for (Snapshot snapshot : entry.getValue()) {
+          if (!chain.contains(snapshot)) {
+            snapshot.close();
+            snapshot.delete();
+          }
         }
       }
     }
+  }
+
+  /**
+   * Builds the latest snapshot chain from the given snapshots.
+   * <p>
+   * The chain begins with the latest full snapshot and includes all delta snapshots that can be linked to it.
+   */
+  private List<Snapshot> buildChain(List<Snapshot> snapshots) {
+    snapshots.sort(Comparator.comparingLong(Snapshot::index));
+
+    int start = -1;
+    for (int i = snapshots.size() - 1; i >= 0; i--) {
+      if (!snapshots.get(i).isDelta()) {
+        start = i;
+        break;
+      }
+    }
 
-    for (Snapshot snapshot : stateMachineSnapshots.values()) {
-      indexSnapshots.put(snapshot.index(), snapshot);
+    List<Snapshot> chain = new ArrayList<>();
+    if (start >= 0) {
+      chain.add(snapshots.get(start));
+      for (int i = start + 1; i < snapshots.size(); i++) {
+        Snapshot snapshot = snapshots.get(i);
+        if (snapshot.isDelta() && snapshot.baseIndex() == chain.get(chain.size() - 1).index()) {
+          chain.add(snapshot);
+        }
+      }
     }
+    return chain;
+  }
+
+  /**
+   * Sets the snapshot chain for the given state machine, updating the latest snapshot indexes.
+   */
+  private void setChain(StateMachineId id, List<Snapshot> chain) {
+    Snapshot existingSnapshot = stateMachineSnapshots.get(id);
+    if (existingSnapshot != null) {
+      indexSnapshots.remove(existingSnapshot.index());
+    }
+
+    Snapshot snapshot = chain.get(chain.size() - 1);
+    stateMachineChains.put(id, ImmutableList.copyOf(chain));
+    stateMachineSnapshots.put(id, snapshot);
+    indexSnapshots.put(snapshot.index(), snapshot);
   }
 
   /**
@@ -111,6 +170,20 @@ public class SnapshotStore implements AutoCloseable {
     return stateMachineSnapshots.get(id);
   }
 
+  /**
+   * Returns the chain of snapshots ending at the latest snapshot for the given state machine.
+   * <p>
+   * The first snapshot in the chain is always a full snapshot, and each subsequent snapshot is a delta based on
+   * the snapshot preceding it. To restore the state machine state, snapshots must be installed in chain order.
+   *
+   * @param id The state machine identifier for which to return the snapshot chain.
+   * @return The snapshot chain for the given state machine, or an empty list if no snapshot exists.
+   */
+  public List<Snapshot> getSnapshotChain(StateMachineId id) {
+    List<Snapshot> chain = stateMachineChains.get(id);
+    return chain != null ? chain : ImmutableList.of();
+  }
+
   /**
    * Returns the snapshot at the given index.
    *
@@ -144,7 +217,7 @@ public class SnapshotStore implements AutoCloseable {
         // unlocked and should ultimately be deleted from disk.
         if (descriptor.isLocked()) {
           LOGGER.debug("Loaded disk snapshot: {} ({})", snapshotFile.index(), snapshotFile.file().getName());
-          snapshots.add(new FileSnapshot(snapshotFile, this));
+          snapshots.add(new FileSnapshot(snapshotFile, descriptor.baseIndex(), descriptor.compression(), this));
           descriptor.close();
         }
         // If the segment descriptor wasn't locked, close and delete the descriptor.
@@ -168,10 +241,24 @@ public class SnapshotStore implements AutoCloseable {
    * @return The snapshot.
    */
   public Snapshot newTemporarySnapshot(StateMachineId stateMachineId, long index, WallClockTimestamp timestamp) {
+    return newTemporarySnapshot(stateMachineId, index, 0, timestamp);
+  }
+
+  /**
+   * Creates a temporary in-memory delta snapshot.
+   *
+   * @param stateMachineId The snapshot identifier.
+   * @param index The snapshot index.
+   * @param baseIndex The index of the snapshot on which the snapshot is based, or {@code 0} for a full snapshot.
+   * @param timestamp The snapshot timestamp.
+   * @return The snapshot.
+   */
+  public Snapshot newTemporarySnapshot(StateMachineId stateMachineId, long index, long baseIndex, WallClockTimestamp timestamp) {
     SnapshotDescriptor descriptor = SnapshotDescriptor.newBuilder()
         .withId(stateMachineId.id())
         .withIndex(index)
         .withTimestamp(timestamp.unixTimestamp())
+        .withBaseIndex(baseIndex)
         .build();
     return newSnapshot(descriptor, StorageLevel.MEMORY);
   }
@@ -185,10 +272,25 @@ public class SnapshotStore implements AutoCloseable {
    * @return The snapshot.
    */
   public Snapshot newSnapshot(StateMachineId stateMachineId, long index, WallClockTimestamp timestamp) {
+    return newSnapshot(stateMachineId, index, 0, timestamp);
+  }
+
+  /**
+   * Creates a new delta snapshot.
+   *
+   * @param stateMachineId The snapshot identifier.
+   * @param index The snapshot index.
+   * @param baseIndex The index of the snapshot on which the snapshot is based, or {@code 0} for a full snapshot.
+   * @param timestamp The snapshot timestamp.
+   * @return The snapshot.
+   */
+  public Snapshot newSnapshot(StateMachineId stateMachineId, long index, long baseIndex, WallClockTimestamp timestamp) {
     SnapshotDescriptor descriptor = SnapshotDescriptor.newBuilder()
         .withId(stateMachineId.id())
         .withIndex(index)
         .withTimestamp(timestamp.unixTimestamp())
+        .withBaseIndex(baseIndex)
+        .withCompression(storage.compression())
         .build();
     return newSnapshot(descriptor, storage.storageLevel());
   }
@@ -219,7 +321,7 @@ public class SnapshotStore implements AutoCloseable {
    */
   private Snapshot createDiskSnapshot(SnapshotDescriptor descriptor) {
     SnapshotFile file = new SnapshotFile(SnapshotFile.createSnapshotFile(storage.prefix(), storage.directory(), descriptor.snapshotId(), descriptor.index(), descriptor.timestamp()));
-    Snapshot snapshot = new FileSnapshot(file, this);
+    Snapshot snapshot = new FileSnapshot(file, descriptor.baseIndex(), descriptor.compression(), this);
     LOGGER.debug("Created disk snapshot: {}", snapshot);
     return snapshot;
   }
@@ -230,18 +332,30 @@ public class SnapshotStore implements AutoCloseable {
   protected synchronized void completeSnapshot(Snapshot snapshot) {
     checkNotNull(snapshot, "snapshot cannot be null");
 
-    // Only store the snapshot if no existing snapshot exists.
     Snapshot existingSnapshot = stateMachineSnapshots.get(snapshot.snapshotId());
-    if (existingSnapshot == null || existingSnapshot.index() <= snapshot.index()) {
-      stateMachineSnapshots.put(snapshot.snapshotId(), snapshot);
-      indexSnapshots.put(snapshot.index(), snapshot);
 
-      // Delete the old snapshot if necessary.
-      if (existingSnapshot != null) {
-        indexSnapshots.remove(existingSnapshot.index());
-        if (!storage.isRetainStaleSnapshots()) {
-          existingSnapshot.close();
-          existingSnapshot.delete();
+    // If the snapshot is a delta, append it to the chain only if it's based on the latest snapshot.
+    if (snapshot.isDelta()) {
+      if (existingSnapshot != null && existingSnapshot.index() == snapshot.baseIndex()) {
+        List<Snapshot> chain = new ArrayList<>(getSnapshotChain(snapshot.snapshotId()));
+        chain.add(snapshot);
+        setChain(snapshot.snapshotId(), chain);
+      } else {
+        LOGGER.debug("Discarding unlinked delta snapshot: {}", snapshot);
+        snapshot.close();
+        snapshot.delete();
+      }
+    }
+    // Only store a full snapshot if no newer snapshot exists. Full snapshots replace the existing chain.
+    else if (existingSnapshot == null || existingSnapshot.index() <= snapshot.index()) {
+      List<Snapshot> existingChain = getSnapshotChain(snapshot.snapshotId());
+      setChain(snapshot.snapshotId(), ImmutableList.of(snapshot));
+
+      // Delete the old snapshots if necessary.
+      if (!storage.isRetainStaleSnapshots()) {
+        for (Snapshot oldSnapshot : existingChain) {
+          oldSnapshot.close();
+          oldSnapshot.delete();
         }
       }
     }
@@ -252,6 +366,39 @@ public class SnapshotStore implements AutoCloseable {
     }
   }
 
+  /**
+   * Completes a chain of snapshots installed from another server.
+   * <p>
+   * If the chain begins with a full snapshot, it replaces the existing chain for the state machine regardless of
+   * the index of the existing snapshot, since the installed chain may be based on a snapshot older than the latest
+   * local snapshot. If the chain begins with a delta snapshot, the snapshots are appended to the existing chain.
+   *
+   * @param snapshots The snapshots to complete in chain order.
+   */
+  public synchronized void completeSnapshots(List<Snapshot> snapshots) {
+    checkArgument(!snapshots.isEmpty(), "snapshots cannot be empty");
+    Snapshot first = snapshots.get(0);
+    if (!first.isDelta()) {
+      List<Snapshot> existingChain = stateMachineChains.remove(first.snapshotId());
+      Snapshot existingSnapshot = stateMachineSnapshots.remove(first.snapshotId());
+      if (existingSnapshot != null) {
+        indexSnapshots.remove(existingSnapshot.index());
+      }
+
+      // Delete the old snapshots if necessary.
+      if (existingChain != null && !storage.isRetainStaleSnapshots()) {
+        for (Snapshot oldSnapshot : existingChain) {
+          oldSnapshot.close();
+          oldSnapshot.delete();
+        }
+      }
+    }
+
+    for (Snapshot snapshot : snapshots) {
+      snapshot.complete();
+    }
+  }
+
   @Override
   public void close() {
   }
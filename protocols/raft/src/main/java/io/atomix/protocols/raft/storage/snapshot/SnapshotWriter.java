@@ -30,7 +30,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * Writes bytes to a state machine {@link Snapshot}.
  * <p>
  * This class provides the primary interface for writing snapshot buffers to disk or memory.
- * Snapshot bytes are written to an underlying {@link Buffer} which is backed by either memory
+ * Snapshot bytes are written to an underlying {@link BufferOutput} which is backed by either memory
  * or disk based on the configured {@link StorageLevel}.
  * <p>
  * In addition to standard {@link BufferOutput} methods, snapshot readers support writing serializable objects
@@ -38,11 +38,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * {@link RaftServer} serializer to be supported in snapshots.
  */
 public class SnapshotWriter implements BufferOutput<SnapshotWriter> {
-  final Buffer buffer;
+  final BufferOutput<?> buffer;
   private final Snapshot snapshot;
   private final Serializer serializer;
 
-  SnapshotWriter(Buffer buffer, Snapshot snapshot, Serializer serializer) {
+  SnapshotWriter(BufferOutput<?> buffer, Snapshot snapshot, Serializer serializer) {
     this.buffer = checkNotNull(buffer, "buffer cannot be null");
     this.snapshot = checkNotNull(snapshot, "snapshot cannot be null");
     this.serializer = checkNotNull(serializer, "serializer cannot be null");
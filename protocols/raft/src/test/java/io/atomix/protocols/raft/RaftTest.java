@@ -58,6 +58,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -94,6 +95,8 @@ public class RaftTest extends ConcurrentTestCase {
 
   private static final Serializer clientSerializer = Serializer.using(KryoNamespace.newBuilder()
       .register(TestCommand.class)
+      .register(TestOpcodeCommand.class)
+      .register(TestUnknownCommand.class)
       .register(TestQuery.class)
       .register(TestEvent.class)
       .register(TestExpire.class)
@@ -487,6 +490,127 @@ public class RaftTest extends ConcurrentTestCase {
     await(30000);
   }
 
+  /**
+   * Tests submitting commands with op-codes that are not registered by the state machine.
+   */
+  public void testSubmitUnregisteredOpcodes() throws Throwable {
+    createServers(3);
+
+    RaftClient client = createClient();
+    RaftProxy session = createSession(client);
+
+    // Commands with op-codes outside the op-code table are dispatched by type.
+    session.submit(new TestOpcodeCommand(1000)).thenAccept(result -> {
+      threadAssertNotNull(result);
+      resume();
+    });
+    session.submit(new TestOpcodeCommand(0)).thenAccept(result -> {
+      threadAssertNotNull(result);
+      resume();
+    });
+
+    // Commands of an unknown type with an unknown op-code fail without affecting later commands.
+    session.submit(new TestUnknownCommand()).whenComplete((result, error) -> {
+      threadAssertNotNull(error);
+      resume();
+    });
+    session.submit(new TestCommand()).thenAccept(result -> {
+      threadAssertNotNull(result);
+      resume();
+    });
+    await(30000, 4);
+  }
+
+  /**
+   * Tests submitting batched commands.
+   */
+  public void testThreeNodeSubmitBatchedCommands() throws Throwable {
+    createServers(3);
+
+    RaftClient client = createClient();
+    RaftProxy session = client.newProxyBuilder()
+        .withName("test")
+        .withType("test")
+        .withSerializer(clientSerializer)
+        .withBatchSize(10)
+        .withBatchLinger(Duration.ofMillis(10))
+        .build();
+
+    AtomicLong index = new AtomicLong();
+    for (int i = 0; i < 100; i++) {
+      session.submit(new TestCommand()).thenAccept(result -> {
+        threadAssertTrue(result > index.get());
+        index.set(result);
+        resume();
+      });
+    }
+
+    await(30000, 100);
+  }
+
+  /**
+   * Tests multiplexing proxies for the same state machine over a shared session.
+   */
+  public void testSharedSession() throws Throwable {
+    createServers(3);
+
+    RaftClient client = createClient();
+    RaftProxy proxy1 = createSharedSession(client);
+    RaftProxy proxy2 = createSharedSession(client);
+    threadAssertEquals(proxy1.sessionId(), proxy2.sessionId());
+
+    proxy1.submit(new TestCommand()).thenAccept(result -> {
+      threadAssertNotNull(result);
+      resume();
+    });
+    proxy2.submit(new TestCommand()).thenAccept(result -> {
+      threadAssertNotNull(result);
+      resume();
+    });
+    await(30000, 2);
+
+    proxy1.close().get(10, TimeUnit.SECONDS);
+    threadAssertFalse(proxy1.isOpen());
+    threadAssertTrue(proxy2.isOpen());
+    proxy2.submit(new TestCommand()).thenAccept(result -> {
+      threadAssertNotNull(result);
+      resume();
+    });
+    await(30000);
+
+    proxy2.close().get(10, TimeUnit.SECONDS);
+    RaftProxy proxy3 = createSharedSession(client);
+    threadAssertFalse(proxy3.sessionId().equals(proxy2.sessionId()));
+  }
+
+  /**
+   * Tests that a proxy with a different configuration cannot share a session.
+   */
+  public void testSharedSessionConfiguration() throws Throwable {
+    createServers(3);
+
+    RaftClient client = createClient();
+    RaftProxy proxy = createSharedSession(client);
+    try {
+      client.newProxyBuilder()
+          .withName("test")
+          .withType("test")
+          .withSerializer(clientSerializer)
+          .withTimeout(Duration.ofSeconds(30))
+          .withSharedSession(true)
+          .build();
+      threadFail("expected the proxy configuration to be rejected");
+    } catch (CompletionException e) {
+      threadAssertTrue(e.getCause() instanceof IllegalArgumentException);
+    }
+
+    proxy.submit(new TestCommand()).thenAccept(result -> {
+      threadAssertNotNull(result);
+      resume();
+    });
+    await(30000);
+  }
+
   /**
    * Tests submitting a command.
    */
@@ -645,6 +769,32 @@ public class RaftTest extends ConcurrentTestCase {
     await(30000);
   }
 
+  /**
+   * Tests submitting sequential queries to the fastest follower.
+   */
+  public void testFastestFollowerSequentialQueries() throws Throwable {
+    createServers(3);
+
+    RaftClient client = createClient();
+    RaftProxy session = client.newProxyBuilder()
+        .withName("test")
+        .withType("test")
+        .withSerializer(clientSerializer)
+        .withCommunicationStrategy(CommunicationStrategies.FASTEST_FOLLOWERS)
+        .build();
+
+    for (int i = 0; i < 100; i++) {
+      session.submit(new TestQuery(RaftQuery.ConsistencyLevel.SEQUENTIAL)).thenAccept(result -> {
+        threadAssertNotNull(result);
+        resume();
+      });
+    }
+    await(30000, 100);
+
+    threadAssertFalse(client.statistics().isEmpty());
+    threadAssertTrue(client.statistics().values().stream().allMatch(statistics -> statistics.requests() > 0));
+  }
+
   /**
    * Tests submitting a sequential event.
    */
@@ -1279,6 +1429,18 @@ public class RaftTest extends ConcurrentTestCase {
         .build();
   }
 
+  /**
+   * Creates a proxy on a shared session.
+   */
+  private RaftProxy createSharedSession(RaftClient client) {
+    return client.newProxyBuilder()
+        .withName("test")
+        .withType("test")
+        .withSerializer(clientSerializer)
+        .withSharedSession(true)
+        .build();
+  }
+
   @BeforeMethod
   @AfterMethod
   public void clearTests() throws Exception {
@@ -1333,6 +1495,13 @@ public class RaftTest extends ConcurrentTestCase {
       super(RaftTest.clientSerializer);
     }
 
+    @Override
+    protected void configure(StateMachineExecutor executor) {
+      super.configure(executor);
+      executor.register(TestCommand.OPCODE, TestCommand.class, this::command);
+      executor.register(TestQuery.OPCODE, TestQuery.class, this::query);
+    }
+
     @Override
     public void onOpen(RaftSession session) {
 
@@ -1417,12 +1586,45 @@ public class RaftTest extends ConcurrentTestCase {
    * Test command.
    */
   public static class TestCommand implements RaftCommand<Long> {
+    static final int OPCODE = 1;
+
+    @Override
+    public int opcode() {
+      return OPCODE;
+    }
+  }
+
+  /**
+   * Test command submitted with an arbitrary op-code.
+   */
+  public static class TestOpcodeCommand extends TestCommand {
+    private int opcode;
+
+    public TestOpcodeCommand(int opcode) {
+      this.opcode = opcode;
+    }
+
+    @Override
+    public int opcode() {
+      return opcode;
+    }
+  }
+
+  /**
+   * Test command that is not registered by the state machine.
+   */
+  public static class TestUnknownCommand implements RaftCommand<Long> {
+    @Override
+    public int opcode() {
+      return 3;
+    }
   }
 
   /**
    * Test query.
    */
   public static class TestQuery implements RaftQuery<Long> {
+    static final int OPCODE = 2;
     private ConsistencyLevel consistency;
 
     public TestQuery(ConsistencyLevel consistency) {
@@ -1433,6 +1635,11 @@ public class RaftTest extends ConcurrentTestCase {
     public ConsistencyLevel consistency() {
       return consistency;
     }
+
+    @Override
+    public int opcode() {
+      return OPCODE;
+    }
   }
 
   /**
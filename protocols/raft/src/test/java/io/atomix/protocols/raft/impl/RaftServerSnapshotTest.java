@@ -0,0 +1,637 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft.impl;
+
+import io.atomix.protocols.raft.IncrementalSnapshottable;
+import io.atomix.protocols.raft.RaftClient;
+import io.atomix.protocols.raft.RaftCommand;
+import io.atomix.protocols.raft.RaftCommit;
+import io.atomix.protocols.raft.RaftServer;
+import io.atomix.protocols.raft.RaftStateMachine;
+import io.atomix.protocols.raft.StateMachineExecutor;
+import io.atomix.protocols.raft.cluster.MemberId;
+import io.atomix.protocols.raft.cluster.RaftMember;
+import io.atomix.protocols.raft.cluster.impl.DefaultRaftMember;
+import io.atomix.protocols.raft.error.RaftError;
+import io.atomix.protocols.raft.protocol.InstallRequest;
+import io.atomix.protocols.raft.protocol.InstallResponse;
+import io.atomix.protocols.raft.protocol.RaftResponse;
+import io.atomix.protocols.raft.protocol.TestRaftProtocolFactory;
+import io.atomix.protocols.raft.proxy.RaftProxy;
+import io.atomix.protocols.raft.storage.RaftStorage;
+import io.atomix.protocols.raft.storage.log.entry.CloseSessionEntry;
+import io.atomix.protocols.raft.storage.log.entry.CommandEntry;
+import io.atomix.protocols.raft.storage.log.entry.ConfigurationEntry;
+import io.atomix.protocols.raft.storage.log.entry.InitializeEntry;
+import io.atomix.protocols.raft.storage.log.entry.KeepAliveEntry;
+import io.atomix.protocols.raft.storage.log.entry.MetadataEntry;
+import io.atomix.protocols.raft.storage.log.entry.OpenSessionEntry;
+import io.atomix.protocols.raft.storage.log.entry.QueryEntry;
+import io.atomix.protocols.raft.storage.snapshot.Snapshot;
+import io.atomix.protocols.raft.storage.snapshot.SnapshotMetrics;
+import io.atomix.protocols.raft.storage.snapshot.SnapshotReader;
+import io.atomix.protocols.raft.storage.snapshot.SnapshotStore;
+import io.atomix.protocols.raft.storage.snapshot.SnapshotWriter;
+import io.atomix.protocols.raft.storage.snapshot.StateMachineId;
+import io.atomix.protocols.raft.storage.system.Configuration;
+import io.atomix.serializer.Serializer;
+import io.atomix.serializer.kryo.KryoNamespace;
+import io.atomix.storage.StorageLevel;
+import io.atomix.storage.compression.CompressionCodec;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Raft server snapshot test.
+ */
+@Test
+public class RaftServerSnapshotTest {
+  private static final Path PATH = Paths.get("target/test-logs/snapshot-test");
+  private static final long TIMEOUT = 30000;
+
+  private static final Serializer STORAGE_SERIALIZER = Serializer.using(KryoNamespace.newBuilder()
+      .register(CloseSessionEntry.class)
+      .register(CommandEntry.class)
+      .register(ConfigurationEntry.class)
+      .register(InitializeEntry.class)
+      .register(KeepAliveEntry.class)
+      .register(MetadataEntry.class)
+      .register(OpenSessionEntry.class)
+      .register(QueryEntry.class)
+      .register(ArrayList.class)
+      .register(HashSet.class)
+      .register(DefaultRaftMember.class)
+      .register(MemberId.class)
+      .register(RaftMember.Type.class)
+      .register(RaftMember.Status.class)
+      .register(Instant.class)
+      .register(Configuration.class)
+      .register(byte[].class)
+      .register(long[].class)
+      .build());
+
+  private static final Serializer CLIENT_SERIALIZER = Serializer.using(KryoNamespace.newBuilder()
+      .register(AddCommand.class)
+      .register(byte[].class)
+      .build());
+
+  private TestRaftProtocolFactory protocolFactory;
+  private List<RaftServer> servers;
+  private List<RaftClient> clients;
+  private int nextId;
+
+  /**
+   * Returns a storage builder with all snapshot triggers disabled.
+   */
+  private RaftStorage.Builder newStorage() {
+    return RaftStorage.newBuilder()
+        .withStorageLevel(StorageLevel.DISK)
+        .withSerializer(STORAGE_SERIALIZER)
+        .withMaxSegmentSize(1024 * 1024)
+        .withSnapshotInterval(Duration.ofDays(1))
+        .withSnapshotEntryThreshold(0)
+        .withSnapshotSizeThreshold(0)
+        .withFreeDiskBuffer(0);
+  }
+
+  /**
+   * Creates and bootstraps a single node cluster.
+   */
+  private RaftServer createServer(RaftStorage.Builder storage) throws Exception {
+    return createServer(MemberId.from(String.valueOf(++nextId)), storage, TestStateMachine::new);
+  }
+
+  /**
+   * Creates and bootstraps a single node cluster with the given member ID and state machine factory.
+   */
+  private RaftServer createServer(MemberId memberId, RaftStorage.Builder storage, Supplier<RaftStateMachine> factory) throws Exception {
+    RaftServer server = buildServer(memberId, storage, factory);
+    server.bootstrap(Collections.singletonList(memberId)).get(TIMEOUT, TimeUnit.MILLISECONDS);
+    return server;
+  }
+
+  /**
+   * Creates a server and joins it to the cluster of the given server.
+   */
+  private RaftServer joinServer(RaftServer leader, RaftStorage.Builder storage, Supplier<RaftStateMachine> factory) throws Exception {
+    RaftServer server = buildServer(MemberId.from(String.valueOf(++nextId)), storage, factory);
+    server.join(leader.cluster().getMember().memberId()).get(TIMEOUT, TimeUnit.MILLISECONDS);
+    return server;
+  }
+
+  /**
+   * Builds a server with the given member ID and state machine factory.
+   */
+  private RaftServer buildServer(MemberId memberId, RaftStorage.Builder storage, Supplier<RaftStateMachine> factory) {
+    RaftServer server = RaftServer.newBuilder(memberId)
+        .withProtocol(protocolFactory.newServerProtocol(memberId))
+        .withStorage(storage.withDirectory(PATH.resolve(memberId.id()).toFile()).build())
+        .addStateMachine("test", factory)
+        .withThreadPoolSize(4)
+        .build();
+    servers.add(server);
+    return server;
+  }
+
+  /**
+   * Creates a client connected to the given server.
+   */
+  private RaftClient createClient(RaftServer server) throws Exception {
+    MemberId memberId = MemberId.from(String.valueOf(++nextId));
+    RaftClient client = RaftClient.newBuilder()
+        .withMemberId(memberId)
+        .withProtocol(protocolFactory.newClientProtocol(memberId))
+        .build();
+    clients.add(client);
+    client.connect(Collections.singletonList(server.cluster().getMember().memberId())).get(TIMEOUT, TimeUnit.MILLISECONDS);
+    return client;
+  }
+
+  /**
+   * Creates a proxy for the state machine with the given name.
+   */
+  private RaftProxy createProxy(RaftClient client, String name) {
+    return client.newProxyBuilder()
+        .withName(name)
+        .withType("test")
+        .withSerializer(CLIENT_SERIALIZER)
+        .withTimeout(Duration.ofSeconds(1))
+        .build();
+  }
+
+  /**
+   * Submits the given number of commands with the given payload size.
+   */
+  private void submit(RaftProxy proxy, int commands, int size) throws Exception {
+    for (int i = 0; i < commands; i++) {
+      proxy.submit(new AddCommand(new byte[size])).get(TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Returns the context of the given server.
+   */
+  private static RaftServerContext context(RaftServer server) {
+    return ((DefaultRaftServer) server).context;
+  }
+
+  /**
+   * Reads the state machine value from the given snapshot, skipping the sessions that precede it.
+   */
+  private static long readValue(Snapshot snapshot) {
+    try (SnapshotReader reader = snapshot.openReader(STORAGE_SERIALIZER)) {
+      int sessions = reader.readInt();
+      for (int i = 0; i < sessions; i++) {
+        reader.readLong();
+        reader.readString();
+        reader.readLong();
+        reader.readLong();
+      }
+      return reader.readLong();
+    }
+  }
+
+  /**
+   * Waits for the given condition to be met.
+   */
+  private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+    long end = System.currentTimeMillis() + TIMEOUT;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > end) {
+        fail("condition not met within " + TIMEOUT + " milliseconds");
+      }
+      Thread.sleep(100);
+    }
+  }
+
+  /**
+   * Tests a snapshot triggered by the number of entries applied since the last snapshot.
+   */
+  public void testEntryTrigger() throws Throwable {
+    RaftServer server = createServer(newStorage().withSnapshotEntryThreshold(10));
+    RaftProxy proxy = createProxy(createClient(server), "test");
+    submit(proxy, 20, 1);
+    SnapshotMetrics metrics = server.snapshotMetrics();
+    waitFor(() -> metrics.getSnapshotCount(SnapshotMetrics.Trigger.ENTRIES) > 0);
+    waitFor(() -> metrics.getCompactionCount() > 0);
+  }
+
+  /**
+   * Tests a snapshot triggered by the number of bytes applied since the last snapshot.
+   */
+  public void testSizeTrigger() throws Throwable {
+    RaftServer server = createServer(newStorage().withSnapshotSizeThreshold(1024));
+    RaftProxy proxy = createProxy(createClient(server), "test");
+    submit(proxy, 4, 512);
+    SnapshotMetrics metrics = server.snapshotMetrics();
+    waitFor(() -> metrics.getSnapshotCount(SnapshotMetrics.Trigger.SIZE) > 0);
+    assertTrue(metrics.getBytesWritten() >= 2048);
+  }
+
+  /**
+   * Tests a snapshot triggered by the snapshot interval, and skipping snapshots of idle state machines.
+   */
+  public void testIntervalTrigger() throws Throwable {
+    RaftServer server = createServer(newStorage().withSnapshotInterval(Duration.ofSeconds(1)));
+    RaftProxy proxy = createProxy(createClient(server), "test");
+    submit(proxy, 1, 1);
+    SnapshotMetrics metrics = server.snapshotMetrics();
+    waitFor(() -> metrics.getSnapshotCount(SnapshotMetrics.Trigger.INTERVAL) == 1);
+
+    // Only keep-alives are applied once the command has been snapshotted, so later intervals are skipped.
+    waitFor(() -> metrics.getSkippedSnapshotCount() > 0);
+    assertEquals(metrics.getSnapshotCount(SnapshotMetrics.Trigger.INTERVAL), 1);
+  }
+
+  /**
+   * Tests a snapshot triggered by the snapshot interval shortened by a high write rate.
+   */
+  public void testRateTrigger() throws Throwable {
+    RaftServer server = createServer(newStorage()
+        .withSnapshotInterval(Duration.ofMinutes(1))
+        .withSnapshotRateThreshold(1));
+    RaftProxy proxy = createProxy(createClient(server), "test");
+    SnapshotMetrics metrics = server.snapshotMetrics();
+    long end = System.currentTimeMillis() + TIMEOUT;
+    while (metrics.getSnapshotCount(SnapshotMetrics.Trigger.RATE) == 0) {
+      if (System.currentTimeMillis() > end) {
+        fail("no rate triggered snapshot within " + TIMEOUT + " milliseconds");
+      }
+      submit(proxy, 10, 1024);
+    }
+    assertTrue(metrics.getWriteRate() > 0);
+    assertEquals(metrics.getSnapshotCount(SnapshotMetrics.Trigger.INTERVAL), 1);
+  }
+
+  /**
+   * Tests that state machines to which only keep-alives are applied are snapshotted under disk pressure at
+   * indexes distinct from other state machines, allowing the log to be compacted.
+   */
+  public void testDiskPressureTrigger() throws Throwable {
+    RaftServer server = createServer(newStorage().withFreeDiskBuffer(.999999));
+    RaftClient client = createClient(server);
+    RaftProxy idle = createProxy(client, "idle");
+    RaftProxy busy = createProxy(client, "busy");
+    submit(idle, 1, 1);
+    submit(busy, 1, 1);
+    StateMachineId idleId = StateMachineId.from(idle.sessionId().id());
+    StateMachineId busyId = StateMachineId.from(busy.sessionId().id());
+
+    RaftServerContext context = context(server);
+    SnapshotMetrics metrics = server.snapshotMetrics();
+    waitFor(() -> metrics.getSnapshotCount(SnapshotMetrics.Trigger.DISK_PRESSURE) > 0);
+    waitFor(() -> context.getSnapshotStore().getSnapshotById(idleId) != null);
+    long idleIndex = context.getSnapshotStore().getSnapshotById(idleId).index();
+
+    // Keep the busy state machine busy while only keep-alives are applied to the idle state machine.
+    long end = System.currentTimeMillis() + TIMEOUT;
+    while (context.getSnapshotStore().getSnapshotById(idleId).index() == idleIndex
+        || metrics.getCompactIndex() <= idleIndex) {
+      if (System.currentTimeMillis() > end) {
+        fail("idle state machine was not snapshotted within " + TIMEOUT + " milliseconds");
+      }
+      submit(busy, 10, 1);
+    }
+
+    // Snapshots continue to be replaced under disk pressure, so an index may no longer map to a snapshot once read.
+    Snapshot idleSnapshot = context.getSnapshotStore().getSnapshotById(idleId);
+    Snapshot busySnapshot = context.getSnapshotStore().getSnapshotById(busyId);
+    assertNotEquals(idleSnapshot.index(), busySnapshot.index());
+    assertSnapshotId(context.getSnapshotStore().getSnapshotByIndex(idleSnapshot.index()), idleId);
+    assertSnapshotId(context.getSnapshotStore().getSnapshotByIndex(busySnapshot.index()), busyId);
+  }
+
+  /**
+   * Asserts that the given snapshot, if still stored, belongs to the given state machine.
+   */
+  private static void assertSnapshotId(Snapshot snapshot, StateMachineId id) {
+    if (snapshot != null) {
+      assertEquals(snapshot.snapshotId(), id);
+    }
+  }
+
+  /**
+   * Tests writing a captured state machine view to a snapshot off the state machine thread.
+   */
+  public void testCapturedSnapshot() throws Throwable {
+    SnapshotCapture capture = new SnapshotCapture();
+    MemberId memberId = MemberId.from(String.valueOf(++nextId));
+    RaftServer server = createServer(memberId, newStorage().withSnapshotSizeThreshold(1024), () -> new CaptureStateMachine(capture));
+    RaftProxy proxy = createProxy(createClient(server), "test");
+    submit(proxy, 8, 128);
+    StateMachineId id = StateMachineId.from(proxy.sessionId().id());
+
+    // Commands continue to be applied while the captured view is being written.
+    assertTrue(capture.captured.await(TIMEOUT, TimeUnit.MILLISECONDS));
+    assertEquals(proxy.<Long>submit(new AddCommand(new byte[128])).get(TIMEOUT, TimeUnit.MILLISECONDS).longValue(), 1152);
+    assertNotEquals(capture.applyThread, capture.snapshotThread);
+    assertNull(context(server).getSnapshotStore().getSnapshotById(id));
+
+    capture.release.countDown();
+    waitFor(() -> context(server).getSnapshotStore().getSnapshotById(id) != null);
+    Snapshot snapshot = context(server).getSnapshotStore().getSnapshotById(id);
+    assertEquals(server.snapshotMetrics().getSnapshotCount(SnapshotMetrics.Trigger.SIZE), 1);
+    server.shutdown().get(TIMEOUT, TimeUnit.MILLISECONDS);
+
+    // The captured view is installed when the log is replayed, and later commands are applied on top of it.
+    SnapshotCapture restartCapture = new SnapshotCapture();
+    RaftServer restarted = createServer(memberId, newStorage(), () -> new CaptureStateMachine(restartCapture));
+    RaftProxy restartedProxy = createProxy(createClient(restarted), "test");
+    assertEquals(restartedProxy.<Long>submit(new AddCommand(new byte[128])).get(TIMEOUT, TimeUnit.MILLISECONDS).longValue(), 1280);
+    assertEquals(restartCapture.installed, 1024);
+    assertEquals(context(restarted).getSnapshotStore().getSnapshotById(id).index(), snapshot.index());
+  }
+
+  /**
+   * Tests taking a chain of delta snapshots, merging the chain into a full snapshot, and installing the chain on a
+   * follower.
+   */
+  public void testIncrementalSnapshots() throws Throwable {
+    RaftServer server = createServer(MemberId.from(String.valueOf(++nextId)),
+        newStorage().withSnapshotSizeThreshold(1024).withMaxSnapshotDeltas(2),
+        () -> new IncrementalStateMachine(new CopyOnWriteArrayList<>()));
+    RaftProxy proxy = createProxy(createClient(server), "test");
+    submit(proxy, 8, 128);
+    StateMachineId id = StateMachineId.from(proxy.sessionId().id());
+    SnapshotStore store = context(server).getSnapshotStore();
+
+    // The first snapshot is a full snapshot, and each following snapshot is a delta based on the one before it.
+    waitFor(() -> store.getSnapshotChain(id).size() == 1);
+    submit(proxy, 8, 128);
+    waitFor(() -> store.getSnapshotChain(id).size() == 2);
+    submit(proxy, 8, 128);
+    waitFor(() -> store.getSnapshotChain(id).size() == 3);
+
+    List<Snapshot> chain = store.getSnapshotChain(id);
+    assertFalse(chain.get(0).isDelta());
+    assertEquals(chain.get(1).baseIndex(), chain.get(0).index());
+    assertEquals(chain.get(2).baseIndex(), chain.get(1).index());
+    for (Snapshot snapshot : chain) {
+      assertEquals(readValue(snapshot), 1024);
+    }
+    assertEquals(server.snapshotMetrics().getDeltaSnapshotCount(), 2);
+
+    // A follower that joins the cluster is sent the full snapshot followed by each delta.
+    List<Long> installs = new CopyOnWriteArrayList<>();
+    RaftServer follower = joinServer(server, newStorage(), () -> new IncrementalStateMachine(installs));
+    SnapshotStore followerStore = context(follower).getSnapshotStore();
+    waitFor(() -> followerStore.getSnapshotChain(id).size() == 3);
+    List<Snapshot> followerChain = followerStore.getSnapshotChain(id);
+    for (int i = 0; i < chain.size(); i++) {
+      assertEquals(followerChain.get(i).index(), chain.get(i).index());
+      assertEquals(followerChain.get(i).baseIndex(), chain.get(i).baseIndex());
+    }
+    waitFor(() -> installs.size() == 3);
+    assertEquals(installs, Arrays.asList(1024L, 2048L, 3072L));
+
+    // A delta that can't be linked to the follower's chain is rejected.
+    InstallResponse response = protocolFactory.newServerProtocol(MemberId.from("installer")).install(
+        follower.cluster().getMember().memberId(),
+        InstallRequest.newBuilder()
+            .withTerm(context(follower).getTerm())
+            .withLeader(server.cluster().getMember().memberId())
+            .withId(id.id())
+            .withIndex(chain.get(2).index() + 100)
+            .withBaseIndex(chain.get(2).index() + 50)
+            .withTimestamp(System.currentTimeMillis())
+            .withOffset(0)
+            .withCompression(CompressionCodec.NONE)
+            .withData(new byte[0])
+            .withComplete(true)
+            .build())
+        .get(TIMEOUT, TimeUnit.MILLISECONDS);
+    assertEquals(response.status(), RaftResponse.Status.ERROR);
+    assertEquals(response.error(), RaftError.Type.ILLEGAL_MEMBER_STATE_ERROR);
+    assertEquals(followerStore.getSnapshotChain(id).size(), 3);
+
+    // Once the chain reaches the maximum number of deltas, a full snapshot replaces the chain.
+    submit(proxy, 8, 128);
+    waitFor(() -> store.getSnapshotChain(id).size() == 1 && store.getSnapshotById(id).index() > chain.get(2).index());
+    Snapshot merged = store.getSnapshotById(id);
+    assertFalse(merged.isDelta());
+    assertEquals(readValue(merged), 4096);
+    assertEquals(server.snapshotMetrics().getDeltaSnapshotCount(), 2);
+  }
+
+  @BeforeMethod
+  @AfterMethod
+  public void clearTests() throws Exception {
+    if (clients != null) {
+      for (RaftClient client : clients) {
+        try {
+          client.close().get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+        }
+      }
+    }
+    if (servers != null) {
+      for (RaftServer server : servers) {
+        try {
+          if (server.isRunning()) {
+            server.shutdown().get(10, TimeUnit.SECONDS);
+          }
+        } catch (Exception e) {
+        }
+      }
+    }
+
+    if (Files.exists(PATH)) {
+      Files.walkFileTree(PATH, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+          Files.delete(file);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+          Files.delete(dir);
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    }
+
+    nextId = 0;
+    clients = new ArrayList<>();
+    servers = new ArrayList<>();
+    protocolFactory = new TestRaftProtocolFactory();
+  }
+
+  /**
+   * Test state machine that counts the bytes added to it.
+   */
+  public static class TestStateMachine extends RaftStateMachine {
+    protected long value;
+
+    public TestStateMachine() {
+      super(CLIENT_SERIALIZER);
+    }
+
+    @Override
+    protected void configure(StateMachineExecutor executor) {
+      executor.register(AddCommand.class, this::add);
+    }
+
+    public long add(RaftCommit<AddCommand> commit) {
+      value += commit.operation().bytes.length;
+      return value;
+    }
+
+    @Override
+    public void snapshot(SnapshotWriter writer) {
+      writer.writeLong(value);
+    }
+
+    @Override
+    public void install(SnapshotReader reader) {
+      value = reader.readLong();
+    }
+  }
+
+  /**
+   * Records the threads on which commands are applied and a captured snapshot is written, and blocks writing the
+   * snapshot until released.
+   */
+  private static class SnapshotCapture {
+    private final CountDownLatch captured = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile Thread applyThread;
+    private volatile Thread snapshotThread;
+    private volatile long installed = -1;
+  }
+
+  /**
+   * Test state machine that captures an immutable view of its state for snapshots.
+   */
+  public static class CaptureStateMachine extends TestStateMachine {
+    private final SnapshotCapture capture;
+
+    private CaptureStateMachine(SnapshotCapture capture) {
+      this.capture = capture;
+    }
+
+    @Override
+    public long add(RaftCommit<AddCommand> commit) {
+      capture.applyThread = Thread.currentThread();
+      return super.add(commit);
+    }
+
+    @Override
+    public Consumer<SnapshotWriter> captureSnapshot() {
+      long view = value;
+      return writer -> {
+        capture.snapshotThread = Thread.currentThread();
+        capture.captured.countDown();
+        try {
+          capture.release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        writer.writeLong(view);
+      };
+    }
+
+    @Override
+    public void install(SnapshotReader reader) {
+      super.install(reader);
+      capture.installed = value;
+    }
+  }
+
+  /**
+   * Test state machine that writes the bytes added since the last snapshot to delta snapshots.
+   */
+  public static class IncrementalStateMachine extends TestStateMachine implements IncrementalSnapshottable {
+    private final List<Long> installs;
+    private long delta;
+
+    private IncrementalStateMachine(List<Long> installs) {
+      this.installs = installs;
+    }
+
+    @Override
+    public long add(RaftCommit<AddCommand> commit) {
+      delta += commit.operation().bytes.length;
+      return super.add(commit);
+    }
+
+    @Override
+    public void snapshot(SnapshotWriter writer) {
+      delta = 0;
+      super.snapshot(writer);
+    }
+
+    @Override
+    public void snapshotDelta(SnapshotWriter writer) {
+      writer.writeLong(delta);
+      delta = 0;
+    }
+
+    @Override
+    public void install(SnapshotReader reader) {
+      super.install(reader);
+      delta = 0;
+      installs.add(value);
+    }
+
+    @Override
+    public void installDelta(SnapshotReader reader) {
+      value += reader.readLong();
+      delta = 0;
+      installs.add(value);
+    }
+  }
+
+  /**
+   * Command that adds bytes to the state machine.
+   */
+  public static class AddCommand implements RaftCommand<Long> {
+    private byte[] bytes;
+
+    public AddCommand(byte[] bytes) {
+      this.bytes = bytes;
+    }
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft.proxy.impl;
+
+import io.atomix.protocols.raft.CommunicationStrategies;
+import io.atomix.protocols.raft.cluster.MemberId;
+import io.atomix.protocols.raft.proxy.MemberStatistics;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Node selector test.
+ */
+@Test
+public class NodeSelectorTest {
+  private final MemberId leader = MemberId.from("leader");
+  private final MemberId fast = MemberId.from("fast");
+  private final MemberId slow = MemberId.from("slow");
+  private final List<MemberId> servers = Arrays.asList(leader, fast, slow);
+
+  private static void record(NodeSelectorManager manager, MemberId memberId, long latencyMillis, int count) {
+    for (int i = 0; i < count; i++) {
+      manager.tracker().recordSuccess(memberId, TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+    }
+  }
+
+  /**
+   * Tests tracking member latencies and error rates.
+   */
+  public void testMemberStatistics() throws Throwable {
+    NodeSelectorManager manager = new NodeSelectorManager();
+    record(manager, fast, 1, 100);
+    manager.tracker().recordSuccess(fast, TimeUnit.MILLISECONDS.toNanos(50));
+
+    MemberStatistics statistics = manager.statistics().get(fast);
+    assertEquals(statistics.requests(), 101);
+    assertEquals(statistics.failures(), 0);
+    assertTrue(statistics.latency().toMillis() >= 1 && statistics.latency().toMillis() < 50);
+    assertEquals(statistics.tailLatency().toMillis(), 1);
+    assertTrue(statistics.isHealthy());
+
+    for (int i = 0; i < 10; i++) {
+      manager.tracker().recordFailure(fast);
+    }
+    statistics = manager.statistics().get(fast);
+    assertEquals(statistics.failures(), 10);
+    assertFalse(statistics.isHealthy());
+  }
+
+  /**
+   * Tests that too few samples do not produce a tail latency.
+   */
+  public void testTailLatencyRequiresSamples() throws Throwable {
+    NodeSelectorManager manager = new NodeSelectorManager();
+    record(manager, fast, 10, 5);
+    assertEquals(manager.tracker().tailLatency(fast), 0);
+    record(manager, fast, 10, 20);
+    assertEquals(manager.tracker().tailLatency(fast), TimeUnit.MILLISECONDS.toNanos(10));
+  }
+
+  /**
+   * Tests that the fastest healthy follower is selected.
+   */
+  public void testSelectFastestFollower() throws Throwable {
+    NodeSelectorManager manager = new NodeSelectorManager();
+    record(manager, leader, 1, 20);
+    record(manager, fast, 5, 20);
+    record(manager, slow, 50, 20);
+    manager.resetAll(leader, servers);
+
+    NodeSelector selector = manager.createSelector(CommunicationStrategies.FASTEST_FOLLOWERS);
+    assertEquals(selector.next(), fast);
+    assertEquals(selector.alternate(fast), slow);
+
+    for (int i = 0; i < 10; i++) {
+      manager.tracker().recordFailure(fast);
+    }
+    selector.reset(leader, servers);
+    assertEquals(selector.state(), NodeSelector.State.RESET);
+    assertEquals(selector.next(), slow);
+  }
+
+  /**
+   * Tests that the selector does not switch between followers with similar latencies.
+   */
+  public void testSelectionHysteresis() throws Throwable {
+    NodeSelectorManager manager = new NodeSelectorManager();
+    record(manager, fast, 10, 20);
+    record(manager, slow, 11, 20);
+    manager.resetAll(leader, servers);
+
+    NodeSelector selector = manager.createSelector(CommunicationStrategies.FASTEST_FOLLOWERS);
+    assertEquals(selector.next(), fast);
+
+    record(manager, slow, 9, 20);
+    selector.reset(leader, servers);
+    assertEquals(selector.state(), NodeSelector.State.ITERATE);
+
+    record(manager, slow, 1, 20);
+    selector.reset(leader, servers);
+    assertEquals(selector.state(), NodeSelector.State.RESET);
+    assertEquals(selector.next(), slow);
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft.proxy.impl;
+
+import io.atomix.logging.Logger;
+import io.atomix.protocols.raft.CommunicationStrategies;
+import io.atomix.protocols.raft.RaftQuery;
+import io.atomix.protocols.raft.cluster.MemberId;
+import io.atomix.protocols.raft.error.RaftError;
+import io.atomix.protocols.raft.protocol.QueryRequest;
+import io.atomix.protocols.raft.protocol.QueryResponse;
+import io.atomix.protocols.raft.protocol.RaftClientProtocol;
+import io.atomix.protocols.raft.protocol.RaftResponse;
+import io.atomix.utils.concurrent.Scheduled;
+import io.atomix.utils.concurrent.ThreadContext;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Client connection test.
+ */
+@Test
+public class RaftProxyConnectionTest {
+  private final MemberId leader = MemberId.from("leader");
+  private final MemberId fast = MemberId.from("fast");
+  private final MemberId slow = MemberId.from("slow");
+  private final List<MemberId> servers = Arrays.asList(leader, fast, slow);
+  private final QueryRequest request = QueryRequest.newBuilder()
+      .withSession(1)
+      .withSequence(1)
+      .withIndex(1)
+      .withOpcode(1)
+      .withBytes(new byte[0])
+      .withConsistency(RaftQuery.ConsistencyLevel.SEQUENTIAL)
+      .build();
+
+  private static QueryResponse ok() {
+    return QueryResponse.newBuilder()
+        .withStatus(RaftResponse.Status.OK)
+        .withIndex(1)
+        .build();
+  }
+
+  private static QueryResponse error(RaftError error) {
+    return QueryResponse.newBuilder()
+        .withStatus(RaftResponse.Status.ERROR)
+        .withError(error)
+        .build();
+  }
+
+  /**
+   * Returns a selector manager with enough samples to compute a tail latency for both followers.
+   */
+  private NodeSelectorManager newManager() {
+    NodeSelectorManager manager = new NodeSelectorManager();
+    for (int i = 0; i < 20; i++) {
+      manager.tracker().recordSuccess(fast, TimeUnit.MILLISECONDS.toNanos(5));
+      manager.tracker().recordSuccess(slow, TimeUnit.MILLISECONDS.toNanos(50));
+    }
+    manager.resetAll(leader, servers);
+    return manager;
+  }
+
+  /**
+   * Tests that errors raised by the server while executing a request are recorded as failures of the server.
+   */
+  public void testServerErrorRecordedAsFailure() throws Throwable {
+    NodeSelectorManager manager = newManager();
+    RaftClientProtocol protocol = mock(RaftClientProtocol.class);
+    when(protocol.query(eq(fast), any(QueryRequest.class)))
+        .thenReturn(CompletableFuture.completedFuture(error(RaftError.Type.INTERNAL_ERROR)))
+        .thenReturn(CompletableFuture.completedFuture(error(RaftError.Type.APPLICATION_ERROR)));
+
+    RaftProxyConnection connection = new RaftProxyConnection("test", protocol, manager.createSelector(CommunicationStrategies.FASTEST_FOLLOWERS), new TestContext());
+    assertEquals(connection.query(request).get().error(), RaftError.Type.INTERNAL_ERROR);
+    assertEquals(manager.statistics().get(fast).failures(), 1);
+
+    // Application errors are caused by the operation rather than the server.
+    assertEquals(connection.query(request).get().error(), RaftError.Type.APPLICATION_ERROR);
+    assertEquals(manager.statistics().get(fast).failures(), 1);
+    assertEquals(manager.statistics().get(fast).requests(), 22);
+  }
+
+  /**
+   * Tests that a hedged query is completed by a definitive error from the alternate node.
+   */
+  public void testHedgedQueryAlternateError() throws Throwable {
+    NodeSelectorManager manager = newManager();
+    RaftClientProtocol protocol = mock(RaftClientProtocol.class);
+    when(protocol.query(eq(fast), any(QueryRequest.class))).thenReturn(new CompletableFuture<>());
+    when(protocol.query(eq(slow), any(QueryRequest.class)))
+        .thenReturn(CompletableFuture.completedFuture(error(RaftError.Type.QUERY_ERROR)));
+
+    TestContext context = new TestContext();
+    RaftProxyConnection connection = new RaftProxyConnection("test", protocol, manager.createSelector(CommunicationStrategies.FASTEST_FOLLOWERS), context);
+    CompletableFuture<QueryResponse> future = connection.hedgedQuery(request);
+    assertFalse(future.isDone());
+    assertNotNull(context.callback);
+
+    context.callback.run();
+    assertTrue(future.isDone());
+    assertEquals(future.get().error(), RaftError.Type.QUERY_ERROR);
+    assertEquals(manager.statistics().get(slow).failures(), 1);
+  }
+
+  /**
+   * Tests that a hedged query ignores alternate responses that would cause the query to be resent.
+   */
+  public void testHedgedQueryIgnoresRetryableError() throws Throwable {
+    NodeSelectorManager manager = newManager();
+    RaftClientProtocol protocol = mock(RaftClientProtocol.class);
+    CompletableFuture<QueryResponse> primary = new CompletableFuture<>();
+    when(protocol.query(eq(fast), any(QueryRequest.class))).thenReturn(primary);
+    when(protocol.query(eq(slow), any(QueryRequest.class)))
+        .thenReturn(CompletableFuture.completedFuture(error(RaftError.Type.ILLEGAL_MEMBER_STATE_ERROR)));
+
+    TestContext context = new TestContext();
+    RaftProxyConnection connection = new RaftProxyConnection("test", protocol, manager.createSelector(CommunicationStrategies.FASTEST_FOLLOWERS), context);
+    CompletableFuture<QueryResponse> future = connection.hedgedQuery(request);
+    context.callback.run();
+    assertFalse(future.isDone());
+    assertEquals(manager.statistics().get(slow).failures(), 1);
+
+    QueryResponse response = ok();
+    primary.complete(response);
+    assertSame(future.get(), response);
+  }
+
+  /**
+   * Test thread context that runs tasks inline and captures the last scheduled callback.
+   */
+  private static class TestContext implements ThreadContext {
+    private Runnable callback;
+
+    @Override
+    public Logger logger() {
+      return null;
+    }
+
+    @Override
+    public Scheduled schedule(Duration delay, Runnable callback) {
+      this.callback = callback;
+      return () -> {
+      };
+    }
+
+    @Override
+    public Scheduled schedule(Duration initialDelay, Duration interval, Runnable callback) {
+      return null;
+    }
+
+    @Override
+    public void close() {
+
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  }
+
+}
@@ -21,7 +21,12 @@ import io.atomix.protocols.raft.protocol.QueryResponse;
 import io.atomix.protocols.raft.protocol.RaftResponse;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -275,4 +280,69 @@ public class RaftProxySequencerTest {
     assertEquals(run.get(), 4);
   }
 
+  /**
+   * Tests sequencing responses that exceed the capacity of the ring buffer.
+   */
+  public void testSequenceResponsesBeyondCapacity() throws Throwable {
+    RaftProxySequencer sequencer = new RaftProxySequencer(new RaftProxyState(1, UUID.randomUUID().toString(), "test", 1000), 4);
+    long[] sequences = new long[20];
+    for (int i = 0; i < sequences.length; i++) {
+      sequences[i] = sequencer.nextRequest();
+    }
+
+    CommandResponse response = CommandResponse.newBuilder()
+      .withStatus(RaftResponse.Status.OK)
+      .withIndex(2)
+      .withEventIndex(0)
+      .build();
+
+    AtomicInteger run = new AtomicInteger();
+    for (int i = sequences.length - 1; i >= 0; i--) {
+      int expected = i;
+      sequencer.sequenceResponse(sequences[i], response, () -> assertEquals(run.getAndIncrement(), expected));
+    }
+    assertEquals(run.get(), sequences.length);
+  }
+
+  /**
+   * Tests sequencing responses concurrently from multiple threads.
+   */
+  public void testSequenceResponsesConcurrently() throws Throwable {
+    RaftProxySequencer sequencer = new RaftProxySequencer(new RaftProxyState(1, UUID.randomUUID().toString(), "test", 1000), 16);
+    int count = 1000;
+    List<Long> sequences = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      sequences.add(sequencer.nextRequest());
+    }
+    Collections.shuffle(sequences);
+
+    CommandResponse response = CommandResponse.newBuilder()
+      .withStatus(RaftResponse.Status.OK)
+      .withIndex(2)
+      .withEventIndex(0)
+      .build();
+
+    AtomicInteger run = new AtomicInteger();
+    AtomicBoolean ordered = new AtomicBoolean(true);
+    CountDownLatch latch = new CountDownLatch(4);
+    for (int i = 0; i < 4; i++) {
+      int offset = i;
+      new Thread(() -> {
+        for (int j = offset; j < count; j += 4) {
+          long sequence = sequences.get(j);
+          sequencer.sequenceResponse(sequence, response, () -> {
+            if (run.incrementAndGet() != sequence) {
+              ordered.set(false);
+            }
+          });
+        }
+        latch.countDown();
+      }).start();
+    }
+
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    assertEquals(run.get(), count);
+    assertTrue(ordered.get());
+  }
+
 }
@@ -30,9 +30,12 @@ import io.atomix.protocols.raft.storage.log.entry.RaftLogEntry;
 import io.atomix.serializer.Serializer;
 import io.atomix.serializer.kryo.KryoNamespace;
 import io.atomix.storage.StorageLevel;
+import io.atomix.storage.compression.CompressionCodec;
 import io.atomix.storage.journal.Indexed;
 import org.testng.annotations.Test;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -64,6 +67,7 @@ public class LogTest {
       .register(MemberId.class)
       .register(RaftMember.Type.class)
       .register(Instant.class)
+      .register(byte[].class)
       .build());
 
   private RaftLog createLog() {
@@ -187,4 +191,48 @@ public class LogTest {
     assertEquals(reader.getCurrentIndex(), 2);
     assertFalse(reader.hasNext());
   }
-}
\ No newline at end of file
+
+  /**
+   * Tests writing and reading entries in compressed segments.
+   */
+  public void testCompressedLogWriteRead() throws Exception {
+    File directory = new File("target/test-logs/compressed");
+    RaftLog log = RaftLog.builder()
+        .withName("test")
+        .withDirectory(directory)
+        .withSerializer(serializer)
+        .withStorageLevel(StorageLevel.DISK)
+        .withCompression(CompressionCodec.LZ4)
+        .build();
+    try {
+      RaftLogWriter writer = log.writer();
+      for (int i = 1; i <= 100; i++) {
+        byte[] bytes = String.format("command-%d-command-%d-command-%d", i, i, i).getBytes(StandardCharsets.UTF_8);
+        writer.append(new CommandEntry(1, System.currentTimeMillis(), 1, i, 0, bytes));
+      }
+      writer.flush();
+      log.close();
+
+      log = RaftLog.builder()
+          .withName("test")
+          .withDirectory(directory)
+          .withSerializer(serializer)
+          .withStorageLevel(StorageLevel.DISK)
+          .build();
+      assertEquals(log.writer().getLastIndex(), 100);
+      RaftLogReader reader = log.openReader(1, RaftLogReader.Mode.ALL);
+      for (int i = 1; i <= 100; i++) {
+        Indexed<CommandEntry> command = (Indexed) reader.next();
+        assertEquals(command.index(), i);
+        assertEquals(command.entry().sequenceNumber(), i);
+        assertEquals(new String(command.entry().bytes(), StandardCharsets.UTF_8), String.format("command-%d-command-%d-command-%d", i, i, i));
+      }
+      assertFalse(reader.hasNext());
+    } finally {
+      log.close();
+      for (File file : directory.listFiles()) {
+        file.delete();
+      }
+    }
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft.storage.snapshot;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Snapshot metrics test.
+ */
+@Test
+public class SnapshotMetricsTest {
+
+  /**
+   * Tests counting snapshots by trigger.
+   */
+  public void testSnapshotCounts() throws Exception {
+    SnapshotMetrics metrics = new SnapshotMetrics();
+    assertEquals(metrics.getSnapshotCount(), 0);
+
+    metrics.recordSnapshot(SnapshotMetrics.Trigger.ENTRIES);
+    metrics.recordSnapshot(SnapshotMetrics.Trigger.ENTRIES);
+    metrics.recordSnapshot(SnapshotMetrics.Trigger.RATE);
+    metrics.recordDeltaSnapshot();
+    metrics.recordSkippedSnapshot();
+    assertEquals(metrics.getSnapshotCount(SnapshotMetrics.Trigger.ENTRIES), 2);
+    assertEquals(metrics.getSnapshotCount(SnapshotMetrics.Trigger.RATE), 1);
+    assertEquals(metrics.getSnapshotCount(SnapshotMetrics.Trigger.SIZE), 0);
+    assertEquals(metrics.getSnapshotCount(), 3);
+    assertEquals(metrics.getDeltaSnapshotCount(), 1);
+    assertEquals(metrics.getSkippedSnapshotCount(), 1);
+  }
+
+  /**
+   * Tests recording log compactions and disk pressure.
+   */
+  public void testCompaction() throws Exception {
+    SnapshotMetrics metrics = new SnapshotMetrics();
+    metrics.recordCompaction(10);
+    metrics.recordCompaction(20);
+    assertEquals(metrics.getCompactionCount(), 2);
+    assertEquals(metrics.getCompactIndex(), 20);
+
+    assertFalse(metrics.isDiskPressure());
+    metrics.setDiskPressure(true);
+    assertTrue(metrics.isDiskPressure());
+  }
+
+  /**
+   * Tests computing the write rate from bytes written between updates.
+   */
+  public void testWriteRate() throws Exception {
+    SnapshotMetrics metrics = new SnapshotMetrics();
+
+    // The first update only records the time from which to measure the rate.
+    metrics.recordWrite(1000);
+    metrics.updateWriteRate(1000);
+    assertEquals(metrics.getWriteRate(), 0.0);
+    assertEquals(metrics.getBytesWritten(), 1000);
+
+    // 2000 bytes in one second averaged with the initial rate of zero.
+    metrics.recordWrite(2000);
+    metrics.updateWriteRate(2000);
+    assertEquals(metrics.getWriteRate(), 1000.0);
+
+    // 1000 bytes in half a second.
+    metrics.recordWrite(1000);
+    metrics.updateWriteRate(2500);
+    assertEquals(metrics.getWriteRate(), 1500.0);
+
+    // Updates at the same time don't change the rate, and the rate decays while nothing is written.
+    metrics.updateWriteRate(2500);
+    assertEquals(metrics.getWriteRate(), 1500.0);
+    metrics.updateWriteRate(3500);
+    assertEquals(metrics.getWriteRate(), 750.0);
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft.storage.snapshot;
+
+import io.atomix.protocols.raft.storage.RaftStorage;
+import io.atomix.serializer.Serializer;
+import io.atomix.serializer.kryo.KryoNamespace;
+import io.atomix.storage.StorageLevel;
+import io.atomix.storage.compression.CompressionCodec;
+import io.atomix.time.WallClockTimestamp;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Snapshot store test.
+ */
+@Test
+public class SnapshotStoreTest {
+  private static final Path PATH = Paths.get("target/test-logs/snapshots");
+  private static final StateMachineId ID = StateMachineId.from(1);
+
+  private SnapshotStore createStore(StorageLevel storageLevel) {
+    return createStore(storageLevel, CompressionCodec.NONE);
+  }
+
+  private SnapshotStore createStore(StorageLevel storageLevel, CompressionCodec compression) {
+    RaftStorage storage = RaftStorage.newBuilder()
+        .withPrefix("test")
+        .withDirectory(PATH.toFile())
+        .withStorageLevel(storageLevel)
+        .withSerializer(Serializer.using(KryoNamespace.newBuilder().build()))
+        .withCompression(compression)
+        .build();
+    return storage.openSnapshotStore();
+  }
+
+  private Snapshot writeSnapshot(SnapshotStore store, long index, long baseIndex) {
+    Snapshot snapshot = store.newSnapshot(ID, index, baseIndex, new WallClockTimestamp());
+    try (SnapshotWriter writer = snapshot.openWriter(store.storage.serializer())) {
+      writer.writeLong(index);
+    }
+    return snapshot.complete();
+  }
+
+  private void assertChain(SnapshotStore store, long... indexes) {
+    List<Snapshot> chain = store.getSnapshotChain(ID);
+    assertEquals(chain.size(), indexes.length);
+    for (int i = 0; i < indexes.length; i++) {
+      Snapshot snapshot = chain.get(i);
+      assertEquals(snapshot.index(), indexes[i]);
+      assertEquals(snapshot.isDelta(), i > 0);
+      try (SnapshotReader reader = snapshot.openReader(store.storage.serializer())) {
+        assertEquals(reader.readLong(), indexes[i]);
+      }
+    }
+    assertEquals(store.getSnapshotById(ID).index(), indexes[indexes.length - 1]);
+    assertEquals(store.getSnapshotByIndex(indexes[indexes.length - 1]), chain.get(indexes.length - 1));
+  }
+
+  /**
+   * Tests appending delta snapshots to a snapshot chain.
+   */
+  public void testDeltaSnapshotChain() throws Exception {
+    SnapshotStore store = createStore(StorageLevel.MEMORY);
+    writeSnapshot(store, 10, 0);
+    writeSnapshot(store, 20, 10);
+    writeSnapshot(store, 30, 20);
+    assertChain(store, 10, 20, 30);
+    assertTrue(store.getSnapshotByIndex(10) == null);
+
+    // A delta that isn't based on the latest snapshot can't be linked to the chain.
+    writeSnapshot(store, 40, 20);
+    assertChain(store, 10, 20, 30);
+
+    // A full snapshot replaces the chain.
+    writeSnapshot(store, 50, 0);
+    assertChain(store, 50);
+  }
+
+  /**
+   * Tests completing a snapshot chain that precedes the latest snapshot.
+   */
+  public void testCompleteSnapshots() throws Exception {
+    SnapshotStore store = createStore(StorageLevel.MEMORY);
+    writeSnapshot(store, 20, 0);
+
+    Snapshot base = store.newSnapshot(ID, 10, 0, new WallClockTimestamp());
+    try (SnapshotWriter writer = base.openWriter(store.storage.serializer())) {
+      writer.writeLong(10);
+    }
+    Snapshot delta = store.newSnapshot(ID, 30, 10, new WallClockTimestamp());
+    try (SnapshotWriter writer = delta.openWriter(store.storage.serializer())) {
+      writer.writeLong(30);
+    }
+    store.completeSnapshots(Arrays.asList(base, delta));
+    assertChain(store, 10, 30);
+  }
+
+  /**
+   * Tests loading a snapshot chain from disk.
+   */
+  public void testLoadSnapshotChain() throws Exception {
+    SnapshotStore store = createStore(StorageLevel.DISK);
+    writeSnapshot(store, 10, 0);
+    writeSnapshot(store, 20, 10);
+    writeSnapshot(store, 30, 20);
+    store.close();
+
+    store = createStore(StorageLevel.DISK);
+    assertChain(store, 10, 20, 30);
+
+    writeSnapshot(store, 40, 0);
+    store.close();
+
+    store = createStore(StorageLevel.DISK);
+    assertChain(store, 40);
+    assertFalse(store.getSnapshotChain(StateMachineId.from(2)).iterator().hasNext());
+  }
+
+  /**
+   * Tests persisting a temporary snapshot to disk.
+   */
+  public void testPersistTemporarySnapshot() throws Exception {
+    SnapshotStore store = createStore(StorageLevel.DISK);
+    Snapshot snapshot = store.newTemporarySnapshot(ID, 10, new WallClockTimestamp());
+    try (SnapshotWriter writer = snapshot.openWriter(store.storage.serializer())) {
+      writer.writeInt(3);
+      writer.writeString("foo");
+      writer.writeLong(10);
+    }
+    Snapshot persisted = snapshot.persist();
+    assertTrue(persisted.isPersisted());
+    persisted.complete();
+    store.close();
+
+    store = createStore(StorageLevel.DISK);
+    try (SnapshotReader reader = store.getSnapshotById(ID).openReader(store.storage.serializer())) {
+      assertEquals(reader.readInt(), 3);
+      assertEquals(reader.readString(), "foo");
+      assertEquals(reader.readLong(), 10);
+      assertFalse(reader.hasRemaining());
+    }
+  }
+
+  /**
+   * Tests writing and reading compressed snapshots.
+   */
+  public void testCompressedSnapshot() throws Exception {
+    for (CompressionCodec compression : CompressionCodec.values()) {
+      cleanupStorage();
+      SnapshotStore store = createStore(StorageLevel.DISK, compression);
+      Snapshot snapshot = store.newSnapshot(ID, 10, new WallClockTimestamp());
+
+      // Write the snapshot with multiple writers as is done when a snapshot is installed in chunks.
+      for (int i = 0; i < 2; i++) {
+        try (SnapshotWriter writer = snapshot.openWriter(store.storage.serializer())) {
+          for (int j = 0; j < 50000; j++) {
+            writer.writeLong(j % 100);
+          }
+        }
+      }
+      snapshot.complete();
+      store.close();
+
+      store = createStore(StorageLevel.DISK, CompressionCodec.NONE);
+      snapshot = store.getSnapshotById(ID);
+      try (SnapshotReader reader = snapshot.openReader(store.storage.serializer())) {
+        for (int i = 0; i < 100000; i++) {
+          assertEquals(reader.readLong(), i % 100);
+        }
+        assertFalse(reader.hasRemaining());
+      }
+
+      long size = Files.size(SnapshotFile.createSnapshotFile("test", PATH.toFile(), ID.id(), 10, snapshot.timestamp().unixTimestamp()).toPath());
+      assertEquals(size < 100000 * Long.BYTES, compression != CompressionCodec.NONE);
+      store.close();
+    }
+  }
+
+  /**
+   * Tests skipping through compressed snapshots, which are decompressed as they're read.
+   */
+  public void testSkipCompressedSnapshot() throws Exception {
+    for (CompressionCodec compression : CompressionCodec.values()) {
+      cleanupStorage();
+      SnapshotStore store = createStore(StorageLevel.DISK, compression);
+      Snapshot snapshot = store.newSnapshot(ID, 10, new WallClockTimestamp());
+      try (SnapshotWriter writer = snapshot.openWriter(store.storage.serializer())) {
+        for (int i = 0; i < 100000; i++) {
+          writer.writeLong(i);
+        }
+      }
+      snapshot.complete();
+
+      // Read the snapshot in chunks that don't align with compressed blocks, skipping every other chunk.
+      int chunkLongs = 3000;
+      try (SnapshotReader reader = snapshot.openReader(store.storage.serializer())) {
+        assertEquals(reader.remaining(), 100000 * Long.BYTES);
+        for (int i = 0; i < 100000; i += chunkLongs * 2) {
+          for (int j = i; j < Math.min(i + chunkLongs, 100000); j++) {
+            assertEquals(reader.readLong(), j);
+          }
+          reader.skip(Math.min(chunkLongs * Long.BYTES, reader.remaining()));
+          assertEquals(reader.remaining(), Math.max(100000 - (i + chunkLongs * 2), 0) * Long.BYTES);
+        }
+        assertFalse(reader.hasRemaining());
+      }
+
+      // Skip directly into the last block.
+      try (SnapshotReader reader = snapshot.openReader(store.storage.serializer())) {
+        reader.skip(99999 * Long.BYTES);
+        assertEquals(reader.readLong(), 99999);
+        assertFalse(reader.hasRemaining());
+      }
+      store.close();
+    }
+  }
+
+  @BeforeMethod
+  @AfterMethod
+  protected void cleanupStorage() throws IOException {
+    if (Files.exists(PATH)) {
+      Files.walkFileTree(PATH, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+          Files.delete(file);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+          Files.delete(dir);
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    }
+  }
+
+}
@@ -16,6 +16,8 @@
 
 package io.atomix.serializer;
 
+import java.nio.ByteBuffer;
+
 /**
  * Interface for serialization of store artifacts.
  */
@@ -39,6 +41,21 @@ public interface Serializer {
    */
   <T> T decode(byte[] bytes);
 
+  /**
+   * Deserialize the remaining bytes of the specified buffer.
+   * <p>
+   * Serializers that can read directly from the buffer should override this method to avoid copying the buffer.
+   *
+   * @param buffer buffer to deserialize.
+   * @param <T>    decoded type
+   * @return deserialized object.
+   */
+  default <T> T decode(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return decode(bytes);
+  }
+
   /**
    * Creates a new Serializer instance from a Namespace.
    *
@@ -56,6 +73,11 @@ public interface Serializer {
       public <T> T decode(byte[] bytes) {
         return namespace.deserialize(bytes);
       }
+
+      @Override
+      public <T> T decode(ByteBuffer buffer) {
+        return namespace.deserialize(buffer);
+      }
     };
   }
 
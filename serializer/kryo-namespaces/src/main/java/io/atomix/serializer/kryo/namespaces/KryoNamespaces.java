@@ -24,6 +24,8 @@ import io.atomix.protocols.raft.protocol.AppendRequest;
 import io.atomix.protocols.raft.protocol.AppendResponse;
 import io.atomix.protocols.raft.protocol.CloseSessionRequest;
 import io.atomix.protocols.raft.protocol.CloseSessionResponse;
+import io.atomix.protocols.raft.protocol.CommandBatchRequest;
+import io.atomix.protocols.raft.protocol.CommandBatchResponse;
 import io.atomix.protocols.raft.protocol.CommandRequest;
 import io.atomix.protocols.raft.protocol.CommandResponse;
 import io.atomix.protocols.raft.protocol.ConfigureRequest;
@@ -171,7 +173,9 @@ public final class KryoNamespaces {
           VoteResponse.class,
           AppendRequest.class,
           AppendResponse.class,
-          Configuration.class
+          Configuration.class,
+          CommandBatchRequest.class,
+          CommandBatchResponse.class
       )
       .build();
 
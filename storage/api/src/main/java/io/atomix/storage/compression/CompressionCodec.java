@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.storage.compression;
+
+import io.atomix.storage.StorageException;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Block compression codecs for stored data.
+ * <p>
+ * Codecs compress blocks of bytes into a self-describing format. Each compressed block is prefixed with a header
+ * indicating whether the block is compressed and the length of the uncompressed block, so blocks that cannot be
+ * compressed are stored as-is with only the header overhead. The {@link #NONE} codec neither compresses nor adds
+ * a header to blocks.
+ * <p>
+ * Codecs are identified by a stable {@link #id() identifier} which can be recorded in storage descriptors to
+ * determine how to read stored blocks.
+ */
+public enum CompressionCodec {
+
+  /**
+   * Stores blocks without compression.
+   */
+  NONE(0, null),
+
+  /**
+   * Compresses blocks in the LZ4 block format, favoring speed over compression ratio.
+   */
+  LZ4(1, new Lz4Compressor()),
+
+  /**
+   * Compresses blocks with DEFLATE, favoring compression ratio over speed.
+   */
+  DEFLATE(2, new DeflateCompressor());
+
+  private static final int HEADER_BYTES = Byte.BYTES + Integer.BYTES;
+  private static final byte STORED = 0;
+  private static final byte COMPRESSED = 1;
+
+  /**
+   * Returns the codec for the given identifier.
+   *
+   * @param id The codec identifier.
+   * @return The codec for the given identifier.
+   * @throws IllegalArgumentException if the identifier is unknown
+   */
+  public static CompressionCodec forId(int id) {
+    for (CompressionCodec codec : values()) {
+      if (codec.id == id) {
+        return codec;
+      }
+    }
+    throw new IllegalArgumentException("Unknown compression codec: " + id);
+  }
+
+  private final byte id;
+  private final Compressor compressor;
+
+  CompressionCodec(int id, Compressor compressor) {
+    this.id = (byte) id;
+    this.compressor = compressor;
+  }
+
+  /**
+   * Returns the codec identifier.
+   *
+   * @return The codec identifier.
+   */
+  public byte id() {
+    return id;
+  }
+
+  /**
+   * Compresses the given bytes into a block.
+   *
+   * @param bytes The bytes to compress.
+   * @return The compressed block.
+   */
+  public byte[] compress(byte[] bytes) {
+    return compress(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Compresses the given bytes into a block.
+   *
+   * @param bytes The bytes to compress.
+   * @param offset The offset from which to compress bytes.
+   * @param length The number of bytes to compress.
+   * @return The compressed block.
+   */
+  public byte[] compress(byte[] bytes, int offset, int length) {
+    checkNotNull(bytes, "bytes cannot be null");
+    if (compressor == null) {
+      return Arrays.copyOfRange(bytes, offset, offset + length);
+    }
+
+    byte[] block = new byte[HEADER_BYTES + compressor.maxCompressedLength(length)];
+    int compressedLength = compressor.compress(bytes, offset, length, block, HEADER_BYTES);
+
+    // If the bytes could not be compressed, store them uncompressed.
+    if (compressedLength < 0 || compressedLength >= length) {
+      block = new byte[HEADER_BYTES + length];
+      System.arraycopy(bytes, offset, block, HEADER_BYTES, length);
+      writeHeader(block, STORED, length);
+      return block;
+    }
+
+    writeHeader(block, COMPRESSED, length);
+    return Arrays.copyOf(block, HEADER_BYTES + compressedLength);
+  }
+
+  /**
+   * Decompresses the given block.
+   *
+   * @param block The block to decompress.
+   * @return The decompressed bytes.
+   * @throws StorageException if the block is corrupt
+   */
+  public byte[] decompress(byte[] block) {
+    return decompress(block, 0, block.length);
+  }
+
+  /**
+   * Decompresses the given block.
+   *
+   * @param block The block to decompress.
+   * @param offset The offset of the block.
+   * @param length The length of the block.
+   * @return The decompressed bytes.
+   * @throws StorageException if the block is corrupt
+   */
+  public byte[] decompress(byte[] block, int offset, int length) {
+    checkNotNull(block, "block cannot be null");
+    if (compressor == null) {
+      return Arrays.copyOfRange(block, offset, offset + length);
+    }
+
+    if (length < HEADER_BYTES) {
+      throw new StorageException("Corrupt compressed block");
+    }
+
+    byte mode = block[offset];
+    int rawLength = (block[offset + 1] & 0xFF) << 24
+        | (block[offset + 2] & 0xFF) << 16
+        | (block[offset + 3] & 0xFF) << 8
+        | (block[offset + 4] & 0xFF);
+
+    if (mode == STORED) {
+      if (rawLength != length - HEADER_BYTES) {
+        throw new StorageException("Corrupt compressed block");
+      }
+      return Arrays.copyOfRange(block, offset + HEADER_BYTES, offset + length);
+    } else if (mode == COMPRESSED) {
+      if (rawLength < 0) {
+        throw new StorageException("Corrupt compressed block");
+      }
+      byte[] bytes = new byte[rawLength];
+      try {
+        compressor.decompress(block, offset + HEADER_BYTES, length - HEADER_BYTES, bytes, 0, rawLength);
+      } catch (IndexOutOfBoundsException e) {
+        throw new StorageException("Corrupt compressed block", e);
+      }
+      return bytes;
+    } else {
+      throw new StorageException("Corrupt compressed block");
+    }
+  }
+
+  /**
+   * Writes the block header.
+   */
+  private static void writeHeader(byte[] block, byte mode, int rawLength) {
+    block[0] = mode;
+    block[1] = (byte) (rawLength >>> 24);
+    block[2] = (byte) (rawLength >>> 16);
+    block[3] = (byte) (rawLength >>> 8);
+    block[4] = (byte) rawLength;
+  }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.storage.compression;
+
+/**
+ * Raw block compressor.
+ */
+interface Compressor {
+
+  /**
+   * Returns the maximum length of the compressed output for the given input length.
+   *
+   * @param length The input length.
+   * @return The maximum compressed length.
+   */
+  int maxCompressedLength(int length);
+
+  /**
+   * Compresses the given bytes.
+   *
+   * @param src The source bytes.
+   * @param srcOffset The source offset.
+   * @param srcLength The number of source bytes to compress.
+   * @param dst The destination bytes.
+   * @param dstOffset The destination offset.
+   * @return The number of compressed bytes written, or {@code -1} if the bytes could not be compressed.
+   */
+  int compress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset);
+
+  /**
+   * Decompresses the given bytes.
+   *
+   * @param src The compressed bytes.
+   * @param srcOffset The compressed offset.
+   * @param srcLength The number of compressed bytes.
+   * @param dst The destination bytes.
+   * @param dstOffset The destination offset.
+   * @param dstLength The expected number of decompressed bytes.
+   * @throws io.atomix.storage.StorageException if the compressed bytes are corrupt
+   */
+  void decompress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int dstLength);
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.storage.compression;
+
+import io.atomix.storage.StorageException;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressor using the JDK's DEFLATE implementation.
+ */
+final class DeflateCompressor implements Compressor {
+  private final ThreadLocal<Deflater> deflaters = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED, true));
+  private final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(() -> new Inflater(true));
+
+  @Override
+  public int maxCompressedLength(int length) {
+    return length;
+  }
+
+  @Override
+  public int compress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset) {
+    Deflater deflater = deflaters.get();
+    deflater.reset();
+    deflater.setInput(src, srcOffset, srcLength);
+    deflater.finish();
+
+    int maxLength = maxCompressedLength(srcLength);
+    int length = 0;
+    while (!deflater.finished() && length < maxLength) {
+      length += deflater.deflate(dst, dstOffset + length, maxLength - length);
+    }
+    return deflater.finished() ? length : -1;
+  }
+
+  @Override
+  public void decompress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int dstLength) {
+    Inflater inflater = inflaters.get();
+    inflater.reset();
+    inflater.setInput(src, srcOffset, srcLength);
+    try {
+      int length = 0;
+      while (length < dstLength && !inflater.finished()) {
+        int inflated = inflater.inflate(dst, dstOffset + length, dstLength - length);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        length += inflated;
+      }
+      if (length != dstLength) {
+        throw new StorageException("Corrupt DEFLATE block");
+      }
+    } catch (DataFormatException e) {
+      throw new StorageException("Corrupt DEFLATE block", e);
+    }
+  }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.storage.compression;
+
+import io.atomix.storage.StorageException;
+
+import java.util.Arrays;
+
+/**
+ * Pure Java compressor for the LZ4 block format.
+ * <p>
+ * The compressor uses a single-probe hash table of recent four byte sequences to find matches, trading compression
+ * ratio for speed in the same manner as the reference LZ4 fast compressor. Output is compatible with standard
+ * LZ4 block decoders.
+ */
+final class Lz4Compressor implements Compressor {
+  private static final int MIN_MATCH = 4;
+  private static final int LAST_LITERALS = 5;
+  private static final int MF_LIMIT = 12;
+  private static final int MAX_DISTANCE = 65535;
+  private static final int HASH_LOG = 12;
+  private static final int RUN_MASK = 15;
+
+  private final ThreadLocal<int[]> hashTables = ThreadLocal.withInitial(() -> new int[1 << HASH_LOG]);
+
+  @Override
+  public int maxCompressedLength(int length) {
+    return length + length / 255 + 16;
+  }
+
+  @Override
+  public int compress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset) {
+    final int srcEnd = srcOffset + srcLength;
+    final int matchLimit = srcEnd - LAST_LITERALS;
+    final int mfLimit = srcEnd - MF_LIMIT;
+
+    int[] table = hashTables.get();
+    Arrays.fill(table, -1);
+
+    int ip = srcOffset;
+    int anchor = srcOffset;
+    int op = dstOffset;
+
+    while (ip < mfLimit) {
+      int sequence = readInt(src, ip);
+      int hash = hash(sequence);
+      int ref = table[hash];
+      table[hash] = ip;
+
+      if (ref < srcOffset || ip - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+        ip++;
+        continue;
+      }
+
+      // Extend the match backwards over any pending literals.
+      while (ip > anchor && ref > srcOffset && src[ip - 1] == src[ref - 1]) {
+        ip--;
+        ref--;
+      }
+
+      // Extend the match forwards up to the last literals.
+      int matchLength = MIN_MATCH;
+      while (ip + matchLength < matchLimit && src[ip + matchLength] == src[ref + matchLength]) {
+        matchLength++;
+      }
+
+      op = writeSequence(src, anchor, ip - anchor, ip - ref, matchLength - MIN_MATCH, dst, op);
+      ip += matchLength;
+      anchor = ip;
+    }
+
+    // Write the remaining bytes as literals.
+    return writeLastLiterals(src, anchor, srcEnd - anchor, dst, op) - dstOffset;
+  }
+
+  /**
+   * Writes a sequence of literals followed by a match.
+   */
+  private static int writeSequence(byte[] src, int literalOffset, int literalLength, int matchOffset, int matchLength, byte[] dst, int op) {
+    int tokenPosition = op++;
+    int token;
+    if (literalLength >= RUN_MASK) {
+      token = RUN_MASK << 4;
+      op = writeLength(literalLength - RUN_MASK, dst, op);
+    } else {
+      token = literalLength << 4;
+    }
+    System.arraycopy(src, literalOffset, dst, op, literalLength);
+    op += literalLength;
+
+    dst[op++] = (byte) matchOffset;
+    dst[op++] = (byte) (matchOffset >>> 8);
+
+    if (matchLength >= RUN_MASK) {
+      token |= RUN_MASK;
+      op = writeLength(matchLength - RUN_MASK, dst, op);
+    } else {
+      token |= matchLength;
+    }
+    dst[tokenPosition] = (byte) token;
+    return op;
+  }
+
+  /**
+   * Writes the final literals of the block.
+   */
+  private static int writeLastLiterals(byte[] src, int literalOffset, int literalLength, byte[] dst, int op) {
+    if (literalLength >= RUN_MASK) {
+      dst[op++] = (byte) (RUN_MASK << 4);
+      op = writeLength(literalLength - RUN_MASK, dst, op);
+    } else {
+      dst[op++] = (byte) (literalLength << 4);
+    }
+    System.arraycopy(src, literalOffset, dst, op, literalLength);
+    return op + literalLength;
+  }
+
+  /**
+   * Writes an extended literal or match length.
+   */
+  private static int writeLength(int length, byte[] dst, int op) {
+    while (length >= 255) {
+      dst[op++] = (byte) 255;
+      length -= 255;
+    }
+    dst[op++] = (byte) length;
+    return op;
+  }
+
+  @Override
+  public void decompress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int dstLength) {
+    final int srcEnd = srcOffset + srcLength;
+    final int dstEnd = dstOffset + dstLength;
+    int ip = srcOffset;
+    int op = dstOffset;
+
+    while (ip < srcEnd) {
+      int token = src[ip++] & 0xFF;
+
+      int literalLength = token >>> 4;
+      if (literalLength == RUN_MASK) {
+        int b;
+        do {
+          b = src[ip++] & 0xFF;
+          literalLength += b;
+        } while (b == 255);
+      }
+      if (literalLength > srcEnd - ip || literalLength > dstEnd - op) {
+        throw new StorageException("Corrupt LZ4 block");
+      }
+      System.arraycopy(src, ip, dst, op, literalLength);
+      ip += literalLength;
+      op += literalLength;
+
+      // The last sequence contains only literals.
+      if (ip == srcEnd) {
+        break;
+      }
+
+      int matchOffset = (src[ip++] & 0xFF) | (src[ip++] & 0xFF) << 8;
+      int matchLength = token & RUN_MASK;
+      if (matchLength == RUN_MASK) {
+        int b;
+        do {
+          b = src[ip++] & 0xFF;
+          matchLength += b;
+        } while (b == 255);
+      }
+      matchLength += MIN_MATCH;
+
+      int ref = op - matchOffset;
+      if (matchOffset == 0 || ref < dstOffset || matchLength > dstEnd - op) {
+        throw new StorageException("Corrupt LZ4 block");
+      }
+
+      // Matches may overlap the bytes being written, in which case they must be copied byte by byte.
+      if (matchOffset >= matchLength) {
+        System.arraycopy(dst, ref, dst, op, matchLength);
+        op += matchLength;
+      } else {
+        for (int i = 0; i < matchLength; i++) {
+          dst[op++] = dst[ref++];
+        }
+      }
+    }
+
+    if (op != dstEnd) {
+      throw new StorageException("Corrupt LZ4 block");
+    }
+  }
+
+  private static int readInt(byte[] bytes, int offset) {
+    return (bytes[offset] & 0xFF)
+        | (bytes[offset + 1] & 0xFF) << 8
+        | (bytes[offset + 2] & 0xFF) << 16
+        | (bytes[offset + 3] & 0xFF) << 24;
+  }
+
+  private static int hash(int sequence) {
+    return (sequence * -1640531535) >>> (32 - HASH_LOG);
+  }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.storage.compression;
+
+import io.atomix.storage.StorageException;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Compression codec test.
+ */
+@Test
+public class CompressionCodecTest {
+
+  private static byte[] compressibleBytes(int length) {
+    StringBuilder builder = new StringBuilder();
+    Random random = new Random(1);
+    while (builder.length() < length) {
+      builder.append("{\"key\":\"key-").append(random.nextInt(100)).append("\",\"value\":\"value-").append(random.nextInt(10)).append("\"}");
+    }
+    return builder.substring(0, length).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    new Random(2).nextBytes(bytes);
+    return bytes;
+  }
+
+  private void assertRoundTrip(CompressionCodec codec, byte[] bytes) {
+    byte[] block = codec.compress(bytes);
+    assertEquals(codec.decompress(block), bytes);
+  }
+
+  /**
+   * Tests compressing and decompressing blocks with each codec.
+   */
+  public void testRoundTrip() throws Exception {
+    for (CompressionCodec codec : CompressionCodec.values()) {
+      for (int length : new int[]{0, 1, 5, 12, 13, 100, 1024, 64 * 1024, 300 * 1024}) {
+        assertRoundTrip(codec, compressibleBytes(length));
+        assertRoundTrip(codec, randomBytes(length));
+      }
+    }
+  }
+
+  /**
+   * Tests compressing long runs of repeated bytes.
+   */
+  public void testRepeatedBytes() throws Exception {
+    byte[] bytes = new byte[100000];
+    assertRoundTrip(CompressionCodec.LZ4, bytes);
+    assertTrue(CompressionCodec.LZ4.compress(bytes).length < 1000);
+  }
+
+  /**
+   * Tests that compressible blocks are smaller than the original bytes.
+   */
+  public void testCompressionRatio() throws Exception {
+    byte[] bytes = compressibleBytes(64 * 1024);
+    assertTrue(CompressionCodec.LZ4.compress(bytes).length < bytes.length / 2);
+    assertTrue(CompressionCodec.DEFLATE.compress(bytes).length < bytes.length / 2);
+  }
+
+  /**
+   * Tests that incompressible bytes are stored with only the header overhead.
+   */
+  public void testIncompressibleBytes() throws Exception {
+    byte[] bytes = randomBytes(1024);
+    assertEquals(CompressionCodec.LZ4.compress(bytes).length, bytes.length + 5);
+    assertEquals(CompressionCodec.DEFLATE.compress(bytes).length, bytes.length + 5);
+    assertEquals(CompressionCodec.NONE.compress(bytes).length, bytes.length);
+  }
+
+  /**
+   * Tests compressing a range of bytes.
+   */
+  public void testCompressRange() throws Exception {
+    byte[] bytes = compressibleBytes(4096);
+    byte[] block = CompressionCodec.LZ4.compress(bytes, 100, 2000);
+    byte[] padded = new byte[block.length + 10];
+    System.arraycopy(block, 0, padded, 5, block.length);
+    byte[] decompressed = CompressionCodec.LZ4.decompress(padded, 5, block.length);
+    assertEquals(decompressed.length, 2000);
+    for (int i = 0; i < 2000; i++) {
+      assertEquals(decompressed[i], bytes[i + 100]);
+    }
+  }
+
+  /**
+   * Tests looking up codecs by identifier.
+   */
+  public void testCodecIds() throws Exception {
+    for (CompressionCodec codec : CompressionCodec.values()) {
+      assertEquals(CompressionCodec.forId(codec.id()), codec);
+    }
+  }
+
+  /**
+   * Tests decompressing a corrupt block.
+   */
+  @Test(expectedExceptions = StorageException.class)
+  public void testCorruptBlock() throws Exception {
+    byte[] block = CompressionCodec.LZ4.compress(compressibleBytes(1024));
+    block[block.length / 2] ^= 0x7F;
+    block[6] = (byte) 0xFF;
+    CompressionCodec.LZ4.decompress(block, 0, block.length - 3);
+  }
+
+}
@@ -21,6 +21,7 @@ import io.atomix.storage.buffer.Bytes;
 import io.atomix.storage.buffer.FileBuffer;
 import io.atomix.storage.buffer.HeapBuffer;
 import io.atomix.storage.buffer.MappedBuffer;
+import io.atomix.storage.compression.CompressionCodec;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -49,6 +50,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * <li>{@code locked} (8-bit boolean) - A boolean indicating whether the segment is locked. Segments will be locked once
  * all entries have been committed to the segment. The lock state of each segment is used to determine log compaction
  * and recovery behavior.</li>
+ * <li>{@code compression} (8-bit signed integer) - The identifier of the {@link CompressionCodec} with which entries
+ * in the segment are compressed.</li>
  * </ul>
  * The remainder of the 64 segment header bytes are reserved for future metadata.
  *
@@ -68,6 +71,7 @@ public final class JournalSegmentDescriptor implements AutoCloseable {
   private static final int MAX_SIZE_LENGTH = Bytes.INTEGER;    // 32-bit signed integer
   private static final int MAX_ENTRIES_LENGTH = Bytes.INTEGER; // 32-bit signed integer
   private static final int UPDATED_LENGTH = Bytes.LONG;        // 64-bit signed integer
+  private static final int LOCKED_LENGTH = Bytes.BOOLEAN;      // 8-bit boolean
 
   // The positions of each field in the header.
   private static final int VERSION_POSITION = 0;                                         // 0
@@ -76,6 +80,8 @@ public final class JournalSegmentDescriptor implements AutoCloseable {
   private static final int MAX_SIZE_POSITION = INDEX_POSITION + INDEX_LENGTH;            // 20
   private static final int MAX_ENTRIES_POSITION = MAX_SIZE_POSITION + MAX_SIZE_LENGTH;   // 24
   private static final int UPDATED_POSITION = MAX_ENTRIES_POSITION + MAX_ENTRIES_LENGTH; // 28
+  private static final int LOCKED_POSITION = UPDATED_POSITION + UPDATED_LENGTH;          // 36
+  private static final int COMPRESSION_POSITION = LOCKED_POSITION + LOCKED_LENGTH;       // 37
 
   /**
    * Returns a descriptor builder.
@@ -107,6 +113,7 @@ public final class JournalSegmentDescriptor implements AutoCloseable {
   private final int maxEntries;
   private volatile long updated;
   private volatile boolean locked;
+  private final CompressionCodec compression;
 
   /**
    * @throws NullPointerException if {@code buffer} is null
@@ -120,6 +127,7 @@ public final class JournalSegmentDescriptor implements AutoCloseable {
     this.maxEntries = buffer.readInt();
     this.updated = buffer.readLong();
     this.locked = buffer.readBoolean();
+    this.compression = CompressionCodec.forId(buffer.readByte());
     buffer.skip(BYTES - buffer.position()); // 64 bytes reserved for the header
   }
 
@@ -185,6 +193,15 @@ public final class JournalSegmentDescriptor implements AutoCloseable {
     return maxEntries;
   }
 
+  /**
+   * Returns the codec with which entries in the segment are compressed.
+   *
+   * @return The segment compression codec.
+   */
+  public CompressionCodec compression() {
+    return compression;
+  }
+
   /**
    * Returns last time the segment was updated.
    * <p>
@@ -220,6 +237,7 @@ public final class JournalSegmentDescriptor implements AutoCloseable {
         .writeInt(maxEntries)
         .writeLong(updated)
         .writeBoolean(locked)
+        .writeByte(compression.id())
         .skip(BYTES - buffer.position())
         .flush();
     return this;
@@ -248,6 +266,7 @@ public final class JournalSegmentDescriptor implements AutoCloseable {
         .add("id", id)
         .add("index", index)
         .add("updated", updated)
+        .add("compression", compression)
         .toString();
   }
 
@@ -306,6 +325,17 @@ public final class JournalSegmentDescriptor implements AutoCloseable {
       return this;
     }
 
+    /**
+     * Sets the codec with which entries in the segment are compressed.
+     *
+     * @param compression The segment compression codec.
+     * @return The segment descriptor builder.
+     */
+    public Builder withCompression(CompressionCodec compression) {
+      buffer.writeByte(COMPRESSION_POSITION, checkNotNull(compression, "compression cannot be null").id());
+      return this;
+    }
+
     /**
      * Builds the segment descriptor.
      *
@@ -18,6 +18,7 @@ package io.atomix.storage.journal;
 import io.atomix.serializer.Serializer;
 import io.atomix.storage.buffer.Buffer;
 import io.atomix.storage.buffer.HeapBuffer;
+import io.atomix.storage.compression.CompressionCodec;
 
 import java.nio.BufferUnderflowException;
 import java.util.NoSuchElementException;
@@ -34,6 +35,7 @@ public class JournalSegmentReader<E> implements JournalReader<E> {
   private final SegmentedJournal<E> journal;
   private final Buffer buffer;
   private final Serializer serializer;
+  private final CompressionCodec compression;
   private final HeapBuffer memory = HeapBuffer.allocate();
   private final long firstIndex;
   private volatile Indexed<E> currentEntry;
@@ -43,6 +45,7 @@ public class JournalSegmentReader<E> implements JournalReader<E> {
     this.journal = journal;
     this.buffer = descriptor.buffer().slice();
     this.serializer = serializer;
+    this.compression = descriptor.compression();
     this.firstIndex = descriptor.index();
     readNext();
   }
@@ -155,7 +158,9 @@ public class JournalSegmentReader<E> implements JournalReader<E> {
 
       // If the stored checksum equals the computed checksum, return the entry.
       if (checksum == crc32.getValue()) {
-        E entry = serializer.decode(memory.array());
+        E entry = serializer.decode(compression == CompressionCodec.NONE
+            ? memory.array()
+            : compression.decompress(memory.array(), 0, length));
         nextEntry = new Indexed<>(index, entry, length);
       } else {
         buffer.reset();
@@ -21,6 +21,7 @@ import io.atomix.storage.buffer.FileBuffer;
 import io.atomix.storage.buffer.HeapBuffer;
 import io.atomix.storage.buffer.MappedBuffer;
 import io.atomix.storage.buffer.SlicedBuffer;
+import io.atomix.storage.compression.CompressionCodec;
 
 import java.util.concurrent.locks.Lock;
 import java.util.zip.CRC32;
@@ -38,6 +39,8 @@ import java.util.zip.Checksum;
  * <li>8-bit signed entry type ID</li>
  * <li>n-bit entry bytes</li>
  * </ul>
+ * If the segment descriptor specifies a {@link CompressionCodec}, the entry bytes are compressed with the codec,
+ * and the entry length and checksum refer to the compressed bytes.
  *
  * @author <a href="http://github.com/kuujo>Jordan Halterman</a>
  */
@@ -46,6 +49,7 @@ public class JournalSegmentWriter<E> implements JournalWriter<E> {
   private final JournalSegmentDescriptor descriptor;
   private final Buffer buffer;
   private final Serializer serializer;
+  private final CompressionCodec compression;
   private final HeapBuffer memory = HeapBuffer.allocate();
   private final long firstIndex;
   private Indexed<E> lastEntry;
@@ -55,6 +59,7 @@ public class JournalSegmentWriter<E> implements JournalWriter<E> {
     this.descriptor = descriptor;
     this.buffer = descriptor.buffer().slice();
     this.serializer = serializer;
+    this.compression = descriptor.compression();
     this.firstIndex = descriptor.index();
     reset(0);
   }
@@ -88,7 +93,9 @@ public class JournalSegmentWriter<E> implements JournalWriter<E> {
 
       // If the stored checksum equals the computed checksum, return the entry.
       if (checksum == crc32.getValue()) {
-        final E entry = serializer.decode(memory.array());
+        final E entry = serializer.decode(compression == CompressionCodec.NONE
+            ? memory.array()
+            : compression.decompress(memory.array(), 0, length));
         lastEntry = new Indexed<>(nextIndex, entry, length);
         nextIndex++;
       } else {
@@ -185,8 +192,10 @@ public class JournalSegmentWriter<E> implements JournalWriter<E> {
     // Store the entry index.
     final long index = getNextIndex();
 
-    // Serialize the entry.
-    final byte[] bytes = serializer.encode(entry);
+    // Serialize and compress the entry.
+    final byte[] bytes = compression == CompressionCodec.NONE
+        ? serializer.encode(entry)
+        : compression.compress(serializer.encode(entry));
     final int length = bytes.length;
 
     // Compute the checksum for the entry.
@@ -24,6 +24,7 @@ import io.atomix.storage.buffer.Buffer;
 import io.atomix.storage.buffer.FileBuffer;
 import io.atomix.storage.buffer.HeapBuffer;
 import io.atomix.storage.buffer.MappedBuffer;
+import io.atomix.storage.compression.CompressionCodec;
 
 import java.io.File;
 import java.util.Collection;
@@ -65,6 +66,7 @@ public class SegmentedJournal<E> implements Journal<E> {
   private final int maxSegmentSize;
   private final int maxEntriesPerSegment;
   private final int entryBufferSize;
+  private final CompressionCodec compression;
 
   private final JournalEntryBuffer<E> buffer;
 
@@ -83,7 +85,8 @@ public class SegmentedJournal<E> implements Journal<E> {
       Serializer serializer,
       int maxSegmentSize,
       int maxEntriesPerSegment,
-      int entryBufferSize) {
+      int entryBufferSize,
+      CompressionCodec compression) {
     this.name = checkNotNull(name, "name cannot be null");
     this.storageLevel = checkNotNull(storageLevel, "storageLevel cannot be null");
     this.directory = checkNotNull(directory, "directory cannot be null");
@@ -91,6 +94,7 @@ public class SegmentedJournal<E> implements Journal<E> {
     this.maxSegmentSize = maxSegmentSize;
     this.maxEntriesPerSegment = maxEntriesPerSegment;
     this.entryBufferSize = entryBufferSize;
+    this.compression = checkNotNull(compression, "compression cannot be null");
     this.buffer = new JournalEntryBuffer<>(entryBufferSize);
     open();
     this.writer = openWriter();
@@ -118,6 +122,15 @@ public class SegmentedJournal<E> implements Journal<E> {
     return directory;
   }
 
+  /**
+   * Returns the codec with which entries in new segments are compressed.
+   *
+   * @return The journal compression codec.
+   */
+  public CompressionCodec compression() {
+    return compression;
+  }
+
   /**
    * Returns the storage level.
    * <p>
@@ -201,6 +214,7 @@ public class SegmentedJournal<E> implements Journal<E> {
           .withIndex(1)
           .withMaxSegmentSize(maxSegmentSize)
           .withMaxEntries(maxEntriesPerSegment)
+          .withCompression(compression)
           .build();
 
       currentSegment = createSegment(descriptor);
@@ -232,6 +246,7 @@ public class SegmentedJournal<E> implements Journal<E> {
           .withIndex(1)
           .withMaxSegmentSize(maxSegmentSize)
           .withMaxEntries(maxEntriesPerSegment)
+          .withCompression(compression)
           .build();
 
       currentSegment = createSegment(descriptor);
@@ -287,6 +302,7 @@ public class SegmentedJournal<E> implements Journal<E> {
         .withIndex(currentSegment.lastIndex() + 1)
         .withMaxSegmentSize(maxSegmentSize)
         .withMaxEntries(maxEntriesPerSegment)
+        .withCompression(compression)
         .build();
 
     currentSegment = createSegment(descriptor);
@@ -320,7 +336,11 @@ public class SegmentedJournal<E> implements Journal<E> {
     }
 
     // If the index is in another segment, get the entry with the next lowest first index.
+    // If the index precedes the first segment, it has been compacted, so return the first segment.
     Map.Entry<Long, JournalSegment<E>> segment = segments.floorEntry(index);
+    if (segment == null) {
+      segment = segments.firstEntry();
+    }
     return segment != null ? segment.getValue() : null;
   }
 
@@ -501,7 +521,7 @@ public class SegmentedJournal<E> implements Journal<E> {
       Map.Entry<Long, JournalSegment> previousEntry = segments.floorEntry(segmentId - 1);
       if (previousEntry != null) {
         JournalSegment previousSegment = previousEntry.getValue();
-        if (previousSegment.index() + previousSegment.length() - 1 < segment.index()) {
+        if (previousSegment.index() + previousSegment.length() < segment.index()) {
           throw new IllegalStateException("Corrupted log: Previous segment " + previousSegment + " does not align with next segment " + segment);
         }
       }
@@ -543,7 +563,12 @@ public class SegmentedJournal<E> implements Journal<E> {
     writer.getLock().lock();
     try {
       LOGGER.info("Compacting log");
-      SortedMap<Long, JournalSegment<E>> compactSegments = segments.headMap(index);
+      // Retain the segment containing the index, removing only segments that end before it.
+      Long segmentIndex = segments.floorKey(index);
+      if (segmentIndex == null) {
+        return;
+      }
+      SortedMap<Long, JournalSegment<E>> compactSegments = segments.headMap(segmentIndex);
       for (JournalSegment segment : compactSegments.values()) {
         LOGGER.debug("Deleting segment: {}", segment);
         segment.close();
@@ -582,6 +607,7 @@ public class SegmentedJournal<E> implements Journal<E> {
     protected int maxSegmentSize = DEFAULT_MAX_SEGMENT_SIZE;
     protected int maxEntriesPerSegment = DEFAULT_MAX_ENTRIES_PER_SEGMENT;
     protected int entryBufferSize = DEFAULT_ENTRY_BUFFER_SIZE;
+    protected CompressionCodec compression = CompressionCodec.NONE;
 
     protected Builder() {
     }
@@ -706,6 +732,23 @@ public class SegmentedJournal<E> implements Journal<E> {
       return this;
     }
 
+    /**
+     * Sets the codec with which to compress journal entries, returning the builder for method chaining.
+     * <p>
+     * The codec is recorded in the descriptor of each new segment, and entries written to the segment are compressed
+     * individually. Existing segments continue to be read with the codec with which they were written.
+     * <p>
+     * By default, the compression codec is {@link CompressionCodec#NONE}.
+     *
+     * @param compression The journal compression codec.
+     * @return The journal builder.
+     * @throws NullPointerException if {@code compression} is {@code null}
+     */
+    public Builder withCompression(CompressionCodec compression) {
+      this.compression = checkNotNull(compression, "compression cannot be null");
+      return this;
+    }
+
     /**
      * Builds the journal.
      *
@@ -713,7 +756,7 @@ public class SegmentedJournal<E> implements Journal<E> {
      */
     @Override
     public SegmentedJournal<E> build() {
-      return new SegmentedJournal<>(name, storageLevel, directory, serializer, maxSegmentSize, maxEntriesPerSegment, entryBufferSize);
+      return new SegmentedJournal<>(name, storageLevel, directory, serializer, maxSegmentSize, maxEntriesPerSegment, entryBufferSize, compression);
     }
   }
 }
\ No newline at end of file
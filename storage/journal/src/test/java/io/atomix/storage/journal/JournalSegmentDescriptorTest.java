@@ -17,6 +17,7 @@ package io.atomix.storage.journal;
 
 import io.atomix.storage.buffer.Buffer;
 import io.atomix.storage.buffer.FileBuffer;
+import io.atomix.storage.compression.CompressionCodec;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.Test;
 
@@ -51,6 +52,7 @@ public class JournalSegmentDescriptorTest {
     assertEquals(descriptor.index(), 1025);
     assertEquals(descriptor.maxSegmentSize(), 1024 * 1024);
     assertEquals(descriptor.maxEntries(), 2048);
+    assertEquals(descriptor.compression(), CompressionCodec.NONE);
 
     assertEquals(descriptor.updated(), 0);
     long time = System.currentTimeMillis();
@@ -104,6 +106,7 @@ public class JournalSegmentDescriptorTest {
       .withIndex(1025)
       .withMaxSegmentSize(1024 * 1024)
       .withMaxEntries(2048)
+      .withCompression(CompressionCodec.LZ4)
       .build();
 
     long time = System.currentTimeMillis();
@@ -117,6 +120,7 @@ public class JournalSegmentDescriptorTest {
     assertEquals(descriptor.maxSegmentSize(), 1024 * 1024);
     assertEquals(descriptor.maxEntries(), 2048);
     assertEquals(descriptor.updated(), time);
+    assertEquals(descriptor.compression(), CompressionCodec.LZ4);
   }
 
   /**
@@ -15,10 +15,21 @@
  */
 package io.atomix.storage.journal;
 
+import io.atomix.serializer.Serializer;
 import io.atomix.storage.StorageLevel;
 import org.testng.annotations.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 /**
  * Log test.
@@ -54,4 +65,77 @@ public class JournalTest {
     indexed = reader.next();
     assertEquals(indexed.index(), 2);
   }
+
+  /**
+   * Tests that a compacted disk journal retains the segment containing the compaction index and can be reopened.
+   */
+  public void testCompactAndReopen() throws Exception {
+    File directory = new File("target/test-logs/compact");
+    deleteDirectory(directory.toPath());
+
+    Journal<TestEntry> journal = createDiskJournal(directory);
+    JournalWriter<TestEntry> writer = journal.writer();
+    for (int i = 0; i < 35; i++) {
+      writer.append(new TestEntry(10));
+    }
+    writer.flush();
+
+    journal.compact(25);
+    JournalReader<TestEntry> reader = journal.openReader(1);
+    assertTrue(reader.hasNext());
+    assertEquals(reader.next().index(), 21);
+    journal.close();
+
+    journal = createDiskJournal(directory);
+    assertEquals(journal.writer().getNextIndex(), 36);
+    reader = journal.openReader(1);
+    long index = 20;
+    while (reader.hasNext()) {
+      assertEquals(reader.next().index(), ++index);
+    }
+    assertEquals(index, 35);
+    assertFalse(reader.hasNext());
+    journal.close();
+
+    deleteDirectory(directory.toPath());
+  }
+
+  private Journal<TestEntry> createDiskJournal(File directory) {
+    return SegmentedJournal.<TestEntry>newBuilder()
+        .withName("test")
+        .withStorageLevel(StorageLevel.DISK)
+        .withDirectory(directory)
+        .withMaxEntriesPerSegment(10)
+        .withSerializer(new Serializer() {
+          @Override
+          public <T> byte[] encode(T object) {
+            return ((TestEntry) object).bytes();
+          }
+
+          @Override
+          @SuppressWarnings("unchecked")
+          public <T> T decode(byte[] bytes) {
+            return (T) new TestEntry(bytes);
+          }
+        })
+        .build();
+  }
+
+  private void deleteDirectory(Path directory) throws IOException {
+    if (Files.exists(directory)) {
+      Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+          Files.delete(file);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+          Files.delete(dir);
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    }
+  }
 }
\ No newline at end of file
@@ -31,6 +31,15 @@ public class TestEntry {
     this.bytes = bytes;
   }
 
+  /**
+   * Returns the entry bytes.
+   *
+   * @return The entry bytes.
+   */
+  public byte[] bytes() {
+    return bytes;
+  }
+
   @Override
   public String toString() {
     return String.format("%s[bytes=byte[%d]]", getClass().getSimpleName(), bytes.length);
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup;
+
+import io.atomix.cluster.NodeId;
+import io.atomix.event.AbstractListenerManager;
+import io.atomix.leadership.Leader;
+import io.atomix.leadership.Leadership;
+import io.atomix.leadership.LeadershipEvent;
+import io.atomix.leadership.LeadershipEventListener;
+import io.atomix.leadership.LeadershipService;
+import io.atomix.messaging.Endpoint;
+import io.atomix.messaging.netty.NettyMessagingManager;
+import io.atomix.protocols.backup.protocol.BackupRequest;
+import io.atomix.protocols.backup.protocol.BackupResponse;
+import io.atomix.protocols.backup.protocol.ExecuteRequest;
+import io.atomix.protocols.backup.protocol.ExecuteResponse;
+import io.atomix.protocols.backup.protocol.messaging.PrimaryBackupMessagingProtocol;
+import io.atomix.serializer.Serializer;
+import io.atomix.serializer.kryo.KryoNamespace;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Primary-backup performance test.
+ * <p>
+ * Runs the same closed-loop write workload as the Raft performance test against a three node primary-backup
+ * service over Netty so the two protocols can be compared.
+ */
+public class PrimaryBackupPerformanceTest implements Runnable {
+
+  private static final int ITERATIONS = 10;
+
+  private static final int TOTAL_OPERATIONS = 100000;
+  private static final int NUM_NODES = 3;
+  private static final int NUM_CLIENTS = 5;
+
+  private static final Replication REPLICATION = Replication.SYNCHRONOUS;
+
+  /**
+   * Runs a bunch of different operation types in parallel on a primary-backup service.
+   */
+  public static void main(String[] args) {
+    new PrimaryBackupPerformanceTest().run();
+  }
+
+  private static final Serializer protocolSerializer = Serializer.using(KryoNamespace.newBuilder()
+      .register(BackupRequest.class)
+      .register(BackupResponse.class)
+      .register(BackupResponse.Status.class)
+      .register(ExecuteRequest.class)
+      .register(ExecuteResponse.class)
+      .register(ExecuteResponse.Status.class)
+      .register(NodeId.class)
+      .register(ArrayList.class)
+      .register(Put.class)
+      .build());
+
+  private int port = 6000;
+  private List<BackupService<Put>> services = new ArrayList<>();
+  private List<NettyMessagingManager> messagingManagers = new ArrayList<>();
+  private List<ScheduledExecutorService> executors = new ArrayList<>();
+  private Map<NodeId, Endpoint> endpointMap = new ConcurrentHashMap<>();
+  private static final String[] KEYS = new String[1024];
+  private final Random random = new Random();
+  private final List<Long> iterations = new ArrayList<>();
+  private final AtomicInteger totalOperations = new AtomicInteger();
+  private final AtomicInteger writeCount = new AtomicInteger();
+
+  static {
+    for (int i = 0; i < 1024; i++) {
+      KEYS[i] = UUID.randomUUID().toString();
+    }
+  }
+
+  @Override
+  public void run() {
+    for (int i = 0; i < ITERATIONS; i++) {
+      try {
+        iterations.add(runIteration());
+      } catch (Exception e) {
+        e.printStackTrace();
+        return;
+      }
+    }
+
+    System.out.println("Completed " + ITERATIONS + " iterations");
+    long averageRunTime = (long) iterations.stream().mapToLong(v -> v).average().getAsDouble();
+    System.out.println(String.format("averageRunTime: %dms", averageRunTime));
+
+    shutdown();
+  }
+
+  /**
+   * Runs a single performance test iteration, returning the iteration run time.
+   */
+  @SuppressWarnings("unchecked")
+  private long runIteration() throws Exception {
+    reset();
+
+    createServices(NUM_NODES);
+
+    // Clients submit operations to the primary, which is the first node to run for leadership.
+    BackupService<Put> primary = services.get(0);
+    CompletableFuture<Void>[] futures = new CompletableFuture[NUM_CLIENTS];
+    for (int i = 0; i < NUM_CLIENTS; i++) {
+      futures[i] = new CompletableFuture<>();
+    }
+
+    long startTime = System.currentTimeMillis();
+    for (int i = 0; i < NUM_CLIENTS; i++) {
+      runClient(primary, futures[i]);
+    }
+    CompletableFuture.allOf(futures).join();
+    long endTime = System.currentTimeMillis();
+    long runTime = endTime - startTime;
+    System.out.println(String.format("replication: %s, writeCount: %d/%d, runTime: %dms, ops/sec: %d",
+        REPLICATION,
+        writeCount.get(),
+        TOTAL_OPERATIONS,
+        runTime,
+        (long) writeCount.get() * 1000 / Math.max(runTime, 1)));
+    return runTime;
+  }
+
+  /**
+   * Runs operations for a single client.
+   */
+  private void runClient(BackupService<Put> service, CompletableFuture<Void> future) {
+    int count = totalOperations.incrementAndGet();
+    if (count > TOTAL_OPERATIONS) {
+      future.complete(null);
+    } else {
+      service.execute(new Put(randomKey(), UUID.randomUUID().toString())).whenCompleteAsync((result, error) -> {
+        if (error == null) {
+          writeCount.incrementAndGet();
+        }
+        runClient(service, future);
+      });
+    }
+  }
+
+  /**
+   * Resets the test state.
+   */
+  private void reset() {
+    totalOperations.set(0);
+    writeCount.set(0);
+
+    shutdown();
+
+    services = new ArrayList<>();
+    messagingManagers = new ArrayList<>();
+    executors = new ArrayList<>();
+    endpointMap = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Shuts down services.
+   */
+  private void shutdown() {
+    services.forEach(BackupService::close);
+    executors.forEach(ScheduledExecutorService::shutdownNow);
+    messagingManagers.forEach(m -> {
+      try {
+        m.close();
+      } catch (Exception e) {
+      }
+    });
+  }
+
+  /**
+   * Returns a random map key.
+   */
+  private String randomKey() {
+    return KEYS[random.nextInt(KEYS.length)];
+  }
+
+  /**
+   * Creates a set of primary-backup services.
+   */
+  private void createServices(int nodes) throws Exception {
+    TestLeadershipElection election = new TestLeadershipElection();
+    for (int i = 0; i < nodes; i++) {
+      NodeId nodeId = NodeId.from(String.valueOf(i + 1));
+      Endpoint endpoint = new Endpoint(InetAddress.getLocalHost(), ++port);
+      NettyMessagingManager messagingManager = new NettyMessagingManager(endpoint);
+      messagingManagers.add(messagingManager);
+      endpointMap.put(nodeId, endpoint);
+
+      ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+      executors.add(executor);
+
+      Map<String, String> map = new ConcurrentHashMap<>();
+      BackupService<Put> service = PrimaryBackupService.<Put>builder()
+          .withTopic("test")
+          .withLocalNode(nodeId)
+          .withLeadershipService(new TestLeadershipService(nodeId, election))
+          .withProtocol(new PrimaryBackupMessagingProtocol<>("test", messagingManager, protocolSerializer, endpointMap::get))
+          .withExecutor(executor)
+          .withReplication(REPLICATION)
+          .withNumBackups(nodes - 1)
+          .build();
+      service.addListener(event -> map.put(event.subject().key, event.subject().value));
+      services.add(service);
+    }
+  }
+
+  public static class Put {
+    public String key;
+    public String value;
+
+    public Put(String key, String value) {
+      this.key = key;
+      this.value = value;
+    }
+  }
+
+  /**
+   * Leadership election shared by the test leadership services, in which the first candidate is the leader.
+   */
+  private static class TestLeadershipElection {
+    private final List<NodeId> candidates = new ArrayList<>();
+    private final List<TestLeadershipService> services = new ArrayList<>();
+
+    synchronized Leadership run(String topic, TestLeadershipService service) {
+      candidates.add(service.nodeId);
+      services.add(service);
+      Leadership leadership = leadership(topic);
+      services.forEach(s -> s.post(new LeadershipEvent(LeadershipEvent.Type.CANDIDATES_CHANGED, leadership)));
+      return leadership;
+    }
+
+    synchronized void withdraw(String topic, TestLeadershipService service) {
+      candidates.remove(service.nodeId);
+      services.remove(service);
+      Leadership leadership = leadership(topic);
+      services.forEach(s -> s.post(new LeadershipEvent(LeadershipEvent.Type.LEADER_AND_CANDIDATES_CHANGED, leadership)));
+    }
+
+    synchronized Leadership leadership(String topic) {
+      Leader leader = candidates.isEmpty() ? null : new Leader(candidates.get(0), 1, System.currentTimeMillis());
+      return new Leadership(topic, leader, new ArrayList<>(candidates));
+    }
+  }
+
+  /**
+   * Test leadership service.
+   */
+  private static class TestLeadershipService
+      extends AbstractListenerManager<LeadershipEvent, LeadershipEventListener>
+      implements LeadershipService {
+    private final NodeId nodeId;
+    private final TestLeadershipElection election;
+
+    TestLeadershipService(NodeId nodeId, TestLeadershipElection election) {
+      this.nodeId = nodeId;
+      this.election = election;
+    }
+
+    @Override
+    protected void post(LeadershipEvent event) {
+      super.post(event);
+    }
+
+    @Override
+    public Leadership getLeadership(String topic) {
+      return election.leadership(topic);
+    }
+
+    @Override
+    public Leadership runForLeadership(String topic) {
+      return election.run(topic, this);
+    }
+
+    @Override
+    public void withdraw(String topic) {
+      election.withdraw(topic, this);
+    }
+
+    @Override
+    @Deprecated
+    public Map<String, Leadership> getLeaderBoard() {
+      return null;
+    }
+  }
+
+}
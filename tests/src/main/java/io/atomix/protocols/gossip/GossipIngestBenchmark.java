@@ -0,0 +1,178 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import io.atomix.protocols.gossip.protocol.AntiEntropyAdvertisement;
+import io.atomix.protocols.gossip.protocol.AntiEntropyProtocol;
+import io.atomix.protocols.gossip.protocol.AntiEntropyResponse;
+import io.atomix.protocols.gossip.protocol.GossipMessage;
+import io.atomix.protocols.gossip.protocol.GossipUpdate;
+import io.atomix.protocols.gossip.storage.GossipLog;
+import io.atomix.serializer.Serializer;
+import io.atomix.serializer.kryo.KryoNamespace;
+import io.atomix.time.LogicalTimestamp;
+import io.atomix.utils.Identifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Anti-entropy service ingest throughput benchmark.
+ * <p>
+ * Applies gossip messages for random subjects directly to an anti-entropy service from an increasing number of
+ * threads to measure how ingest throughput scales with cores, both with and without a {@link GossipLog}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GossipIngestBenchmark {
+
+  /**
+   * Runs the ingest benchmark with one thread and with one thread per core.
+   */
+  public static void main(String[] args) throws Exception {
+    int cores = Runtime.getRuntime().availableProcessors();
+    for (int threads = 1; threads <= cores; threads <<= 1) {
+      new Runner(new OptionsBuilder()
+          .include(GossipIngestBenchmark.class.getSimpleName())
+          .threads(threads)
+          .build())
+          .run();
+    }
+  }
+
+  @Param({"100000"})
+  private int subjects;
+
+  @Param({"false", "true"})
+  private boolean persistent;
+
+  private Path directory;
+  private ScheduledExecutorService executor;
+  private GossipService<Integer, Integer> service;
+  private Consumer<GossipMessage<Integer, Integer>> listener;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setup() throws IOException {
+    executor = Executors.newSingleThreadScheduledExecutor();
+    AntiEntropyService.Builder<Integer, Integer> builder = new AntiEntropyService.Builder<>();
+    if (persistent) {
+      directory = Files.createTempDirectory("gossip-ingest");
+      builder.withLog(GossipLog.<Integer, Integer>builder()
+          .withDirectory(directory.toFile())
+          .withSerializer(Serializer.using(KryoNamespace.newBuilder()
+              .register(GossipUpdate.class)
+              .register(LogicalTimestamp.class)
+              .register(GossipLog.RemoveEntry.class)
+              .register(GossipLog.CheckpointEntry.class)
+              .build()))
+          .build());
+    }
+    service = builder
+        .withProtocol(new AntiEntropyProtocol<Identifier>() {
+          @Override
+          public <K> CompletableFuture<AntiEntropyResponse<K>> advertise(Identifier identifier, AntiEntropyAdvertisement<K> advertisement) {
+            return new CompletableFuture<>();
+          }
+
+          @Override
+          public <K> void registerAdvertisementHandler(Function<AntiEntropyAdvertisement<K>, AntiEntropyResponse<K>> handler) {
+          }
+
+          @Override
+          public void unregisterAdvertisementHandler() {
+          }
+
+          @Override
+          public <K, V> void gossip(Identifier identifier, GossipMessage<K, V> message) {
+          }
+
+          @Override
+          public <K, V> void registerGossipListener(Consumer<GossipMessage<K, V>> listener) {
+            GossipIngestBenchmark.this.listener = (Consumer) listener;
+          }
+
+          @Override
+          public void unregisterGossipListener() {
+          }
+        })
+        .withPeerProvider(Collections::emptyList)
+        .withCommunicationExecutor(executor)
+        .withAntiEntropyInterval(Duration.ofMinutes(1))
+        .build();
+  }
+
+  @TearDown
+  public void teardown() throws IOException {
+    service.close();
+    executor.shutdownNow();
+    if (directory != null) {
+      Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+          Files.delete(file);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+          Files.delete(dir);
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    }
+  }
+
+  @Benchmark
+  public void ingest() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int subject = random.nextInt(subjects);
+    LogicalTimestamp timestamp = new LogicalTimestamp(random.nextInt(Integer.MAX_VALUE));
+    listener.accept(new GossipMessage<>(timestamp, Collections.singletonList(new GossipUpdate<>(subject, subject, timestamp))));
+  }
+
+}
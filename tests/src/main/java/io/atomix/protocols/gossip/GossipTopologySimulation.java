@@ -0,0 +1,248 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import io.atomix.cluster.ClusterEventListener;
+import io.atomix.cluster.ClusterService;
+import io.atomix.cluster.DefaultNode;
+import io.atomix.cluster.Node;
+import io.atomix.cluster.NodeId;
+import io.atomix.protocols.gossip.protocol.GossipMessage;
+import io.atomix.protocols.gossip.protocol.GossipProtocol;
+import io.atomix.protocols.gossip.protocol.GossipUpdate;
+import io.atomix.serializer.Serializer;
+import io.atomix.serializer.kryo.KryoNamespace;
+import io.atomix.time.LogicalTimestamp;
+import io.atomix.time.Version;
+import io.atomix.utils.Identifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Gossip peer selection simulation.
+ * <p>
+ * Runs a cluster of in-memory dissemination services spread across zones and racks, writes a series of updates
+ * at random nodes, and measures the time taken for each update to reach every node along with the number of
+ * gossip bytes sent within racks, across racks and across zones, first with uniformly random peer selection and
+ * then with topology-aware peer selection.
+ */
+public class GossipTopologySimulation {
+
+  private static final int NUM_ZONES = 3;
+  private static final int RACKS_PER_ZONE = 2;
+  private static final int NODES_PER_RACK = 5;
+  private static final int NUM_UPDATES = 200;
+  private static final Duration GOSSIP_INTERVAL = Duration.ofMillis(20);
+  private static final Duration WRITE_INTERVAL = Duration.ofMillis(25);
+  private static final Duration CONVERGENCE_TIMEOUT = Duration.ofSeconds(60);
+
+  private static final Serializer SERIALIZER = Serializer.using(KryoNamespace.newBuilder()
+      .register(GossipMessage.class)
+      .register(GossipUpdate.class)
+      .register(LogicalTimestamp.class)
+      .register(Version.class)
+      .register(ArrayList.class)
+      .build());
+
+  /**
+   * Runs the simulation.
+   */
+  public static void main(String[] args) throws Exception {
+    new GossipTopologySimulation(false).run();
+    new GossipTopologySimulation(true).run();
+    System.exit(0);
+  }
+
+  private final boolean topologyAware;
+  private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
+  private final Map<NodeId, DefaultNode> nodes = new ConcurrentHashMap<>();
+  private final Map<NodeId, Consumer<GossipMessage<String, String>>> listeners = new ConcurrentHashMap<>();
+  private final Map<String, AtomicInteger> deliveries = new ConcurrentHashMap<>();
+  private final Map<String, Long> writeTimes = new ConcurrentHashMap<>();
+  private final Map<String, Long> convergenceTimes = new ConcurrentHashMap<>();
+  private final AtomicLong rackBytes = new AtomicLong();
+  private final AtomicLong crossRackBytes = new AtomicLong();
+  private final AtomicLong crossZoneBytes = new AtomicLong();
+
+  private GossipTopologySimulation(boolean topologyAware) {
+    this.topologyAware = topologyAware;
+  }
+
+  private void run() throws Exception {
+    for (int zone = 0; zone < NUM_ZONES; zone++) {
+      for (int rack = 0; rack < RACKS_PER_ZONE; rack++) {
+        for (int i = 0; i < NODES_PER_RACK; i++) {
+          NodeId nodeId = NodeId.from(String.format("node-%d-%d-%d", zone, rack, i));
+          nodes.put(nodeId, DefaultNode.builder()
+              .withNodeId(nodeId)
+              .withZone("zone-" + zone)
+              .withRack("rack-" + rack)
+              .build());
+        }
+      }
+    }
+
+    List<GossipService<String, String>> services = new ArrayList<>();
+    for (DefaultNode node : nodes.values()) {
+      services.add(newService(node));
+    }
+
+    Random random = new Random(1);
+    for (int i = 0; i < NUM_UPDATES; i++) {
+      String key = "key-" + i;
+      writeTimes.put(key, System.currentTimeMillis());
+      services.get(random.nextInt(services.size())).process(new GossipEvent<>(key, "value-" + i));
+      Thread.sleep(WRITE_INTERVAL.toMillis());
+    }
+
+    long start = System.currentTimeMillis();
+    while (convergenceTimes.size() < NUM_UPDATES && System.currentTimeMillis() - start < CONVERGENCE_TIMEOUT.toMillis()) {
+      Thread.sleep(10);
+    }
+
+    List<Long> times = new ArrayList<>(convergenceTimes.values());
+    Collections.sort(times);
+    long totalBytes = rackBytes.get() + crossRackBytes.get() + crossZoneBytes.get();
+    System.out.println(String.format("%s: nodes=%d converged=%d/%d median=%dms p99=%dms max=%dms bytes=%d rack=%d crossRack=%d crossZone=%d (%.1f%%)",
+        topologyAware ? "topology-aware" : "random",
+        nodes.size(),
+        times.size(),
+        NUM_UPDATES,
+        times.isEmpty() ? -1 : times.get(times.size() / 2),
+        times.isEmpty() ? -1 : times.get(times.size() * 99 / 100),
+        times.isEmpty() ? -1 : times.get(times.size() - 1),
+        totalBytes,
+        rackBytes.get(),
+        crossRackBytes.get(),
+        crossZoneBytes.get(),
+        crossZoneBytes.get() * 100.0 / totalBytes));
+
+    services.forEach(GossipService::close);
+    executor.shutdownNow();
+  }
+
+  private GossipService<String, String> newService(DefaultNode node) {
+    List<Identifier> peers = new ArrayList<>();
+    for (NodeId peer : nodes.keySet()) {
+      if (!peer.equals(node.nodeId())) {
+        peers.add(peer);
+      }
+    }
+    Collection<Identifier> peerView = Collections.unmodifiableList(peers);
+
+    GossipService<String, String> service = DisseminationService.<String, String>builder()
+        .withProtocol(newProtocol(node))
+        .withPeerProvider(() -> peerView)
+        .withPeerSelector(topologyAware
+            ? TopologyAwarePeerSelector.builder().withClusterService(new SimulatedClusterService(node)).build()
+            : new RandomPeerSelector())
+        .withCommunicationExecutor(executor)
+        .withUpdateInterval(GOSSIP_INTERVAL)
+        .build();
+    service.addListener(event -> {
+      if (deliveries.computeIfAbsent(event.subject(), key -> new AtomicInteger()).incrementAndGet() == nodes.size()) {
+        convergenceTimes.put(event.subject(), System.currentTimeMillis() - writeTimes.get(event.subject()));
+      }
+    });
+    return service;
+  }
+
+  private GossipProtocol<Identifier> newProtocol(DefaultNode node) {
+    return new GossipProtocol<Identifier>() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public <K, V> void gossip(Identifier identifier, GossipMessage<K, V> message) {
+        DefaultNode peer = nodes.get(identifier);
+        byte[] bytes = SERIALIZER.encode(message);
+        if (!node.zone().equals(peer.zone())) {
+          crossZoneBytes.addAndGet(bytes.length);
+        } else if (!node.rack().equals(peer.rack())) {
+          crossRackBytes.addAndGet(bytes.length);
+        } else {
+          rackBytes.addAndGet(bytes.length);
+        }
+        Consumer<GossipMessage<String, String>> listener = listeners.get(peer.nodeId());
+        if (listener != null) {
+          executor.execute(() -> listener.accept(SERIALIZER.decode(bytes)));
+        }
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public <K, V> void registerGossipListener(Consumer<GossipMessage<K, V>> listener) {
+        listeners.put(node.nodeId(), (Consumer) listener);
+      }
+
+      @Override
+      public void unregisterGossipListener() {
+        listeners.remove(node.nodeId());
+      }
+    };
+  }
+
+  /**
+   * Simulated cluster service.
+   */
+  private class SimulatedClusterService implements ClusterService {
+    private final DefaultNode localNode;
+
+    SimulatedClusterService(DefaultNode localNode) {
+      this.localNode = localNode;
+    }
+
+    @Override
+    public Node localNode() {
+      return localNode;
+    }
+
+    @Override
+    public Set<Node> getNodes() {
+      return new HashSet<>(nodes.values());
+    }
+
+    @Override
+    public Node getNode(NodeId nodeId) {
+      return nodes.get(nodeId);
+    }
+
+    @Override
+    public Node.State getState(NodeId nodeId) {
+      return Node.State.ACTIVE;
+    }
+
+    @Override
+    public void addListener(ClusterEventListener listener) {
+    }
+
+    @Override
+    public void removeListener(ClusterEventListener listener) {
+    }
+  }
+}
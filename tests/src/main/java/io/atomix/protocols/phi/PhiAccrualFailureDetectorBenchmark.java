@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.phi;
+
+import io.atomix.utils.Identifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phi accrual failure detector benchmark.
+ * <p>
+ * Measures the cost of reporting a heartbeat and of computing phi for peers with full sample windows,
+ * cycling through the peers as the heartbeat loop does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhiAccrualFailureDetectorBenchmark {
+
+  /**
+   * Runs the phi accrual failure detector benchmark.
+   */
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+        .include(PhiAccrualFailureDetectorBenchmark.class.getSimpleName())
+        .build())
+        .run();
+  }
+
+  private static final long HEARTBEAT_INTERVAL = 100;
+
+  @Param({"1000"})
+  private int peers;
+
+  private PhiAccrualFailureDetector<NodeId> detector;
+  private NodeId[] nodes;
+  private long time;
+  private int next;
+
+  @Setup
+  public void setup() {
+    detector = new PhiAccrualFailureDetector<>();
+    nodes = new NodeId[peers];
+    for (int i = 0; i < peers; i++) {
+      nodes[i] = new NodeId("node-" + i);
+    }
+    for (int i = 0; i < 1000; i++) {
+      time += HEARTBEAT_INTERVAL;
+      for (NodeId node : nodes) {
+        detector.report(node, time + node.hashCode() % 10);
+      }
+    }
+  }
+
+  private NodeId nextNode() {
+    NodeId node = nodes[next];
+    if (++next == nodes.length) {
+      next = 0;
+      time += HEARTBEAT_INTERVAL;
+    }
+    return node;
+  }
+
+  @Benchmark
+  public void report() {
+    detector.report(nextNode(), time);
+  }
+
+  @Benchmark
+  public double phi() {
+    return detector.phi(nextNode(), time);
+  }
+
+  /**
+   * Benchmark node identifier.
+   */
+  private static class NodeId extends Identifier<String> {
+    NodeId(String id) {
+      super(id);
+    }
+  }
+}
@@ -25,6 +25,8 @@ import io.atomix.protocols.raft.protocol.AppendRequest;
 import io.atomix.protocols.raft.protocol.AppendResponse;
 import io.atomix.protocols.raft.protocol.CloseSessionRequest;
 import io.atomix.protocols.raft.protocol.CloseSessionResponse;
+import io.atomix.protocols.raft.protocol.CommandBatchRequest;
+import io.atomix.protocols.raft.protocol.CommandBatchResponse;
 import io.atomix.protocols.raft.protocol.CommandRequest;
 import io.atomix.protocols.raft.protocol.CommandResponse;
 import io.atomix.protocols.raft.protocol.ConfigureRequest;
@@ -138,6 +140,8 @@ public class RaftPerformanceTest implements Runnable {
       .register(QueryResponse.class)
       .register(CommandRequest.class)
       .register(CommandResponse.class)
+      .register(CommandBatchRequest.class)
+      .register(CommandBatchResponse.class)
       .register(MetadataRequest.class)
       .register(MetadataResponse.class)
       .register(JoinRequest.class)
@@ -286,6 +290,14 @@ public class RaftPerformanceTest implements Runnable {
       writeCount.get(),
       (int) (TOTAL_OPERATIONS * (1 - (WRITE_RATIO / 10d))),
       runTime));
+    if (USE_NETTY) {
+      long messageCount = messagingManagers.stream().mapToLong(NettyMessagingManager::getMessageCount).sum();
+      long flushCount = messagingManagers.stream().mapToLong(NettyMessagingManager::getFlushCount).sum();
+      System.out.println(String.format("messages: %d, messages/sec: %d, flushes/message: %.3f",
+        messageCount,
+        messageCount * 1000 / Math.max(runTime, 1),
+        (double) flushCount / Math.max(messageCount, 1)));
+    }
     return runTime;
   }
 
@@ -472,6 +484,7 @@ public class RaftPerformanceTest implements Runnable {
     if (USE_NETTY) {
       Endpoint endpoint = new Endpoint(InetAddress.getLocalHost(), ++port);
       NettyMessagingManager messagingManager = new NettyMessagingManager(endpoint);
+      messagingManagers.add(messagingManager);
       endpointMap.put(memberId, endpoint);
       protocol = new RaftClientMessagingProtocol(messagingManager, protocolSerializer, endpointMap::get);
     } else {
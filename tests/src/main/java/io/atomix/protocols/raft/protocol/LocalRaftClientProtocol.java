@@ -87,7 +87,7 @@ public class LocalRaftClientProtocol extends LocalRaftProtocol implements RaftCl
     });
   }
 
-  void publish(long sessionId, byte[] request) {
+  void publish(long sessionId, Object request) {
     Consumer<PublishRequest> listener = publishListeners.get(sessionId);
     if (listener != null) {
       listener.accept(decode(request));
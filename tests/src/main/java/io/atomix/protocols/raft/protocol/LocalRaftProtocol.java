@@ -23,6 +23,9 @@ import java.util.Map;
 
 /**
  * Base class for Raft protocol.
+ * <p>
+ * If the protocol has a serializer, messages are serialized and deserialized between members to simulate a network.
+ * Otherwise, messages are passed between members by reference.
  */
 public abstract class LocalRaftProtocol {
   private final Serializer serializer;
@@ -36,15 +39,16 @@ public abstract class LocalRaftProtocol {
   }
 
   <T> T copy(T value) {
-    return serializer.decode(serializer.encode(value));
+    return serializer != null ? serializer.decode(serializer.encode(value)) : value;
   }
 
-  byte[] encode(Object value) {
-    return serializer.encode(value);
+  Object encode(Object value) {
+    return serializer != null ? serializer.encode(value) : value;
   }
 
-  <T> T decode(byte[] bytes) {
-    return serializer.decode(bytes);
+  @SuppressWarnings("unchecked")
+  <T> T decode(Object value) {
+    return serializer != null ? serializer.decode((byte[]) value) : (T) value;
   }
 
   LocalRaftServerProtocol server(MemberId memberId) {
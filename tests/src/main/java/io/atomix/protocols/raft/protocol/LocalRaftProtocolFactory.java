@@ -29,6 +29,18 @@ public class LocalRaftProtocolFactory {
   private final Map<MemberId, LocalRaftServerProtocol> servers = Maps.newConcurrentMap();
   private final Map<MemberId, LocalRaftClientProtocol> clients = Maps.newConcurrentMap();
 
+  /**
+   * Creates a protocol factory whose protocols pass messages between members by reference, without serialization.
+   */
+  public LocalRaftProtocolFactory() {
+    this(null);
+  }
+
+  /**
+   * Creates a protocol factory whose protocols serialize messages between members with the given serializer.
+   *
+   * @param serializer the serializer with which to serialize messages
+   */
   public LocalRaftProtocolFactory(Serializer serializer) {
     this.serializer = serializer;
   }
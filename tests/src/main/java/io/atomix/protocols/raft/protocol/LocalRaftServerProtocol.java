@@ -146,7 +146,7 @@ public class LocalRaftServerProtocol extends LocalRaftProtocol implements RaftSe
     getClient(memberId).thenAccept(protocol -> protocol.publish(request.session(), encode(request)));
   }
 
-  CompletableFuture<byte[]> openSession(byte[] request) {
+  CompletableFuture<Object> openSession(Object request) {
     if (openSessionHandler != null) {
       return openSessionHandler.apply(decode(request)).thenApply(this::encode);
     } else {
@@ -164,7 +164,7 @@ public class LocalRaftServerProtocol extends LocalRaftProtocol implements RaftSe
     this.openSessionHandler = null;
   }
 
-  CompletableFuture<byte[]> closeSession(byte[] request) {
+  CompletableFuture<Object> closeSession(Object request) {
     if (closeSessionHandler != null) {
       return closeSessionHandler.apply(decode(request)).thenApply(this::encode);
     } else {
@@ -182,7 +182,7 @@ public class LocalRaftServerProtocol extends LocalRaftProtocol implements RaftSe
     this.closeSessionHandler = null;
   }
 
-  CompletableFuture<byte[]> keepAlive(byte[] request) {
+  CompletableFuture<Object> keepAlive(Object request) {
     if (keepAliveHandler != null) {
       return keepAliveHandler.apply(decode(request)).thenApply(this::encode);
     } else {
@@ -200,7 +200,7 @@ public class LocalRaftServerProtocol extends LocalRaftProtocol implements RaftSe
     this.keepAliveHandler = null;
   }
 
-  CompletableFuture<byte[]> query(byte[] request) {
+  CompletableFuture<Object> query(Object request) {
     if (queryHandler != null) {
       return queryHandler.apply(decode(request)).thenApply(this::encode);
     } else {
@@ -218,7 +218,7 @@ public class LocalRaftServerProtocol extends LocalRaftProtocol implements RaftSe
     this.queryHandler = null;
   }
 
-  CompletableFuture<byte[]> command(byte[] request) {
+  CompletableFuture<Object> command(Object request) {
     if (commandHandler != null) {
       return commandHandler.apply(decode(request)).thenApply(this::encode);
     } else {
@@ -236,7 +236,7 @@ public class LocalRaftServerProtocol extends LocalRaftProtocol implements RaftSe
     this.commandHandler = null;
   }
 
-  CompletableFuture<byte[]> metadata(byte[] request) {
+  CompletableFuture<Object> metadata(Object request) {
     if (metadataHandler != null) {
       return metadataHandler.apply(decode(request)).thenApply(this::encode);
     } else {
@@ -254,7 +254,7 @@ public class LocalRaftServerProtocol extends LocalRaftProtocol implements RaftSe
     this.metadataHandler = null;
   }
 
-  CompletableFuture<byte[]> join(byte[] request) {
+  CompletableFuture<Object> join(Object request) {
     if (joinHandler != null) {
       return joinHandler.apply(decode(request)).thenApply(this::encode);
     } else {
@@ -272,7 +272,7 @@ public class LocalRaftServerProtocol extends LocalRaftProtocol implements RaftSe
     this.joinHandler = null;
   }
 
-  CompletableFuture<byte[]> leave(byte[] request) {
+  CompletableFuture<Object> leave(Object request) {
     if (leaveHandler != null) {
       return leaveHandler.apply(decode(request)).thenApply(this::encode);
     } else {
@@ -290,7 +290,7 @@ public class LocalRaftServerProtocol extends LocalRaftProtocol implements RaftSe
     this.leaveHandler = null;
   }
 
-  CompletableFuture<byte[]> configure(byte[] request) {
+  CompletableFuture<Object> configure(Object request) {
     if (configureHandler != null) {
       return configureHandler.apply(decode(request)).thenApply(this::encode);
     } else {
@@ -308,7 +308,7 @@ public class LocalRaftServerProtocol extends LocalRaftProtocol implements RaftSe
     this.configureHandler = null;
   }
 
-  CompletableFuture<byte[]> reconfigure(byte[] request) {
+  CompletableFuture<Object> reconfigure(Object request) {
     if (reconfigureHandler != null) {
       return reconfigureHandler.apply(decode(request)).thenApply(this::encode);
     } else {
@@ -326,7 +326,7 @@ public class LocalRaftServerProtocol extends LocalRaftProtocol implements RaftSe
     this.reconfigureHandler = null;
   }
 
-  CompletableFuture<byte[]> install(byte[] request) {
+  CompletableFuture<Object> install(Object request) {
     if (installHandler != null) {
       return installHandler.apply(decode(request)).thenApply(this::encode);
     } else {
@@ -344,7 +344,7 @@ public class LocalRaftServerProtocol extends LocalRaftProtocol implements RaftSe
     this.installHandler = null;
   }
 
-  CompletableFuture<byte[]> poll(byte[] request) {
+  CompletableFuture<Object> poll(Object request) {
     if (pollHandler != null) {
       return pollHandler.apply(decode(request)).thenApply(this::encode);
     } else {
@@ -362,7 +362,7 @@ public class LocalRaftServerProtocol extends LocalRaftProtocol implements RaftSe
     this.pollHandler = null;
   }
 
-  CompletableFuture<byte[]> vote(byte[] request) {
+  CompletableFuture<Object> vote(Object request) {
     if (voteHandler != null) {
       return voteHandler.apply(decode(request)).thenApply(this::encode);
     } else {
@@ -380,7 +380,7 @@ public class LocalRaftServerProtocol extends LocalRaftProtocol implements RaftSe
     this.voteHandler = null;
   }
 
-  CompletableFuture<byte[]> append(byte[] request) {
+  CompletableFuture<Object> append(Object request) {
     if (appendHandler != null) {
       return appendHandler.apply(decode(request)).thenApply(this::encode);
     } else {
@@ -398,7 +398,7 @@ public class LocalRaftServerProtocol extends LocalRaftProtocol implements RaftSe
     this.appendHandler = null;
   }
 
-  void reset(long sessionId, byte[] request) {
+  void reset(long sessionId, Object request) {
     Consumer<ResetRequest> listener = resetListeners.get(sessionId);
     if (listener != null) {
       listener.accept(decode(request));
@@ -15,6 +15,7 @@
  */
 package io.atomix.protocols.raft.protocol;
 
+import com.google.common.util.concurrent.MoreExecutors;
 import io.atomix.messaging.Endpoint;
 import io.atomix.messaging.MessagingService;
 import io.atomix.protocols.raft.cluster.MemberId;
@@ -48,8 +49,8 @@ public abstract class RaftMessagingProtocol {
     if (endpoint == null) {
       return Futures.exceptionalFuture(new ConnectException());
     }
-    return messagingService.sendAndReceive(endpoint, type, serializer.encode(request))
-        .thenApply(serializer::decode);
+    return messagingService.sendAndReceive(endpoint, type, serializer.encode(request),
+        buffer -> serializer.<U>decode(buffer), MoreExecutors.directExecutor());
   }
 
   protected CompletableFuture<Void> sendAsync(MemberId memberId, String type, Object request) {
@@ -61,9 +62,9 @@ public abstract class RaftMessagingProtocol {
   }
 
   protected <T, U> void registerHandler(String type, Function<T, CompletableFuture<U>> handler) {
-    messagingService.registerHandler(type, (e, p) -> {
+    messagingService.registerBufferHandler(type, (e, p) -> {
       CompletableFuture<byte[]> future = new CompletableFuture<>();
-      handler.apply(serializer.decode(p)).whenComplete((result, error) -> {
+      handler.apply(serializer.<T>decode(p)).whenComplete((result, error) -> {
         if (error == null) {
           future.complete(serializer.encode(result));
         } else {
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft.proxy.impl;
+
+import io.atomix.protocols.raft.protocol.CommandResponse;
+import io.atomix.protocols.raft.protocol.RaftResponse;
+import io.atomix.utils.concurrent.SingleThreadContext;
+import io.atomix.utils.concurrent.ThreadContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Proxy sequencer submit to complete latency benchmark.
+ * <p>
+ * Measures the time to sequence a batch of operations and complete their responses, either directly on the
+ * calling thread or by hopping through a {@link ThreadContext} for each request and response as the sequencer
+ * previously required. Responses are completed either in request order or in reverse order to exercise the
+ * sequencer's reordering.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RaftProxySequencerBenchmark {
+
+  /**
+   * Runs the sequencer benchmark.
+   */
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+        .include(RaftProxySequencerBenchmark.class.getSimpleName())
+        .build())
+        .run();
+  }
+
+  @Param({"ordered", "reversed"})
+  private String order;
+
+  @Param({"64"})
+  private int operations;
+
+  private RaftProxySequencer sequencer;
+  private ThreadContext context;
+  private CommandResponse response;
+  private long[] sequences;
+
+  @Setup
+  public void setup() {
+    sequencer = new RaftProxySequencer(new RaftProxyState(1, "benchmark", "test", 1000));
+    context = new SingleThreadContext("raft-proxy-sequencer-benchmark");
+    response = CommandResponse.newBuilder()
+        .withStatus(RaftResponse.Status.OK)
+        .withIndex(1)
+        .withEventIndex(0)
+        .build();
+    sequences = new long[operations];
+  }
+
+  @TearDown
+  public void teardown() {
+    context.close();
+  }
+
+  /**
+   * Returns the index of the response to complete at the given position.
+   */
+  private int responseIndex(int position) {
+    return order.equals("reversed") ? operations - position - 1 : position;
+  }
+
+  @Benchmark
+  public int direct() {
+    AtomicInteger completed = new AtomicInteger();
+    for (int i = 0; i < operations; i++) {
+      sequences[i] = sequencer.nextRequest();
+    }
+    for (int i = 0; i < operations; i++) {
+      sequencer.sequenceResponse(sequences[responseIndex(i)], response, completed::incrementAndGet);
+    }
+    return completed.get();
+  }
+
+  @Benchmark
+  public int context() throws Exception {
+    AtomicInteger completed = new AtomicInteger();
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    for (int i = 0; i < operations; i++) {
+      int index = i;
+      context.execute(() -> sequences[index] = sequencer.nextRequest());
+    }
+    for (int i = 0; i < operations; i++) {
+      int index = responseIndex(i);
+      context.execute(() -> sequencer.sequenceResponse(sequences[index], response, () -> {
+        if (completed.incrementAndGet() == operations) {
+          future.complete(null);
+        }
+      }));
+    }
+    future.get();
+    return completed.get();
+  }
+
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.swim;
+
+import io.atomix.protocols.phi.FailureDetectionEvent;
+import io.atomix.protocols.phi.FailureDetectionService;
+import io.atomix.protocols.phi.PhiAccrualFailureDetectionService;
+import io.atomix.protocols.phi.protocol.FailureDetectionProtocol;
+import io.atomix.protocols.phi.protocol.HeartbeatMessage;
+import io.atomix.protocols.swim.protocol.ProbeRequestMessage;
+import io.atomix.protocols.swim.protocol.SwimMessage;
+import io.atomix.protocols.swim.protocol.SwimProtocol;
+import io.atomix.utils.Identifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Failure detection simulation.
+ * <p>
+ * Runs a cluster of in-memory phi accrual and SWIM failure detectors, measures the liveness traffic each
+ * generates in the steady state, crashes a node, and measures the time taken for the remaining nodes to
+ * detect the failure along with any false positives.
+ */
+public class FailureDetectionSimulation {
+
+  private static final int NUM_NODES = 50;
+  private static final Duration WARMUP_TIME = Duration.ofSeconds(5);
+  private static final Duration MEASURE_TIME = Duration.ofSeconds(5);
+  private static final Duration DETECTION_TIMEOUT = Duration.ofSeconds(60);
+
+  /**
+   * Runs the simulation.
+   *
+   * @param args the number of nodes to simulate
+   */
+  public static void main(String[] args) throws Exception {
+    int nodes = args.length > 0 ? Integer.parseInt(args[0]) : NUM_NODES;
+    new FailureDetectionSimulation(nodes, false).run();
+    new FailureDetectionSimulation(nodes, true).run();
+    System.exit(0);
+  }
+
+  private final int numNodes;
+  private final boolean swim;
+  private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
+  private final List<NodeId> nodes = new ArrayList<>();
+  private final Set<NodeId> crashed = Collections.newSetFromMap(new ConcurrentHashMap<>());
+  private final AtomicLong messages = new AtomicLong();
+  private final Map<NodeId, Long> detections = new ConcurrentHashMap<>();
+  private final AtomicLong falsePositives = new AtomicLong();
+  private final Map<NodeId, Consumer<HeartbeatMessage<NodeId>>> heartbeatListeners = new ConcurrentHashMap<>();
+  private final Map<NodeId, Function<SwimMessage<NodeId>, SwimMessage<NodeId>>> probeHandlers = new ConcurrentHashMap<>();
+  private final Map<NodeId, Function<ProbeRequestMessage<NodeId>, CompletableFuture<SwimMessage<NodeId>>>> probeRequestHandlers = new ConcurrentHashMap<>();
+
+  private FailureDetectionSimulation(int numNodes, boolean swim) {
+    this.numNodes = numNodes;
+    this.swim = swim;
+  }
+
+  private void run() throws Exception {
+    for (int i = 0; i < numNodes; i++) {
+      nodes.add(new NodeId("node-" + i));
+    }
+
+    NodeId failedNode = nodes.get(0);
+    List<FailureDetectionService<NodeId>> services = new ArrayList<>();
+    for (NodeId node : nodes) {
+      FailureDetectionService<NodeId> service = swim ? newSwimService(node) : newPhiService(node);
+      service.addListener(event -> {
+        if (event.newState() == FailureDetectionEvent.State.INACTIVE && !crashed.contains(node)) {
+          if (event.subject().equals(failedNode) && crashed.contains(failedNode)) {
+            detections.putIfAbsent(node, System.currentTimeMillis());
+          } else {
+            falsePositives.incrementAndGet();
+          }
+        }
+      });
+      services.add(service);
+    }
+
+    Thread.sleep(WARMUP_TIME.toMillis());
+    messages.set(0);
+    Thread.sleep(MEASURE_TIME.toMillis());
+    double messagesPerSecond = messages.get() * 1000.0 / MEASURE_TIME.toMillis();
+
+    long crashTime = System.currentTimeMillis();
+    crashed.add(failedNode);
+    while (detections.size() < numNodes - 1 && System.currentTimeMillis() - crashTime < DETECTION_TIMEOUT.toMillis()) {
+      Thread.sleep(10);
+    }
+
+    List<Long> times = new ArrayList<>();
+    detections.values().forEach(time -> times.add(time - crashTime));
+    Collections.sort(times);
+    System.out.println(String.format("%s: nodes=%d messages/sec=%.0f (%.1f per node) detected=%d/%d first=%dms median=%dms last=%dms falsePositives=%d",
+        swim ? "swim" : "phi",
+        numNodes,
+        messagesPerSecond,
+        messagesPerSecond / numNodes,
+        times.size(),
+        numNodes - 1,
+        times.isEmpty() ? -1 : times.get(0),
+        times.isEmpty() ? -1 : times.get(times.size() / 2),
+        times.isEmpty() ? -1 : times.get(times.size() - 1),
+        falsePositives.get()));
+
+    services.forEach(FailureDetectionService::close);
+    executor.shutdownNow();
+  }
+
+  private boolean reachable(NodeId source, NodeId target) {
+    return !crashed.contains(source) && !crashed.contains(target);
+  }
+
+  private FailureDetectionService<NodeId> newPhiService(NodeId node) {
+    return PhiAccrualFailureDetectionService.<NodeId>builder()
+        .withLocalNode(node)
+        .withPeerProvider(() -> nodes)
+        .withHeartbeatExecutor(executor)
+        .withProtocol(new FailureDetectionProtocol<NodeId>() {
+          @Override
+          public CompletableFuture<Void> heartbeat(NodeId peer, HeartbeatMessage<NodeId> message) {
+            messages.incrementAndGet();
+            Consumer<HeartbeatMessage<NodeId>> listener = heartbeatListeners.get(peer);
+            if (listener != null && reachable(node, peer)) {
+              executor.execute(() -> listener.accept(message));
+            }
+            return CompletableFuture.completedFuture(null);
+          }
+
+          @Override
+          public void registerHeartbeatListener(Consumer<HeartbeatMessage<NodeId>> listener) {
+            heartbeatListeners.put(node, listener);
+          }
+
+          @Override
+          public void unregisterHeartbeatListener() {
+            heartbeatListeners.remove(node);
+          }
+        })
+        .build();
+  }
+
+  private FailureDetectionService<NodeId> newSwimService(NodeId node) {
+    return SwimFailureDetectionService.<NodeId>builder()
+        .withLocalNode(node)
+        .withPeerProvider(() -> nodes)
+        .withProbeExecutor(executor)
+        .withProtocol(new SwimProtocol<NodeId>() {
+          @Override
+          public CompletableFuture<SwimMessage<NodeId>> probe(NodeId member, SwimMessage<NodeId> message) {
+            messages.incrementAndGet();
+            Function<SwimMessage<NodeId>, SwimMessage<NodeId>> handler = probeHandlers.get(member);
+            if (handler == null || !reachable(node, member)) {
+              return new CompletableFuture<>();
+            }
+            return CompletableFuture.supplyAsync(() -> {
+              messages.incrementAndGet();
+              return handler.apply(message);
+            }, executor);
+          }
+
+          @Override
+          public CompletableFuture<SwimMessage<NodeId>> probeRequest(NodeId member, ProbeRequestMessage<NodeId> message) {
+            messages.incrementAndGet();
+            Function<ProbeRequestMessage<NodeId>, CompletableFuture<SwimMessage<NodeId>>> handler = probeRequestHandlers.get(member);
+            if (handler == null || !reachable(node, member)) {
+              return new CompletableFuture<>();
+            }
+            return CompletableFuture.supplyAsync(() -> handler.apply(message), executor)
+                .thenCompose(future -> future)
+                .thenApply(ack -> {
+                  messages.incrementAndGet();
+                  return ack;
+                });
+          }
+
+          @Override
+          public void registerProbeHandler(Function<SwimMessage<NodeId>, SwimMessage<NodeId>> handler) {
+            probeHandlers.put(node, handler);
+          }
+
+          @Override
+          public void unregisterProbeHandler() {
+            probeHandlers.remove(node);
+          }
+
+          @Override
+          public void registerProbeRequestHandler(Function<ProbeRequestMessage<NodeId>, CompletableFuture<SwimMessage<NodeId>>> handler) {
+            probeRequestHandlers.put(node, handler);
+          }
+
+          @Override
+          public void unregisterProbeRequestHandler() {
+            probeRequestHandlers.remove(node);
+          }
+        })
+        .build();
+  }
+
+  /**
+   * Simulated node identifier.
+   */
+  private static class NodeId extends Identifier<String> {
+    NodeId(String id) {
+      super(id);
+    }
+  }
+}
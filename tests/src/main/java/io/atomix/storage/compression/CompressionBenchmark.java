@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.storage.compression;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compression codec throughput benchmark.
+ * <p>
+ * Measures compression and decompression throughput for each {@link CompressionCodec} on both compressible
+ * snapshot-like data and incompressible random data. The compressed size of each input is printed during setup
+ * so the ratio can be weighed against throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+  /**
+   * Runs the compression benchmark.
+   */
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+        .include(CompressionBenchmark.class.getSimpleName())
+        .build())
+        .run();
+  }
+
+  @Param({"LZ4", "DEFLATE"})
+  private CompressionCodec codec;
+
+  @Param({"compressible", "random"})
+  private String data;
+
+  @Param({"65536"})
+  private int size;
+
+  private byte[] bytes;
+  private byte[] block;
+
+  @Setup
+  public void setup() {
+    bytes = data.equals("random") ? randomBytes(size) : compressibleBytes(size);
+    block = codec.compress(bytes);
+    System.out.println(String.format("%s %s: %d bytes -> %d bytes (%.2f)",
+        codec, data, bytes.length, block.length, (double) block.length / bytes.length));
+  }
+
+  private static byte[] compressibleBytes(int size) {
+    StringBuilder builder = new StringBuilder();
+    Random random = new Random(1);
+    while (builder.length() < size) {
+      builder.append("{\"key\":\"key-").append(random.nextInt(10000))
+          .append("\",\"version\":").append(random.nextInt(1000000))
+          .append(",\"value\":\"value-").append(random.nextInt(100)).append("\"}");
+    }
+    return builder.substring(0, size).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] randomBytes(int size) {
+    byte[] bytes = new byte[size];
+    new Random(1).nextBytes(bytes);
+    return bytes;
+  }
+
+  @Benchmark
+  public byte[] compress() {
+    return codec.compress(bytes);
+  }
+
+  @Benchmark
+  public byte[] decompress() {
+    return codec.decompress(block);
+  }
+
+}